@@ -0,0 +1,32 @@
+#!/bin/sh
+# Builds the jlink runtime image (target/app) and adds an AppCDS archive to it, so the JDK, JavaFX and
+# app classes needed up to the first frame are mapped from disk instead of loaded and verified.
+#
+# Usage: ./appcds.sh          (from oops_app; needs a display for the training run)
+#        target/app/bin/oops_app
+#
+# The training run starts the app against an empty data directory, builds every screen and quits
+# (-Doops_app.trainingRun=true); the classes it loaded go into the archive. Rerun after changing the
+# code: an archive from another build is ignored at startup (-Xshare:auto), never wrong.
+set -e
+cd "$(dirname "$0")"
+
+IMAGE=target/app
+MAIN=com.example.oops_app/com.example.oops_app.SelfImprovementApp
+
+mvn -q -f ../pom.xml install -DskipTests
+mvn -q javafx:jlink
+
+DATA=$(mktemp -d)
+trap 'rm -rf "$DATA"' EXIT
+"$IMAGE/bin/java" -XX:DumpLoadedClassList=target/classes.lst -Doops_app.trainingRun=true \
+    -Doops_app.dataDir="$DATA" -m "$MAIN"
+"$IMAGE/bin/java" -Xshare:dump -XX:SharedClassListFile=target/classes.lst -XX:SharedArchiveFile="$IMAGE/lib/app.jsa"
+
+cat > "$IMAGE/bin/oops_app" <<LAUNCHER
+#!/bin/sh
+DIR=\`dirname \$0\`
+exec "\$DIR/java" -XX:SharedArchiveFile="\$DIR/../lib/app.jsa" -Xshare:auto -m $MAIN "\$@"
+LAUNCHER
+chmod +x "$IMAGE/bin/oops_app"
+echo "Image: $IMAGE (start with $IMAGE/bin/oops_app)"
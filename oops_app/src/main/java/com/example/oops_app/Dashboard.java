@@ -0,0 +1,190 @@
+package com.example.oops_app;
+
+import com.example.oops_core.planner.PlannerEvent;
+import com.example.oops_core.planner.Schedule;
+import com.example.oops_core.profile.Profile;
+import com.example.oops_core.reminder.Reminder;
+import com.example.oops_core.reminder.ReminderScheduler;
+import com.example.oops_core.sleep.SleepHistory;
+import javafx.application.Platform;
+import javafx.scene.control.Label;
+import javafx.scene.layout.GridPane;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Today at a glance on the main menu: calories, last night's sleep, water and the planner.
+//
+// Trackers call changed(Tile) after changing something. That only sets the tile's bit in `dirty`; the
+// tiles are recomputed from a pre-layout pulse listener on the main menu's scene, so a burst of
+// changes (an import adding thousands of entries) costs one recompute of each tile it touched, in the
+// next pulse. While another screen is showing nothing is recomputed; the bits wait for the menu.
+// Midnight and the start and end of planner events make the affected tiles dirty on their own.
+// FX thread only, apart from changed() and water().
+final class Dashboard implements Schedule.Listener {
+
+    enum Tile { CALORIES, SLEEP, WATER, PLANNER }
+
+    private static final int ALL = (1 << Tile.values().length) - 1;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final ReminderScheduler scheduler;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final GridPane node = new GridPane();
+    private final Label[] values = new Label[Tile.values().length];
+    private final AtomicInteger dirty = new AtomicInteger(ALL);
+    private final Runnable recompute = this::recompute;
+    private Profile member;
+    private Reminder expiry;
+    private LocalDate day;
+
+    // Water is not stored anywhere: the running total of the last Water Reminder session
+    private volatile double waterLiters;
+    private volatile double waterGoalLiters;
+
+    Dashboard(ReminderScheduler scheduler) {
+        this.scheduler = scheduler;
+        String[] names = {"Calories today", "Last night", "Water", "Planner today"};
+        node.setHgap(12);
+        node.setVgap(4);
+        node.setStyle("-fx-alignment: center; -fx-padding: 8; -fx-border-color: lightgray; -fx-border-radius: 4;");
+        for (Tile tile : Tile.values()) {
+            Label name = new Label(names[tile.ordinal()] + ":");
+            name.setStyle("-fx-font-weight: bold;");
+            values[tile.ordinal()] = new Label("-");
+            node.addRow(tile.ordinal(), name, values[tile.ordinal()]);
+        }
+        // The listener follows the node to whichever scene shows it
+        node.sceneProperty().addListener((obs, oldScene, scene) -> {
+            if (oldScene != null) {
+                oldScene.removePreLayoutPulseListener(recompute);
+            }
+            if (scene != null) {
+                scene.addPreLayoutPulseListener(recompute);
+            }
+        });
+    }
+
+    GridPane node() {
+        return node;
+    }
+
+    // Shows another member's numbers; the water session belongs to the previous one
+    void setMember(Profile next) {
+        if (member != null) {
+            member.schedule().removeListener(this);
+        }
+        member = next;
+        member.schedule().addListener(this);
+        waterLiters = 0;
+        waterGoalLiters = 0;
+        changed(ALL);
+    }
+
+    void changed(Tile tile) {
+        changed(1 << tile.ordinal());
+    }
+
+    void water(double liters, double goalLiters) {
+        waterLiters = liters;
+        waterGoalLiters = goalLiters;
+        changed(Tile.WATER);
+    }
+
+    @Override
+    public void eventPut(PlannerEvent event) {
+        changed(Tile.PLANNER);
+    }
+
+    @Override
+    public void eventRemoved(PlannerEvent event) {
+        changed(Tile.PLANNER);
+    }
+
+    @Override
+    public void cleared() {
+        changed(Tile.PLANNER);
+    }
+
+    // Safe from any thread. Only the change that finds no bit set asks for a pulse; later ones ride on it.
+    private void changed(int tiles) {
+        if (dirty.getAndUpdate(bits -> bits | tiles) == 0) {
+            if (Platform.isFxApplicationThread()) {
+                Platform.requestNextPulse();
+            } else {
+                Platform.runLater(Platform::requestNextPulse);
+            }
+        }
+    }
+
+    private void recompute() {
+        if (dirty.get() == 0 || member == null) {
+            return;
+        }
+        int tiles = dirty.getAndSet(0);
+        LocalDate today = LocalDate.now(zone);
+        if (!today.equals(day)) {
+            day = today;
+            tiles = ALL;
+        }
+        if ((tiles & 1 << Tile.CALORIES.ordinal()) != 0) {
+            values[Tile.CALORIES.ordinal()].setText(String.format("%.0f kcal", member.nutritionRollup().total(today)));
+        }
+        if ((tiles & 1 << Tile.SLEEP.ordinal()) != 0) {
+            values[Tile.SLEEP.ordinal()].setText(describeSleep(member.sleepHistory()));
+        }
+        if ((tiles & 1 << Tile.WATER.ordinal()) != 0) {
+            double goal = waterGoalLiters;
+            values[Tile.WATER.ordinal()].setText(goal <= 0 ? "not tracked yet"
+                    : String.format("%.2f of %.2f L", waterLiters, goal));
+        }
+        if ((tiles & 1 << Tile.PLANNER.ordinal()) != 0) {
+            values[Tile.PLANNER.ordinal()].setText(describePlanner(today));
+        }
+    }
+
+    private static String describeSleep(SleepHistory history) {
+        LocalDate last = history.lastNight();
+        if (last == null) {
+            return "not logged";
+        }
+        return String.format("%.1f h%s, debt %.1f h", history.night(last) / 60.0,
+                last.equals(LocalDate.now()) ? "" : " (" + last + ")", history.debtMinutes() / 60.0);
+    }
+
+    // Events left today and the minutes they book; the tile goes stale when the next one starts or ends
+    // (or at midnight), so a reminder marks it dirty then
+    private String describePlanner(LocalDate today) {
+        long now = PlannerEvent.toMinute(LocalDateTime.now(zone));
+        long midnight = PlannerEvent.toMinute(today.plusDays(1).atStartOfDay());
+        List<Schedule.Occurrence> occurrences = member.schedule().between(now, midnight);
+        long booked = 0;
+        long staleAt = midnight;
+        Schedule.Occurrence next = null;
+        for (Schedule.Occurrence occurrence : occurrences) {
+            booked += Math.min(occurrence.endMinute(), midnight) - Math.max(occurrence.startMinute(), now);
+            staleAt = Math.min(staleAt, occurrence.startMinute() > now ? occurrence.startMinute() : occurrence.endMinute());
+            if (next == null && occurrence.startMinute() >= now) {
+                next = occurrence;
+            }
+        }
+        if (expiry != null) {
+            expiry.cancel();
+        }
+        long delayMillis = PlannerEvent.toDateTime(staleAt).atZone(zone).toInstant().toEpochMilli() - System.currentTimeMillis();
+        expiry = scheduler.schedule(Math.max(0, delayMillis), TimeUnit.MILLISECONDS, () -> changed(Tile.PLANNER));
+
+        if (occurrences.isEmpty()) {
+            return "nothing left";
+        }
+        String text = String.format("%d event%s, %d h %02d min booked", occurrences.size(),
+                occurrences.size() == 1 ? "" : "s", booked / 60, booked % 60);
+        return next == null ? text : text + "; next " + PlannerEvent.toDateTime(next.startMinute()).format(TIME_FORMAT)
+                + " " + next.event().title();
+    }
+}
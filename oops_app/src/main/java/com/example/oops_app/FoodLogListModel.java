@@ -0,0 +1,197 @@
+package com.example.oops_app;
+
+import com.example.oops_core.calorie.FoodLog;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.util.Callback;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+
+// ListView items over a FoodLog: each item is a row index, so the list holds no strings.
+//
+// The visible order (newest/oldest first, highest calories) and the food-name filter are kept as an
+// int[] of row indexes. Adding an entry fires a single-row add change, so the ListView only lays out
+// the cells that are on screen; text is built in FoodLogCell when a cell shows a row.
+final class FoodLogListModel extends ObservableListBase<Integer> {
+
+    enum Order {
+        NEWEST_FIRST("Newest first"),
+        OLDEST_FIRST("Oldest first"),
+        MOST_CALORIES("Most calories");
+
+        private final String label;
+
+        Order(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private final FoodLog log;
+    private final ReadOnlyDoubleWrapper totalCalories = new ReadOnlyDoubleWrapper();
+    private Order order = Order.NEWEST_FIRST;
+    private String filter = "";
+    private int[] view = new int[0];
+    private int viewSize;
+
+    FoodLogListModel(FoodLog log) {
+        this.log = log;
+        rebuild();
+    }
+
+    ReadOnlyDoubleProperty totalCaloriesProperty() {
+        return totalCalories.getReadOnlyProperty();
+    }
+
+    // Call after the row was appended to the FoodLog
+    void rowAdded(int row) {
+        totalCalories.set(log.totalCalories());
+        if (!matches(row)) {
+            return;
+        }
+        int position = switch (order) {
+            case OLDEST_FIRST -> viewSize;
+            case NEWEST_FIRST -> 0;
+            case MOST_CALORIES -> insertionPoint(log.calories(row));
+        };
+        if (viewSize == view.length) {
+            view = Arrays.copyOf(view, Math.max(16, viewSize * 2));
+        }
+        System.arraycopy(view, position, view, position + 1, viewSize - position);
+        view[position] = row;
+        viewSize++;
+
+        beginChange();
+        nextAdd(position, position + 1);
+        endChange();
+    }
+
+    // The whole log was replaced or reloaded
+    void refresh() {
+        rebuild();
+    }
+
+    void setOrder(Order order) {
+        this.order = order;
+        rebuild();
+    }
+
+    void setFilter(String text) {
+        filter = text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+        rebuild();
+    }
+
+    @Override
+    public Integer get(int index) {
+        if (index < 0 || index >= viewSize) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return view[index];
+    }
+
+    @Override
+    public int size() {
+        return viewSize;
+    }
+
+    private boolean matches(int row) {
+        return filter.isEmpty() || log.food(row).contains(filter);
+    }
+
+    // Binary search for the first position whose calories are lower (view sorted descending)
+    private int insertionPoint(double kcal) {
+        int low = 0;
+        int high = viewSize;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (log.calories(view[mid]) >= kcal) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void rebuild() {
+        int oldSize = viewSize;
+        int[] rows = new int[log.size()];
+        int n = 0;
+        // Food filter is checked once per distinct food, not once per row
+        boolean[] foodMatches = new boolean[log.foodCount()];
+        for (int id = 0; id < foodMatches.length; id++) {
+            foodMatches[id] = filter.isEmpty() || log.foodName(id).contains(filter);
+        }
+        for (int row = 0; row < log.size(); row++) {
+            if (foodMatches[log.foodId(row)]) {
+                rows[n++] = row;
+            }
+        }
+        switch (order) {
+            case OLDEST_FIRST -> { }
+            case NEWEST_FIRST -> {
+                for (int i = 0, j = n - 1; i < j; i++, j--) {
+                    int tmp = rows[i];
+                    rows[i] = rows[j];
+                    rows[j] = tmp;
+                }
+            }
+            case MOST_CALORIES -> {
+                Integer[] boxed = new Integer[n];
+                for (int i = 0; i < n; i++) {
+                    boxed[i] = rows[i];
+                }
+                Arrays.sort(boxed, (a, b) -> Double.compare(log.calories(b), log.calories(a)));
+                for (int i = 0; i < n; i++) {
+                    rows[i] = boxed[i];
+                }
+            }
+        }
+        view = rows;
+        viewSize = n;
+        totalCalories.set(log.totalCalories());
+
+        beginChange();
+        if (oldSize > 0) {
+            nextRemove(0, Collections.nCopies(oldSize, (Integer) null));
+        }
+        if (n > 0) {
+            nextAdd(0, n);
+        }
+        endChange();
+    }
+
+    static Callback<ListView<Integer>, ListCell<Integer>> cellFactory(FoodLog log) {
+        return listView -> new FoodLogCell(log);
+    }
+
+    // Formats a row only while it is visible
+    private static final class FoodLogCell extends ListCell<Integer> {
+        private final FoodLog log;
+
+        FoodLogCell(FoodLog log) {
+            this.log = log;
+        }
+
+        @Override
+        protected void updateItem(Integer row, boolean empty) {
+            super.updateItem(row, empty);
+            if (empty || row == null) {
+                setText(null);
+            } else if (log.manual(row)) {
+                setText(log.food(row) + " (Unknown quantity): " + log.calories(row) + " kcal");
+            } else {
+                setText(log.food(row) + " (" + log.quantity(row) + " units): " + log.calories(row) + " kcal");
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.oops_app;
+
+import com.example.oops_core.planner.PlannerEvent;
+import com.example.oops_core.planner.Schedule;
+import com.example.oops_core.reminder.Reminder;
+import com.example.oops_core.reminder.ReminderScheduler;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Fires a notice when a planner event starts.
+//
+// Only occurrences within ARM_AHEAD_MINUTES are armed on the shared ReminderScheduler; the window is
+// rolled forward every half window. Schedule changes re-arm just the event that changed. Listener
+// callbacks and re-arming run on the FX thread (the Schedule's owner); fired reminders come back to
+// it through UiUpdates.
+final class PlannerReminders implements Schedule.Listener {
+
+    static final long ARM_AHEAD_MINUTES = 24 * 60;
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final Schedule schedule;
+    private final ReminderScheduler scheduler;
+    private final UiUpdates ui;
+    private final Consumer<String> notice;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Map<Long, List<Reminder>> armed = new HashMap<>();
+    private Reminder rollover;
+    private long windowEnd;
+    // Set by stop(); a rollover already posted to the FX thread checks it before re-arming
+    private boolean stopped;
+
+    PlannerReminders(Schedule schedule, ReminderScheduler scheduler, UiUpdates ui, Consumer<String> notice) {
+        this.schedule = schedule;
+        this.scheduler = scheduler;
+        this.ui = ui;
+        this.notice = notice;
+    }
+
+    void start() {
+        stopped = false;
+        schedule.addListener(this);
+        armAll();
+    }
+
+    void stop() {
+        stopped = true;
+        schedule.removeListener(this);
+        disarmAll();
+        if (rollover != null) {
+            rollover.cancel();
+        }
+    }
+
+    @Override
+    public void eventPut(PlannerEvent event) {
+        disarm(event.id());
+        arm(event, nowMinute(), windowEnd);
+    }
+
+    @Override
+    public void eventRemoved(PlannerEvent event) {
+        disarm(event.id());
+    }
+
+    @Override
+    public void cleared() {
+        disarmAll();
+    }
+
+    private void armAll() {
+        if (stopped) {
+            return;
+        }
+        disarmAll();
+        long now = nowMinute();
+        windowEnd = now + ARM_AHEAD_MINUTES;
+        for (PlannerEvent event : schedule.all()) {
+            arm(event, now, windowEnd);
+        }
+        if (rollover != null) {
+            rollover.cancel();
+        }
+        rollover = scheduler.schedule(ARM_AHEAD_MINUTES / 2, TimeUnit.MINUTES, () -> ui.post(this, this::armAll));
+    }
+
+    private void arm(PlannerEvent event, long from, long to) {
+        // Occurrences that start in [from, to); one-off events use the same path as recurring ones
+        List<Reminder> reminders = new ArrayList<>();
+        if (event.recurring()) {
+            event.recurrence().occurrencesOverlapping(event.startMinute(), event.durationMinutes(), from, to, start -> {
+                if (start >= from) {
+                    reminders.add(remindAt(event, start));
+                }
+            });
+        } else if (event.startMinute() >= from && event.startMinute() < to) {
+            reminders.add(remindAt(event, event.startMinute()));
+        }
+        if (!reminders.isEmpty()) {
+            armed.put(event.id(), reminders);
+        }
+    }
+
+    private Reminder remindAt(PlannerEvent event, long startMinute) {
+        LocalDateTime start = PlannerEvent.toDateTime(startMinute);
+        long delayMillis = start.atZone(zone).toInstant().toEpochMilli() - System.currentTimeMillis();
+        String text = "Starting now: " + event.title() + " (" + start.format(TIME_FORMAT) + ")";
+        return scheduler.schedule(delayMillis, TimeUnit.MILLISECONDS, () -> ui.post(notice, () -> notice.accept(text)));
+    }
+
+    private void disarm(long eventId) {
+        List<Reminder> reminders = armed.remove(eventId);
+        if (reminders != null) {
+            for (Reminder reminder : reminders) {
+                reminder.cancel();
+            }
+        }
+    }
+
+    private void disarmAll() {
+        for (List<Reminder> reminders : armed.values()) {
+            for (Reminder reminder : reminders) {
+                reminder.cancel();
+            }
+        }
+        armed.clear();
+    }
+
+    private long nowMinute() {
+        return PlannerEvent.toMinute(LocalDateTime.now(zone));
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.oops_app;
+
+// A multi-step interaction driven by SessionEngine: each answer produces the next prompt, or null when done.
+//
+// Callbacks run on the FX thread as ordinary events, so a session never blocks the thread that called
+// start() and several sessions can be in progress at once.
+abstract class PromptSession {
+
+    // What to ask next. Messages are shown with an OK button only; their answer is null.
+    record Prompt(String title, String header, String content, boolean message) {
+
+        static Prompt input(String title, String header, String content) {
+            return new Prompt(title, header, content, false);
+        }
+
+        static Prompt message(String header, String content) {
+            return new Prompt(null, header, content, true);
+        }
+    }
+
+    // First prompt, or null if there is nothing to ask
+    abstract Prompt start();
+
+    // Handles an answer (null after a message) and returns the next prompt, or null to finish
+    abstract Prompt onAnswer(String answer);
+
+    // The user closed or cancelled the dialog; by default the session simply ends
+    Prompt onCancel() {
+        return null;
+    }
+
+    // Called once when the session ends, however it ended
+    void onFinished() {
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.oops_app;
+
+// Every screen the app can navigate to, with the window size it is shown at
+enum Screen {
+    MAIN_MENU(420, 880),
+    CALORIE_COUNTER(420, 940),
+    BRAIN_TRAINER(400, 600),
+    EQUATION_GAME(400, 600),
+    MEMORY_GAME(400, 600),
+    HEALTH_CALCULATOR(400, 600),
+    SLEEP_TRACKER(400, 600),
+    WATER_REMINDER(400, 600),
+    WORKOUT_PLANNER(400, 600),
+    DAILY_PLANNER(900, 650),
+    DIAGNOSTICS(500, 700);
+
+    final double width;
+    final double height;
+
+    Screen(double width, double height) {
+        this.width = width;
+        this.height = height;
+    }
+}
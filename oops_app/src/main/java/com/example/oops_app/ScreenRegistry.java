@@ -0,0 +1,206 @@
+package com.example.oops_app;
+
+import com.example.oops_app.diagnostics.Diagnostics;
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.event.EventTarget;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.ComboBoxBase;
+import javafx.scene.control.Labeled;
+import javafx.scene.control.TextInputControl;
+import javafx.stage.Stage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+// Builds each screen once and keeps its Scene, so navigating back and forth never rebuilds a layout
+// and every screen keeps what was typed into it.
+//
+// Screens are built lazily on first visit, or ahead of time by prewarm(), which builds one screen per
+// FX pulse so the main menu stays responsive. (The builders read FX-owned state such as the planner
+// schedule, so they run on the FX thread rather than a background one.)
+// Each navigation logs the time from the click to the end of the first layout pass of the new scene.
+//
+// Every scene it creates reports to Diagnostics: how long it took to build, the CSS + layout part of
+// each pulse, and each action handler (timed from a scene event filter, before the control's own
+// handler, to a scene event handler, after it).
+final class ScreenRegistry {
+
+    private static final System.Logger LOG = System.getLogger(ScreenRegistry.class.getName());
+
+    private final Stage stage;
+    private final Diagnostics diagnostics;
+    private final Map<Screen, Supplier<Parent>> factories = new EnumMap<>(Screen.class);
+    private final Map<Screen, Scene> scenes = new EnumMap<>(Screen.class);
+    private Screen current;
+
+    // An action being handled: its target, when it started and its JFR event
+    private record Action(EventTarget target, long started, Diagnostics.HandlerEvent event) {
+    }
+
+    ScreenRegistry(Stage stage, Diagnostics diagnostics) {
+        this.stage = stage;
+        this.diagnostics = diagnostics;
+    }
+
+    void register(Screen screen, Supplier<Parent> factory) {
+        factories.put(screen, factory);
+    }
+
+    void show(Screen screen) {
+        long started = System.nanoTime();
+        Diagnostics.NavigationEvent event = new Diagnostics.NavigationEvent();
+        event.begin();
+        boolean cached = scenes.containsKey(screen);
+        Scene scene = scene(screen);
+        long built = System.nanoTime();
+        stage.setScene(scene);
+        current = screen;
+
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this);
+                event.screen = screen.name();
+                event.cached = cached;
+                diagnostics.navigation(event, System.nanoTime() - started);
+                LOG.log(System.Logger.Level.INFO, "Navigated to {0} in {1} ms ({2}, build {3} ms)",
+                        screen, String.format("%.2f", (System.nanoTime() - started) / 1e6),
+                        cached ? "cached" : "built", String.format("%.2f", (built - started) / 1e6));
+            }
+        });
+    }
+
+    Screen current() {
+        return current;
+    }
+
+    // Builds the given screens that are not cached yet, one per pulse; completes on the FX thread after the last
+    CompletableFuture<Void> prewarm(Screen... screens) {
+        Deque<Screen> queue = new ArrayDeque<>();
+        for (Screen screen : screens) {
+            if (!scenes.containsKey(screen)) {
+                queue.add(screen);
+            }
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        prewarmNext(queue, done);
+        return done;
+    }
+
+    // A new layout for the screen, bypassing the cache (the screen benchmarks time this)
+    Parent build(Screen screen) {
+        Supplier<Parent> factory = factories.get(screen);
+        if (factory == null) {
+            throw new IllegalStateException("No screen registered for " + screen);
+        }
+        return factory.get();
+    }
+
+    // Drops a cached screen so the next visit rebuilds it
+    void invalidate(Screen screen) {
+        if (screen != current) {
+            scenes.remove(screen);
+        }
+    }
+
+    // Like invalidate, but a screen that is showing is rebuilt and shown again right away (its data changed
+    // underneath it, e.g. a sync accepted while it was open)
+    void refresh(Screen screen) {
+        scenes.remove(screen);
+        if (screen == current) {
+            show(screen);
+        }
+    }
+
+    private void prewarmNext(Deque<Screen> queue, CompletableFuture<Void> done) {
+        Screen next = queue.poll();
+        if (next == null) {
+            done.complete(null);
+            return;
+        }
+        Platform.runLater(() -> {
+            long started = System.nanoTime();
+            scene(next);
+            LOG.log(System.Logger.Level.DEBUG, "Prewarmed {0} in {1} ms", next,
+                    String.format("%.2f", (System.nanoTime() - started) / 1e6));
+            prewarmNext(queue, done);
+        });
+    }
+
+    private Scene scene(Screen screen) {
+        Scene scene = scenes.get(screen);
+        if (scene == null) {
+            long started = System.nanoTime();
+            Diagnostics.SceneBuildEvent event = new Diagnostics.SceneBuildEvent();
+            event.begin();
+            scene = new Scene(build(screen), screen.width, screen.height);
+            event.screen = screen.name();
+            diagnostics.sceneBuilt(event, System.nanoTime() - started);
+            instrument(screen, scene);
+            scenes.put(screen, scene);
+        }
+        return scene;
+    }
+
+    private void instrument(Screen screen, Scene scene) {
+        // Actions can nest (a handler firing another control), so they are kept as a stack
+        List<Action> actions = new ArrayList<>();
+        scene.addEventFilter(ActionEvent.ACTION, e -> {
+            Diagnostics.HandlerEvent event = new Diagnostics.HandlerEvent();
+            event.begin();
+            actions.add(new Action(e.getTarget(), System.nanoTime(), event));
+        });
+        scene.addEventHandler(ActionEvent.ACTION, e -> {
+            // Entries above the match belong to actions consumed before they bubbled up; they are dropped
+            for (int i = actions.size() - 1; i >= 0; i--) {
+                Action action = actions.get(i);
+                if (action.target() == e.getTarget()) {
+                    actions.subList(i, actions.size()).clear();
+                    action.event().screen = screen.name();
+                    action.event().handler = describe(action.target());
+                    diagnostics.handler(action.event(), System.nanoTime() - action.started());
+                    return;
+                }
+            }
+        });
+
+        long[] pulseStarted = {0};
+        Diagnostics.PulseEvent[] pulse = {null};
+        scene.addPreLayoutPulseListener(() -> {
+            pulse[0] = new Diagnostics.PulseEvent();
+            pulse[0].begin();
+            pulseStarted[0] = System.nanoTime();
+        });
+        scene.addPostLayoutPulseListener(() -> {
+            if (pulse[0] != null) {
+                pulse[0].screen = screen.name();
+                diagnostics.pulse(pulse[0], System.nanoTime() - pulseStarted[0]);
+                pulse[0] = null;
+            }
+        });
+    }
+
+    // A readable name for the control that fired an action: its text, else its prompt, else its type
+    static String describe(EventTarget target) {
+        String text = null;
+        if (target instanceof Labeled labeled) {
+            text = labeled.getText();
+        } else if (target instanceof TextInputControl field) {
+            text = field.getPromptText();
+        } else if (target instanceof ComboBoxBase<?> comboBox) {
+            text = comboBox.getPromptText();
+        }
+        if (text == null || text.isBlank()) {
+            return target.getClass().getSimpleName();
+        }
+        return text.length() > 40 ? text.substring(0, 40) + "..." : text;
+    }
+}
@@ -1,28 +1,118 @@
 package com.example.oops_app;
 
+import com.example.oops_app.diagnostics.Diagnostics;
+import com.example.oops_app.diagnostics.LatencyHistogram;
+import com.example.oops_core.backup.Backup;
+import com.example.oops_core.brain.AdaptiveDifficulty;
+import com.example.oops_core.brain.EquationGenerator;
+import com.example.oops_core.brain.TrialHistory;
+import com.example.oops_core.calorie.CalorieEntry;
+import com.example.oops_core.calorie.CalorieJournal;
+import com.example.oops_core.calorie.DiaryImport;
+import com.example.oops_core.calorie.FoodLog;
+import com.example.oops_core.calorie.NutritionRollup;
+import com.example.oops_core.food.FoodCatalog;
+import com.example.oops_core.food.Nutrient;
+import com.example.oops_core.food.RecipeBook;
+import com.example.oops_core.health.HealthMath;
+import com.example.oops_core.planner.IcsCalendar;
+import com.example.oops_core.planner.PlannerEvent;
+import com.example.oops_core.planner.Recurrence;
+import com.example.oops_core.planner.Schedule;
+import com.example.oops_core.profile.Profile;
+import com.example.oops_core.profile.ProfileStore;
+import com.example.oops_core.service.HealthServer;
+import com.example.oops_core.reminder.Reminder;
+import com.example.oops_core.reminder.ReminderScheduler;
+import com.example.oops_core.search.MemberSearch;
+import com.example.oops_core.sleep.SleepHistory;
+import com.example.oops_core.sleep.WearableImport;
+import com.example.oops_core.storage.AppData;
+import com.example.oops_core.sync.FolderTransport;
+import com.example.oops_core.sync.SocketTransport;
+import com.example.oops_core.sync.SyncAgent;
+import com.example.oops_core.sync.SyncServer;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.geometry.Insets;
+import javafx.geometry.Side;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.TextFieldTableCell;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.*;
+import javafx.stage.DirectoryChooser;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class SelfImprovementApp extends Application {
 
-    // Shared timetable data structure for persistence
-    private final String[][] timeTable = new String[9][8];
+    private static final System.Logger LOG = System.getLogger(SelfImprovementApp.class.getName());
+
+    // -Doops_app.trainingRun=true quits once every screen is built; appcds.sh records the AppCDS class list
+    // from such a run
+    static final String TRAINING_RUN_PROPERTY = "oops_app.trainingRun";
+
+    private ScreenRegistry screens;
+
+    // FX-thread latency: JFR events plus the histograms behind the diagnostics screen (Ctrl+Shift+D)
+    private final Diagnostics diagnostics = new Diagnostics();
+    private Reminder diagnosticsRefresh;
+
+    // Equation Game problems, pre-generated per difficulty tier
+    private final EquationGenerator equations = new EquationGenerator();
+
+    // Multi-step dialogs (trackers and games) run here without blocking the FX thread
+    private SessionEngine sessions;
+
+    // One thread for all timed reminders; what they change on screen goes through uiUpdates
+    private final ReminderScheduler reminders = new ReminderScheduler();
+    private final UiUpdates uiUpdates = new UiUpdates();
+    private PlannerReminders plannerReminders;
+
+    // Today's numbers on the main menu, recomputed at most once per pulse from what the trackers changed
+    private Dashboard dashboard;
+
+    // Member profiles (planner and calorie log per member); `profile` is the one on screen
+    private ProfileStore profiles;
+    private CompletableFuture<Profile> profile;
+
+    // Running while "Accept Sync" is on: other installs sync with this one over loopback
+    private SyncServer syncServer;
 
     @Override
     public void start(Stage primaryStage) {
         primaryStage.setTitle("Self-Improvement App");
 
-        // Initialize the timetable with default values
-        initializeTimeTable();
-
         // Main Menu UI
         VBox mainMenu = new VBox(10);
         mainMenu.setPadding(new Insets(20));
@@ -31,6 +121,56 @@ public class SelfImprovementApp extends Application {
         Label titleLabel = new Label("Welcome to the Self-Improvement App!");
         titleLabel.setStyle("-fx-font-size: 18; -fx-font-weight: bold;");
 
+        // Planner events starting now are announced here
+        Label reminderLabel = new Label();
+        reminderLabel.setWrapText(true);
+
+        // Member login for shared installs
+        Label memberLabel = new Label("Signed in as " + ProfileStore.DEFAULT_ID);
+        ComboBox<String> memberChoice = new ComboBox<>();
+        memberChoice.setEditable(true);
+        memberChoice.setPromptText("Member ID");
+        try {
+            memberChoice.getItems().setAll(profiles.members());
+        } catch (IOException ex) {
+            memberLabel.setText("Could not list members: " + ex.getMessage());
+        }
+        Button switchMemberButton = new Button("Switch Member");
+        HBox memberRow = new HBox(10, memberChoice, switchMemberButton);
+        memberRow.setStyle("-fx-alignment: center;");
+
+        dashboard = new Dashboard(reminders);
+
+        // Global search over the member's food log, planner and workouts; a result opens its screen
+        TextField searchField = new TextField();
+        searchField.setPromptText("Search food log, planner and workouts");
+        ListView<MemberSearch.Result> searchResults = new ListView<>();
+        searchResults.setPrefHeight(120);
+        searchResults.visibleProperty().bind(Bindings.isNotEmpty(searchResults.getItems()));
+        searchResults.managedProperty().bind(searchResults.visibleProperty());
+        searchResults.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(MemberSearch.Result result, boolean empty) {
+                super.updateItem(result, empty);
+                Profile member = profile.getNow(null);
+                setText(empty || result == null || member == null ? null : describeSearchResult(member, result));
+            }
+        });
+        searchField.textProperty().addListener((obs, oldText, text) -> {
+            Profile member = profile.getNow(null);
+            searchResults.getItems().setAll(member == null ? List.of() : member.search().search(text, SEARCH_RESULTS));
+        });
+        searchResults.setOnMouseClicked(e -> {
+            MemberSearch.Result result = searchResults.getSelectionModel().getSelectedItem();
+            if (result != null) {
+                screens.show(switch (result.kind()) {
+                    case FOOD -> Screen.CALORIE_COUNTER;
+                    case PLANNER -> Screen.DAILY_PLANNER;
+                    case WORKOUT -> Screen.WORKOUT_PLANNER;
+                });
+            }
+        });
+
         Button calorieCounterButton = new Button("Calorie Counter");
         Button brainTrainerButton = new Button("Brain Trainer");
         Button healthCalculatorButton = new Button("Health Calculator");
@@ -40,8 +180,32 @@ public class SelfImprovementApp extends Application {
         Button dailyPlannerButton = new Button("Daily Planner");
         Button exitButton = new Button("Exit");
 
+        // Every member's data in one archive, and back
+        Button exportBackupButton = new Button("Export Backup");
+        Button restoreBackupButton = new Button("Restore Backup");
+        HBox backupRow = new HBox(10, exportBackupButton, restoreBackupButton);
+        backupRow.setStyle("-fx-alignment: center;");
+        Label backupLabel = new Label();
+        backupLabel.setWrapText(true);
+
+        // The member's planner and calorie log with their other installs: a shared folder or a running install
+        TextField syncField = new TextField();
+        syncField.setPromptText("Shared folder or host:port");
+        Button syncButton = new Button("Sync Now");
+        ToggleButton acceptSyncButton = new ToggleButton("Accept Sync");
+        HBox syncRow = new HBox(10, syncField, syncButton, acceptSyncButton);
+        syncRow.setStyle("-fx-alignment: center;");
+        Label syncLabel = new Label();
+        syncLabel.setWrapText(true);
+
         mainMenu.getChildren().addAll(
                 titleLabel,
+                memberLabel,
+                memberRow,
+                dashboard.node(),
+                searchField,
+                searchResults,
+                reminderLabel,
                 calorieCounterButton,
                 brainTrainerButton,
                 healthCalculatorButton,
@@ -49,37 +213,507 @@ public class SelfImprovementApp extends Application {
                 waterReminderButton,
                 workoutPlannerButton,
                 dailyPlannerButton,
+                backupRow,
+                backupLabel,
+                syncRow,
+                syncLabel,
                 exitButton
         );
 
+        // Every screen is built once (on first visit or by prewarm) and then reused
+        screens = new ScreenRegistry(primaryStage, diagnostics);
+        sessions = new SessionEngine(primaryStage, diagnostics);
+        screens.register(Screen.MAIN_MENU, () -> mainMenu);
+        screens.register(Screen.CALORIE_COUNTER, this::buildCalorieCounter);
+        screens.register(Screen.BRAIN_TRAINER, this::buildBrainTrainer);
+        screens.register(Screen.EQUATION_GAME, this::buildEquationGame);
+        screens.register(Screen.MEMORY_GAME, this::buildMemoryGame);
+        screens.register(Screen.HEALTH_CALCULATOR, this::buildHealthCalculator);
+        screens.register(Screen.SLEEP_TRACKER, this::buildSleepTracker);
+        screens.register(Screen.WATER_REMINDER, this::buildWaterReminder);
+        screens.register(Screen.WORKOUT_PLANNER, this::buildWorkoutPlanner);
+        screens.register(Screen.DAILY_PLANNER, this::buildDailyPlanner);
+        screens.register(Screen.DIAGNOSTICS, this::buildDiagnostics);
+
         // Main Scene
-        Scene mainScene = new Scene(mainMenu, 400, 500);
-        primaryStage.setScene(mainScene);
+        screens.show(Screen.MAIN_MENU);
+        logStartupTime(primaryStage.getScene());
+        primaryStage.getScene().getAccelerators().put(KeyCombination.keyCombination("Shortcut+Shift+D"),
+                () -> screens.show(Screen.DIAGNOSTICS));
         primaryStage.show();
 
         // Set up feature navigation
-        calorieCounterButton.setOnAction(e -> showCalorieCounter(primaryStage, mainScene));
-        brainTrainerButton.setOnAction(e -> showBrainTrainer(primaryStage, mainScene));
-        healthCalculatorButton.setOnAction(e -> showHealthCalculator(primaryStage, mainScene));
-        sleepTrackerButton.setOnAction(e -> showSleepTracker(primaryStage, mainScene));
-        waterReminderButton.setOnAction(e -> showWaterReminder(primaryStage, mainScene));
-        workoutPlannerButton.setOnAction(e -> showWorkoutPlanner(primaryStage, mainScene));
-        dailyPlannerButton.setOnAction(e -> showDailyPlanner(primaryStage, mainScene));
+        calorieCounterButton.setOnAction(e -> showMemberScreen(Screen.CALORIE_COUNTER));
+        brainTrainerButton.setOnAction(e -> screens.show(Screen.BRAIN_TRAINER));
+        healthCalculatorButton.setOnAction(e -> screens.show(Screen.HEALTH_CALCULATOR));
+        sleepTrackerButton.setOnAction(e -> showMemberScreen(Screen.SLEEP_TRACKER));
+        waterReminderButton.setOnAction(e -> screens.show(Screen.WATER_REMINDER));
+        workoutPlannerButton.setOnAction(e -> screens.show(Screen.WORKOUT_PLANNER));
+        dailyPlannerButton.setOnAction(e -> showMemberScreen(Screen.DAILY_PLANNER));
         exitButton.setOnAction(e -> primaryStage.close());
+        switchMemberButton.setOnAction(e -> {
+            searchField.clear();
+            switchProfile(memberChoice, memberLabel, reminderLabel);
+        });
+        exportBackupButton.setOnAction(e -> exportBackup(backupRow, backupLabel));
+        restoreBackupButton.setOnAction(e -> {
+            searchField.clear();
+            restoreBackup(mainMenu, backupLabel, memberChoice, memberLabel, reminderLabel);
+        });
+        syncButton.setOnAction(e -> syncNow(syncField, syncButton, syncLabel));
+        acceptSyncButton.setOnAction(e -> acceptSync(acceptSyncButton, syncLabel));
+
+        // Once the default profile is loaded: arm its planner reminders and build the feature screens
+        // while the user looks at the menu
+        profile.thenAcceptAsync(loaded -> activateProfile(loaded, reminderLabel), Platform::runLater);
     }
 
-    private void initializeTimeTable() {
-        int time = 6;
-        for (int i = 0; i < 9; i++) {
-            timeTable[i][0] = String.format("%02d:00 - %02d:00", time, time + 2); // Time slot
-            for (int j = 1; j < 8; j++) {
-                timeTable[i][j] = "   -"; // Empty activity
+    // Loads the member's profile (instantly if it is still in memory) and swaps it in. Screens showing
+    // the previous member's data are rebuilt and their open dialogs closed.
+    private void switchProfile(ComboBox<String> memberChoice, Label memberLabel, Label reminderLabel) {
+        String id;
+        try {
+            id = ProfileStore.normalizeId(memberChoice.getEditor().getText());
+        } catch (IllegalArgumentException ex) {
+            memberLabel.setText(ex.getMessage());
+            return;
+        }
+        Profile current = profile.isCompletedExceptionally() ? null : profile.getNow(null);
+        if (current != null && current.id().equals(id)) {
+            return;
+        }
+        long started = System.nanoTime();
+        memberLabel.setText("Loading " + id + "...");
+        CompletableFuture<Profile> next = profiles.open(id);
+        next.whenCompleteAsync((loaded, failure) -> {
+            if (failure != null) {
+                Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+                memberLabel.setText("Could not load " + id + ": " + cause.getMessage());
+                return;
+            }
+            profile = next;
+            sessions.cancelAll();
+            for (Screen screen : Screen.values()) {
+                screens.invalidate(screen);
+            }
+            activateProfile(loaded, reminderLabel);
+            memberLabel.setText("Signed in as " + id);
+            if (!memberChoice.getItems().contains(id)) {
+                memberChoice.getItems().add(id);
+            }
+            LOG.log(System.Logger.Level.INFO, "Switched to profile {0} in {1} ms", id,
+                    String.format("%.2f", (System.nanoTime() - started) / 1e6));
+        }, Platform::runLater);
+    }
+
+    private static final int SEARCH_RESULTS = 20;
+    private static final DateTimeFormatter SEARCH_TIME = DateTimeFormatter.ofPattern("dd MMM yyyy HH:mm");
+
+    private static String describeSearchResult(Profile member, MemberSearch.Result result) {
+        String label = result.kind().label() + ": ";
+        switch (result.kind()) {
+            case FOOD -> {
+                FoodLog calorieLog = member.calorieLog();
+                int row = calorieLog.rowOf(result.id());
+                if (row < 0) {
+                    return label + "(removed)";
+                }
+                LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(calorieLog.timeMillis(row)), ZoneId.systemDefault());
+                return String.format("%s%s, %.0f kcal on %s", label, calorieLog.food(row), calorieLog.calories(row),
+                        time.format(SEARCH_TIME));
+            }
+            case PLANNER -> {
+                PlannerEvent event = member.schedule().get(result.id());
+                if (event == null) {
+                    return label + "(removed)";
+                }
+                return label + event.title() + (event.recurring() ? ", repeats from " : " on ")
+                        + PlannerEvent.toDateTime(event.startMinute()).format(SEARCH_TIME);
+            }
+            default -> {
+                HealthMath.FitnessGoal goal = HealthMath.FitnessGoal.values()[(int) (result.id() / 256)];
+                return label + goal.workouts().get((int) (result.id() % 256)) + " (" + goal.label() + ")";
             }
-            time += 2;
         }
     }
 
-    private void showDailyPlanner(Stage stage, Scene mainScene) {
+    private void exportBackup(HBox backupRow, Label backupLabel) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Backup");
+        chooser.setInitialFileName("oops-backup-" + LocalDate.now() + ".oopsbak");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Backups", "*.oopsbak"));
+        File file = chooser.showSaveDialog(backupRow.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        backupRow.setDisable(true);
+        backupLabel.setText("Exporting to " + file.getName() + "...");
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return Backup.export(AppData.root(), file.toPath());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }).whenCompleteAsync((summary, failure) -> {
+            backupRow.setDisable(false);
+            if (failure != null) {
+                Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+                backupLabel.setText("Export failed: " + cause.getMessage());
+                return;
+            }
+            backupLabel.setText(String.format("Exported %d files (%.1f MB, %.1f MB compressed) to %s.",
+                    summary.files(), summary.bytes() / 1e6, summary.archiveBytes() / 1e6, file.getName()));
+        }, Platform::runLater);
+    }
+
+    // Restoring rewrites the members' files, so every profile is closed first and the default member
+    // is loaded again afterwards; the menu stays disabled in between. A damaged archive is rejected
+    // before anything is written, and the data is reopened as it was.
+    private void restoreBackup(VBox mainMenu, Label backupLabel, ComboBox<String> memberChoice, Label memberLabel,
+                               Label reminderLabel) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Restore Backup (replaces the data in it)");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Backups", "*.oopsbak"));
+        File file = chooser.showOpenDialog(mainMenu.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        mainMenu.setDisable(true);
+        backupLabel.setText("Restoring " + file.getName() + "...");
+        sessions.cancelAll();
+        if (plannerReminders != null) {
+            plannerReminders.stop();
+            plannerReminders = null;
+        }
+        ProfileStore closing = profiles;
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                closing.close();
+                return Backup.restore(file.toPath(), AppData.root());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }).whenCompleteAsync((summary, failure) -> {
+            if (failure != null) {
+                Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+                backupLabel.setText("Restore failed: " + cause.getMessage());
+            } else {
+                backupLabel.setText(String.format("Restored %d files (%d segments written, %d already up to date).",
+                        summary.files(), summary.segmentsWritten(), summary.segmentsKept()));
+            }
+            profiles = ProfileStore.openDefault();
+            CompletableFuture<Profile> next = profiles.open(ProfileStore.DEFAULT_ID);
+            profile = next;
+            for (Screen screen : Screen.values()) {
+                screens.invalidate(screen);
+            }
+            next.whenCompleteAsync((loaded, loadFailure) -> {
+                mainMenu.setDisable(false);
+                if (loadFailure != null) {
+                    Throwable cause = loadFailure.getCause() != null ? loadFailure.getCause() : loadFailure;
+                    memberLabel.setText("Could not load " + ProfileStore.DEFAULT_ID + ": " + cause.getMessage());
+                    return;
+                }
+                activateProfile(loaded, reminderLabel);
+                memberLabel.setText("Signed in as " + ProfileStore.DEFAULT_ID);
+                try {
+                    memberChoice.getItems().setAll(profiles.members());
+                } catch (IOException ex) {
+                    memberLabel.setText("Could not list members: " + ex.getMessage());
+                }
+            }, Platform::runLater);
+        }, Platform::runLater);
+    }
+
+    private static final Pattern SYNC_ADDRESS = Pattern.compile("([^/\\\\]+):(\\d{1,5})");
+
+    // A host:port syncs with that install's SyncServer, anything else is a shared folder (chosen here if
+    // the field is empty). Only the ops either side is missing are exchanged.
+    private void syncNow(TextField syncField, Button syncButton, Label syncLabel) {
+        Profile member = profile.getNow(null);
+        if (member == null) {
+            return;
+        }
+        String target = syncField.getText().trim();
+        if (target.isEmpty()) {
+            DirectoryChooser chooser = new DirectoryChooser();
+            chooser.setTitle("Shared Sync Folder");
+            File folder = chooser.showDialog(syncField.getScene().getWindow());
+            if (folder == null) {
+                return;
+            }
+            target = folder.getPath();
+            syncField.setText(target);
+        }
+        Matcher address = SYNC_ADDRESS.matcher(target);
+        CompletableFuture<SyncAgent.Report> sync;
+        if (address.matches()) {
+            sync = SocketTransport.sync(member.sync(), address.group(1), Integer.parseInt(address.group(2)), Platform::runLater);
+        } else {
+            sync = FolderTransport.sync(member.sync(), Path.of(target), Platform::runLater);
+        }
+        syncButton.setDisable(true);
+        syncLabel.setText("Syncing " + member.id() + "...");
+        sync.whenCompleteAsync((report, failure) -> {
+            syncButton.setDisable(false);
+            if (failure != null) {
+                Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+                syncLabel.setText("Sync failed: " + cause.getMessage());
+                return;
+            }
+            syncApplied(report.applied());
+            if (report.applied().failure() != null) {
+                syncLabel.setText("Sync stopped: saving the received changes failed: " + report.applied().failure().getMessage());
+                return;
+            }
+            syncLabel.setText(String.format("Synced: sent %,d changes, received %,d (%,d planner, %,d food) in %.0f ms.",
+                    report.sent(), report.applied().applied(), report.applied().planner(), report.applied().food(),
+                    report.nanos() / 1e6));
+        }, Platform::runLater);
+    }
+
+    // Starts or stops the SyncServer; it binds the loopback address only, on the default port if it is free
+    private void acceptSync(ToggleButton acceptSyncButton, Label syncLabel) {
+        if (!acceptSyncButton.isSelected()) {
+            closeSyncServer();
+            syncLabel.setText("Not accepting sync.");
+            return;
+        }
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        try {
+            try {
+                syncServer = startSyncServer(new InetSocketAddress(loopback, SyncServer.DEFAULT_PORT));
+            } catch (IOException busy) {
+                syncServer = startSyncServer(new InetSocketAddress(loopback, 0));
+            }
+            syncLabel.setText("Accepting sync on " + loopback.getHostAddress() + ":" + syncServer.port());
+        } catch (IOException ex) {
+            acceptSyncButton.setSelected(false);
+            syncLabel.setText("Could not accept sync: " + ex.getMessage());
+        }
+    }
+
+    private SyncServer startSyncServer(InetSocketAddress address) throws IOException {
+        return SyncServer.start(address, memberId -> profiles.acquire(memberId).thenApply(Profile::sync),
+                profiles::release, Platform::runLater, this::syncApplied);
+    }
+
+    private void closeSyncServer() {
+        if (syncServer == null) {
+            return;
+        }
+        try {
+            syncServer.close();
+        } catch (IOException ex) {
+            LOG.log(System.Logger.Level.WARNING, "Closing the sync server failed", ex);
+        }
+        syncServer = null;
+    }
+
+    // Screens built from the synced data are rebuilt on their next visit
+    private void syncApplied(SyncAgent.Applied applied) {
+        if (applied.food() > 0) {
+            dashboard.changed(Dashboard.Tile.CALORIES);
+            screens.refresh(Screen.CALORIE_COUNTER);
+        }
+        if (applied.planner() > 0) {
+            screens.refresh(Screen.DAILY_PLANNER);
+        }
+    }
+
+    private void activateProfile(Profile loaded, Label reminderLabel) {
+        if (plannerReminders != null) {
+            plannerReminders.stop();
+        }
+        reminderLabel.setText("");
+        plannerReminders = new PlannerReminders(loaded.schedule(), reminders, uiUpdates, reminderLabel::setText);
+        plannerReminders.start();
+        dashboard.setMember(loaded);
+        foodCatalog.thenAcceptAsync(loaded.recipes()::setCatalog, Platform::runLater);
+        profiles.pin(loaded);
+        CompletableFuture<Void> prewarmed = screens.prewarm(Screen.values());
+        if (Boolean.getBoolean(TRAINING_RUN_PROPERTY)) {
+            prewarmed.thenRun(Platform::exit);
+        }
+    }
+
+    // Cold start: from process start to the end of the main menu's first layout pass
+    private static void logStartupTime(Scene scene) {
+        Instant processStarted = ProcessHandle.current().info().startInstant().orElse(null);
+        if (processStarted == null) {
+            return;
+        }
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this);
+                LOG.log(System.Logger.Level.INFO, "First frame {0} ms after process start",
+                        Duration.between(processStarted, Instant.now()).toMillis());
+            }
+        });
+    }
+
+    // Opens a screen built from the member's data once their profile has loaded (at once if it has), so
+    // the FX thread never waits on the replay
+    private void showMemberScreen(Screen screen) {
+        profile.thenAcceptAsync(loaded -> screens.show(screen), Platform::runLater);
+    }
+
+    // The member on screen; their screens are only built once the profile has loaded (through
+    // showMemberScreen or activateProfile's prewarm)
+    private Profile member() {
+        Profile loaded = profile.isCompletedExceptionally() ? null : profile.getNow(null);
+        if (loaded == null) {
+            throw new IllegalStateException("Member profile is not loaded yet");
+        }
+        return loaded;
+    }
+
+    // Screens of the running app, for building them headlessly in the benchmarks
+    ScreenRegistry screens() {
+        return screens;
+    }
+
+    // The member profile on screen (or loading), so the benchmarks can wait for it
+    CompletableFuture<Profile> profile() {
+        return profile;
+    }
+
+    // Upper bounds (ms) of the latency ranges in the diagnostics chart; the last range is open
+    private static final double[] DIAGNOSTICS_RANGES_MS = {1, 2, 4, 8, 16, 33, 50, 100, 250};
+    private static final int DIAGNOSTICS_SLOWEST = 10;
+
+    private Parent buildDiagnostics() {
+        VBox layout = new VBox(10);
+        layout.setPadding(new Insets(20));
+        layout.setStyle("-fx-alignment: center;");
+
+        Label titleLabel = new Label("Diagnostics");
+        titleLabel.setStyle("-fx-font-size: 16; -fx-font-weight: bold;");
+
+        // count, p50, p90, p99 and max per kind of FX-thread work
+        ListView<String> statsList = new ListView<>();
+        statsList.setPrefHeight(110);
+
+        ComboBox<Diagnostics.Kind> kindChoice = new ComboBox<>();
+        kindChoice.getItems().setAll(Diagnostics.Kind.values());
+        kindChoice.setValue(Diagnostics.Kind.HANDLER);
+
+        CategoryAxis rangeAxis = new CategoryAxis();
+        rangeAxis.setLabel("ms");
+        NumberAxis countAxis = new NumberAxis();
+        countAxis.setLabel("Count");
+        BarChart<String, Number> latencyChart = new BarChart<>(rangeAxis, countAxis);
+        latencyChart.setLegendVisible(false);
+        latencyChart.setAnimated(false);
+        latencyChart.setPrefHeight(220);
+
+        Label slowestLabel = new Label("Slowest handlers (p99)");
+        ListView<String> slowestList = new ListView<>();
+        slowestList.setPrefHeight(150);
+
+        Label statusLabel = new Label();
+        statusLabel.setWrapText(true);
+
+        Runnable refresh = () -> {
+            List<String> stats = new ArrayList<>();
+            for (Diagnostics.Kind kind : Diagnostics.Kind.values()) {
+                LatencyHistogram histogram = diagnostics.histogram(kind);
+                stats.add(String.format("%s: %d, p50 %.1f / p90 %.1f / p99 %.1f / max %.1f ms", kind.label(),
+                        histogram.count(), millis(histogram.percentileNanos(0.5)),
+                        millis(histogram.percentileNanos(0.9)), millis(histogram.percentileNanos(0.99)),
+                        millis(histogram.maxNanos())));
+            }
+            statsList.getItems().setAll(stats);
+
+            LatencyHistogram histogram = diagnostics.histogram(kindChoice.getValue());
+            XYChart.Series<String, Number> series = new XYChart.Series<>();
+            long from = 0;
+            for (double upperMs : DIAGNOSTICS_RANGES_MS) {
+                long to = (long) (upperMs * 1_000_000);
+                series.getData().add(new XYChart.Data<>(String.format("<%.0f", upperMs), histogram.countBetween(from, to)));
+                from = to;
+            }
+            series.getData().add(new XYChart.Data<>(String.format(">%.0f", DIAGNOSTICS_RANGES_MS[DIAGNOSTICS_RANGES_MS.length - 1]),
+                    histogram.countBetween(from, Long.MAX_VALUE)));
+            latencyChart.getData().setAll(List.of(series));
+
+            List<String> slowest = new ArrayList<>();
+            for (Map.Entry<String, LatencyHistogram> entry : diagnostics.slowestHandlers(DIAGNOSTICS_SLOWEST)) {
+                slowest.add(String.format("%s: p99 %.1f ms (%d runs)", entry.getKey(),
+                        millis(entry.getValue().percentileNanos(0.99)), entry.getValue().count()));
+            }
+            slowestList.getItems().setAll(slowest);
+        };
+        kindChoice.setOnAction(e -> refresh.run());
+
+        Button dumpButton = new Button("Dump Recording");
+        dumpButton.setOnAction(e -> {
+            dumpButton.setDisable(true);
+            statusLabel.setText("Writing recording...");
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    return diagnostics.dumpRecording(AppData.resolve("diagnostics"));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }).whenCompleteAsync((Path file, Throwable failure) -> {
+                dumpButton.setDisable(false);
+                if (failure != null) {
+                    Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+                    statusLabel.setText("Could not write the recording: " + cause.getMessage());
+                } else {
+                    statusLabel.setText("Recording saved to " + file + " (open it in JDK Mission Control).");
+                }
+            }, Platform::runLater);
+        });
+
+        Button resetButton = new Button("Reset");
+        resetButton.setOnAction(e -> {
+            diagnostics.reset();
+            refresh.run();
+        });
+
+        Button backButton = new Button("Back");
+        backButton.setOnAction(e -> screens.show(Screen.MAIN_MENU));
+        HBox buttonBox = new HBox(10, dumpButton, resetButton, backButton);
+        buttonBox.setStyle("-fx-alignment: center;");
+
+        // Live while the screen is showing; the tick is dropped when another screen is up
+        refresh.run();
+        if (diagnosticsRefresh != null) {
+            diagnosticsRefresh.cancel();
+        }
+        diagnosticsRefresh = reminders.scheduleAtFixedRate(1, 1, TimeUnit.SECONDS, () -> uiUpdates.post(statsList, () -> {
+            if (screens.current() == Screen.DIAGNOSTICS) {
+                refresh.run();
+            }
+        }));
+
+        layout.getChildren().addAll(
+                titleLabel,
+                statsList,
+                kindChoice,
+                latencyChart,
+                slowestLabel,
+                slowestList,
+                statusLabel,
+                buttonBox
+        );
+
+        return layout;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    // Planner events of the member on screen; the Daily Planner grid is rendered from this
+    private Schedule schedule() {
+        return member().schedule();
+    }
+
+    private Parent buildDailyPlanner() {
         VBox layout = new VBox(10);
         layout.setPadding(new Insets(20));
         layout.setStyle("-fx-alignment: center;");
@@ -87,6 +721,14 @@ public class SelfImprovementApp extends Application {
         Label titleLabel = new Label("Daily Planner");
         titleLabel.setStyle("-fx-font-size: 16; -fx-font-weight: bold;");
 
+        Profile member = member();
+        Schedule schedule = member.schedule();
+
+        // Week currently shown; the table is a view over the schedule for that week
+        LocalDate[] weekStart = {LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))};
+        Label weekLabel = new Label();
+        Label statusLabel = new Label();
+
         // TableView for the timetable
         TableView<String[]> table = new TableView<>();
         table.setEditable(true);
@@ -103,58 +745,300 @@ public class SelfImprovementApp extends Application {
             if (col > 0) {
                 column.setCellFactory(TextFieldTableCell.forTableColumn());
                 column.setOnEditCommit(event -> {
-                    String[] row = event.getRowValue();
-                    row[colIndex] = event.getNewValue();
+                    int slot = event.getTablePosition().getRow();
+                    LocalDateTime slotTime = weekStart[0].plusDays(colIndex - 1).atTime(PLANNER_FIRST_HOUR + slot * PLANNER_SLOT_HOURS, 0);
+                    statusLabel.setText(editPlannerSlot(PlannerEvent.toMinute(slotTime), event.getNewValue()));
+                    refreshPlannerWeek(table, weekStart[0], weekLabel);
                 });
             }
             table.getColumns().add(column);
         }
+        refreshPlannerWeek(table, weekStart[0], weekLabel);
 
-        // Populate the table from the shared timetable
-        table.getItems().clear();
-        for (String[] row : timeTable) {
-            table.getItems().add(row);
-        }
+        Button previousWeekButton = new Button("< Previous Week");
+        previousWeekButton.setOnAction(e -> {
+            weekStart[0] = weekStart[0].minusWeeks(1);
+            refreshPlannerWeek(table, weekStart[0], weekLabel);
+        });
+        Button nextWeekButton = new Button("Next Week >");
+        nextWeekButton.setOnAction(e -> {
+            weekStart[0] = weekStart[0].plusWeeks(1);
+            refreshPlannerWeek(table, weekStart[0], weekLabel);
+        });
+        HBox weekBox = new HBox(10, previousWeekButton, weekLabel, nextWeekButton);
+        weekBox.setStyle("-fx-alignment: center;");
+
+        // Add an event at any 5-minute boundary, optionally repeating
+        TextField eventTitleField = new TextField();
+        eventTitleField.setPromptText("Activity");
+        DatePicker eventDatePicker = new DatePicker(LocalDate.now());
+        TextField eventTimeField = new TextField();
+        eventTimeField.setPromptText("Start (HH:mm)");
+        eventTimeField.setPrefColumnCount(6);
+        TextField eventDurationField = new TextField();
+        eventDurationField.setPromptText("Minutes");
+        eventDurationField.setPrefColumnCount(6);
+        ComboBox<String> repeatBox = new ComboBox<>();
+        repeatBox.getItems().addAll("Once", "Daily", "Weekly");
+        repeatBox.setValue("Once");
+        Button addEventButton = new Button("Add Event");
+        addEventButton.setOnAction(e -> {
+            try {
+                String eventTitle = eventTitleField.getText().trim();
+                if (eventTitle.isEmpty()) {
+                    statusLabel.setText("Please enter an activity.");
+                    return;
+                }
+                long start = PlannerEvent.toMinute(eventDatePicker.getValue().atTime(LocalTime.parse(eventTimeField.getText().trim())));
+                long end = start + Integer.parseInt(eventDurationField.getText().trim());
+                Recurrence recurrence = switch (repeatBox.getValue()) {
+                    case "Daily" -> Recurrence.daily();
+                    case "Weekly" -> Recurrence.weekly();
+                    default -> null;
+                };
+                List<PlannerEvent> clashes = schedule.conflicts(start, end, recurrence, -1);
+                if (!clashes.isEmpty()) {
+                    statusLabel.setText("Conflicts with: " + describeEvents(clashes));
+                    return;
+                }
+                schedule.add(eventTitle, start, end, recurrence);
+                statusLabel.setText("Event added.");
+                eventTitleField.clear();
+                refreshPlannerWeek(table, weekStart[0], weekLabel);
+            } catch (DateTimeParseException | NumberFormatException ex) {
+                statusLabel.setText("Enter the start as HH:mm and the duration in minutes.");
+            } catch (IllegalArgumentException ex) {
+                statusLabel.setText(ex.getMessage());
+            }
+        });
+        HBox addEventBox = new HBox(10, eventTitleField, eventDatePicker, eventTimeField, eventDurationField, repeatBox, addEventButton);
+        addEventBox.setStyle("-fx-alignment: center;");
+
+        // Free-slot search from the chosen date, up to a year ahead, within planner hours
+        TextField freeMinutesField = new TextField();
+        freeMinutesField.setPromptText("Free minutes needed");
+        Button findFreeButton = new Button("Find Free Time");
+        findFreeButton.setOnAction(e -> {
+            try {
+                int minutes = Integer.parseInt(freeMinutesField.getText().trim());
+                long from = Math.max(PlannerEvent.toMinute(eventDatePicker.getValue().atStartOfDay()),
+                        PlannerEvent.toMinute(LocalDateTime.now()));
+                long slot = schedule.findFreeSlot(from, from + 366 * Schedule.MINUTES_PER_DAY, minutes,
+                        PLANNER_FIRST_HOUR * 60, 24 * 60);
+                if (slot < 0) {
+                    statusLabel.setText("No free time of that length in the next year.");
+                } else {
+                    LocalDateTime freeStart = PlannerEvent.toDateTime(slot);
+                    statusLabel.setText("Free: " + freeStart.format(PLANNER_SLOT_FORMAT) + " - "
+                            + freeStart.plusMinutes(minutes).toLocalTime());
+                }
+            } catch (NumberFormatException ex) {
+                statusLabel.setText("Enter the number of free minutes needed.");
+            }
+        });
+        HBox freeBox = new HBox(10, freeMinutesField, findFreeButton);
+        freeBox.setStyle("-fx-alignment: center;");
 
         // Buttons
         Button resetButton = new Button("Reset All");
         resetButton.setOnAction(e -> {
-            initializeTimeTable();
-            table.getItems().clear();
-            for (String[] row : timeTable) {
-                table.getItems().add(row);
+            schedule.clear();
+            member.calendarSync().clear();
+            refreshPlannerWeek(table, weekStart[0], weekLabel);
+        });
+
+        // Calendars from other apps (.ics): parsed off the FX thread and applied on it in batches; a re-import
+        // applies only the events whose version changed since the last one
+        Button importCalendarButton = new Button("Import Calendar");
+        importCalendarButton.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Import Calendar");
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("iCalendar files", "*.ics"));
+            File file = chooser.showOpenDialog(layout.getScene().getWindow());
+            if (file == null) {
+                return;
             }
+            importCalendarButton.setDisable(true);
+            statusLabel.setText("Reading " + file.getName() + "...");
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    return IcsCalendar.importInto(file.toPath(), ZoneId.systemDefault(), member.calendarSync(),
+                            schedule, Platform::runLater);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }).whenCompleteAsync((summary, failure) -> {
+                importCalendarButton.setDisable(false);
+                refreshPlannerWeek(table, weekStart[0], weekLabel);
+                if (failure != null) {
+                    Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+                    statusLabel.setText("Import failed: " + cause.getMessage());
+                    return;
+                }
+                statusLabel.setText(String.format("%,d events: %,d added, %,d updated, %,d unchanged, %,d removed"
+                                + " (%,d approximated, %,d skipped) in %.1f s.", summary.events(), summary.added(),
+                        summary.updated(), summary.unchanged(), summary.removed(), summary.approximated(),
+                        summary.skipped(), summary.nanos() / 1e9));
+            }, Platform::runLater);
+        });
+
+        Button exportCalendarButton = new Button("Export Calendar");
+        exportCalendarButton.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Export Calendar");
+            chooser.setInitialFileName("planner.ics");
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("iCalendar files", "*.ics"));
+            File file = chooser.showSaveDialog(layout.getScene().getWindow());
+            if (file == null) {
+                return;
+            }
+            // Events are immutable records: a copy of the list is a consistent snapshot to write from
+            List<PlannerEvent> events = new ArrayList<>(schedule.all());
+            exportCalendarButton.setDisable(true);
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    return IcsCalendar.export(events, file.toPath(), member.calendarSync());
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }).whenCompleteAsync((count, failure) -> {
+                exportCalendarButton.setDisable(false);
+                if (failure != null) {
+                    Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+                    statusLabel.setText("Export failed: " + cause.getMessage());
+                    return;
+                }
+                statusLabel.setText(String.format("Exported %,d events to %s.", count, file.getName()));
+            }, Platform::runLater);
         });
 
         Button backButton = new Button("Back");
-        backButton.setOnAction(e -> stage.setScene(mainScene));
+        backButton.setOnAction(e -> screens.show(Screen.MAIN_MENU));
 
-        HBox buttonBox = new HBox(10, resetButton, backButton);
+        HBox buttonBox = new HBox(10, resetButton, importCalendarButton, exportCalendarButton, backButton);
         buttonBox.setStyle("-fx-alignment: center;");
 
-        layout.getChildren().addAll(titleLabel, table, buttonBox);
+        layout.getChildren().addAll(titleLabel, weekBox, table, addEventBox, freeBox, statusLabel, buttonBox);
+
+        return layout;
+    }
+
+    // The grid keeps the original 2-hour rows from 06:00 to 24:00
+    private static final int PLANNER_FIRST_HOUR = 6;
+    private static final int PLANNER_SLOT_HOURS = 2;
+    private static final int PLANNER_SLOTS = 9;
+    private static final DateTimeFormatter PLANNER_SLOT_FORMAT = DateTimeFormatter.ofPattern("EEE dd MMM HH:mm");
+
+    // Rebuilds the visible week from the schedule: one row per 2-hour slot, one column per day
+    private void refreshPlannerWeek(TableView<String[]> table, LocalDate weekStart, Label weekLabel) {
+        weekLabel.setText("Week of " + weekStart);
+        long weekFrom = PlannerEvent.toMinute(weekStart.atStartOfDay());
+        String[][] rows = new String[PLANNER_SLOTS][8];
+        for (int slot = 0; slot < PLANNER_SLOTS; slot++) {
+            int hour = PLANNER_FIRST_HOUR + slot * PLANNER_SLOT_HOURS;
+            rows[slot][0] = String.format("%02d:00 - %02d:00", hour, hour + PLANNER_SLOT_HOURS); // Time slot
+            for (int day = 1; day < 8; day++) {
+                rows[slot][day] = "   -"; // Empty activity
+            }
+        }
+        for (Schedule.Occurrence occurrence : schedule().between(weekFrom, weekFrom + 7 * Schedule.MINUTES_PER_DAY)) {
+            for (int day = 0; day < 7; day++) {
+                for (int slot = 0; slot < PLANNER_SLOTS; slot++) {
+                    long slotStart = weekFrom + day * Schedule.MINUTES_PER_DAY + (PLANNER_FIRST_HOUR + slot * PLANNER_SLOT_HOURS) * 60L;
+                    long slotEnd = slotStart + PLANNER_SLOT_HOURS * 60L;
+                    if (occurrence.startMinute() >= slotEnd || occurrence.endMinute() <= slotStart) {
+                        continue;
+                    }
+                    // Events that do not cover the whole slot show their start time
+                    String text = occurrence.startMinute() <= slotStart && occurrence.endMinute() >= slotEnd
+                            ? occurrence.event().title()
+                            : PlannerEvent.toDateTime(Math.max(occurrence.startMinute(), slotStart)).toLocalTime() + " " + occurrence.event().title();
+                    rows[slot][day + 1] = rows[slot][day + 1].equals("   -") ? text : rows[slot][day + 1] + ", " + text;
+                }
+            }
+        }
+        table.getItems().setAll(rows);
+    }
+
+    // Applies an edit typed into a grid cell to the 2-hour slot starting at slotStart
+    private String editPlannerSlot(long slotStart, String text) {
+        long slotEnd = slotStart + PLANNER_SLOT_HOURS * 60;
+        PlannerEvent exact = null;
+        for (Schedule.Occurrence occurrence : schedule().between(slotStart, slotEnd)) {
+            PlannerEvent event = occurrence.event();
+            if (!event.recurring() && event.startMinute() == slotStart && event.endMinute() == slotEnd) {
+                exact = event;
+            }
+        }
+        String title = text == null ? "" : text.trim();
+        if (title.isEmpty() || title.equals("-")) {
+            if (exact != null) {
+                schedule().remove(exact.id());
+            }
+            return "";
+        }
+        if (exact != null) {
+            schedule().put(exact.withTitle(title));
+            return "";
+        }
+        List<PlannerEvent> clashes = schedule().conflicts(slotStart, slotEnd, null, -1);
+        if (!clashes.isEmpty()) {
+            return "Conflicts with: " + describeEvents(clashes);
+        }
+        schedule().add(title, slotStart, slotEnd, null);
+        return "";
+    }
 
-        stage.setScene(new Scene(layout, 800, 600));
+    private String describeEvents(List<PlannerEvent> events) {
+        StringBuilder text = new StringBuilder();
+        for (PlannerEvent event : events) {
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append(event.title()).append(" (")
+                    .append(PlannerEvent.toDateTime(event.startMinute()).format(PLANNER_SLOT_FORMAT)).append(")");
+        }
+        return text.toString();
     }
 
-    private final Map<String, Double> foodDatabase = new HashMap<>();
-    private double totalCalories = 0.0;
+    // Food catalog is memory-mapped in the background so startup never waits on it
+    private CompletableFuture<FoodCatalog> foodCatalog;
 
-    private void showCalorieCounter(Stage stage, Scene mainScene) {
-        // Initialize food database if it's empty
-        if (foodDatabase.isEmpty()) {
-            foodDatabase.put("bread", 2.5); // Calories per gram
-            foodDatabase.put("pasta", 1.31);
-            foodDatabase.put("chicken", 2.39);
-            foodDatabase.put("milk", 0.62); // Calories per ml
-            foodDatabase.put("rice", 1.3);
-            foodDatabase.put("egg", 1.55);
-            foodDatabase.put("apple", 0.52);
-            foodDatabase.put("banana", 0.89);
-            foodDatabase.put("potato", 0.77);
-            foodDatabase.put("carrot", 0.41);
+    @Override
+    public void init() {
+        // Starting Flight Recorder takes a few hundred ms; it must not delay the first frame
+        CompletableFuture.runAsync(diagnostics::startRecording);
+        foodCatalog = CompletableFuture.supplyAsync(() -> {
+            try {
+                return FoodCatalog.openOrBuild(AppData.resolve("food-catalog.csv"), AppData.resolve("food-catalog.bin"));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        // The default member's planner and calorie journal are replayed in the background
+        profiles = ProfileStore.openDefault();
+        profile = profiles.open(ProfileStore.DEFAULT_ID);
+    }
+
+    @Override
+    public void stop() throws IOException {
+        if (sessions != null) {
+            sessions.cancelAll();
+        }
+        if (plannerReminders != null) {
+            plannerReminders.stop();
         }
+        reminders.close();
+        diagnostics.close();
+        closeSyncServer();
+        profiles.close();
+        FoodCatalog catalog = foodCatalog.getNow(null);
+        if (catalog != null) {
+            catalog.close();
+        }
+    }
 
+    private Parent buildCalorieCounter() {
         // Layout for the calorie counter
         VBox layout = new VBox(10);
         layout.setPadding(new Insets(20));
@@ -167,15 +1051,87 @@ public class SelfImprovementApp extends Application {
         TextField foodField = new TextField();
         foodField.setPromptText("Enter food item (e.g., 'apple')");
 
+        Profile member = member();
+        FoodLog calorieLog = member.calorieLog();
+        NutritionRollup nutritionRollup = member.nutritionRollup();
+        RecipeBook recipes = member.recipes();
+
+        // Autocomplete suggestions: the member's recipes, then the catalog's prefix/trigram index
+        ContextMenu suggestions = new ContextMenu();
+        foodField.textProperty().addListener((obs, oldText, text) -> {
+            FoodCatalog catalog = foodCatalog.getNow(null);
+            if (catalog == null || text.isBlank() || !foodField.isFocused()) {
+                suggestions.hide();
+                return;
+            }
+            List<String> names = new ArrayList<>();
+            String typed = text.trim().toLowerCase(Locale.ROOT);
+            for (String name : recipes.names()) {
+                if (name.startsWith(typed) && names.size() < FOOD_SUGGESTIONS) {
+                    names.add(name);
+                }
+            }
+            names.addAll(catalog.complete(text, FOOD_SUGGESTIONS - names.size()));
+            List<MenuItem> items = new ArrayList<>();
+            for (String name : names) {
+                MenuItem item = new MenuItem(name);
+                item.setOnAction(ev -> {
+                    foodField.setText(name);
+                    foodField.positionCaret(name.length());
+                    suggestions.hide();
+                });
+                items.add(item);
+            }
+            suggestions.getItems().setAll(items);
+            if (items.isEmpty() || (items.size() == 1 && items.get(0).getText().equals(text.trim()))) {
+                suggestions.hide();
+            } else if (!suggestions.isShowing()) {
+                suggestions.show(foodField, Side.BOTTOM, 0, 0);
+            }
+        });
+
         TextField quantityField = new TextField();
         quantityField.setPromptText("Enter quantity (grams/ml)");
 
         Button addButton = new Button("Add Calories");
         Label feedbackLabel = new Label();
-
-        // ListView for food log
-        ListView<String> foodLog = new ListView<>();
-        foodLog.getItems().add("Total Calories: " + totalCalories);
+        feedbackLabel.setWrapText(true);
+
+        // Food log: row indexes into calorieLog, formatted only when visible; the total is its own header
+        FoodLogListModel foodLogModel = new FoodLogListModel(calorieLog);
+        Label totalLabel = new Label();
+        totalLabel.textProperty().bind(foodLogModel.totalCaloriesProperty().asString("Total Calories: %.2f"));
+
+        ListView<Integer> foodLog = new ListView<>(foodLogModel);
+        foodLog.setCellFactory(FoodLogListModel.cellFactory(calorieLog));
+        foodLog.setFixedCellSize(24);
+
+        TextField logFilterField = new TextField();
+        logFilterField.setPromptText("Filter log by food");
+        logFilterField.textProperty().addListener((obs, oldText, text) -> foodLogModel.setFilter(text));
+
+        ComboBox<FoodLogListModel.Order> logOrderBox = new ComboBox<>();
+        logOrderBox.getItems().addAll(FoodLogListModel.Order.values());
+        logOrderBox.setValue(FoodLogListModel.Order.NEWEST_FIRST);
+        logOrderBox.setOnAction(e -> foodLogModel.setOrder(logOrderBox.getValue()));
+
+        HBox logControls = new HBox(10, logFilterField, logOrderBox);
+        logControls.setStyle("-fx-alignment: center;");
+
+        // Last 14 days from the rollup; adding an entry only moves today's bar
+        Label trendLabel = new Label();
+        CategoryAxis dayAxis = new CategoryAxis();
+        NumberAxis kcalAxis = new NumberAxis();
+        kcalAxis.setLabel("kcal");
+        BarChart<String, Number> dailyChart = new BarChart<>(dayAxis, kcalAxis);
+        dailyChart.setLegendVisible(false);
+        dailyChart.setAnimated(false);
+        dailyChart.setPrefHeight(180);
+        XYChart.Series<String, Number> dailySeries = new XYChart.Series<>();
+        dailyChart.getData().add(dailySeries);
+
+        fillDailyChart(dailySeries, nutritionRollup);
+        updateTrendLabel(trendLabel, nutritionRollup);
 
         addButton.setOnAction(e -> {
             String food = foodField.getText().toLowerCase().trim();
@@ -186,22 +1142,50 @@ public class SelfImprovementApp extends Application {
                 return;
             }
 
+            FoodCatalog catalog = foodCatalog.getNow(null);
+            CalorieJournal journal = member.calorieJournal();
+            if (catalog == null) {
+                feedbackLabel.setText("Food catalog is still loading, please try again.");
+                return;
+            }
+
             try {
                 double quantity = Double.parseDouble(quantityText);
+                // A recipe's totals are cached in the book, so this is a lookup however big the meal
+                double[] perUnit = new double[Nutrient.COUNT];
+                boolean known = recipes.nutrientsPerGram(food, perUnit);
+                if (!known) {
+                    int index = catalog.indexOf(food);
+                    known = index >= 0;
+                    if (known) {
+                        catalog.nutrients(index, perUnit);
+                    }
+                }
 
-                if (foodDatabase.containsKey(food)) {
-                    double caloriesPerUnit = foodDatabase.get(food);
-                    double addedCalories = caloriesPerUnit * quantity;
-                    totalCalories += addedCalories;
-                    foodLog.getItems().add(food + " (" + quantity + " units): " + addedCalories + " kcal");
+                CalorieEntry entry;
+                String added;
+                if (known && !Double.isNaN(perUnit[Nutrient.CALORIES.ordinal()])) {
+                    double addedCalories = perUnit[Nutrient.CALORIES.ordinal()] * quantity;
+                    entry = journal.append(System.currentTimeMillis(), food, quantity, addedCalories, false);
+                    added = describeNutrients(perUnit, quantity);
                 } else {
-                    feedbackLabel.setText("Food not found. Adding manual calories.");
-                    foodLog.getItems().add(food + " (Unknown quantity): " + quantity + " kcal");
-                    totalCalories += quantity; // Add manual calories
+                    // Add manual calories
+                    entry = journal.append(System.currentTimeMillis(), food, quantity, quantity, true);
+                    added = "Food not found. Adding manual calories.";
+                }
+                foodLogModel.rowAdded(calorieLog.add(entry));
+                nutritionRollup.add(entry);
+                member.search().foodAdded(entry);
+                member.sync().foodAdded(entry);
+                dashboard.changed(Dashboard.Tile.CALORIES);
+
+                if (!dailySeries.getData().isEmpty()) {
+                    XYChart.Data<String, Number> todayBar = dailySeries.getData().get(dailySeries.getData().size() - 1);
+                    todayBar.setYValue(nutritionRollup.total(LocalDate.now()));
                 }
+                updateTrendLabel(trendLabel, nutritionRollup);
 
-                foodLog.getItems().set(0, "Total Calories: " + totalCalories);
-                feedbackLabel.setText("Calories added successfully!");
+                feedbackLabel.setText(added);
                 foodField.clear();
                 quantityField.clear();
             } catch (NumberFormatException ex) {
@@ -209,18 +1193,198 @@ public class SelfImprovementApp extends Application {
             }
         });
 
+        // Diaries exported from other apps: parsed off the FX thread, then committed one slice per pulse, so
+        // the screen stays responsive while hundreds of thousands of entries go into the journal
+        Button importButton = new Button("Import Diary");
+        importButton.setOnAction(e -> {
+            FoodCatalog catalog = foodCatalog.getNow(null);
+            if (catalog == null) {
+                feedbackLabel.setText("Food catalog is still loading, please try again.");
+                return;
+            }
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Import Food Diary");
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Diary exports", "*.csv", "*.json", "*.txt"));
+            File file = chooser.showOpenDialog(layout.getScene().getWindow());
+            if (file == null) {
+                return;
+            }
+            // The recipe book belongs to the FX thread: the import resolves against a snapshot of its calories
+            Map<String, Double> recipeCalories = new HashMap<>();
+            double[] perUnit = new double[Nutrient.COUNT];
+            for (String name : recipes.names()) {
+                if (recipes.nutrientsPerGram(name, perUnit)) {
+                    recipeCalories.put(name, perUnit[Nutrient.CALORIES.ordinal()]);
+                }
+            }
+            importButton.setDisable(true);
+            feedbackLabel.setText("Importing " + file.getName() + "...");
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    return DiaryImport.run(file.toPath(), ZoneId.systemDefault(), name -> {
+                        Double perGram = recipeCalories.get(name);
+                        return perGram != null ? perGram : catalog.caloriesPerUnit(name);
+                    });
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }).whenCompleteAsync((diary, failure) -> {
+                if (failure != null) {
+                    importButton.setDisable(false);
+                    Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+                    feedbackLabel.setText("Import failed: " + cause.getMessage());
+                    return;
+                }
+                commitDiary(member, diary, 0, feedbackLabel, () -> {
+                    importButton.setDisable(false);
+                    foodLogModel.refresh();
+                    fillDailyChart(dailySeries, nutritionRollup);
+                    updateTrendLabel(trendLabel, nutritionRollup);
+                    DiaryImport.Summary summary = diary.summary();
+                    feedbackLabel.setText(String.format("Imported %,d entries from %,d rows in %.1f s (%,.0f rows/s);"
+                                    + " %,d rows unreadable, %,d with an unknown food and no calories.",
+                            summary.imported(), summary.rows(), summary.nanos() / 1e9, summary.rowsPerSecond(),
+                            summary.skipped(), summary.unresolved()));
+                });
+            }, Platform::runLater);
+        });
+
+        // Recipe editor: a recipe can then be logged by name like a food, per gram of the finished meal
+        TextField recipeNameField = new TextField();
+        recipeNameField.setPromptText("Recipe name");
+        TextArea recipeIngredientsArea = new TextArea();
+        recipeIngredientsArea.setPromptText("One ingredient per line: grams, then a food or recipe (e.g. 120 rice)");
+        recipeIngredientsArea.setPrefRowCount(3);
+        Button saveRecipeButton = new Button("Save Recipe");
+        Label recipeLabel = new Label();
+        recipeLabel.setWrapText(true);
+        recipeNameField.setOnAction(e -> {
+            List<RecipeBook.Ingredient> ingredients = recipes.ingredients(recipeNameField.getText());
+            if (!ingredients.isEmpty()) {
+                StringBuilder lines = new StringBuilder();
+                for (RecipeBook.Ingredient ingredient : ingredients) {
+                    lines.append(String.format(Locale.ROOT, "%s %s%n", formatGrams(ingredient.grams()), ingredient.name()));
+                }
+                recipeIngredientsArea.setText(lines.toString());
+            }
+        });
+        saveRecipeButton.setOnAction(e -> {
+            if (foodCatalog.getNow(null) == null) {
+                recipeLabel.setText("Food catalog is still loading, please try again.");
+                return;
+            }
+            try {
+                String name = recipeNameField.getText().trim().toLowerCase(Locale.ROOT);
+                recipes.put(name, parseIngredients(recipeIngredientsArea.getText()));
+                double[] perUnit = new double[Nutrient.COUNT];
+                recipes.nutrientsPerGram(name, perUnit);
+                recipeLabel.setText(String.format("Saved %s (%s g): %s", name, formatGrams(recipes.weight(name)),
+                        describeNutrients(perUnit, recipes.weight(name))));
+            } catch (IllegalArgumentException ex) {
+                recipeLabel.setText(ex.getMessage());
+            }
+        });
+        HBox recipeRow = new HBox(10, recipeNameField, saveRecipeButton);
+        recipeRow.setStyle("-fx-alignment: center;");
+
         // Back button to return to the main menu
         Button backButton = new Button("Back");
-        backButton.setOnAction(e -> stage.setScene(mainScene));
+        backButton.setOnAction(e -> screens.show(Screen.MAIN_MENU));
 
         layout.getChildren().addAll(
-                titleLabel, foodField, quantityField, addButton, foodLog, feedbackLabel, backButton
+                titleLabel, foodField, quantityField, addButton, importButton, totalLabel, logControls, foodLog,
+                trendLabel, dailyChart, feedbackLabel, recipeRow, recipeIngredientsArea, recipeLabel, backButton
         );
-        stage.setScene(new Scene(layout, 400, 500));
+        return layout;
     }
 
+    private static final int FOOD_SUGGESTIONS = 8;
+    private static final int IMPORT_SLICE = 10_000;
+
+    // Journals and logs one slice of an imported diary, then queues the next behind whatever the FX thread
+    // has pending; the list model is refreshed once at the end instead of per row
+    private void commitDiary(Profile member, DiaryImport.Diary diary, int from, Label feedbackLabel, Runnable done) {
+        CalorieJournal journal = member.calorieJournal();
+        int to = Math.min(diary.size(), from + IMPORT_SLICE);
+        for (int i = from; i < to; i++) {
+            double quantity = Double.isNaN(diary.quantity(i)) ? 0 : diary.quantity(i);
+            CalorieEntry entry = journal.append(diary.timeMillis(i), diary.food(i), quantity, diary.calories(i), diary.manual(i));
+            member.calorieLog().add(entry);
+            member.nutritionRollup().add(entry);
+            member.search().foodAdded(entry);
+            member.sync().foodAdded(entry);
+        }
+        dashboard.changed(Dashboard.Tile.CALORIES);
+        if (to < diary.size()) {
+            feedbackLabel.setText(String.format("Adding entries... %,d of %,d", to, diary.size()));
+            Platform.runLater(() -> commitDiary(member, diary, to, feedbackLabel, done));
+        } else {
+            done.run();
+        }
+    }
+
+    // The last 14 days from the rollup
+    private static void fillDailyChart(XYChart.Series<String, Number> dailySeries, NutritionRollup nutritionRollup) {
+        LocalDate chartEnd = LocalDate.now();
+        NutritionRollup.Series days = nutritionRollup.query(NutritionRollup.Granularity.DAY, chartEnd.minusDays(13), chartEnd);
+        List<XYChart.Data<String, Number>> bars = new ArrayList<>();
+        for (int i = 0; i < days.size(); i++) {
+            bars.add(new XYChart.Data<>(days.bucketDate(i).format(CHART_DAY), days.total(i)));
+        }
+        dailySeries.getData().setAll(bars);
+    }
 
-    private void showBrainTrainer(Stage stage, Scene mainScene) {
+    // "Added 520 kcal (protein 31.0 g, fat 12.5 g, carbs 60.2 g)"; nutrients the source lacks are left out
+    private static String describeNutrients(double[] perUnit, double quantity) {
+        StringBuilder text = new StringBuilder(String.format("Added %.0f kcal", perUnit[Nutrient.CALORIES.ordinal()] * quantity));
+        String separator = " (";
+        for (Nutrient nutrient : Nutrient.values()) {
+            if (nutrient != Nutrient.CALORIES && !Double.isNaN(perUnit[nutrient.ordinal()])) {
+                text.append(separator).append(String.format("%s %.1f %s", nutrient.label().toLowerCase(Locale.ROOT),
+                        perUnit[nutrient.ordinal()] * quantity, nutrient.unit()));
+                separator = ", ";
+            }
+        }
+        return separator.equals(", ") ? text.append(")").toString() : text.toString();
+    }
+
+    private static String formatGrams(double grams) {
+        return grams == Math.rint(grams) ? String.valueOf((long) grams) : String.valueOf(grams);
+    }
+
+    // Lines of "<grams>[g|ml] <food or recipe>"; blank lines are skipped
+    private static List<RecipeBook.Ingredient> parseIngredients(String text) {
+        List<RecipeBook.Ingredient> ingredients = new ArrayList<>();
+        for (String line : text.split("\\R")) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            Matcher matcher = INGREDIENT_LINE.matcher(line);
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException("Expected grams and then a food: " + line);
+            }
+            ingredients.add(new RecipeBook.Ingredient(matcher.group(2), Double.parseDouble(matcher.group(1))));
+        }
+        return ingredients;
+    }
+
+    private static final Pattern INGREDIENT_LINE = Pattern.compile("(\\d+(?:\\.\\d+)?)\\s*(?:g|ml)?\\s+(.+)");
+
+    private static final DateTimeFormatter CHART_DAY = DateTimeFormatter.ofPattern("dd/MM");
+
+    private void updateTrendLabel(Label trendLabel, NutritionRollup nutritionRollup) {
+        LocalDate today = LocalDate.now();
+        NutritionRollup.Series weeks = nutritionRollup.query(NutritionRollup.Granularity.WEEK, today, today);
+        trendLabel.setText(String.format("Today: %.0f kcal | 7-day avg: %.0f kcal | This week avg: %.0f kcal",
+                nutritionRollup.total(today),
+                nutritionRollup.averagePerLoggedDay(today.minusDays(6), today),
+                weeks.averagePerLoggedDay(0)));
+    }
+
+    private static final int HISTORY_WEEKS = 8;
+
+    private Parent buildBrainTrainer() {
         // Layout for Brain Trainer
         VBox layout = new VBox(10);
         layout.setPadding(new Insets(20));
@@ -236,20 +1400,52 @@ public class SelfImprovementApp extends Application {
 
         Label resultLabel = new Label();
 
+        // Weekly trend of both games over the last HISTORY_WEEKS weeks, newest first
+        Button historyButton = new Button("Show History");
+        ListView<String> historyList = new ListView<>();
+        historyList.setPrefHeight(220);
+
         // Game buttons
-        equationGameButton.setOnAction(e -> playEquationGame(stage, mainScene));
-        memoryGameButton.setOnAction(e -> playMemoryGame(stage, mainScene));
+        equationGameButton.setOnAction(e -> showMemberScreen(Screen.EQUATION_GAME));
+        memoryGameButton.setOnAction(e -> showMemberScreen(Screen.MEMORY_GAME));
+        historyButton.setOnAction(e -> profile.thenAcceptAsync(
+                loaded -> showTrialHistory(loaded.trialHistory(), historyList, resultLabel), Platform::runLater));
 
         // Back button to return to the Main Menu
-        backButton.setOnAction(e -> stage.setScene(mainScene));
+        backButton.setOnAction(e -> screens.show(Screen.MAIN_MENU));
 
-        layout.getChildren().addAll(titleLabel, equationGameButton, memoryGameButton, resultLabel, backButton);
+        layout.getChildren().addAll(titleLabel, equationGameButton, memoryGameButton, historyButton, historyList,
+                resultLabel, backButton);
 
-        stage.setScene(new Scene(layout, 400, 600));
+        return layout;
+    }
+
+    private static void showTrialHistory(TrialHistory history, ListView<String> historyList, Label resultLabel) {
+        LocalDate thisWeek = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate firstWeek = thisWeek.minusWeeks(HISTORY_WEEKS - 1);
+        historyList.getItems().clear();
+        for (TrialHistory.Game game : TrialHistory.Game.values()) {
+            List<TrialHistory.Week> weeks = history.weekly(game, ZoneId.systemDefault(), firstWeek, HISTORY_WEEKS);
+            for (int i = weeks.size() - 1; i >= 0; i--) {
+                TrialHistory.Summary summary = weeks.get(i).summary();
+                if (summary.trials() == 0) {
+                    continue;
+                }
+                historyList.getItems().add(String.format(
+                        "%s, week of %s: %d answers, %.0f%% correct, median %.1f s, p90 %.1f s", game.label(), weeks.get(i).start(), summary.trials(), 100 * summary.accuracy(),
+                        summary.medianMillis() / 1000.0, summary.p90Millis() / 1000.0));
+            }
+        }
+        if (historyList.getItems().isEmpty()) {
+            historyList.getItems().add("No games played in the last " + HISTORY_WEEKS + " weeks.");
+        }
+        resultLabel.setText(String.format("%d equations and %d memory answers saved (%.1f KB)",
+                history.trials(TrialHistory.Game.EQUATIONS), history.trials(TrialHistory.Game.MEMORY),
+                history.packedBytes() / 1024.0));
     }
 
     // Updated Equation Game Method
-    private void playEquationGame(Stage stage, Scene mainScene) {
+    private Parent buildEquationGame() {
         VBox layout = new VBox(10);
         layout.setPadding(new Insets(20));
         layout.setStyle("-fx-alignment: center;");
@@ -262,67 +1458,91 @@ public class SelfImprovementApp extends Application {
         Button backButton = new Button("Back");
 
         ListView<String> equationList = new ListView<>();
-        Random random = new Random();
+
+        // The member's difficulty carries over from game to game; the level follows accuracy and speed
+        AdaptiveDifficulty difficulty = member().equationDifficulty();
+        TrialHistory history = member().trialHistory();
+        Label levelLabel = new Label("Level " + (difficulty.tier() + 1));
 
         startButton.setOnAction(e -> {
             try {
                 int numEquations = Integer.parseInt(numEquationsField.getText());
                 equationList.getItems().clear();
+                sessions.start("equations", new PromptSession() {
+                    private int asked;
+                    private int correctCount;
+                    private int slot;
+                    private String problem;
+                    private long shownAt;
 
-                int correctCount = 0;
-
-                for (int i = 0; i < numEquations; i++) {
-                    int num1 = random.nextInt(20) + 1;
-                    int num2 = random.nextInt(20) + 1;
-                    char operation = generateRandomOperation(random);
-                    int correctAnswer = calculateAnswer(num1, num2, operation);
-
-                    TextInputDialog inputDialog = new TextInputDialog();
-                    inputDialog.setHeaderText(String.format("Solve: %d %c %d", num1, operation, num2));
-                    inputDialog.setContentText("Your answer:");
-
-                    Optional<String> input = inputDialog.showAndWait();
-                    if (input.isPresent()) {
-                        int userAnswer = Integer.parseInt(input.get());
-                        if (userAnswer == correctAnswer) {
-                            equationList.getItems().add(String.format("Correct: %d %c %d = %d", num1, operation, num2, userAnswer));
-                            correctCount++;
-                        } else {
-                            equationList.getItems().add(String.format("Wrong: %d %c %d (Correct: %d)", num1, operation, num2, correctAnswer));
+                    @Override
+                    Prompt start() {
+                        return nextEquation();
+                    }
+
+                    @Override
+                    Prompt onAnswer(String answer) {
+                        long responseNanos = System.nanoTime() - shownAt;
+                        int correctAnswer = equations.answer(slot);
+                        String seconds = String.format("%.1f s", responseNanos / 1e9);
+                        boolean correct = false;
+                        try {
+                            int userAnswer = Integer.parseInt(answer.trim());
+                            correct = userAnswer == correctAnswer;
+                            if (correct) {
+                                equationList.getItems().add("Correct: " + problem + " = " + userAnswer + " (" + seconds + ")");
+                                correctCount++;
+                            } else {
+                                equationList.getItems().add("Wrong: " + problem + " (Correct: " + correctAnswer + ", " + seconds + ")");
+                            }
+                        } catch (NumberFormatException ex) {
+                            equationList.getItems().add("Skipped: " + problem + " (Correct: " + correctAnswer + ")");
                         }
+                        history.record(TrialHistory.Game.EQUATIONS, System.currentTimeMillis(), difficulty.tier(),
+                                correct, responseNanos);
+                        difficulty.record(correct, responseNanos);
+                        levelLabel.setText("Level " + (difficulty.tier() + 1));
+                        return nextEquation();
+                    }
+
+                    // Cancelling a dialog skips that equation, as before
+                    @Override
+                    Prompt onCancel() {
+                        return nextEquation();
+                    }
+
+                    @Override
+                    void onFinished() {
+                        long median = difficulty.medianCorrectNanos();
+                        instructions.setText(String.format("You solved %d out of %d correctly!", correctCount, numEquations)
+                                + (median < 0 ? "" : String.format(" Typical answer time: %.1f s.", median / 1e9)));
                     }
-                }
 
-                instructions.setText(String.format("You solved %d out of %d correctly!", correctCount, numEquations));
+                    private Prompt nextEquation() {
+                        if (asked == numEquations) {
+                            return null;
+                        }
+                        asked++;
+                        slot = equations.next(difficulty.tier());
+                        problem = equations.text(slot);
+                        shownAt = System.nanoTime();
+                        return Prompt.input(null, "Solve: " + problem, "Your answer:");
+                    }
+                });
             } catch (NumberFormatException ex) {
                 instructions.setText("Invalid input. Please enter a number.");
             }
         });
 
         // Back button returns to the Brain Trainer main menu
-        backButton.setOnAction(e -> showBrainTrainer(stage, mainScene));
+        backButton.setOnAction(e -> screens.show(Screen.BRAIN_TRAINER));
 
-        layout.getChildren().addAll(instructions, numEquationsField, startButton, equationList, backButton);
-        stage.setScene(new Scene(layout, 400, 600));
-    }
-
-    private int calculateAnswer(int num1, int num2, char operation) {
-        switch (operation) {
-            case '+': return num1 + num2;
-            case '-': return num1 - num2;
-            case '*': return num1 * num2;
-            case '/': return num2 != 0 ? num1 / num2 : 0;
-            default: throw new IllegalArgumentException("Invalid operation: " + operation);
-        }
-    }
-
-    private char generateRandomOperation(Random random) {
-        char[] operations = {'+', '-', '*', '/'};
-        return operations[random.nextInt(operations.length)];
+        layout.getChildren().addAll(instructions, levelLabel, numEquationsField, startButton, equationList, backButton);
+        return layout;
     }
 
     // Updated Memory Game Method
-    private void playMemoryGame(Stage stage, Scene mainScene) {
+    private Parent buildMemoryGame() {
         VBox layout = new VBox(10);
         layout.setPadding(new Insets(20));
         layout.setStyle("-fx-alignment: center;");
@@ -335,6 +1555,7 @@ public class SelfImprovementApp extends Application {
         Button backButton = new Button("Back");
 
         Random random = new Random();
+        TrialHistory history = member().trialHistory();
 
         startButton.setOnAction(e -> {
             try {
@@ -347,38 +1568,69 @@ public class SelfImprovementApp extends Application {
                     numberSequence.append(numbers[i]).append(" ");
                 }
 
-                Alert alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.setHeaderText("Memorize the numbers");
-                alert.setContentText(numberSequence.toString());
-                alert.showAndWait();
+                sessions.start("memory", new PromptSession() {
+                    private int asked;
+                    private int correctCount;
+                    private long shownAt;
 
-                int correctCount = 0;
+                    @Override
+                    Prompt start() {
+                        return Prompt.message("Memorize the numbers", numberSequence.toString());
+                    }
 
-                for (int i = 0; i < numCount; i++) {
-                    TextInputDialog inputDialog = new TextInputDialog();
-                    inputDialog.setHeaderText(String.format("Enter number %d:", i + 1));
-                    Optional<String> input = inputDialog.showAndWait();
+                    @Override
+                    Prompt onAnswer(String answer) {
+                        // The first answer is the null from the memorize message
+                        if (answer != null) {
+                            boolean correct = false;
+                            try {
+                                correct = Integer.parseInt(answer.trim()) == numbers[asked - 1];
+                                if (correct) {
+                                    correctCount++;
+                                }
+                            } catch (NumberFormatException ex) {
+                                // Counts as a wrong answer
+                            }
+                            // Difficulty is the length of the sequence
+                            history.record(TrialHistory.Game.MEMORY, System.currentTimeMillis(), Math.min(numCount, 255),
+                                    correct, System.nanoTime() - shownAt);
+                        }
+                        return nextNumber();
+                    }
 
-                    if (input.isPresent() && Integer.parseInt(input.get()) == numbers[i]) {
-                        correctCount++;
+                    @Override
+                    Prompt onCancel() {
+                        return nextNumber();
                     }
-                }
 
-                instructions.setText(String.format("You remembered %d out of %d numbers!", correctCount, numCount));
+                    @Override
+                    void onFinished() {
+                        instructions.setText(String.format("You remembered %d out of %d numbers!", correctCount, numCount));
+                    }
+
+                    private Prompt nextNumber() {
+                        if (asked == numCount) {
+                            return null;
+                        }
+                        asked++;
+                        shownAt = System.nanoTime();
+                        return Prompt.input(null, String.format("Enter number %d:", asked), null);
+                    }
+                });
             } catch (NumberFormatException ex) {
                 instructions.setText("Invalid input. Please enter a valid number.");
             }
         });
 
         // Back button returns to the Brain Trainer main menu
-        backButton.setOnAction(e -> showBrainTrainer(stage, mainScene));
+        backButton.setOnAction(e -> screens.show(Screen.BRAIN_TRAINER));
 
         layout.getChildren().addAll(instructions, numCountField, startButton, backButton);
-        stage.setScene(new Scene(layout, 400, 600));
+        return layout;
     }
 
 
-    private void showHealthCalculator(Stage stage, Scene mainScene) {
+    private Parent buildHealthCalculator() {
         // Layout for the Health Calculator
         VBox layout = new VBox(10);
         layout.setPadding(new Insets(20));
@@ -418,14 +1670,9 @@ public class SelfImprovementApp extends Application {
                     return;
                 }
 
-                // Calculate BMI
-                double heightInMeters = height / 100.0;
-                double bmi = weight / (heightInMeters * heightInMeters);
-
-                // Calculate BMR
-                double bmr = (gender == 'M')
-                        ? (10 * weight) + (6.25 * height) - (5 * age) + 5
-                        : (10 * weight) + (6.25 * height) - (5 * age) - 161;
+                // Calculate BMI and BMR (Mifflin-St Jeor)
+                double bmi = HealthMath.bmi(height, weight);
+                double bmr = HealthMath.bmr(weight, height, age, gender);
 
                 // Display results
                 resultLabel.setText(String.format("Your BMI: %.2f\nYour BMR: %.2f calories/day", bmi, bmr));
@@ -435,15 +1682,15 @@ public class SelfImprovementApp extends Application {
         });
 
         // Back button returns to the Main Menu
-        backButton.setOnAction(e -> stage.setScene(mainScene));
+        backButton.setOnAction(e -> screens.show(Screen.MAIN_MENU));
 
         layout.getChildren().addAll(titleLabel, weightField, heightField, ageField, genderField, calculateButton, resultLabel, backButton);
 
-        stage.setScene(new Scene(layout, 400, 600));
+        return layout;
     }
 
 
-    private void showSleepTracker(Stage stage, Scene mainScene) {
+    private Parent buildSleepTracker() {
         // Layout for Sleep Tracker
         VBox layout = new VBox(10);
         layout.setPadding(new Insets(20));
@@ -452,6 +1699,9 @@ public class SelfImprovementApp extends Application {
         Label titleLabel = new Label("Sleep Tracker");
         titleLabel.setStyle("-fx-font-size: 16; -fx-font-weight: bold;");
 
+        // Last night's total is kept in the member's sleep history along with the rolling averages
+        SleepHistory history = member().sleepHistory();
+
         TextField sleepGoalField = new TextField();
         sleepGoalField.setPromptText("Enter your daily sleep goal in hours");
 
@@ -459,60 +1709,142 @@ public class SelfImprovementApp extends Application {
         hoursSleptField.setPromptText("Enter hours you have slept so far");
 
         Button trackButton = new Button("Track Sleep");
+        Button importButton = new Button("Import Wearable Data");
         Button backButton = new Button("Back");
 
         Label resultLabel = new Label();
+        Label historyLabel = new Label();
+        updateSleepHistoryLabel(history, historyLabel);
 
         trackButton.setOnAction(e -> {
             try {
                 // Get user input
                 double sleepGoal = Double.parseDouble(sleepGoalField.getText());
                 double hoursSlept = Double.parseDouble(hoursSleptField.getText());
+                if (sleepGoal <= 0 || sleepGoal > 24 || hoursSlept < 0 || hoursSlept > 24) {
+                    resultLabel.setText("Please enter hours between 0 and 24.");
+                    return;
+                }
                 double remainingSleep = sleepGoal - hoursSlept;
 
+                LocalDate lastNight = LocalDate.now();
+                history.setGoalMinutes((int) Math.round(sleepGoal * 60));
+                history.put(lastNight, sleepMinutes(hoursSlept));
+                dashboard.changed(Dashboard.Tile.SLEEP);
+                updateSleepHistoryLabel(history, historyLabel);
+
                 if (remainingSleep > 0) {
                     resultLabel.setText("You need to sleep " + remainingSleep + " more hours to meet your daily goal.");
                 } else {
                     resultLabel.setText("Great job! You've already met your daily sleep goal.");
+                    sessions.cancel("sleep");
+                    return;
                 }
 
-                // Keep tracking additional sleep hours until the goal is met
-                while (remainingSleep > 0) {
-                    // Asking for additional sleep hours
-                    TextInputDialog inputDialog = new TextInputDialog();
-                    inputDialog.setTitle("Additional Sleep");
-                    inputDialog.setHeaderText("Enter additional sleep hours.");
-                    Optional<String> result = inputDialog.showAndWait();
-
-                    if (result.isPresent()) {
-                        double additionalSleep = Double.parseDouble(result.get());
-                        hoursSlept += additionalSleep;
-                        remainingSleep = sleepGoal - hoursSlept;
-
-                        if (remainingSleep > 0) {
-                            resultLabel.setText("You still need to sleep " + remainingSleep + " more hours.");
-                        } else {
-                            resultLabel.setText("Congratulations! You've met your daily sleep goal.");
-                            break;  // End the loop once the goal is reached
+                // Keep asking for additional sleep hours until the goal is met or the dialog is cancelled
+                sessions.start("sleep", new PromptSession() {
+                    private double slept = hoursSlept;
+
+                    @Override
+                    Prompt start() {
+                        return askForSleep();
+                    }
+
+                    @Override
+                    Prompt onAnswer(String answer) {
+                        try {
+                            slept += Double.parseDouble(answer.trim());
+                        } catch (NumberFormatException ex) {
+                            resultLabel.setText("Please enter valid numbers for hours.");
+                            return askForSleep();
                         }
+                        history.put(lastNight, sleepMinutes(slept));
+                        dashboard.changed(Dashboard.Tile.SLEEP);
+                        updateSleepHistoryLabel(history, historyLabel);
+                        double remaining = sleepGoal - slept;
+                        if (remaining > 0) {
+                            resultLabel.setText("You still need to sleep " + remaining + " more hours.");
+                            return askForSleep();
+                        }
+                        resultLabel.setText("Congratulations! You've met your daily sleep goal.");
+                        return null;
                     }
-                }
+
+                    private Prompt askForSleep() {
+                        return Prompt.input("Additional Sleep", "Enter additional sleep hours.", null);
+                    }
+                });
 
             } catch (NumberFormatException ex) {
                 resultLabel.setText("Please enter valid numbers for hours.");
             }
         });
 
+        // Minute-level exports can run to millions of rows: read off the FX thread, then add the nights
+        importButton.setOnAction(e -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Import Wearable Sleep Export");
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv", "*.txt"));
+            File file = chooser.showOpenDialog(layout.getScene().getWindow());
+            if (file == null) {
+                return;
+            }
+            importButton.setDisable(true);
+            resultLabel.setText("Importing " + file.getName() + "...");
+            WearableImport.Nights nights = new WearableImport.Nights();
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    return WearableImport.run(file.toPath(), ZoneId.systemDefault(), nights);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }).whenCompleteAsync((summary, failure) -> {
+                importButton.setDisable(false);
+                if (failure != null) {
+                    Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+                    resultLabel.setText("Import failed: " + cause.getMessage());
+                    return;
+                }
+                history.putAll(nights.days(), nights.minutes(), nights.count());
+                dashboard.changed(Dashboard.Tile.SLEEP);
+                updateSleepHistoryLabel(history, historyLabel);
+                resultLabel.setText(String.format("Imported %d nights from %,d rows in %.1f s (%,d rows skipped).",
+                        summary.nights(), summary.rows(), summary.nanos() / 1e9, summary.skipped()));
+            }, Platform::runLater);
+        });
+
         // Back button returns to the Main Menu
-        backButton.setOnAction(e -> stage.setScene(mainScene));
+        backButton.setOnAction(e -> screens.show(Screen.MAIN_MENU));
 
-        layout.getChildren().addAll(titleLabel, sleepGoalField, hoursSleptField, trackButton, resultLabel, backButton);
+        layout.getChildren().addAll(titleLabel, sleepGoalField, hoursSleptField, trackButton, importButton,
+                resultLabel, historyLabel, backButton);
 
-        stage.setScene(new Scene(layout, 400, 600));
+        return layout;
     }
 
+    private static int sleepMinutes(double hours) {
+        return (int) Math.min(24 * 60, Math.round(hours * 60));
+    }
 
-    private void showWaterReminder(Stage stage, Scene mainScene) {
+    private static void updateSleepHistoryLabel(SleepHistory history, Label historyLabel) {
+        if (history.loggedNights() == 0) {
+            historyLabel.setText("No nights logged yet.");
+            return;
+        }
+        StringBuilder text = new StringBuilder("Average sleep up to " + history.lastNight() + ":");
+        for (int i = 0; i < SleepHistory.WINDOW_DAYS.length; i++) {
+            double average = history.average(i);
+            text.append(String.format(" %d days %s", SleepHistory.WINDOW_DAYS[i],
+                    average < 0 ? "-" : String.format("%.1f h", average / 60)));
+            text.append(i + 1 < SleepHistory.WINDOW_DAYS.length ? "," : "");
+        }
+        text.append(String.format("%nSleep debt: %.1f h (goal %.1f h a night)",
+                history.debtMinutes() / 60.0, history.goalMinutes() / 60.0));
+        historyLabel.setText(text.toString());
+    }
+
+
+    private Parent buildWaterReminder() {
         // Layout for Water Reminder
         VBox layout = new VBox(10);
         layout.setPadding(new Insets(20));
@@ -543,52 +1875,61 @@ public class SelfImprovementApp extends Application {
                     return;
                 }
 
-                // Initialize variables
-                double waterDrank = 0;
+                // Keep track of water intake until the goal is reached or the dialog is cancelled
+                sessions.start("water", new PromptSession() {
+                    private double drank;
+                    private Reminder reminder;
 
-                // Create a timer to send reminders at the specified interval
-                Timer timer = new Timer();
-                double finalWaterDrank = waterDrank;
-                timer.scheduleAtFixedRate(new TimerTask() {
                     @Override
-                    public void run() {
-                        if (finalWaterDrank < waterGoal) {
-                            resultLabel.setText("\nReminder: Stay hydrated! You've drunk "
-                                    + finalWaterDrank + " liters out of your " + waterGoal + " liter goal.");
-                        } else {
-                            resultLabel.setText("\nCongratulations! You've reached your daily water goal.");
-                            timer.cancel();
-                        }
+                    Prompt start() {
+                        // Reminders come from the shared scheduler and read the current intake when they run
+                        reminder = reminders.scheduleAtFixedRate(0, reminderInterval, TimeUnit.MINUTES,
+                                () -> uiUpdates.post(resultLabel, this::remind));
+                        dashboard.water(drank, waterGoal);
+                        return askForWater();
                     }
-                }, 0, reminderInterval * 60 * 1000); // Set the reminder interval
-
-                // While loop to keep track of water intake
-                while (waterDrank < waterGoal) {
-                    TextInputDialog inputDialog = new TextInputDialog();
-                    inputDialog.setTitle("Water Intake");
-                    inputDialog.setHeaderText("Enter the amount of water you just drank (in liters).");
-                    Optional<String> result = inputDialog.showAndWait();
-
-                    if (result.isPresent()) {
-                        double waterInput = Double.parseDouble(result.get());
 
+                    @Override
+                    Prompt onAnswer(String answer) {
+                        double waterInput;
+                        try {
+                            waterInput = Double.parseDouble(answer.trim());
+                        } catch (NumberFormatException ex) {
+                            waterInput = 0;
+                        }
                         if (waterInput <= 0) {
                             resultLabel.setText("Please enter a valid positive amount of water.");
-                            continue; // Skip to the next iteration for invalid input
+                            return askForWater();
                         }
 
-                        waterDrank += waterInput;
+                        drank += waterInput;
+                        dashboard.water(drank, waterGoal);
 
-                        if (waterDrank >= waterGoal) {
-                            resultLabel.setText("Great job! You've achieved your daily water goal!");
-                            resultLabel.setText(String.format("You've exceeded your goal by %.2f liters.", waterDrank - waterGoal));
-                            timer.cancel();
-                            break;
-                        } else {
-                            resultLabel.setText(String.format("You've now drunk %.2f liters out of your %.2f liter goal.", waterDrank, waterGoal));
+                        if (drank >= waterGoal) {
+                            resultLabel.setText(String.format("You've exceeded your goal by %.2f liters.", drank - waterGoal));
+                            return null;
                         }
+                        resultLabel.setText(String.format("You've now drunk %.2f liters out of your %.2f liter goal.", drank, waterGoal));
+                        return askForWater();
+                    }
+
+                    @Override
+                    void onFinished() {
+                        reminder.cancel();
                     }
-                }
+
+                    private void remind() {
+                        if (reminder.isCancelled()) {
+                            return;
+                        }
+                        resultLabel.setText("\nReminder: Stay hydrated! You've drunk "
+                                + drank + " liters out of your " + waterGoal + " liter goal.");
+                    }
+
+                    private Prompt askForWater() {
+                        return Prompt.input("Water Intake", "Enter the amount of water you just drank (in liters).", null);
+                    }
+                });
 
             } catch (NumberFormatException ex) {
                 resultLabel.setText("Please enter valid numbers for both fields.");
@@ -596,15 +1937,15 @@ public class SelfImprovementApp extends Application {
         });
 
         // Back button returns to the Main Menu
-        backButton.setOnAction(e -> stage.setScene(mainScene));
+        backButton.setOnAction(e -> screens.show(Screen.MAIN_MENU));
 
         layout.getChildren().addAll(titleLabel, waterGoalField, reminderIntervalField, startButton, resultLabel, backButton);
 
-        stage.setScene(new Scene(layout, 400, 600));
+        return layout;
     }
 
 
-    private void showWorkoutPlanner(Stage stage, Scene mainScene) {
+    private Parent buildWorkoutPlanner() {
         // Layout for Workout Planner
         VBox layout = new VBox(10);
         layout.setPadding(new Insets(20));
@@ -634,16 +1975,15 @@ public class SelfImprovementApp extends Application {
                 double weightKg = Double.parseDouble(weightField.getText());
 
                 // Calculate BMI
-                double bmi = calculateBMI(heightCm, weightKg);
+                double bmi = HealthMath.bmi(heightCm, weightKg);
                 bmiLabel.setText(String.format("Your BMI: %.2f", bmi));
 
                 // Determine fitness goal
-                String fitnessGoal = determineFitnessGoal(bmi);
+                HealthMath.FitnessGoal fitnessGoal = HealthMath.fitnessGoal(bmi);
                 goalLabel.setText("Your Fitness Goal: " + fitnessGoal);
 
                 // Suggest a workout program
-                workoutList.getItems().clear();
-                workoutList.getItems().addAll(suggestWorkoutProgram(fitnessGoal));
+                workoutList.getItems().setAll(fitnessGoal.workouts());
 
                 programLabel.setText("Workout Plan for: " + fitnessGoal);
 
@@ -654,7 +1994,7 @@ public class SelfImprovementApp extends Application {
 
         // Back button to return to the main menu
         Button backButton = new Button("Back");
-        backButton.setOnAction(e -> stage.setScene(mainScene));
+        backButton.setOnAction(e -> screens.show(Screen.MAIN_MENU));
 
         layout.getChildren().addAll(
                 titleLabel,
@@ -663,77 +2003,16 @@ public class SelfImprovementApp extends Application {
                 backButton
         );
 
-        stage.setScene(new Scene(layout, 400, 600));
-    }
-
-    // Method to calculate BMI
-    private double calculateBMI(double heightCm, double weightKg) {
-        double heightM = heightCm / 100; // Convert height to meters
-        return weightKg / (heightM * heightM);
+        return layout;
     }
 
-    // Method to determine the fitness goal based on BMI
-    private String determineFitnessGoal(double bmi) {
-        if (bmi < 18.5) {
-            return "Gaining Muscle";
-        } else if (bmi >= 25) {
-            return "Losing Weight";
-        } else {
-            return "Maintaining Fitness";
-        }
-    }
-
-    // Method to suggest a workout program based on the fitness goal
-    private List<String> suggestWorkoutProgram(String fitnessGoal) {
-        String[] workouts;
-
-        if ("Gaining Muscle".equals(fitnessGoal)) {
-            workouts = new String[] {
-                    "Chest Press: 3 x 12",
-                    "Leg Press: 3 x 12",
-                    "Hack Squats: 3 x 12",
-                    "Shoulder Press: 3 x 12",
-                    "Bicep Curl: 3 x 12",
-                    "Tricep Pushdown: 3 x 12",
-                    "Lat Pulldown: 3 x 12",
-                    "Seated Row: 3 x 12",
-                    "Hamstring Curl: 3 x 12",
-                    "Calf Raise: 3 x 12",
-                    "Ab Machine: 3 x 15"
-            };
-        } else if ("Losing Weight".equals(fitnessGoal)) {
-            workouts = new String[] {
-                    "Treadmill: 3 x 10 min",
-                    "Elliptical: 3 x 10 min",
-                    "Cycling: 3 x 15 min",
-                    "Rowing Machine: 3 x 10 min",
-                    "Stair Climber: 3 x 10 min",
-                    "Jump Rope: 3 x 2 min",
-                    "HIIT Circuit: 3 x 15 min",
-                    "Speed Walking: 3 x 15 min",
-                    "Aerobics: 3 x 20 min",
-                    "Swimming: 3 x 15 min"
-            };
-        } else { // Maintaining Fitness
-            workouts = new String[] {
-                    "Push-ups: 3 x 15",
-                    "Squats: 3 x 15",
-                    "Planks: 3 x 30 seconds",
-                    "Lunges: 3 x 12 per leg",
-                    "Jumping Jacks: 3 x 20",
-                    "Mountain Climbers: 3 x 20",
-                    "Burpees: 3 x 10",
-                    "Dumbbell Rows: 3 x 12",
-                    "Russian Twists: 3 x 20",
-                    "Bicycle Crunches: 3 x 20"
-            };
-        }
-
-        return Arrays.asList(workouts);
-    }
-
-
-    public static void main(String[] args) {
+    // --headless starts the health calculator HTTP service instead of the UI (no JavaFX toolkit);
+    // the remaining arguments go to HealthServer
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--headless")) {
+            HealthServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         launch(args);
     }
 }
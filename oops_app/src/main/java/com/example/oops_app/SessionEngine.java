@@ -0,0 +1,117 @@
+package com.example.oops_app;
+
+import com.example.oops_app.diagnostics.Diagnostics;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.TextInputDialog;
+import javafx.stage.Modality;
+import javafx.stage.Window;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Runs PromptSessions with non-modal dialogs opened by show() instead of showAndWait().
+//
+// No nested event loop is ever entered: a dialog closing is just another FX event that advances its
+// session, so the handler that started a session returns immediately and other sessions (or screens)
+// stay usable while one waits for input. Sessions are keyed by name (one per tracker or game); starting
+// a session under a name that is already running ends the old one first.
+final class SessionEngine {
+
+    private final Window owner;
+    private final Diagnostics diagnostics;
+    private final Map<String, PromptSession> active = new LinkedHashMap<>();
+    private final Map<String, Dialog<?>> openDialogs = new LinkedHashMap<>();
+
+    SessionEngine(Window owner, Diagnostics diagnostics) {
+        this.owner = owner;
+        this.diagnostics = diagnostics;
+    }
+
+    void start(String name, PromptSession session) {
+        cancel(name);
+        active.put(name, session);
+        advance(name, session, session.start());
+    }
+
+    boolean isActive(String name) {
+        return active.containsKey(name);
+    }
+
+    // Ends the named session without asking anything further and closes its dialog
+    void cancel(String name) {
+        PromptSession session = active.remove(name);
+        Dialog<?> dialog = openDialogs.remove(name);
+        if (dialog != null) {
+            dialog.close();
+        }
+        if (session != null) {
+            session.onFinished();
+        }
+    }
+
+    void cancelAll() {
+        for (String name : List.copyOf(active.keySet())) {
+            cancel(name);
+        }
+    }
+
+    private boolean running(String name, PromptSession session) {
+        return active.get(name) == session;
+    }
+
+    private void advance(String name, PromptSession session, PromptSession.Prompt prompt) {
+        if (!running(name, session)) {
+            return;
+        }
+        if (prompt == null) {
+            cancel(name);
+            return;
+        }
+
+        Dialog<?> dialog;
+        if (prompt.message()) {
+            dialog = new Alert(Alert.AlertType.INFORMATION);
+        } else {
+            dialog = new TextInputDialog();
+        }
+        if (prompt.title() != null) {
+            dialog.setTitle(prompt.title());
+        }
+        dialog.setHeaderText(prompt.header());
+        if (prompt.content() != null) {
+            dialog.setContentText(prompt.content());
+        }
+        dialog.initOwner(owner);
+        dialog.initModality(Modality.NONE);
+        dialog.setOnHidden(e -> {
+            if (openDialogs.get(name) == dialog) {
+                openDialogs.remove(name);
+            }
+            Object result = dialog.getResult();
+            PromptSession.Prompt next;
+            if (!running(name, session)) {
+                return;
+            }
+            // Handling the answer and opening the next dialog is this session's handler time
+            long started = System.nanoTime();
+            Diagnostics.HandlerEvent event = new Diagnostics.HandlerEvent();
+            event.begin();
+            if (prompt.message()) {
+                next = result == ButtonType.CANCEL ? session.onCancel() : session.onAnswer(null);
+            } else if (result instanceof String answer) {
+                next = session.onAnswer(answer);
+            } else {
+                next = session.onCancel();
+            }
+            advance(name, session, next);
+            event.screen = "dialog";
+            event.handler = name;
+            diagnostics.handler(event, System.nanoTime() - started);
+        });
+        openDialogs.put(name, dialog);
+        dialog.show();
+    }
+}
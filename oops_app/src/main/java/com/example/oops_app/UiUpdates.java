@@ -0,0 +1,42 @@
+package com.example.oops_app;
+
+import javafx.application.Platform;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Hands work from background threads to the FX thread in batches.
+//
+// Updates are keyed by what they change (usually the node); a newer update for the same key replaces
+// one that has not run yet. However many arrive between two FX pulses, only one Platform.runLater is
+// queued and it applies them all.
+final class UiUpdates {
+
+    // Guarded by this
+    private Map<Object, Runnable> pending = new LinkedHashMap<>();
+    private boolean scheduled;
+
+    // Safe from any thread
+    void post(Object key, Runnable update) {
+        synchronized (this) {
+            pending.put(key, update);
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        Platform.runLater(this::drain);
+    }
+
+    private void drain() {
+        Map<Object, Runnable> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            scheduled = false;
+        }
+        for (Runnable update : batch.values()) {
+            update.run();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.oops_app.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.Threshold;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Where the FX thread's time goes: Flight Recorder events plus in-memory histograms for the
+// diagnostics screen.
+//
+// Call sites create one of the events below, begin() it where the work starts and pass it to the
+// matching method here when the work ends; that commits the event (JFR keeps the ones over its
+// threshold) and adds the duration to the histogram for its kind (and, for handlers, to one histogram
+// per handler). A continuous recording with the JDK's "default" settings (meant to stay on, about 1%
+// overhead) keeps the last RECORDING_MAX_AGE so a dump after a stutter shows what led up to it.
+// FX thread only, apart from startRecording() and dumpRecording().
+public final class Diagnostics implements AutoCloseable {
+
+    static final Duration RECORDING_MAX_AGE = Duration.ofMinutes(15);
+    static final long RECORDING_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final System.Logger LOG = System.getLogger(Diagnostics.class.getName());
+    private static final DateTimeFormatter DUMP_NAME = DateTimeFormatter.ofPattern("'recording-'yyyyMMdd-HHmmss'.jfr'");
+
+    public enum Kind {
+        NAVIGATION("Screen navigation"),
+        SCENE_BUILD("Scene construction"),
+        HANDLER("Event handlers"),
+        PULSE("Pulse (CSS + layout)");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    @Name("com.example.oops_app.Navigation")
+    @Label("Screen Navigation")
+    @Description("From the click to the end of the first layout pass of the new screen")
+    @Category({"Self-Improvement App", "UI"})
+    public static final class NavigationEvent extends Event {
+        @Label("Screen")
+        public String screen;
+
+        @Label("Cached")
+        public boolean cached;
+    }
+
+    @Name("com.example.oops_app.SceneBuild")
+    @Label("Scene Construction")
+    @Category({"Self-Improvement App", "UI"})
+    public static final class SceneBuildEvent extends Event {
+        @Label("Screen")
+        public String screen;
+    }
+
+    @Name("com.example.oops_app.Handler")
+    @Label("Event Handler")
+    @Description("An action handler (button, field, dialog answer) running on the FX thread")
+    @Category({"Self-Improvement App", "UI"})
+    public static final class HandlerEvent extends Event {
+        @Label("Screen")
+        public String screen;
+
+        @Label("Handler")
+        public String handler;
+    }
+
+    // Every pulse goes to the histogram; only the slow ones to the recording
+    @Name("com.example.oops_app.Pulse")
+    @Label("FX Pulse")
+    @Description("CSS and layout part of an FX pulse on the scene being shown")
+    @Category({"Self-Improvement App", "UI"})
+    @Threshold("8 ms")
+    public static final class PulseEvent extends Event {
+        @Label("Screen")
+        public String screen;
+    }
+
+    private final Map<Kind, LatencyHistogram> histograms = new EnumMap<>(Kind.class);
+    private final Map<String, LatencyHistogram> handlers = new HashMap<>();
+    private volatile Recording recording;
+
+    public Diagnostics() {
+        for (Kind kind : Kind.values()) {
+            histograms.put(kind, new LatencyHistogram());
+        }
+    }
+
+    // Starts the continuous recording; the app keeps working without it if JFR is unavailable
+    public void startRecording() {
+        try {
+            Recording started = new Recording(Configuration.getConfiguration("default"));
+            started.setName("oops_app");
+            started.setToDisk(true);
+            started.setMaxAge(RECORDING_MAX_AGE);
+            started.setMaxSize(RECORDING_MAX_BYTES);
+            started.start();
+            recording = started;
+        } catch (IOException | ParseException | RuntimeException e) {
+            LOG.log(System.Logger.Level.WARNING, "Flight Recorder not available; diagnostics are in-app only", e);
+        }
+    }
+
+    public void navigation(NavigationEvent event, long nanos) {
+        event.commit();
+        histograms.get(Kind.NAVIGATION).record(nanos);
+    }
+
+    public void sceneBuilt(SceneBuildEvent event, long nanos) {
+        event.commit();
+        histograms.get(Kind.SCENE_BUILD).record(nanos);
+    }
+
+    public void handler(HandlerEvent event, long nanos) {
+        event.commit();
+        histograms.get(Kind.HANDLER).record(nanos);
+        handlers.computeIfAbsent(event.screen + " / " + event.handler, name -> new LatencyHistogram()).record(nanos);
+    }
+
+    public void pulse(PulseEvent event, long nanos) {
+        event.commit();
+        histograms.get(Kind.PULSE).record(nanos);
+    }
+
+    public LatencyHistogram histogram(Kind kind) {
+        return histograms.get(kind);
+    }
+
+    // Handlers with the slowest 99th percentile, slowest first
+    public List<Map.Entry<String, LatencyHistogram>> slowestHandlers(int limit) {
+        List<Map.Entry<String, LatencyHistogram>> sorted = new ArrayList<>(handlers.entrySet());
+        sorted.sort((a, b) -> Long.compare(b.getValue().percentileNanos(0.99), a.getValue().percentileNanos(0.99)));
+        return sorted.subList(0, Math.min(limit, sorted.size()));
+    }
+
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+        handlers.clear();
+    }
+
+    // Writes the last RECORDING_MAX_AGE of the recording into dir and returns the file; blocks on disk I/O
+    public Path dumpRecording(Path dir) throws IOException {
+        Recording current = recording;
+        if (current == null) {
+            throw new IOException("Flight Recorder is not running");
+        }
+        Files.createDirectories(dir);
+        Path file = dir.resolve(LocalDateTime.now().format(DUMP_NAME));
+        current.dump(file);
+        return file;
+    }
+
+    @Override
+    public void close() {
+        Recording current = recording;
+        recording = null;
+        if (current != null) {
+            current.close();
+        }
+    }
+}
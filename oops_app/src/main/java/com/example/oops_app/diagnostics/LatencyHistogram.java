@@ -0,0 +1,101 @@
+package com.example.oops_app.diagnostics;
+
+import java.util.Arrays;
+
+// Durations bucketed on a log scale: four buckets per power of two from about 1 microsecond up, so any
+// percentile is within 25% of the true value, in a fixed long[] (recording never allocates).
+// Single-threaded: the FX thread records and reads.
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int MIN_POWER = 10;
+    private static final long MIN_NANOS = 1L << MIN_POWER;
+    private static final int POWERS = 40;
+    // Under MIN_NANOS, the log buckets, and everything past the last power
+    private static final int BUCKETS = 1 + SUB_BUCKETS * POWERS + 1;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    public void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        counts[bucket(nanos)]++;
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long maxNanos() {
+        return maxNanos;
+    }
+
+    public long meanNanos() {
+        return count == 0 ? 0 : totalNanos / count;
+    }
+
+    // Upper bound of the bucket holding the q-th value (0 when empty); never more than the maximum
+    public long percentileNanos(double q) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(maxNanos, upperBound(i));
+            }
+        }
+        return maxNanos;
+    }
+
+    // Number of recorded values in [fromNanos, toNanos), to bucket precision
+    public long countBetween(long fromNanos, long toNanos) {
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            long upper = upperBound(i);
+            if (upper > fromNanos && upper <= toNanos) {
+                total += counts[i];
+            }
+        }
+        return total;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+
+    // Bucket 0 is under MIN_NANOS; then SUB_BUCKETS per doubling, split on the two bits below the top one
+    private static int bucket(long nanos) {
+        if (nanos < MIN_NANOS) {
+            return 0;
+        }
+        int power = 63 - Long.numberOfLeadingZeros(nanos);
+        if (power - MIN_POWER >= POWERS) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (nanos >>> (power - 2)) & (SUB_BUCKETS - 1);
+        return 1 + (power - MIN_POWER) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket == 0) {
+            return MIN_NANOS;
+        }
+        if (bucket >= BUCKETS - 1) {
+            return Long.MAX_VALUE;
+        }
+        int power = (bucket - 1) / SUB_BUCKETS + MIN_POWER;
+        int sub = (bucket - 1) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub + 1) << (power - 2);
+    }
+}
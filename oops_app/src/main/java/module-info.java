@@ -3,7 +3,9 @@ module com.example.oops_app {
     requires javafx.fxml;
 
     requires com.dlsc.formsfx;
+    requires com.example.oops_core;
+    requires jdk.jfr;
 
     opens com.example.oops_app to javafx.fxml;
     exports com.example.oops_app;
-}
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+#!/usr/bin/env python3
+# Compares two JMH JSON result files (java -jar target/benchmarks.jar -rf json -rff <file>).
+#
+# Usage: compare.py baseline.json current.json [--threshold 10]
+#
+# Benchmarks are matched by name and parameters. A result counts as a regression when it is more than
+# `threshold` percent worse than the baseline and the difference is larger than the two error margins
+# together; the script then exits with status 1, so a release build can stop on it.
+import json
+import sys
+
+# Modes where a lower score is better; throughput ("thrpt") is the only one where higher is better
+LOWER_IS_BETTER = {"avgt", "sample", "ss"}
+
+
+def load(path):
+    with open(path, encoding="utf-8") as f:
+        results = {}
+        for entry in json.load(f):
+            params = entry.get("params") or {}
+            key = entry["benchmark"].rsplit(".", 2)[-2] + "." + entry["benchmark"].rsplit(".", 1)[-1]
+            if params:
+                key += " [" + ", ".join(f"{k}={v}" for k, v in sorted(params.items())) + "]"
+            metric = entry["primaryMetric"]
+            error = metric.get("scoreError")
+            results[key] = (entry["mode"], metric["score"],
+                            0.0 if error in (None, "NaN") else float(error), metric["scoreUnit"])
+        return results
+
+
+def main(args):
+    threshold = 10.0
+    if "--threshold" in args:
+        at = args.index("--threshold")
+        threshold = float(args[at + 1])
+        del args[at:at + 2]
+    if len(args) != 2:
+        print("Usage: compare.py baseline.json current.json [--threshold percent]", file=sys.stderr)
+        return 2
+
+    baseline = load(args[0])
+    current = load(args[1])
+    regressions = 0
+    width = max((len(key) for key in current), default=10)
+    print(f"{'Benchmark':<{width}}  {'Baseline':>12}  {'Current':>12}  {'Change':>8}  Unit")
+    for key in sorted(current):
+        mode, score, error, unit = current[key]
+        if key not in baseline:
+            print(f"{key:<{width}}  {'-':>12}  {score:>12.3f}  {'new':>8}  {unit}")
+            continue
+        base_mode, base_score, base_error, base_unit = baseline[key]
+        if base_mode != mode or base_unit != unit or base_score == 0:
+            print(f"{key:<{width}}  {base_score:>12.3f}  {score:>12.3f}  {'n/a':>8}  {unit} (mode or unit changed)")
+            continue
+        change = (score - base_score) / base_score * 100
+        worse = change if mode in LOWER_IS_BETTER else -change
+        significant = abs(score - base_score) > error + base_error
+        flag = ""
+        if worse > threshold and significant:
+            flag = "  REGRESSION"
+            regressions += 1
+        elif -worse > threshold and significant:
+            flag = "  improved"
+        print(f"{key:<{width}}  {base_score:>12.3f}  {score:>12.3f}  {change:>+7.1f}%  {unit}{flag}")
+    for key in sorted(set(baseline) - set(current)):
+        print(f"{key:<{width}}  {baseline[key][1]:>12.3f}  {'-':>12}  {'gone':>8}  {baseline[key][3]}")
+
+    if regressions:
+        print(f"\n{regressions} regression(s) over {threshold:g}%", file=sys.stderr)
+        return 1
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main(sys.argv[1:]))
@@ -0,0 +1,100 @@
+package com.example.oops_app;
+
+import com.example.oops_core.storage.AppData;
+import javafx.application.Platform;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Building each feature screen from scratch, headless: the app is started on the Monocle glass platform
+// against an empty data directory, and each invocation builds a fresh layout for the screen and runs
+// CSS and the first layout pass, as the first visit to the screen would. Lives in the app's package
+// because the screen registry is package-private; it runs from the classpath, where that is allowed.
+// Each invocation includes one hop to the FX thread and back (a few microseconds).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dglass.platform=Monocle", "-Dmonocle.platform=Headless", "-Dprism.order=sw",
+        "-Dtestfx.headless=true"})
+public class ScreenBenchmark {
+
+    @Param({"CALORIE_COUNTER", "BRAIN_TRAINER", "EQUATION_GAME", "MEMORY_GAME", "HEALTH_CALCULATOR",
+            "SLEEP_TRACKER", "WATER_REMINDER", "WORKOUT_PLANNER", "DAILY_PLANNER"})
+    public String screenName;
+
+    // Screen is package-private, so the parameter is its name (JMH's generated code lives elsewhere)
+    private Screen screen;
+    private SelfImprovementApp app;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        screen = Screen.valueOf(screenName);
+        System.setProperty(AppData.DATA_DIR_PROPERTY, Files.createTempDirectory("oops-bench-data").toString());
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+        Platform.setImplicitExit(false);
+        app = new SelfImprovementApp();
+        app.init();
+        onFxThread(() -> {
+            app.start(new Stage());
+            return null;
+        });
+        // Member screens are built from the default profile, so wait for it to load before measuring
+        app.profile().get(30, TimeUnit.SECONDS);
+        build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        onFxThread(() -> {
+            app.stop();
+            return null;
+        });
+        Platform.exit();
+    }
+
+    @Benchmark
+    public Parent build() throws Exception {
+        return onFxThread(() -> {
+            Parent root = app.screens().build(screen);
+            new Scene(root, screen.width, screen.height);
+            root.applyCss();
+            root.layout();
+            return root;
+        });
+    }
+
+    private static <T> T onFxThread(Callable<T> work) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(work.call());
+            } catch (Exception | Error e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result.get(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.oops_bench;
+
+import com.example.oops_core.brain.AdaptiveDifficulty;
+import com.example.oops_core.brain.EquationGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Equation Game problem generation (what generateRandomOperation/calculateAnswer used to do), formatting
+// the problem text, and the adaptive difficulty update run after every answer.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EquationBenchmark {
+
+    @Param({"0", "2", "4"})
+    public int tier;
+
+    private EquationGenerator generator;
+    private AdaptiveDifficulty difficulty;
+    private final StringBuilder text = new StringBuilder(32);
+    private final SplittableRandom random = new SplittableRandom(11);
+
+    @Setup
+    public void setUp() {
+        generator = new EquationGenerator(new SplittableRandom(3));
+        difficulty = new AdaptiveDifficulty(tier);
+    }
+
+    @Benchmark
+    public int nextProblem() {
+        return generator.answer(generator.next(tier));
+    }
+
+    @Benchmark
+    public int nextProblemWithText() {
+        int slot = generator.next(tier);
+        text.setLength(0);
+        generator.format(slot, text);
+        return text.length() + generator.answer(slot);
+    }
+
+    @Benchmark
+    public int recordAnswer() {
+        return difficulty.record(random.nextInt(10) < 7, random.nextLong(1_000_000_000L, 15_000_000_000L));
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.oops_bench;
+
+import com.example.oops_core.food.FoodCatalog;
+import com.example.oops_core.food.FoodCatalogBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Calorie Counter lookups against the memory-mapped catalog (what the foodDatabase map lookups became):
+// exact name hits and misses, calories per unit and the type-ahead completion. The catalog is built
+// from a generated CSV of `foods` entries plus the ten built-in foods.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FoodCatalogBenchmark {
+
+    private static final String[] HITS = {"bread", "chicken", "banana", "carrot", "food 01234", "food 09999"};
+    private static final String[] MISSES = {"pizza", "sushi", "food x", "zzz"};
+
+    @Param({"10000", "200000"})
+    public int foods;
+
+    private Path dir;
+    private FoodCatalog catalog;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("oops-bench-food");
+        Path csv = dir.resolve("foods.csv");
+        SplittableRandom random = new SplittableRandom(5);
+        try (BufferedWriter out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            out.write("description,energy_kcal_per_100g\n");
+            for (String name : List.of("bread", "pasta", "chicken", "milk", "rice", "egg", "apple", "banana",
+                    "potato", "carrot")) {
+                out.write(name + "," + random.nextInt(20, 400) + "\n");
+            }
+            for (int i = 0; i < foods; i++) {
+                out.write(String.format(Locale.ROOT, "food %05d,%d%n", i, random.nextInt(10, 900)));
+            }
+        }
+        FoodCatalogBuilder.fromCsv(csv, dir.resolve("foods.bin"));
+        catalog = FoodCatalog.open(dir.resolve("foods.bin"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        catalog.close();
+        try (var files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Benchmark
+    public int lookupHit() {
+        return catalog.indexOf(HITS[next++ % HITS.length]);
+    }
+
+    @Benchmark
+    public int lookupMiss() {
+        return catalog.indexOf(MISSES[next++ % MISSES.length]);
+    }
+
+    @Benchmark
+    public double caloriesPerUnit() {
+        return catalog.caloriesPerUnit(HITS[next++ % HITS.length]);
+    }
+
+    @Benchmark
+    public List<String> complete() {
+        return catalog.complete(next++ % 2 == 0 ? "ch" : "food 012", 10);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.oops_bench;
+
+import com.example.oops_core.health.HealthMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Health Calculator maths: BMI (calculateBMI), BMR, the fitness goal and its workout list
+// (suggestWorkoutProgram). Inputs cycle through a fixed table so nothing is constant-folded.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HealthBenchmark {
+
+    private static final int MEMBERS = 1024;
+
+    private final double[] heights = new double[MEMBERS];
+    private final double[] weights = new double[MEMBERS];
+    private final int[] ages = new int[MEMBERS];
+    private final char[] sexes = new char[MEMBERS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < MEMBERS; i++) {
+            heights[i] = random.nextDouble(140, 205);
+            weights[i] = random.nextDouble(40, 140);
+            ages[i] = random.nextInt(16, 90);
+            sexes[i] = random.nextBoolean() ? 'M' : 'F';
+        }
+    }
+
+    @Benchmark
+    public double bmi() {
+        int i = next++ & (MEMBERS - 1);
+        return HealthMath.bmi(heights[i], weights[i]);
+    }
+
+    @Benchmark
+    public double bmr() {
+        int i = next++ & (MEMBERS - 1);
+        return HealthMath.bmr(weights[i], heights[i], ages[i], sexes[i]);
+    }
+
+    @Benchmark
+    public void suggestWorkoutProgram(Blackhole blackhole) {
+        int i = next++ & (MEMBERS - 1);
+        HealthMath.FitnessGoal goal = HealthMath.fitnessGoal(HealthMath.bmi(heights[i], weights[i]));
+        blackhole.consume(goal.workouts());
+    }
+}
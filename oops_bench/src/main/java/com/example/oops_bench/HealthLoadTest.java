@@ -0,0 +1,164 @@
+package com.example.oops_bench;
+
+import com.example.oops_core.service.HealthServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Load-test client for HealthServer: `concurrency` virtual threads each send batch requests back to
+// back for the given time, then throughput and latency percentiles are printed. Requests sent during
+// the warm-up are not counted. It ships with the benchmarks (java -cp target/benchmarks.jar ...), so
+// oops_core does not need the HTTP client.
+//
+// Usage: HealthLoadTest [--url http://127.0.0.1:8085] [--embedded] [--concurrency 64] [--seconds 10]
+//                       [--warmup 2] [--batch 100]
+// --embedded starts a HealthServer on a free local port in this JVM instead of using --url.
+public final class HealthLoadTest {
+
+    private HealthLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://127.0.0.1:" + HealthServer.DEFAULT_PORT;
+        boolean embedded = false;
+        int concurrency = 64;
+        int seconds = 10;
+        int warmup = 2;
+        int batch = 100;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--url" -> url = args[++i];
+                case "--embedded" -> embedded = true;
+                case "--concurrency" -> concurrency = Integer.parseInt(args[++i]);
+                case "--seconds" -> seconds = Integer.parseInt(args[++i]);
+                case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+                case "--batch" -> batch = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        HealthServer server = null;
+        if (embedded) {
+            server = HealthServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            url = "http://127.0.0.1:" + server.port();
+        }
+        try {
+            Result result = run(URI.create(url + (batch > 1 ? "/v1/health/batch" : "/v1/health")),
+                    batchBody(batch), concurrency, seconds, warmup);
+            result.print(batch);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    record Result(long[] latenciesNanos, long errors, double seconds) {
+
+        void print(int batch) {
+            long[] sorted = latenciesNanos.clone();
+            Arrays.sort(sorted);
+            int requests = sorted.length;
+            System.out.printf(Locale.ROOT, "requests: %d in %.1f s (%d errors)%n", requests, seconds, errors);
+            System.out.printf(Locale.ROOT, "throughput: %.0f requests/s, %.0f members/s%n",
+                    requests / seconds, requests * (double) batch / seconds);
+            if (requests > 0) {
+                System.out.printf(Locale.ROOT, "latency ms: p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                        percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                        percentile(sorted, 0.999), sorted[requests - 1] / 1e6);
+            }
+        }
+    }
+
+    static Result run(URI uri, String body, int concurrency, int seconds, int warmup) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup * 1_000_000_000L;
+        long end = measureFrom + seconds * 1_000_000_000L;
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> workers = new ArrayList<>(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    long now;
+                    while ((now = System.nanoTime()) < end) {
+                        try {
+                            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                            long done = System.nanoTime();
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            } else if (now >= measureFrom) {
+                                if (count == latencies.length) {
+                                    latencies = Arrays.copyOf(latencies, count * 2);
+                                }
+                                latencies[count++] = done - now;
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        long[] all = new long[0];
+        for (Future<long[]> worker : workers) {
+            long[] latencies = worker.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + latencies.length);
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+        }
+        return new Result(all, errors.get(), seconds);
+    }
+
+    // A batch of plausible members; a single member object when batch is 1
+    static String batchBody(int batch) {
+        SplittableRandom random = new SplittableRandom(42);
+        StringBuilder body = new StringBuilder(batch * 80);
+        if (batch > 1) {
+            body.append("{\"members\":[");
+        }
+        for (int i = 0; i < batch; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append(String.format(Locale.ROOT,
+                    "{\"id\":\"m%d\",\"heightCm\":%d,\"weightKg\":%d,\"age\":%d,\"sex\":\"%s\"}",
+                    i, 150 + random.nextInt(50), 45 + random.nextInt(70), 18 + random.nextInt(60),
+                    random.nextBoolean() ? "M" : "F"));
+        }
+        if (batch > 1) {
+            body.append("]}");
+        }
+        return body.toString();
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.oops_bench;
+
+import com.example.oops_core.planner.PlannerEvent;
+import com.example.oops_core.planner.Recurrence;
+import com.example.oops_core.planner.Schedule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Daily Planner queries behind the timetable (initializeTimeTable became a per-week render from the
+// schedule): the occurrences of one week, a conflict check for a new event and the free-slot search.
+// The schedule holds `events` one-off events spread over a year plus a few recurring ones.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlannerBenchmark {
+
+    @Param({"100", "10000"})
+    public int events;
+
+    private Schedule schedule;
+    private long weekFrom;
+    private int nextWeek;
+
+    @Setup
+    public void setUp() {
+        schedule = new Schedule();
+        LocalDate monday = LocalDate.of(2026, 1, 5).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        weekFrom = PlannerEvent.toMinute(monday.atStartOfDay());
+        SplittableRandom random = new SplittableRandom(9);
+        for (int i = 0; i < events; i++) {
+            long start = weekFrom + random.nextLong(365L * Schedule.MINUTES_PER_DAY / 5) * 5;
+            schedule.add("Event " + i, start, start + 5 * random.nextInt(3, 36), null);
+        }
+        schedule.add("Gym", weekFrom + 7 * 60, weekFrom + 8 * 60, Recurrence.daily());
+        schedule.add("Team meeting", weekFrom + 10 * 60, weekFrom + 11 * 60, Recurrence.weekly());
+    }
+
+    // One week of the grid, walking forward through the year
+    @Benchmark
+    public List<Schedule.Occurrence> weekOccurrences() {
+        long from = weekFrom + (nextWeek++ % 52) * 7 * Schedule.MINUTES_PER_DAY;
+        return schedule.between(from, from + 7 * Schedule.MINUTES_PER_DAY);
+    }
+
+    @Benchmark
+    public List<PlannerEvent> conflictsForNewEvent() {
+        long start = weekFrom + (nextWeek++ % 300) * Schedule.MINUTES_PER_DAY + 14 * 60;
+        return schedule.conflicts(start, start + 60, null, -1);
+    }
+
+    @Benchmark
+    public long findFreeSlot() {
+        long from = weekFrom + (nextWeek++ % 52) * 7 * Schedule.MINUTES_PER_DAY;
+        return schedule.findFreeSlot(from, from + 7 * Schedule.MINUTES_PER_DAY, 90, 9 * 60, 18 * 60);
+    }
+}
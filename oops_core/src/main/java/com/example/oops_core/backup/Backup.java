@@ -0,0 +1,583 @@
+package com.example.oops_core.backup;
+
+import com.example.oops_core.storage.AppData;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// One-file backup of every member's data (planner, calorie journal, recipes, Brain Trainer trials,
+// sleep) and the matching restore. There is no water history to back up: the Water Reminder screen only
+// keeps the goal typed into it for the running reminder and saves nothing.
+//
+// Archive layout (version 1):
+//   header   "OOPSBKUP", int version, long creation time (epoch ms)
+//   data     the files cut into SEGMENT_BYTES segments, each stored as-is or deflated, back to back
+//   index    the store directories, then per file: path, size and per segment: archive offset, raw
+//            length, stored length, method, CRC32C of the raw bytes
+//   footer   long index offset, int CRC32C of the index, "OOPSEND!"
+//
+// Export maps each segment of the source file, checksums and deflates it straight from the mapping;
+// a segment that does not shrink is copied with FileChannel.transferTo instead. Memory is one output
+// buffer plus the index (a few dozen bytes per MiB of data), whatever the size of the histories.
+//
+// Restore checks every segment against its checksum before touching the data directory, then writes
+// only the segments whose bytes differ from what is already there, trims each file to its archived
+// size and removes files in the archived store directories that the archive does not have (a newer
+// journal segment, say). It also deletes each restored member's sync/ directory: the operation log there
+// describes the data as it was before the restore, so the member starts a new one and matches its
+// restored entries against the other installs' on the first sync (see SyncAgent). Members that are not
+// in the archive are left alone. The profiles must be closed while it runs.
+//
+// Usage: Backup export backup.oopsbak [dataDir]
+//        Backup restore backup.oopsbak [dataDir]
+//        Backup verify backup.oopsbak
+public final class Backup {
+
+    static final int VERSION = 1;
+    static final int SEGMENT_BYTES = 1 << 20;
+
+    // The per-member directories that hold data; everything else in the data directory (food catalog,
+    // diagnostics recordings) can be rebuilt or is not worth keeping
+    static final List<String> STORE_DIRS = List.of("planner", "calorie-log", "recipes", "brain", "sleep");
+    // Per-member sync state, never archived and cleared by a restore
+    static final String SYNC_DIR = "sync";
+
+    private static final byte[] MAGIC = "OOPSBKUP".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END_MAGIC = "OOPSEND!".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_BYTES = MAGIC.length + Integer.BYTES + Long.BYTES;
+    private static final int FOOTER_BYTES = Long.BYTES + Integer.BYTES + END_MAGIC.length;
+    private static final byte STORED = 0;
+    private static final byte DEFLATED = 1;
+    // Files that are mid-rewrite (compaction, snapshot) and replaced by an atomic move when done
+    private static final List<String> TEMP_SUFFIXES = List.of(".tmp", ".compact");
+    private static final int OPEN_ATTEMPTS = 5;
+
+    private Backup() {
+    }
+
+    public record ExportSummary(int files, long bytes, long archiveBytes, long nanos) {
+    }
+
+    public record RestoreSummary(int files, int segmentsWritten, int segmentsKept, long bytesWritten,
+                                 int filesRemoved, long nanos) {
+    }
+
+    private record Segment(long dataOffset, int rawLength, int storedLength, byte method, int crc) {
+    }
+
+    private record Entry(String path, long size, List<Segment> segments) {
+    }
+
+    private record Index(List<String> storeDirs, List<Entry> entries) {
+    }
+
+    private record Source(Path file, FileChannel channel) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            usage();
+        }
+        Path archive = Path.of(args[1]);
+        Path dataDir = args.length == 3 ? Path.of(args[2]) : AppData.root();
+        switch (args[0]) {
+            case "export" -> {
+                ExportSummary summary = export(dataDir, archive);
+                System.err.printf(Locale.ROOT, "%d files, %,d bytes -> %,d bytes in %.2f s%n",
+                        summary.files(), summary.bytes(), summary.archiveBytes(), summary.nanos() / 1e9);
+            }
+            case "restore" -> {
+                RestoreSummary summary = restore(archive, dataDir);
+                System.err.printf(Locale.ROOT, "%d files: %d segments written (%,d bytes), %d already there, "
+                                + "%d files removed in %.2f s%n", summary.files(), summary.segmentsWritten(),
+                        summary.bytesWritten(), summary.segmentsKept(), summary.filesRemoved(), summary.nanos() / 1e9);
+            }
+            case "verify" -> {
+                verify(archive);
+                System.err.println("OK");
+            }
+            default -> usage();
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: Backup export backup.oopsbak [dataDir]");
+        System.err.println("       Backup restore backup.oopsbak [dataDir]");
+        System.err.println("       Backup verify backup.oopsbak");
+        System.exit(2);
+    }
+
+    // Writes every member's store directories under dataDir into a new archive (replacing it atomically)
+    public static ExportSummary export(Path dataDir, Path archive) throws IOException {
+        long started = System.nanoTime();
+        List<String> storeDirs = new ArrayList<>();
+        for (Path profileDir : profileDirs(dataDir)) {
+            for (String store : STORE_DIRS) {
+                if (Files.isDirectory(profileDir.resolve(store))) {
+                    storeDirs.add(relative(dataDir, profileDir.resolve(store)));
+                }
+            }
+        }
+
+        Path temp = archive.resolveSibling(archive.getFileName() + ".tmp");
+        List<Entry> entries = new ArrayList<>();
+        long bytes = 0;
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        ByteBuffer deflated = ByteBuffer.allocateDirect(SEGMENT_BYTES);
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.put(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).flip();
+            writeFully(out, header);
+
+            for (String storeDir : storeDirs) {
+                List<Source> sources = openAll(dataDir.resolve(storeDir));
+                try {
+                    for (Source source : sources) {
+                        Entry entry = exportFile(relative(dataDir, source.file()), source.channel(), out, deflater, deflated);
+                        entries.add(entry);
+                        bytes += entry.size();
+                    }
+                } finally {
+                    closeAll(sources);
+                }
+            }
+
+            long indexOffset = out.position();
+            CRC32C indexCrc = new CRC32C();
+            DataOutputStream index = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(out), 64 * 1024), indexCrc));
+            writeIndex(index, new Index(storeDirs, entries));
+            index.flush();
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES);
+            footer.putLong(indexOffset).putInt((int) indexCrc.getValue()).put(END_MAGIC).flip();
+            writeFully(out, footer);
+            out.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            deflater.end();
+        }
+        Files.move(temp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new ExportSummary(entries.size(), bytes, Files.size(archive), System.nanoTime() - started);
+    }
+
+    // Reads every segment of the archive and checks it against its checksum
+    public static void verify(Path archive) throws IOException {
+        try (FileChannel in = FileChannel.open(archive, StandardOpenOption.READ)) {
+            verify(in, readIndex(in));
+        }
+    }
+
+    // Brings dataDir's store directories to the archived state, writing only the segments that differ
+    public static RestoreSummary restore(Path archive, Path dataDir) throws IOException {
+        long started = System.nanoTime();
+        Path root = dataDir.toAbsolutePath().normalize();
+        int written = 0;
+        int kept = 0;
+        long bytesWritten = 0;
+        int removed = 0;
+        try (FileChannel in = FileChannel.open(archive, StandardOpenOption.READ)) {
+            Index index = readIndex(in);
+            // Nothing is written unless the whole archive is intact
+            verify(in, index);
+
+            Inflater inflater = new Inflater(true);
+            ByteBuffer raw = ByteBuffer.allocateDirect(SEGMENT_BYTES);
+            try {
+                for (Entry entry : index.entries()) {
+                    Path target = resolveInside(root, entry.path());
+                    Files.createDirectories(target.getParent());
+                    try (FileChannel file = FileChannel.open(target, StandardOpenOption.CREATE,
+                            StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                        long offset = 0;
+                        for (Segment segment : entry.segments()) {
+                            if (matches(file, offset, segment)) {
+                                kept++;
+                            } else {
+                                if (segment.method() == STORED) {
+                                    transferFully(in, segment.dataOffset(), segment.rawLength(), file, offset);
+                                } else {
+                                    inflate(in, segment, inflater, raw);
+                                    file.position(offset);
+                                    writeFully(file, raw);
+                                }
+                                written++;
+                                bytesWritten += segment.rawLength();
+                            }
+                            offset += segment.rawLength();
+                        }
+                        if (file.size() > entry.size()) {
+                            file.truncate(entry.size());
+                        }
+                        file.force(true);
+                    }
+                }
+            } finally {
+                inflater.end();
+            }
+
+            Set<String> archived = new HashSet<>();
+            for (Entry entry : index.entries()) {
+                archived.add(entry.path());
+            }
+            Set<Path> members = new LinkedHashSet<>();
+            for (String storeDir : index.storeDirs()) {
+                Path dir = resolveInside(root, storeDir);
+                members.add(dir.getParent());
+                for (Path file : listFiles(dir)) {
+                    if (!archived.contains(relative(root, file))) {
+                        Files.delete(file);
+                        removed++;
+                    }
+                }
+            }
+            for (Path member : members) {
+                removed += deleteTree(member.resolve(SYNC_DIR));
+            }
+            return new RestoreSummary(index.entries().size(), written, kept, bytesWritten, removed,
+                    System.nanoTime() - started);
+        }
+    }
+
+    private static Entry exportFile(String path, FileChannel source, FileChannel out, Deflater deflater,
+                                    ByteBuffer deflated) throws IOException {
+        // Stores append behind this point while the export runs; the copy ends where the file ended when opened
+        long size = source.size();
+        List<Segment> segments = new ArrayList<>();
+        CRC32C crc = new CRC32C();
+        for (long offset = 0; offset < size; offset += SEGMENT_BYTES) {
+            int length = (int) Math.min(SEGMENT_BYTES, size - offset);
+            MappedByteBuffer mapped = source.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            crc.reset();
+            crc.update(mapped.duplicate());
+
+            deflater.reset();
+            deflater.setInput(mapped);
+            deflater.finish();
+            deflated.clear();
+            while (!deflater.finished() && deflated.hasRemaining()) {
+                deflater.deflate(deflated);
+            }
+            long dataOffset = out.position();
+            if (deflater.finished() && deflated.position() < length) {
+                deflated.flip();
+                segments.add(new Segment(dataOffset, length, deflated.remaining(), DEFLATED, (int) crc.getValue()));
+                writeFully(out, deflated);
+            } else {
+                // Does not compress: the bytes go across as they are, without passing through the heap
+                segments.add(new Segment(dataOffset, length, length, STORED, (int) crc.getValue()));
+                transferFully(source, offset, length, out, dataOffset);
+                out.position(dataOffset + length);
+            }
+        }
+        return new Entry(path, size, segments);
+    }
+
+    private static void verify(FileChannel in, Index index) throws IOException {
+        Inflater inflater = new Inflater(true);
+        ByteBuffer raw = ByteBuffer.allocateDirect(SEGMENT_BYTES);
+        CRC32C crc = new CRC32C();
+        try {
+            for (Entry entry : index.entries()) {
+                long total = 0;
+                for (Segment segment : entry.segments()) {
+                    ByteBuffer bytes;
+                    if (segment.method() == STORED) {
+                        bytes = in.map(FileChannel.MapMode.READ_ONLY, segment.dataOffset(), segment.rawLength());
+                    } else {
+                        inflate(in, segment, inflater, raw);
+                        bytes = raw;
+                    }
+                    crc.reset();
+                    crc.update(bytes);
+                    if ((int) crc.getValue() != segment.crc()) {
+                        throw new IOException("Backup is corrupt: " + entry.path() + " at byte " + total);
+                    }
+                    total += segment.rawLength();
+                }
+                if (total != entry.size()) {
+                    throw new IOException("Backup is corrupt: " + entry.path() + " is incomplete");
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // Inflates one segment into raw (flipped, ready to read)
+    private static void inflate(FileChannel in, Segment segment, Inflater inflater, ByteBuffer raw) throws IOException {
+        inflater.reset();
+        inflater.setInput(in.map(FileChannel.MapMode.READ_ONLY, segment.dataOffset(), segment.storedLength()));
+        raw.clear().limit(segment.rawLength());
+        try {
+            while (raw.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(raw) == 0 && inflater.needsInput()) {
+                    break;
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Backup is corrupt: bad compressed segment at " + segment.dataOffset(), e);
+        }
+        if (raw.hasRemaining()) {
+            throw new IOException("Backup is corrupt: short segment at " + segment.dataOffset());
+        }
+        raw.flip();
+    }
+
+    // Whether the file already holds the segment's bytes at offset
+    private static boolean matches(FileChannel file, long offset, Segment segment) throws IOException {
+        if (file.size() < offset + segment.rawLength()) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(file.map(FileChannel.MapMode.READ_ONLY, offset, segment.rawLength()));
+        return (int) crc.getValue() == segment.crc();
+    }
+
+    private static Index readIndex(FileChannel in) throws IOException {
+        long size = in.size();
+        if (size < HEADER_BYTES + FOOTER_BYTES) {
+            throw new IOException("Not a backup archive");
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(in, header, 0);
+        byte[] magic = new byte[MAGIC.length];
+        header.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a backup archive");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Backup archive version " + version + " is not supported (expected " + VERSION + ")");
+        }
+
+        ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES);
+        readFully(in, footer, size - FOOTER_BYTES);
+        long indexOffset = footer.getLong();
+        int expected = footer.getInt();
+        byte[] end = new byte[END_MAGIC.length];
+        footer.get(end);
+        if (!Arrays.equals(end, END_MAGIC) || indexOffset < HEADER_BYTES || indexOffset > size - FOOTER_BYTES) {
+            throw new IOException("Backup archive is truncated");
+        }
+
+        CRC32C crc = new CRC32C();
+        CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(
+                Channels.newInputStream(in.position(indexOffset)), 64 * 1024), crc);
+        DataInputStream index = new DataInputStream(checked);
+        List<String> storeDirs = new ArrayList<>();
+        for (int i = index.readInt(); i > 0; i--) {
+            storeDirs.add(index.readUTF());
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (int i = index.readInt(); i > 0; i--) {
+            String path = index.readUTF();
+            long fileSize = index.readLong();
+            List<Segment> segments = new ArrayList<>();
+            for (int j = index.readInt(); j > 0; j--) {
+                Segment segment = new Segment(index.readLong(), index.readInt(), index.readInt(), index.readByte(),
+                        index.readInt());
+                if (segment.rawLength() > SEGMENT_BYTES || segment.storedLength() > segment.rawLength()
+                        || segment.dataOffset() < HEADER_BYTES || segment.dataOffset() + segment.storedLength() > indexOffset) {
+                    throw new IOException("Backup is corrupt: bad segment in " + path);
+                }
+                segments.add(segment);
+            }
+            entries.add(new Entry(path, fileSize, segments));
+        }
+        if ((int) crc.getValue() != expected) {
+            throw new IOException("Backup is corrupt: index checksum mismatch");
+        }
+        return new Index(storeDirs, entries);
+    }
+
+    private static void writeIndex(DataOutputStream out, Index index) throws IOException {
+        out.writeInt(index.storeDirs().size());
+        for (String storeDir : index.storeDirs()) {
+            out.writeUTF(storeDir);
+        }
+        out.writeInt(index.entries().size());
+        for (Entry entry : index.entries()) {
+            out.writeUTF(entry.path());
+            out.writeLong(entry.size());
+            out.writeInt(entry.segments().size());
+            for (Segment segment : entry.segments()) {
+                out.writeLong(segment.dataOffset());
+                out.writeInt(segment.rawLength());
+                out.writeInt(segment.storedLength());
+                out.writeByte(segment.method());
+                out.writeInt(segment.crc());
+            }
+        }
+    }
+
+    // The default member's directory is the data directory itself; the others are under profiles/
+    private static List<Path> profileDirs(Path dataDir) throws IOException {
+        List<Path> dirs = new ArrayList<>();
+        dirs.add(dataDir);
+        Path profiles = dataDir.resolve("profiles");
+        if (Files.isDirectory(profiles)) {
+            try (Stream<Path> members = Files.list(profiles)) {
+                members.filter(Files::isDirectory).sorted().forEach(dirs::add);
+            }
+        }
+        return dirs;
+    }
+
+    // Regular files under dir, sorted, without the temporary files of a rewrite in progress
+    private static List<Path> listFiles(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> TEMP_SUFFIXES.stream().noneMatch(file.getFileName().toString()::endsWith))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    // Deletes dir and everything under it; returns how many files went
+    private static int deleteTree(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            paths = walk.sorted(Comparator.reverseOrder()).toList();
+        }
+        int files = 0;
+        for (Path path : paths) {
+            if (Files.isRegularFile(path)) {
+                files++;
+            }
+            Files.delete(path);
+        }
+        return files;
+    }
+
+    // Opens every file of a store directory before copying any, so a compaction that deletes files
+    // afterwards cannot leave the copy with half of the old state and half of the new; if a file vanishes
+    // between listing and opening, the directory is listed again
+    private static List<Source> openAll(Path dir) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            List<Source> sources = new ArrayList<>();
+            List<Path> files = listFiles(dir);
+            try {
+                for (Path file : files) {
+                    sources.add(new Source(file, FileChannel.open(file, StandardOpenOption.READ)));
+                }
+                if (files.equals(listFiles(dir))) {
+                    return sources;
+                }
+            } catch (NoSuchFileException e) {
+                if (attempt == OPEN_ATTEMPTS) {
+                    closeAll(sources);
+                    throw e;
+                }
+            } catch (IOException | RuntimeException e) {
+                closeAll(sources);
+                throw e;
+            }
+            closeAll(sources);
+            if (attempt == OPEN_ATTEMPTS) {
+                throw new IOException(dir + " kept changing during the backup; try again");
+            }
+        }
+    }
+
+    private static void closeAll(List<Source> sources) throws IOException {
+        IOException failure = null;
+        for (Source source : sources) {
+            try {
+                source.channel().close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Archive paths are relative and '/'-separated, whatever the platform
+    private static String relative(Path root, Path file) {
+        List<String> names = new ArrayList<>();
+        for (Path name : root.toAbsolutePath().normalize().relativize(file.toAbsolutePath().normalize())) {
+            names.add(name.toString());
+        }
+        return String.join("/", names);
+    }
+
+    // Refuses paths that would land outside the data directory
+    private static Path resolveInside(Path root, String path) throws IOException {
+        Path resolved = root.resolve(path.replace('/', root.getFileSystem().getSeparator().charAt(0))).normalize();
+        if (path.isEmpty() || !resolved.startsWith(root) || resolved.equals(root)) {
+            throw new IOException("Backup has a path outside the data directory: " + path);
+        }
+        return resolved;
+    }
+
+    private static void transferFully(FileChannel source, long position, long count, FileChannel target,
+                                      long targetPosition) throws IOException {
+        target.position(targetPosition);
+        long done = 0;
+        while (done < count) {
+            long moved = source.transferTo(position + done, count - done, target);
+            if (moved <= 0) {
+                throw new IOException("Unexpected end of file while copying");
+            }
+            done += moved;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Backup archive is truncated");
+            }
+        }
+        buffer.flip();
+    }
+}
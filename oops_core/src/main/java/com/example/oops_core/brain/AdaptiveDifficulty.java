@@ -0,0 +1,105 @@
+package com.example.oops_core.brain;
+
+import java.util.Arrays;
+
+// Picks the Equation Game tier from how the player has actually been doing: accuracy and the
+// distribution of response times over the last WINDOW answers at the current tier.
+//
+// Moves up when answers are mostly right and the median correct answer is quick for the tier; moves
+// down when accuracy drops or the slow tail (p90) gets long. At least MIN_SAMPLES answers are needed
+// after each change before the next one. Fixed arrays only; nothing is allocated per answer.
+public final class AdaptiveDifficulty {
+
+    static final int WINDOW = 20;
+    static final int MIN_SAMPLES = 6;
+
+    // Time budgets per operation: a one-step problem is "fast" under 4 s, "slow" at p90 over 12 s
+    static final long FAST_NANOS_PER_STEP = 4_000_000_000L;
+    static final long SLOW_NANOS_PER_STEP = 12_000_000_000L;
+    static final double PROMOTE_ACCURACY = 0.8;
+    static final double DEMOTE_ACCURACY = 0.5;
+
+    private final long[] latencies = new long[WINDOW];
+    private final boolean[] correct = new boolean[WINDOW];
+    private final long[] scratch = new long[WINDOW];
+    private int samples;
+    private int next;
+    private int tier;
+
+    public AdaptiveDifficulty(int startTier) {
+        tier = clamp(startTier);
+    }
+
+    public int tier() {
+        return tier;
+    }
+
+    // Records an answer at the current tier and returns the tier for the next problem
+    public int record(boolean wasCorrect, long responseNanos) {
+        latencies[next] = responseNanos;
+        correct[next] = wasCorrect;
+        next = (next + 1) % WINDOW;
+        if (samples < WINDOW) {
+            samples++;
+        }
+        if (samples < MIN_SAMPLES) {
+            return tier;
+        }
+
+        int right = 0;
+        int timed = 0;
+        for (int i = 0; i < samples; i++) {
+            if (correct[i]) {
+                right++;
+                scratch[timed++] = latencies[i];
+            }
+        }
+        double accuracy = right / (double) samples;
+        int steps = EquationGenerator.TIERS[tier].steps();
+        if (timed > 0) {
+            Arrays.sort(scratch, 0, timed);
+            long median = scratch[(timed - 1) / 2];
+            long p90 = scratch[Math.min(timed - 1, (int) Math.ceil(0.9 * timed) - 1)];
+            if (accuracy >= PROMOTE_ACCURACY && median <= FAST_NANOS_PER_STEP * steps) {
+                return change(tier + 1);
+            }
+            if (p90 >= SLOW_NANOS_PER_STEP * steps) {
+                return change(tier - 1);
+            }
+        }
+        if (accuracy < DEMOTE_ACCURACY) {
+            return change(tier - 1);
+        }
+        return tier;
+    }
+
+    // Median response time of the correct answers in the window, or -1 if there are none
+    public long medianCorrectNanos() {
+        int timed = 0;
+        for (int i = 0; i < samples; i++) {
+            if (correct[i]) {
+                scratch[timed++] = latencies[i];
+            }
+        }
+        if (timed == 0) {
+            return -1;
+        }
+        Arrays.sort(scratch, 0, timed);
+        return scratch[(timed - 1) / 2];
+    }
+
+    private int change(int newTier) {
+        newTier = clamp(newTier);
+        if (newTier != tier) {
+            tier = newTier;
+            // The window described the old tier
+            samples = 0;
+            next = 0;
+        }
+        return tier;
+    }
+
+    private static int clamp(int tier) {
+        return Math.max(0, Math.min(EquationGenerator.TIERS.length - 1, tier));
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.oops_core.brain;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Arithmetic problems for the Equation Game, generated a batch at a time per difficulty tier.
+//
+// Problems live in parallel primitive arrays with one region of BATCH slots per tier, each refilled in
+// place only when that tier's batch runs out, so an adaptive level moving between tiers keeps the rest
+// of each batch and taking a problem allocates nothing: next() returns a slot and the accessors read it. Division is
+// always exact. Two-step tiers produce "(a op b) op c", evaluated left to right.
+public final class EquationGenerator {
+
+    private static final char[] OPERATORS = {'+', '-', '*', '/'};
+    private static final int PLUS = 0;
+    private static final int MINUS = 1;
+    private static final int TIMES = 2;
+    private static final int DIVIDE = 3;
+
+    static final int BATCH = 64;
+
+    // Operand range, allowed operators (bit per OPERATORS index) and number of operations
+    public record Tier(int min, int max, int operators, int steps) {
+    }
+
+    public static final Tier[] TIERS = {
+            new Tier(1, 10, 0b0011, 1),
+            new Tier(1, 20, 0b1111, 1),
+            new Tier(2, 50, 0b1111, 1),
+            new Tier(2, 20, 0b1111, 2),
+            new Tier(5, 100, 0b1111, 2),
+    };
+
+    private final SplittableRandom random;
+
+    // Tier t's batch is slots [t * BATCH, (t + 1) * BATCH); cursors[t] is its next unused slot
+    private final int[] cursors = new int[TIERS.length];
+    private final int[] first = new int[TIERS.length * BATCH];
+    private final int[] second = new int[TIERS.length * BATCH];
+    private final int[] third = new int[TIERS.length * BATCH];
+    private final byte[] firstOp = new byte[TIERS.length * BATCH];
+    private final byte[] secondOp = new byte[TIERS.length * BATCH];
+    private final int[] answers = new int[TIERS.length * BATCH];
+
+    public EquationGenerator() {
+        this(new SplittableRandom());
+    }
+
+    public EquationGenerator(SplittableRandom random) {
+        this.random = random;
+        Arrays.fill(cursors, BATCH);
+    }
+
+    // Takes the next problem of the tier and returns its slot; valid until the tier's next refill
+    // (another BATCH problems of that tier)
+    public int next(int tier) {
+        if (cursors[tier] == BATCH) {
+            fill(tier);
+        }
+        return tier * BATCH + cursors[tier]++;
+    }
+
+    public int steps(int slot) {
+        return secondOp[slot] < 0 ? 1 : 2;
+    }
+
+    public int answer(int slot) {
+        return answers[slot];
+    }
+
+    // Appends the problem text, e.g. "12 / 4" or "(3 + 5) * 2"
+    public StringBuilder format(int slot, StringBuilder out) {
+        if (secondOp[slot] >= 0) {
+            out.append('(');
+        }
+        out.append(first[slot]).append(' ').append(OPERATORS[firstOp[slot]]).append(' ').append(second[slot]);
+        if (secondOp[slot] >= 0) {
+            out.append(") ").append(OPERATORS[secondOp[slot]]).append(' ').append(third[slot]);
+        }
+        return out;
+    }
+
+    public String text(int slot) {
+        return format(slot, new StringBuilder(24)).toString();
+    }
+
+    private void fill(int tierIndex) {
+        Tier tier = TIERS[tierIndex];
+        for (int i = tierIndex * BATCH; i < (tierIndex + 1) * BATCH; i++) {
+            if (tier.steps() == 1) {
+                secondOp[i] = -1;
+                third[i] = 0;
+                answers[i] = oneStep(tier, i, pickOperator(tier.operators()));
+            } else {
+                twoStep(tier, i);
+            }
+        }
+        cursors[tierIndex] = 0;
+    }
+
+    // Fills first/firstOp/second for slot i and returns the result
+    private int oneStep(Tier tier, int i, int op) {
+        int a = operand(tier);
+        int b = operand(tier);
+        if (op == DIVIDE) {
+            // Dividend built from divisor and quotient, so the division is exact
+            a = b * operand(tier);
+        }
+        first[i] = a;
+        second[i] = b;
+        firstOp[i] = (byte) op;
+        return apply(a, op, b);
+    }
+
+    private void twoStep(Tier tier, int i) {
+        int op2 = pickOperator(tier.operators());
+        int c = operand(tier);
+        if (op2 == DIVIDE) {
+            // (a op b) must be a multiple of c: pick the quotient, then split c * q with + or -, keeping
+            // b (and a, for +) at least the tier's minimum
+            int target = c * operand(tier);
+            int op1 = target >= 2 * tier.min() && random.nextBoolean() ? PLUS : MINUS;
+            int b = op1 == PLUS ? random.nextInt(tier.min(), Math.min(tier.max(), target - tier.min()) + 1) : operand(tier);
+            int a = op1 == PLUS ? target - b : target + b;
+            first[i] = a;
+            second[i] = b;
+            firstOp[i] = (byte) op1;
+            third[i] = c;
+            secondOp[i] = (byte) DIVIDE;
+            answers[i] = target / c;
+            return;
+        }
+        int left = oneStep(tier, i, pickOperator(tier.operators()));
+        third[i] = c;
+        secondOp[i] = (byte) op2;
+        answers[i] = apply(left, op2, c);
+    }
+
+    private int operand(Tier tier) {
+        return random.nextInt(tier.min(), tier.max() + 1);
+    }
+
+    private int pickOperator(int allowed) {
+        int count = Integer.bitCount(allowed);
+        int pick = random.nextInt(count);
+        for (int op = 0; op < OPERATORS.length; op++) {
+            if ((allowed & (1 << op)) != 0 && pick-- == 0) {
+                return op;
+            }
+        }
+        throw new IllegalArgumentException("No operators allowed");
+    }
+
+    private static int apply(int a, int op, int b) {
+        return switch (op) {
+            case PLUS -> a + b;
+            case MINUS -> a - b;
+            case TIMES -> a * b;
+            case DIVIDE -> a / b;
+            default -> throw new IllegalArgumentException("Invalid operation: " + op);
+        };
+    }
+}
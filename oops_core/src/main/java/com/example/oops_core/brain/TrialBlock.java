@@ -0,0 +1,261 @@
+package com.example.oops_core.brain;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Up to CAPACITY trials of one game, bit-packed into a long[].
+//
+// Per trial, after the block's first timestamp (kept in the header):
+//   time        delta-of-delta of the millisecond timestamp, zigzagged, in a prefix-coded bucket:
+//               0 | 10 + 7 bits | 110 + 14 bits | 1110 + 24 bits | 1111 + 64 bits
+//   difficulty  0 (same as the previous trial) | 1 + 8 bits
+//   correct     1 bit
+//   latency     milliseconds: 0 + 12 bits | 10 + 17 bits | 11 + 31 bits
+// A steady practice session costs about 4-5 bytes per trial. Blocks only grow by appending; the
+// header keeps counts and the time range so queries can skip a block without decoding it.
+final class TrialBlock {
+
+    static final int CAPACITY = 1024;
+
+    // Called once per decoded trial, oldest first
+    interface Visitor {
+        void trial(long timeMillis, int difficulty, boolean correct, int latencyMillis);
+    }
+
+    private long[] words = new long[16];
+    private int bits;
+    private int count;
+    private int correctCount;
+    private long firstTime;
+    private long minTime = Long.MAX_VALUE;
+    private long maxTime = Long.MIN_VALUE;
+
+    // Encoder state for the next append
+    private long lastTime;
+    private long lastDelta;
+    private int lastDifficulty = -1;
+
+    int count() {
+        return count;
+    }
+
+    int correctCount() {
+        return correctCount;
+    }
+
+    long minTime() {
+        return minTime;
+    }
+
+    long maxTime() {
+        return maxTime;
+    }
+
+    boolean full() {
+        return count == CAPACITY;
+    }
+
+    // Bytes of packed trial data (not counting the header)
+    int packedBytes() {
+        return (bits + 7) >>> 3;
+    }
+
+    boolean overlaps(long fromMillis, long toMillis) {
+        return count > 0 && maxTime >= fromMillis && minTime < toMillis;
+    }
+
+    void append(long timeMillis, int difficulty, boolean correct, int latencyMillis) {
+        if (count == CAPACITY) {
+            throw new IllegalStateException("Trial block is full");
+        }
+        if (difficulty < 0 || difficulty > 255) {
+            throw new IllegalArgumentException("Difficulty out of range: " + difficulty);
+        }
+        if (count == 0) {
+            firstTime = timeMillis;
+            lastTime = timeMillis;
+        }
+        long delta = timeMillis - lastTime;
+        long dod = zigzag(delta - lastDelta);
+        if (dod == 0) {
+            write(0, 1);
+        } else if (dod < (1L << 7)) {
+            write(0b10, 2);
+            write(dod, 7);
+        } else if (dod < (1L << 14)) {
+            write(0b110, 3);
+            write(dod, 14);
+        } else if (dod < (1L << 24)) {
+            write(0b1110, 4);
+            write(dod, 24);
+        } else {
+            write(0b1111, 4);
+            write(dod, 64);
+        }
+        lastDelta = delta;
+        lastTime = timeMillis;
+
+        if (difficulty == lastDifficulty) {
+            write(0, 1);
+        } else {
+            write(1, 1);
+            write(difficulty, 8);
+            lastDifficulty = difficulty;
+        }
+
+        write(correct ? 1 : 0, 1);
+
+        int latency = Math.max(0, latencyMillis);
+        if (latency < (1 << 12)) {
+            write(0, 1);
+            write(latency, 12);
+        } else if (latency < (1 << 17)) {
+            write(0b10, 2);
+            write(latency, 17);
+        } else {
+            write(0b11, 2);
+            write(latency, 31);
+        }
+
+        count++;
+        if (correct) {
+            correctCount++;
+        }
+        minTime = Math.min(minTime, timeMillis);
+        maxTime = Math.max(maxTime, timeMillis);
+    }
+
+    void forEach(Visitor visitor) {
+        int position = 0;
+        long time = firstTime;
+        long delta = 0;
+        int difficulty = 0;
+        for (int i = 0; i < count; i++) {
+            long dod;
+            if (read(position++, 1) == 0) {
+                dod = 0;
+            } else if (read(position++, 1) == 0) {
+                dod = read(position, 7);
+                position += 7;
+            } else if (read(position++, 1) == 0) {
+                dod = read(position, 14);
+                position += 14;
+            } else if (read(position++, 1) == 0) {
+                dod = read(position, 24);
+                position += 24;
+            } else {
+                dod = read(position, 64);
+                position += 64;
+            }
+            delta += unzigzag(dod);
+            time += delta;
+
+            if (read(position++, 1) == 1) {
+                difficulty = (int) read(position, 8);
+                position += 8;
+            }
+
+            boolean correct = read(position++, 1) == 1;
+
+            int latency;
+            if (read(position++, 1) == 0) {
+                latency = (int) read(position, 12);
+                position += 12;
+            } else if (read(position++, 1) == 0) {
+                latency = (int) read(position, 17);
+                position += 17;
+            } else {
+                latency = (int) read(position, 31);
+                position += 31;
+            }
+            visitor.trial(time, difficulty, correct, latency);
+        }
+    }
+
+    // Header plus packed words; the encoder state is rebuilt on decode so a block can keep growing
+    int serializedSize() {
+        return 4 + 4 + 8 + Long.BYTES * wordCount();
+    }
+
+    void writeTo(ByteBuffer out) {
+        out.putInt(count).putInt(bits).putLong(firstTime);
+        for (int i = 0; i < wordCount(); i++) {
+            out.putLong(words[i]);
+        }
+    }
+
+    static TrialBlock readFrom(ByteBuffer in) {
+        TrialBlock block = new TrialBlock();
+        int count = in.getInt();
+        int bits = in.getInt();
+        if (count < 0 || count > CAPACITY || bits < 0) {
+            throw new IllegalStateException("Corrupt trial block");
+        }
+        block.firstTime = in.getLong();
+        block.words = new long[Math.max(16, (bits + 63) >>> 6)];
+        for (int i = 0; i < (bits + 63) >>> 6; i++) {
+            block.words[i] = in.getLong();
+        }
+        block.bits = bits;
+        block.count = count;
+        block.lastTime = block.firstTime;
+        block.forEach((time, difficulty, correct, latency) -> {
+            block.lastDelta = time - block.lastTime;
+            block.lastTime = time;
+            block.lastDifficulty = difficulty;
+            if (correct) {
+                block.correctCount++;
+            }
+            block.minTime = Math.min(block.minTime, time);
+            block.maxTime = Math.max(block.maxTime, time);
+        });
+        return block;
+    }
+
+    private int wordCount() {
+        return (bits + 63) >>> 6;
+    }
+
+    // Appends the low `width` bits of value, most significant first
+    private void write(long value, int width) {
+        if (bits + width > words.length * 64L) {
+            words = Arrays.copyOf(words, words.length * 2);
+        }
+        int index = bits >>> 6;
+        int used = bits & 63;
+        int free = 64 - used;
+        if (width < 64) {
+            value &= (1L << width) - 1;
+        }
+        if (width <= free) {
+            words[index] |= width == 64 ? value : value << (free - width);
+        } else {
+            int spill = width - free;
+            words[index] |= value >>> spill;
+            words[index + 1] |= value << (64 - spill);
+        }
+        bits += width;
+    }
+
+    private long read(int position, int width) {
+        int index = position >>> 6;
+        int used = position & 63;
+        int available = 64 - used;
+        long value;
+        if (width <= available) {
+            value = words[index] >>> (available - width);
+        } else {
+            int spill = width - available;
+            value = (words[index] << spill) | (words[index + 1] >>> (64 - spill));
+        }
+        return width == 64 ? value : value & ((1L << width) - 1);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.oops_core.brain;
+
+import com.example.oops_core.storage.RecordLog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Every Brain Trainer trial (time, game, difficulty, correct, response time) as a compressed time series.
+//
+// Each game has its own list of TrialBlocks in time order; only the last one is still growing. On disk
+// it is a RecordLog: a TRIAL record per answer, and a BLOCK record (the packed block) each time a block
+// fills up, which supersedes that block's TRIAL records. Opening replays the log and rewrites it once
+// superseded records add up to a block's worth, so the file stays close to the packed size (a few
+// bytes per trial). Writes happen on a background thread; the series itself is owned by the FX thread.
+public final class TrialHistory implements AutoCloseable {
+
+    public enum Game {
+        EQUATIONS("Equations"),
+        MEMORY("Memory");
+
+        private final String label;
+
+        Game(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    // Trials in a time range; latency percentiles are over all answered trials, -1 when there are none
+    public record Summary(int trials, int correct, long medianMillis, long p90Millis, long p99Millis) {
+        public double accuracy() {
+            return trials == 0 ? 0 : correct / (double) trials;
+        }
+    }
+
+    public record Week(LocalDate start, Summary summary) {
+    }
+
+    private static final byte TRIAL = 1;
+    private static final byte BLOCK = 2;
+
+    private static final System.Logger LOG = System.getLogger(TrialHistory.class.getName());
+
+    private final Map<Game, List<TrialBlock>> series = new EnumMap<>(Game.class);
+    private final RecordLog log;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "trial-history-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Query scratch, reused so a trend refresh does not allocate per trial (FX thread only)
+    private int[] latencyScratch = new int[256];
+    private int[] weekScratch = new int[256];
+
+    private TrialHistory(Path file) throws IOException {
+        for (Game game : Game.values()) {
+            series.put(game, new ArrayList<>());
+        }
+        int[] superseded = {0};
+        long valid = replay(file, superseded);
+        if (superseded[0] >= TrialBlock.CAPACITY) {
+            valid = compact(file);
+        }
+        log = RecordLog.openForAppend(file, valid);
+    }
+
+    public static TrialHistory open(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        return new TrialHistory(file);
+    }
+
+    public void record(Game game, long timeMillis, int difficulty, boolean correct, long latencyNanos) {
+        int latencyMillis = (int) Math.min(Integer.MAX_VALUE, Math.max(0, latencyNanos / 1_000_000));
+        List<TrialBlock> blocks = series.get(game);
+        TrialBlock open = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+        if (open == null || open.full()) {
+            if (open != null) {
+                seal(game, open);
+            }
+            open = new TrialBlock();
+            blocks.add(open);
+        }
+        open.append(timeMillis, difficulty, correct, latencyMillis);
+
+        ByteBuffer record = ByteBuffer.allocate(1 + 1 + 8 + 1 + 1 + 4)
+                .put(TRIAL).put((byte) game.ordinal()).putLong(timeMillis)
+                .put((byte) difficulty).put((byte) (correct ? 1 : 0)).putInt(latencyMillis)
+                .flip();
+        submit(() -> log.append(record));
+    }
+
+    public int trials(Game game) {
+        int total = 0;
+        for (TrialBlock block : series.get(game)) {
+            total += block.count();
+        }
+        return total;
+    }
+
+    // Packed size of all trials in memory, for the "how big is my history" readout
+    public long packedBytes() {
+        long total = 0;
+        for (List<TrialBlock> blocks : series.values()) {
+            for (TrialBlock block : blocks) {
+                total += block.packedBytes();
+            }
+        }
+        return total;
+    }
+
+    // Trials of the game in [fromMillis, toMillis)
+    public Summary summary(Game game, long fromMillis, long toMillis) {
+        int[] totals = new int[2];
+        int[] n = {0};
+        for (TrialBlock block : series.get(game)) {
+            if (!block.overlaps(fromMillis, toMillis)) {
+                continue;
+            }
+            if (block.minTime() >= fromMillis && block.maxTime() < toMillis) {
+                // Whole block in range: counts come from the header, only latencies need decoding
+                totals[0] += block.count();
+                totals[1] += block.correctCount();
+                ensureLatencyScratch(n[0] + block.count());
+                block.forEach((time, difficulty, correct, latency) -> latencyScratch[n[0]++] = latency);
+                continue;
+            }
+            block.forEach((time, difficulty, correct, latency) -> {
+                if (time >= fromMillis && time < toMillis) {
+                    totals[0]++;
+                    if (correct) {
+                        totals[1]++;
+                    }
+                    ensureLatencyScratch(n[0] + 1);
+                    latencyScratch[n[0]++] = latency;
+                }
+            });
+        }
+        return summarize(totals[0], totals[1], latencyScratch, 0, n[0]);
+    }
+
+    // One Summary per week (Monday to Sunday in the zone) for `weeks` weeks starting with firstWeek
+    public List<Week> weekly(Game game, ZoneId zone, LocalDate firstWeek, int weeks) {
+        long[] bounds = new long[weeks + 1];
+        for (int i = 0; i <= weeks; i++) {
+            bounds[i] = firstWeek.plusWeeks(i).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+        int[] trials = new int[weeks];
+        int[] correctCounts = new int[weeks];
+        int[] n = {0};
+        for (TrialBlock block : series.get(game)) {
+            if (!block.overlaps(bounds[0], bounds[weeks])) {
+                continue;
+            }
+            block.forEach((time, difficulty, correct, latency) -> {
+                if (time < bounds[0] || time >= bounds[weeks]) {
+                    return;
+                }
+                int found = Arrays.binarySearch(bounds, time);
+                int week = found >= 0 ? found : -found - 2;
+                trials[week]++;
+                if (correct) {
+                    correctCounts[week]++;
+                }
+                ensureLatencyScratch(n[0] + 1);
+                latencyScratch[n[0]] = latency;
+                weekScratch[n[0]++] = week;
+            });
+        }
+
+        // Counting sort of the latencies by week, then each week's slice is summarized in place
+        int[] offsets = new int[weeks + 1];
+        for (int i = 0; i < weeks; i++) {
+            offsets[i + 1] = offsets[i] + trials[i];
+        }
+        int[] byWeek = new int[n[0]];
+        int[] next = Arrays.copyOf(offsets, weeks);
+        for (int i = 0; i < n[0]; i++) {
+            byWeek[next[weekScratch[i]]++] = latencyScratch[i];
+        }
+        List<Week> result = new ArrayList<>(weeks);
+        for (int i = 0; i < weeks; i++) {
+            result.add(new Week(firstWeek.plusWeeks(i),
+                    summarize(trials[i], correctCounts[i], byWeek, offsets[i], offsets[i + 1])));
+        }
+        return result;
+    }
+
+    // Writes everything queued and closes the file
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+    }
+
+    // Appends are flushed (not fsynced) per trial; losing the last few answers in a crash is acceptable
+    private void submit(Runnable write) {
+        if (writer.isShutdown()) {
+            return;
+        }
+        writer.execute(() -> {
+            try {
+                write.run();
+                log.flush(false);
+            } catch (IOException e) {
+                LOG.log(System.Logger.Level.ERROR, "Saving Brain Trainer history failed", e);
+            }
+        });
+    }
+
+    private void seal(Game game, TrialBlock block) {
+        ByteBuffer record = ByteBuffer.allocate(2 + block.serializedSize());
+        record.put(BLOCK).put((byte) game.ordinal());
+        block.writeTo(record);
+        record.flip();
+        submit(() -> log.append(record));
+    }
+
+    private void ensureLatencyScratch(int size) {
+        if (size > latencyScratch.length) {
+            int length = Math.max(size, latencyScratch.length * 2);
+            latencyScratch = Arrays.copyOf(latencyScratch, length);
+            weekScratch = Arrays.copyOf(weekScratch, length);
+        }
+    }
+
+    private static Summary summarize(int trials, int correct, int[] latencies, int from, int to) {
+        if (to == from) {
+            return new Summary(trials, correct, -1, -1, -1);
+        }
+        Arrays.sort(latencies, from, to);
+        return new Summary(trials, correct, percentile(latencies, from, to, 0.5),
+                percentile(latencies, from, to, 0.9), percentile(latencies, from, to, 0.99));
+    }
+
+    // Nearest-rank percentile of a sorted slice
+    private static long percentile(int[] sorted, int from, int to, double q) {
+        int rank = (int) Math.ceil(q * (to - from));
+        return sorted[from + Math.max(0, rank - 1)];
+    }
+
+    // Rebuilds the series, counting the TRIAL records that a later BLOCK record superseded into
+    // superseded[0]; returns the length of the valid prefix
+    private long replay(Path file, int[] superseded) throws IOException {
+        // Per game, the block being rebuilt from TRIAL records since the last BLOCK record
+        Map<Game, TrialBlock> rebuilt = new EnumMap<>(Game.class);
+        return RecordLog.replay(file, payload -> {
+            byte type = payload.get();
+            Game game = Game.values()[payload.get()];
+            List<TrialBlock> blocks = series.get(game);
+            TrialBlock open = rebuilt.get(game);
+            switch (type) {
+                case TRIAL -> {
+                    if (open == null || open.full()) {
+                        open = new TrialBlock();
+                        blocks.add(open);
+                        rebuilt.put(game, open);
+                    }
+                    open.append(payload.getLong(), Byte.toUnsignedInt(payload.get()), payload.get() == 1,
+                            payload.getInt());
+                }
+                case BLOCK -> {
+                    // The sealed block is the full block just read back from its TRIAL records
+                    if (open != null && open.full()) {
+                        blocks.remove(open);
+                        superseded[0] += open.count();
+                    }
+                    rebuilt.remove(game);
+                    blocks.add(TrialBlock.readFrom(payload));
+                }
+                default -> throw new IllegalStateException("Unknown trial record type");
+            }
+        });
+    }
+
+    // Rewrites the log as one BLOCK record per full block and TRIAL records for each open block; returns
+    // the new file's length
+    private long compact(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".compact");
+        Files.deleteIfExists(temp);
+        long size;
+        try (RecordLog compacted = RecordLog.openForAppend(temp, 0)) {
+            for (Map.Entry<Game, List<TrialBlock>> entry : series.entrySet()) {
+                byte game = (byte) entry.getKey().ordinal();
+                for (TrialBlock block : entry.getValue()) {
+                    if (block.full()) {
+                        ByteBuffer record = ByteBuffer.allocate(2 + block.serializedSize());
+                        record.put(BLOCK).put(game);
+                        block.writeTo(record);
+                        compacted.append(record.flip());
+                    } else {
+                        block.forEach((time, difficulty, correct, latency) -> compacted.append(
+                                ByteBuffer.allocate(1 + 1 + 8 + 1 + 1 + 4)
+                                        .put(TRIAL).put(game).putLong(time)
+                                        .put((byte) difficulty).put((byte) (correct ? 1 : 0)).putInt(latency)
+                                        .flip()));
+                    }
+                }
+            }
+            compacted.flush(true);
+            size = compacted.size();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOG.log(System.Logger.Level.DEBUG, "Compacted Brain Trainer history {0}", file);
+        return size;
+    }
+}
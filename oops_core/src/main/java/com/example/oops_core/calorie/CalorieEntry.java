@@ -0,0 +1,5 @@
+package com.example.oops_core.calorie;
+
+// One "Add Calories" action. Manual entries are foods missing from the catalog, where quantity is the kcal typed in.
+public record CalorieEntry(long seq, long timeMillis, String food, double quantity, double calories, boolean manual) {
+}
@@ -0,0 +1,383 @@
+package com.example.oops_core.calorie;
+
+import com.example.oops_core.storage.RecordLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Write-ahead journal of calorie entries with periodic compacted snapshots.
+//
+// Directory contents:
+//   journal-<first seq>.wal    RecordLog segments; only the newest one is appended to
+//   snapshot-<last seq>.snap   every entry up to that seq, written as one checksummed stream
+//
+// append() only queues the entry; a single writer thread writes whatever has queued up and
+// fsyncs once per batch (group commit). After SNAPSHOT_EVERY records the writer starts a new
+// segment and folds the old snapshot plus the sealed segments into a new snapshot, so startup
+// reads one snapshot and a short tail.
+public final class CalorieJournal implements AutoCloseable {
+
+    static final int SNAPSHOT_EVERY = 10_000;
+    private static final int MAX_BATCH = 1024;
+    private static final int SNAPSHOT_MAGIC = 0x50414E53; // "SNAP"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final byte ENTRY_RECORD = 1;
+    private static final int REPLAY_ATTEMPTS = 5;
+
+    private static final System.Logger LOG = System.getLogger(CalorieJournal.class.getName());
+
+    private final Path dir;
+    private final AtomicLong nextSeq;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // Owned by the writer thread after construction
+    private RecordLog segment;
+    private long lastWrittenSeq;
+    private int segmentRecords;
+
+    private record Pending(CalorieEntry entry, CompletableFuture<Void> durable) {
+    }
+
+    private CalorieJournal(Path dir, long lastSeq, int tailRecords) throws IOException {
+        this.dir = dir;
+        this.lastWrittenSeq = lastSeq;
+        this.nextSeq = new AtomicLong(lastSeq + 1);
+        this.segmentRecords = tailRecords;
+        List<Path> segments = segments(dir);
+        this.segment = RecordLog.openForAppend(
+                segments.isEmpty() ? segmentPath(dir, lastSeq + 1) : segments.get(segments.size() - 1));
+
+        writer = new Thread(this::writeLoop, "calorie-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Replays the latest snapshot and then the journal tail into the sink, oldest first
+    public static CalorieJournal open(Path dir, Consumer<CalorieEntry> sink) throws IOException {
+        Files.createDirectories(dir);
+        Path snapshot = latestSnapshot(dir);
+        long snapshotSeq = snapshot == null ? 0 : readSnapshot(snapshot, sink);
+
+        long[] last = {snapshotSeq};
+        int[] tail = {0};
+        for (Path file : segments(dir)) {
+            RecordLog.replay(file, payload -> {
+                CalorieEntry entry = decode(payload);
+                if (entry.seq() > last[0]) {
+                    sink.accept(entry);
+                    last[0] = entry.seq();
+                    tail[0]++;
+                }
+            });
+        }
+        return new CalorieJournal(dir, last[0], tail[0]);
+    }
+
+    // Feeds the entries on disk to the sink like open(), but read-only: no torn tail is truncated and no
+    // writer is started, so it is safe while the app has the journal open. Every file is opened before
+    // any is read; a compaction deleting them meanwhile does not affect open files, and a file that is
+    // gone before it could be opened means a compaction finished, so the listing is taken again.
+    public static void replay(Path dir, Consumer<CalorieEntry> sink) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            Path snapshot = latestSnapshot(dir);
+            List<Path> files = new ArrayList<>(segments(dir));
+            if (snapshot != null) {
+                files.add(0, snapshot);
+            }
+            List<InputStream> streams = new ArrayList<>(files.size());
+            try {
+                for (Path file : files) {
+                    streams.add(Files.newInputStream(file));
+                }
+            } catch (NoSuchFileException e) {
+                closeAll(streams);
+                if (attempt == REPLAY_ATTEMPTS) {
+                    throw e;
+                }
+                continue;
+            }
+            try {
+                int next = 0;
+                long[] last = {snapshot == null ? 0 : readSnapshot(streams.get(next++), snapshot, sink)};
+                while (next < streams.size()) {
+                    RecordLog.replay(streams.get(next++), payload -> {
+                        CalorieEntry entry = decode(payload);
+                        if (entry.seq() > last[0]) {
+                            sink.accept(entry);
+                            last[0] = entry.seq();
+                        }
+                    });
+                }
+                return;
+            } finally {
+                closeAll(streams);
+            }
+        }
+    }
+
+    // Assigns the next sequence number and queues the entry for the writer. Never blocks on disk.
+    // Synchronized so queue order always matches sequence order.
+    public synchronized CalorieEntry append(long timeMillis, String food, double quantity, double calories, boolean manual) {
+        if (!running) {
+            throw new IllegalStateException("Calorie journal is closed");
+        }
+        CalorieEntry entry = new CalorieEntry(nextSeq.getAndIncrement(), timeMillis, food, quantity, calories, manual);
+        queue.add(new Pending(entry, null));
+        return entry;
+    }
+
+    // Completes once everything appended so far is on disk
+    public CompletableFuture<Void> sync() {
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        queue.add(new Pending(null, durable));
+        return durable;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        // Wakes the writer, which drains the queue and exits
+        queue.add(new Pending(null, null));
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segment.close();
+    }
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+
+                int written = 0;
+                for (Pending pending : batch) {
+                    if (pending.entry() != null) {
+                        segment.append(encode(pending.entry()));
+                        lastWrittenSeq = pending.entry().seq();
+                        written++;
+                    }
+                }
+                segment.flush(true);
+                for (Pending pending : batch) {
+                    if (pending.durable() != null) {
+                        pending.durable().complete(null);
+                    }
+                }
+                segmentRecords += written;
+                if (segmentRecords >= SNAPSHOT_EVERY) {
+                    compact();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | UncheckedIOException e) {
+                LOG.log(System.Logger.Level.ERROR, "Calorie journal write failed", e);
+                for (Pending pending : batch) {
+                    if (pending.durable() != null) {
+                        pending.durable().completeExceptionally(e);
+                    }
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Seals the current segment, folds it into a new snapshot and deletes what the snapshot now covers
+    private void compact() throws IOException {
+        long lastSeq = lastWrittenSeq;
+        segment.close();
+        List<Path> sealed = segments(dir);
+        segment = RecordLog.openForAppend(segmentPath(dir, lastSeq + 1));
+        segmentRecords = 0;
+
+        Path oldSnapshot = latestSnapshot(dir);
+        Path newSnapshot = dir.resolve(String.format("snapshot-%020d.snap", lastSeq));
+        Path temp = dir.resolve(newSnapshot.getFileName() + ".tmp");
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024), new CRC32C());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(lastSeq);
+
+            long[] written = {0, 0}; // last seq copied, entries copied
+            Consumer<CalorieEntry> copy = entry -> {
+                if (entry.seq() > written[0] && entry.seq() <= lastSeq) {
+                    try {
+                        writeEntry(out, entry);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    written[0] = entry.seq();
+                    written[1]++;
+                }
+            };
+            if (oldSnapshot != null) {
+                readSnapshot(oldSnapshot, copy);
+            }
+            for (Path file : sealed) {
+                RecordLog.replay(file, payload -> copy.accept(decode(payload)));
+            }
+            count = written[1];
+
+            // End marker followed by the checksum of everything before it
+            out.writeLong(-1);
+            out.flush();
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, newSnapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        for (Path file : sealed) {
+            Files.deleteIfExists(file);
+        }
+        if (oldSnapshot != null && !oldSnapshot.equals(newSnapshot)) {
+            Files.deleteIfExists(oldSnapshot);
+        }
+        LOG.log(System.Logger.Level.DEBUG, "Calorie journal snapshot of {0} entries written up to seq {1}", count, lastSeq);
+    }
+
+    // Streams a snapshot into the sink and returns the last seq it covers
+    private static long readSnapshot(Path file, Consumer<CalorieEntry> sink) throws IOException {
+        try (InputStream raw = Files.newInputStream(file)) {
+            return readSnapshot(raw, file, sink);
+        }
+    }
+
+    private static long readSnapshot(InputStream raw, Path file, Consumer<CalorieEntry> sink) throws IOException {
+        CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(raw, 64 * 1024), new CRC32C());
+        DataInputStream in = new DataInputStream(checked);
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("Not a calorie snapshot: " + file);
+        }
+        long lastSeq = in.readLong();
+        long seq;
+        while ((seq = in.readLong()) != -1) {
+            long time = in.readLong();
+            double quantity = in.readDouble();
+            double calories = in.readDouble();
+            boolean manual = in.readBoolean();
+            String food = in.readUTF();
+            sink.accept(new CalorieEntry(seq, time, food, quantity, calories, manual));
+        }
+        int expected = (int) checked.getChecksum().getValue();
+        if (in.readInt() != expected) {
+            throw new IOException("Calorie snapshot checksum mismatch: " + file);
+        }
+        return lastSeq;
+    }
+
+    private static void closeAll(List<InputStream> streams) throws IOException {
+        IOException failure = null;
+        for (InputStream stream : streams) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void writeEntry(DataOutputStream out, CalorieEntry entry) throws IOException {
+        out.writeLong(entry.seq());
+        out.writeLong(entry.timeMillis());
+        out.writeDouble(entry.quantity());
+        out.writeDouble(entry.calories());
+        out.writeBoolean(entry.manual());
+        out.writeUTF(entry.food());
+    }
+
+    private static ByteBuffer encode(CalorieEntry entry) {
+        byte[] food = entry.food().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 8 + 8 + 8 + 8 + 1 + 2 + food.length);
+        buffer.put(ENTRY_RECORD)
+                .putLong(entry.seq())
+                .putLong(entry.timeMillis())
+                .putDouble(entry.quantity())
+                .putDouble(entry.calories())
+                .put((byte) (entry.manual() ? 1 : 0))
+                .putShort((short) food.length)
+                .put(food);
+        return buffer.flip();
+    }
+
+    private static CalorieEntry decode(ByteBuffer payload) {
+        byte type = payload.get();
+        if (type != ENTRY_RECORD) {
+            throw new IllegalStateException("Unknown calorie journal record type " + type);
+        }
+        long seq = payload.getLong();
+        long time = payload.getLong();
+        double quantity = payload.getDouble();
+        double calories = payload.getDouble();
+        boolean manual = payload.get() != 0;
+        byte[] food = new byte[Short.toUnsignedInt(payload.getShort())];
+        payload.get(food);
+        return new CalorieEntry(seq, time, new String(food, StandardCharsets.UTF_8), quantity, calories, manual);
+    }
+
+    private static Path segmentPath(Path dir, long firstSeq) {
+        return dir.resolve(String.format("journal-%020d.wal", firstSeq));
+    }
+
+    private static List<Path> segments(Path dir) throws IOException {
+        return list(dir, "journal-", ".wal");
+    }
+
+    private static Path latestSnapshot(Path dir) throws IOException {
+        List<Path> snapshots = list(dir, "snapshot-", ".snap");
+        return snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+    }
+
+    // Zero-padded sequence numbers make name order the same as sequence order
+    private static List<Path> list(Path dir, String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(prefix) && name.endsWith(suffix);
+            }).sorted().toList();
+        }
+    }
+}
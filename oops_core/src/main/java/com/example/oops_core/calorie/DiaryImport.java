@@ -0,0 +1,1008 @@
+package com.example.oops_core.calorie;
+
+import com.example.oops_core.food.FoodCatalog;
+import com.example.oops_core.text.AsciiBytes;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+
+// Bulk import of food diaries exported by other apps, parsed in parallel.
+//
+// The file is cut into CHUNK_BYTES chunks on record boundaries, and every chunk is parsed on the
+// common fork-join pool straight from bytes into primitive columns (time, food, grams, kcal). Food
+// names are interned per chunk, so a food eaten a thousand times becomes one String. The distinct names
+// of all chunks are then resolved once each, in name order, against the resolver (the catalog and
+// the member's recipes). The rows come back in file order for the caller to commit.
+//
+// CSV needs a header row; JSON is an array of flat objects, or one object per line. Columns and keys
+// are recognised by name: a date or timestamp, optionally a separate time of day, the food, the
+// quantity, and optionally calories. Dates are ISO (2024-03-01, with a time after T or a space) or
+// epoch seconds/milliseconds; a date without a time is logged at noon. A CSV chunk boundary is the
+// next line break, so quoted fields may hold commas but not line breaks.
+//
+// Quantities are free-form ("150g", "2 cups", "1 1/2 slices", "0.5 l", "3 oz", "2 eggs"). Masses and
+// volumes convert exactly (volumes by water weight, like ml in the catalog). Count words use typical
+// portions: a slice is SLICE_GRAMS, a serving SERVING_GRAMS, and any other word is PIECE_GRAMS. A bare
+// number is grams, as in the Calorie Counter.
+// A row with a known food and a readable quantity gets catalog calories. Otherwise the export's own
+// calories are used and the entry is marked manual. Without either, the row is not imported.
+//
+// Usage: DiaryImport diary.csv|diary.json [food-catalog.csv]   (prints the summary)
+//        DiaryImport --generate rows diary.csv                 (synthetic diary, for trying it out)
+public final class DiaryImport {
+
+    static final int CHUNK_BYTES = 4 << 20;
+    static final double SLICE_GRAMS = 30;
+    static final double SERVING_GRAMS = 100;
+    static final double PIECE_GRAMS = 50;
+
+    private static final int SCAN_BYTES = 64 * 1024;
+    private static final long NOON_MINUTE = 12 * 60;
+
+    // Column/key roles; a header cell takes the first role (in this order) whose names it contains
+    private static final int DATE = 0;
+    private static final int TIME = 1;
+    private static final int FOOD = 2;
+    private static final int QUANTITY = 3;
+    private static final int CALORIES = 4;
+    private static final String[][] ROLE_NAMES = {
+            {"date", "timestamp", "logged", "day"},
+            {"time"},
+            {"food", "name", "item", "description"},
+            {"quantity", "amount", "serving", "portion", "qty"},
+            {"kcal", "calorie", "energy"},
+    };
+
+    // Unit words and grams per unit; a word not listed here counts as a piece
+    private static final byte[][] UNIT_NAMES;
+    private static final double[] UNIT_GRAMS;
+
+    static {
+        Object[][] units = {
+                {"g", 1.0}, {"gr", 1.0}, {"gram", 1.0}, {"grams", 1.0}, {"kg", 1000.0}, {"mg", 0.001},
+                {"oz", 28.3495}, {"ounce", 28.3495}, {"lb", 453.592}, {"lbs", 453.592}, {"pound", 453.592},
+                {"ml", 1.0}, {"milliliter", 1.0}, {"millilitre", 1.0}, {"cl", 10.0}, {"dl", 100.0},
+                {"l", 1000.0}, {"liter", 1000.0}, {"litre", 1000.0},
+                {"cup", 240.0}, {"tbsp", 15.0}, {"tbs", 15.0}, {"tablespoon", 15.0},
+                {"tsp", 5.0}, {"teaspoon", 5.0}, {"floz", 29.5735},
+                {"slice", SLICE_GRAMS}, {"serving", SERVING_GRAMS}, {"portion", SERVING_GRAMS},
+        };
+        UNIT_NAMES = new byte[units.length][];
+        UNIT_GRAMS = new double[units.length];
+        for (int i = 0; i < units.length; i++) {
+            UNIT_NAMES[i] = ((String) units[i][0]).getBytes(StandardCharsets.US_ASCII);
+            UNIT_GRAMS[i] = (Double) units[i][1];
+        }
+    }
+
+    private DiaryImport() {
+    }
+
+    public record Summary(long rows, int imported, long skipped, long unresolved, int foods, int unknownFoods,
+                          long parseNanos, long nanos) {
+
+        public double rowsPerSecond() {
+            return rows / (nanos / 1e9);
+        }
+    }
+
+    // The imported rows in file order, as columns; food names are shared between rows
+    public static final class Diary {
+        private final long[] times;
+        private final int[] foods;
+        private final double[] quantities;
+        private final double[] calories;
+        private final boolean[] manual;
+        private final String[] foodNames;
+        private final int size;
+        private Summary summary;
+
+        private Diary(long[] times, int[] foods, double[] quantities, double[] calories, boolean[] manual,
+                      String[] foodNames, int size) {
+            this.times = times;
+            this.foods = foods;
+            this.quantities = quantities;
+            this.calories = calories;
+            this.manual = manual;
+            this.foodNames = foodNames;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long timeMillis(int row) {
+            return times[row];
+        }
+
+        public String food(int row) {
+            return foodNames[foods[row]];
+        }
+
+        // Grams (or ml); NaN when the export's quantity could not be read
+        public double quantity(int row) {
+            return quantities[row];
+        }
+
+        public double calories(int row) {
+            return calories[row];
+        }
+
+        public boolean manual(int row) {
+            return manual[row];
+        }
+
+        public Summary summary() {
+            return summary;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("--generate")) {
+            generate(Integer.parseInt(args[1]), Path.of(args[2]));
+            return;
+        }
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: DiaryImport diary.csv|diary.json [food-catalog.csv]");
+            System.err.println("       DiaryImport --generate rows diary.csv");
+            System.exit(2);
+        }
+        Path dir = Files.createTempDirectory("diary-import");
+        Path binary = dir.resolve("food-catalog.bin");
+        try (FoodCatalog catalog = FoodCatalog.openOrBuild(args.length == 2 ? Path.of(args[1]) : dir.resolve("food-catalog.csv"),
+                binary)) {
+            Summary summary = run(Path.of(args[0]), ZoneId.systemDefault(), catalog::caloriesPerUnit).summary();
+            System.err.printf(Locale.ROOT, "%,d rows, %,d imported, %,d unreadable, %,d unknown food without calories;"
+                            + " %,d foods (%,d unknown); parsed in %.2f s, %.2f s total (%,.0f rows/s)%n",
+                    summary.rows(), summary.imported(), summary.skipped(), summary.unresolved(), summary.foods(),
+                    summary.unknownFoods(), summary.parseNanos() / 1e9, summary.nanos() / 1e9, summary.rowsPerSecond());
+        } finally {
+            Files.deleteIfExists(binary);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    // Parses the whole export; caloriesPerGram gives NaN for a food it does not know and is called once
+    // per distinct food, on the calling thread
+    public static Diary run(Path file, ZoneId zone, ToDoubleFunction<String> caloriesPerGram) throws IOException {
+        long started = System.nanoTime();
+        ZoneRules rules = zone.getRules();
+        List<ChunkParser> parsed;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            byte[] head = read(channel, 0, (int) Math.min(size, SCAN_BYTES));
+            int start = skipWhitespace(head, head.length >= 3 && (head[0] & 0xff) == 0xEF ? 3 : 0, head.length);
+            if (start == head.length) {
+                throw new IOException("Diary export is empty: " + file);
+            }
+            boolean json = head[start] == '[' || head[start] == '{';
+            int[] columns = null;
+            long[] bounds;
+            if (json) {
+                bounds = jsonChunks(channel, size);
+            } else {
+                int headerEnd = AsciiBytes.indexOf(head, (byte) '\n', start, head.length);
+                if (headerEnd < 0) {
+                    headerEnd = head.length;
+                }
+                columns = csvColumns(head, start, headerEnd);
+                if (columns[DATE] < 0 || columns[FOOD] < 0) {
+                    throw new IOException("Diary CSV needs a date and a food column: "
+                            + new String(head, start, headerEnd - start, StandardCharsets.UTF_8).trim());
+                }
+                bounds = csvChunks(channel, Math.min(size, headerEnd + 1L), size);
+            }
+            int[] csvColumns = columns;
+            try {
+                parsed = IntStream.range(0, bounds.length - 1).parallel().mapToObj(i -> {
+                    ChunkParser parser = new ChunkParser(rules, csvColumns);
+                    try {
+                        byte[] data = read(channel, bounds[i], (int) (bounds[i + 1] - bounds[i]));
+                        if (json) {
+                            parser.json(data);
+                        } else {
+                            parser.csv(data);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return parser;
+                }).toList();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        long parseNanos = System.nanoTime() - started;
+        Diary diary = merge(parsed, caloriesPerGram);
+        diary.summary = new Summary(diary.summary.rows(), diary.size, diary.summary.skipped(), diary.summary.unresolved(),
+                diary.summary.foods(), diary.summary.unknownFoods(), parseNanos, System.nanoTime() - started);
+        return diary;
+    }
+
+    // Chunk columns concatenated in file order, each distinct food resolved once
+    private static Diary merge(List<ChunkParser> chunks, ToDoubleFunction<String> caloriesPerGram) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        int total = 0;
+        long rows = 0;
+        long skipped = 0;
+        int[][] remaps = new int[chunks.size()][];
+        for (int c = 0; c < chunks.size(); c++) {
+            ChunkParser chunk = chunks.get(c);
+            total += chunk.size;
+            rows += chunk.rows;
+            skipped += chunk.skipped;
+            remaps[c] = new int[chunk.names.size()];
+            for (int local = 0; local < chunk.names.size(); local++) {
+                remaps[c][local] = ids.computeIfAbsent(chunk.names.get(local), name -> {
+                    names.add(name);
+                    return names.size() - 1;
+                });
+            }
+        }
+
+        // In name order, so lookups walk the (sorted) catalog forwards
+        Integer[] order = new Integer[names.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> names.get(a).compareTo(names.get(b)));
+        double[] perGram = new double[names.size()];
+        int unknownFoods = 0;
+        for (int id : order) {
+            perGram[id] = caloriesPerGram.applyAsDouble(names.get(id));
+            if (Double.isNaN(perGram[id])) {
+                unknownFoods++;
+            }
+        }
+
+        long[] times = new long[total];
+        int[] foods = new int[total];
+        double[] quantities = new double[total];
+        double[] calories = new double[total];
+        boolean[] manual = new boolean[total];
+        int n = 0;
+        long unresolved = 0;
+        for (int c = 0; c < chunks.size(); c++) {
+            ChunkParser chunk = chunks.get(c);
+            for (int i = 0; i < chunk.size; i++) {
+                int food = remaps[c][chunk.foods[i]];
+                double grams = chunk.grams[i];
+                double kcal = perGram[food] * grams;
+                boolean fromExport = Double.isNaN(kcal);
+                if (fromExport) {
+                    kcal = chunk.kcal[i];
+                    if (Double.isNaN(kcal)) {
+                        unresolved++;
+                        continue;
+                    }
+                }
+                times[n] = chunk.times[i];
+                foods[n] = food;
+                quantities[n] = grams;
+                calories[n] = kcal;
+                manual[n++] = fromExport;
+            }
+        }
+        Diary diary = new Diary(times, foods, quantities, calories, manual, names.toArray(new String[0]), n);
+        diary.summary = new Summary(rows, n, skipped, unresolved, names.size(), unknownFoods, 0, 0);
+        return diary;
+    }
+
+    // Chunk boundaries for CSV: every CHUNK_BYTES, moved forward to the next line start
+    private static long[] csvChunks(FileChannel channel, long dataStart, long size) throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(dataStart);
+        long next = dataStart + CHUNK_BYTES;
+        while (next < size) {
+            long boundary = -1;
+            for (long at = next; at < size && boundary < 0; at += SCAN_BYTES) {
+                byte[] window = read(channel, at, (int) Math.min(SCAN_BYTES, size - at));
+                int newline = AsciiBytes.indexOf(window, (byte) '\n', 0, window.length);
+                if (newline >= 0) {
+                    boundary = at + newline + 1;
+                }
+            }
+            if (boundary < 0 || boundary >= size) {
+                break;
+            }
+            bounds.add(boundary);
+            next = boundary + CHUNK_BYTES;
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    // Chunk boundaries for JSON: the start of a record object once CHUNK_BYTES have gone by. Finding
+    // them needs one sequential pass over the structure (strings and nesting), which is far cheaper
+    // than the parsing it splits up.
+    private static long[] jsonChunks(FileChannel channel, long size) throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long next = CHUNK_BYTES;
+        int depth = 0;
+        int recordDepth = -1;
+        boolean inString = false;
+        boolean escaped = false;
+        for (long at = 0; at < size; at += CHUNK_BYTES) {
+            byte[] block = read(channel, at, (int) Math.min(CHUNK_BYTES, size - at));
+            for (int i = 0; i < block.length; i++) {
+                byte b = block[i];
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        inString = false;
+                    }
+                } else if (b == '"') {
+                    inString = true;
+                } else if (b == '{' || b == '[') {
+                    if (b == '{' && recordDepth < 0) {
+                        // Top-level array of records, or one record per line
+                        recordDepth = depth;
+                    }
+                    if (b == '{' && depth == recordDepth && at + i >= next) {
+                        bounds.add(at + i);
+                        next = at + i + CHUNK_BYTES;
+                    }
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    depth--;
+                }
+            }
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static int[] csvColumns(byte[] data, int from, int to) {
+        int[] columns = new int[ROLE_NAMES.length];
+        Arrays.fill(columns, -1);
+        int column = 0;
+        int cell = from;
+        boolean quoted = false;
+        for (int i = from; i <= to; i++) {
+            if (i < to && data[i] == '"') {
+                quoted = !quoted;
+            } else if (i == to || (data[i] == ',' && !quoted)) {
+                int role = role(new String(data, cell, i - cell, StandardCharsets.UTF_8));
+                if (role >= 0 && columns[role] < 0) {
+                    columns[role] = column;
+                }
+                column++;
+                cell = i + 1;
+            }
+        }
+        return columns;
+    }
+
+    private static int role(String name) {
+        String lower = name.replace("\"", "").trim().toLowerCase(Locale.ROOT);
+        if (lower.isEmpty()) {
+            return -1;
+        }
+        for (int role = 0; role < ROLE_NAMES.length; role++) {
+            for (String candidate : ROLE_NAMES[role]) {
+                if (lower.contains(candidate)) {
+                    return role;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Parses one chunk into columns; food ids are local to the chunk until merge()
+    private static final class ChunkParser {
+        private final ZoneRules rules;
+        private final int[] columns;
+
+        long[] times = new long[1024];
+        int[] foods = new int[1024];
+        double[] grams = new double[1024];
+        double[] kcal = new double[1024];
+        int size;
+        long rows;
+        long skipped;
+
+        // Food names interned by their (ASCII case-folded) bytes, so a repeated food allocates nothing
+        final List<String> names = new ArrayList<>();
+        private final List<byte[]> nameKeys = new ArrayList<>();
+        private int[] table = new int[1024];
+        private final Map<String, Integer> escapedNames = new HashMap<>();
+
+        // Per record: where each role's value is, and whether the string held escapes (JSON)
+        private final int[] valueFrom = new int[ROLE_NAMES.length];
+        private final int[] valueTo = new int[ROLE_NAMES.length];
+        private final boolean[] valueEscaped = new boolean[ROLE_NAMES.length];
+
+        // JSON keys seen so far and their roles (-1 when unused)
+        private final List<byte[]> keys = new ArrayList<>();
+        private final List<Integer> keyRoles = new ArrayList<>();
+
+        // Whether the last dateMinute() found a time of day as well
+        private boolean hadTime;
+
+        // Local-to-UTC offset cache, valid for one local hour at a time
+        private long offsetHour = Long.MIN_VALUE;
+        private long offsetMinutes;
+
+        ChunkParser(ZoneRules rules, int[] columns) {
+            this.rules = rules;
+            this.columns = columns;
+            Arrays.fill(table, -1);
+        }
+
+        void csv(byte[] data) {
+            int start = 0;
+            while (start < data.length) {
+                int end = AsciiBytes.indexOf(data, (byte) '\n', start, data.length);
+                if (end < 0) {
+                    end = data.length;
+                }
+                int to = end > start && data[end - 1] == '\r' ? end - 1 : end;
+                if (to > start) {
+                    csvLine(data, start, to);
+                }
+                start = end + 1;
+            }
+        }
+
+        private void csvLine(byte[] data, int from, int to) {
+            Arrays.fill(valueFrom, -1);
+            int column = 0;
+            int cell = from;
+            boolean quoted = false;
+            for (int i = from; i <= to; i++) {
+                if (i < to && data[i] == '"') {
+                    quoted = !quoted;
+                } else if (i == to || (data[i] == ',' && !quoted)) {
+                    for (int role = 0; role < columns.length; role++) {
+                        if (columns[role] == column) {
+                            valueFrom[role] = AsciiBytes.trimStart(data, cell, i);
+                            valueTo[role] = AsciiBytes.trimEnd(data, valueFrom[role], i);
+                            valueEscaped[role] = false;
+                        }
+                    }
+                    column++;
+                    cell = i + 1;
+                }
+            }
+            record(data);
+        }
+
+        void json(byte[] data) {
+            int i = 0;
+            while (i < data.length) {
+                byte b = data[i];
+                if (b == '{') {
+                    i = jsonObject(data, i + 1);
+                } else {
+                    // Whitespace, commas and the enclosing array's brackets
+                    i++;
+                }
+            }
+        }
+
+        // Reads one flat record starting after its '{'; returns the position after its '}'
+        private int jsonObject(byte[] data, int i) {
+            Arrays.fill(valueFrom, -1);
+            while (true) {
+                i = skipWhitespace(data, i, data.length);
+                if (i >= data.length) {
+                    return i;
+                }
+                if (data[i] == '}') {
+                    record(data);
+                    return i + 1;
+                }
+                if (data[i] == ',') {
+                    i++;
+                    continue;
+                }
+                if (data[i] != '"') {
+                    // Not a key: give up on this record
+                    skipped++;
+                    rows++;
+                    return skipValue(data, i);
+                }
+                int keyFrom = i + 1;
+                int keyTo = stringEnd(data, keyFrom);
+                int role = keyRole(data, keyFrom, keyTo);
+                i = skipWhitespace(data, keyTo + 1, data.length);
+                if (i < data.length && data[i] == ':') {
+                    i = skipWhitespace(data, i + 1, data.length);
+                }
+                if (i >= data.length) {
+                    return i;
+                }
+                int valueEnd = skipValue(data, i);
+                if (role >= 0) {
+                    if (data[i] == '"') {
+                        valueFrom[role] = i + 1;
+                        valueTo[role] = valueEnd - 1;
+                        valueEscaped[role] = AsciiBytes.indexOf(data, (byte) '\\', i + 1, valueEnd - 1) >= 0;
+                    } else {
+                        valueFrom[role] = i;
+                        valueTo[role] = trimWhitespaceEnd(data, i, valueEnd);
+                        valueEscaped[role] = false;
+                    }
+                }
+                i = valueEnd;
+            }
+        }
+
+        private int keyRole(byte[] data, int from, int to) {
+            for (int k = 0; k < keys.size(); k++) {
+                byte[] key = keys.get(k);
+                if (key.length == to - from && Arrays.equals(key, 0, key.length, data, from, to)) {
+                    return keyRoles.get(k);
+                }
+            }
+            int role = role(new String(data, from, to - from, StandardCharsets.UTF_8));
+            // A key only takes a role no earlier key has
+            if (role >= 0 && keyRoles.contains(role)) {
+                role = -1;
+            }
+            keys.add(Arrays.copyOfRange(data, from, to));
+            keyRoles.add(role);
+            return role;
+        }
+
+        // One record's values are in valueFrom/valueTo: turn them into a row
+        private void record(byte[] data) {
+            rows++;
+            if (valueFrom[DATE] < 0 || valueFrom[FOOD] < 0 || valueTo[FOOD] <= valueFrom[FOOD]) {
+                skipped++;
+                return;
+            }
+            long minute = dateMinute(data, valueFrom[DATE], valueTo[DATE]);
+            if (minute == Long.MIN_VALUE) {
+                skipped++;
+                return;
+            }
+            if (valueFrom[TIME] >= 0 && !hadTime) {
+                int timeOfDay = timeOfDay(data, valueFrom[TIME], valueTo[TIME]);
+                if (timeOfDay >= 0) {
+                    minute += timeOfDay - NOON_MINUTE;
+                }
+            }
+            double quantity = valueFrom[QUANTITY] < 0 ? Double.NaN : quantityGrams(data, valueFrom[QUANTITY], valueTo[QUANTITY]);
+            double calories = valueFrom[CALORIES] < 0 ? Double.NaN : number(data, valueFrom[CALORIES], valueTo[CALORIES]);
+            int food = valueEscaped[FOOD] ? internEscaped(data, valueFrom[FOOD], valueTo[FOOD])
+                    : intern(data, valueFrom[FOOD], valueTo[FOOD]);
+            if (food < 0) {
+                skipped++;
+                return;
+            }
+            if (size == times.length) {
+                int capacity = size * 2;
+                times = Arrays.copyOf(times, capacity);
+                foods = Arrays.copyOf(foods, capacity);
+                grams = Arrays.copyOf(grams, capacity);
+                kcal = Arrays.copyOf(kcal, capacity);
+            }
+            times[size] = (minute - offsetMinutes(Math.floorDiv(minute, 60))) * 60_000;
+            foods[size] = food;
+            grams[size] = quantity;
+            kcal[size++] = calories;
+        }
+
+        private int intern(byte[] data, int from, int to) {
+            int hash = 0;
+            for (int i = from; i < to; i++) {
+                hash = hash * 31 + lower(data[i]);
+            }
+            int mask = table.length - 1;
+            for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+                int id = table[slot];
+                if (id < 0) {
+                    break;
+                }
+                byte[] key = nameKeys.get(id);
+                if (key.length == to - from && equalsFolded(key, data, from)) {
+                    return id;
+                }
+            }
+            String name = FoodCatalog.normalize(new String(data, from, to - from, StandardCharsets.UTF_8));
+            if (name.isEmpty()) {
+                return -1;
+            }
+            byte[] key = new byte[to - from];
+            for (int i = 0; i < key.length; i++) {
+                key[i] = lower(data[from + i]);
+            }
+            int id = names.size();
+            names.add(name);
+            nameKeys.add(key);
+            if (names.size() * 2 > table.length) {
+                rehash();
+            } else {
+                insert(id, hash);
+            }
+            return id;
+        }
+
+        private void rehash() {
+            table = new int[table.length * 2];
+            Arrays.fill(table, -1);
+            for (int id = 0; id < nameKeys.size(); id++) {
+                int hash = 0;
+                for (byte b : nameKeys.get(id)) {
+                    hash = hash * 31 + b;
+                }
+                insert(id, hash);
+            }
+        }
+
+        private void insert(int id, int hash) {
+            int mask = table.length - 1;
+            int slot = mix(hash) & mask;
+            while (table[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id;
+        }
+
+        // Names with JSON escapes take the slow path through a String
+        private int internEscaped(byte[] data, int from, int to) {
+            String name = FoodCatalog.normalize(unescape(data, from, to));
+            if (name.isEmpty()) {
+                return -1;
+            }
+            return escapedNames.computeIfAbsent(name, key -> {
+                names.add(key);
+                nameKeys.add(new byte[0]);
+                return names.size() - 1;
+            });
+        }
+
+        // Local minute since the epoch (noon for a date alone), or Long.MIN_VALUE when unreadable
+        private long dateMinute(byte[] data, int from, int to) {
+            if (to - from >= 10 && !AsciiBytes.isDigit(data[from + 4]) && !AsciiBytes.isDigit(data[from + 7])) {
+                int year = AsciiBytes.digits(data, from, 4);
+                int month = AsciiBytes.digits(data, from + 5, 2);
+                int day = AsciiBytes.digits(data, from + 8, 2);
+                if (year < 0 || !AsciiBytes.isDate(year, month, day)) {
+                    return Long.MIN_VALUE;
+                }
+                long minute = AsciiBytes.daysFromCivil(year, month, day) * 24 * 60;
+                int timeOfDay = to - from > 11 ? timeOfDay(data, from + 11, to) : -1;
+                hadTime = timeOfDay >= 0;
+                return minute + (timeOfDay >= 0 ? timeOfDay : NOON_MINUTE);
+            }
+            long value = 0;
+            int count = 0;
+            for (int i = from; i < to && AsciiBytes.isDigit(data[i]); i++) {
+                value = value * 10 + (data[i] - '0');
+                count++;
+            }
+            if (count < 9 || count > 15) {
+                return Long.MIN_VALUE;
+            }
+            long epochSecond = count > 11 ? value / 1000 : value;
+            hadTime = true;
+            // Epoch values are UTC: shift into local time, record() shifts back
+            long utcMinute = Math.floorDiv(epochSecond, 60);
+            return utcMinute + rules.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds() / 60;
+        }
+
+        private long offsetMinutes(long localHour) {
+            if (localHour != offsetHour) {
+                offsetHour = localHour;
+                offsetMinutes = rules.getOffset(LocalDateTime.ofEpochSecond(localHour * 3600, 0, ZoneOffset.UTC))
+                        .getTotalSeconds() / 60;
+            }
+            return offsetMinutes;
+        }
+    }
+
+    // Minutes since midnight of "HH:mm[:ss][ am|pm]" (one-digit hours allowed), or -1
+    static int timeOfDay(byte[] data, int from, int to) {
+        int colon = AsciiBytes.indexOf(data, (byte) ':', from, to);
+        if (colon < 0 || colon - from < 1 || colon - from > 2) {
+            return -1;
+        }
+        int hour = AsciiBytes.digits(data, from, colon - from);
+        int minute = AsciiBytes.digits(data, colon + 1, 2);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return -1;
+        }
+        for (int i = colon + 3; i + 1 < to; i++) {
+            byte b = lower(data[i]);
+            if ((b == 'a' || b == 'p') && lower(data[i + 1]) == 'm') {
+                hour = hour % 12 + (b == 'p' ? 12 : 0);
+                break;
+            }
+        }
+        return hour * 60 + minute;
+    }
+
+    // Grams in a free-form quantity, or NaN: a number (decimal, fraction or mixed "1 1/2") and a unit
+    static double quantityGrams(byte[] data, int from, int to) {
+        int i = skipSpaces(data, from, to);
+        int numberEnd = i;
+        while (numberEnd < to
+                && (AsciiBytes.isDigit(data[numberEnd]) || data[numberEnd] == '.' || data[numberEnd] == ',')) {
+            numberEnd++;
+        }
+        double amount = number(data, i, numberEnd);
+        if (Double.isNaN(amount)) {
+            return Double.NaN;
+        }
+        i = skipSpaces(data, numberEnd, to);
+        // A fraction, either on its own ("1/2") or after a whole number ("1 1/2")
+        int slash = i;
+        while (slash < to && AsciiBytes.isDigit(data[slash])) {
+            slash++;
+        }
+        if (slash < to && data[slash] == '/') {
+            int denominatorEnd = slash + 1;
+            while (denominatorEnd < to && AsciiBytes.isDigit(data[denominatorEnd])) {
+                denominatorEnd++;
+            }
+            double denominator = number(data, slash + 1, denominatorEnd);
+            if (!(denominator > 0)) {
+                return Double.NaN;
+            }
+            if (slash > i) {
+                amount += number(data, i, slash) / denominator;
+            } else if (i == numberEnd) {
+                amount /= denominator;
+            }
+            i = skipSpaces(data, denominatorEnd, to);
+        }
+        if (i >= to) {
+            return amount;
+        }
+        // Unit: letters up to the next space, dot or digit ("fl oz" as one word)
+        int wordEnd = i;
+        while (wordEnd < to && isLetter(data[wordEnd])) {
+            wordEnd++;
+        }
+        if (wordEnd == i) {
+            return amount;
+        }
+        if (wordEnd - i == 2 && lower(data[i]) == 'f' && lower(data[i + 1]) == 'l') {
+            int next = skipSpaces(data, wordEnd + (wordEnd < to && data[wordEnd] == '.' ? 1 : 0), to);
+            if (next + 2 <= to && lower(data[next]) == 'o' && lower(data[next + 1]) == 'z') {
+                return amount * 29.5735;
+            }
+        }
+        return amount * unitGrams(data, i, wordEnd);
+    }
+
+    private static double unitGrams(byte[] data, int from, int to) {
+        for (int pass = 0; pass < 2; pass++) {
+            for (int u = 0; u < UNIT_NAMES.length; u++) {
+                byte[] name = UNIT_NAMES[u];
+                if (name.length == to - from && equalsFolded(name, data, from)) {
+                    return UNIT_GRAMS[u];
+                }
+            }
+            // Plural: "cups", "slices", "ounces"
+            if (to - from > 1 && lower(data[to - 1]) == 's') {
+                to--;
+            } else {
+                break;
+            }
+        }
+        return PIECE_GRAMS;
+    }
+
+    // A plain decimal ("1.5", "1,5" or "1,234.5"), or NaN
+    static double number(byte[] data, int from, int to) {
+        from = skipSpaces(data, from, to);
+        long whole = 0;
+        long fraction = 0;
+        long scale = 1;
+        int digitCount = 0;
+        int lastSeparator = -1;
+        boolean negative = from < to && data[from] == '-';
+        for (int i = negative ? from + 1 : from; i < to; i++) {
+            byte b = data[i];
+            if (AsciiBytes.isDigit(b)) {
+                digitCount++;
+                if (digitCount > 15) {
+                    return Double.NaN;
+                }
+            } else if (b == '.' || b == ',') {
+                lastSeparator = i;
+            } else if (b == ' ' || b == '"') {
+                to = i;
+                break;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (digitCount == 0) {
+            return Double.NaN;
+        }
+        // The last separator is the decimal point, unless it is a comma with exactly three digits after it
+        int point = lastSeparator;
+        if (lastSeparator >= 0 && data[lastSeparator] == ',' && to - lastSeparator - 1 == 3) {
+            point = -1;
+        }
+        for (int i = negative ? from + 1 : from; i < to; i++) {
+            byte b = data[i];
+            if (!AsciiBytes.isDigit(b)) {
+                continue;
+            }
+            if (point >= 0 && i > point) {
+                fraction = fraction * 10 + (b - '0');
+                scale *= 10;
+            } else {
+                whole = whole * 10 + (b - '0');
+            }
+        }
+        double value = whole + (double) fraction / scale;
+        return negative ? -value : value;
+    }
+
+    private static String unescape(byte[] data, int from, int to) {
+        StringBuilder text = new StringBuilder(to - from);
+        String raw = new String(data, from, to - from, StandardCharsets.UTF_8);
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '\\' || i + 1 >= raw.length()) {
+                text.append(c);
+                continue;
+            }
+            char escaped = raw.charAt(++i);
+            switch (escaped) {
+                case 'n', 'r', 't', 'b', 'f' -> text.append(' ');
+                case 'u' -> {
+                    if (i + 4 < raw.length()) {
+                        text.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                        i += 4;
+                    }
+                }
+                default -> text.append(escaped);
+            }
+        }
+        return text.toString();
+    }
+
+    // Position after the JSON value starting at i (string, number, literal, object or array)
+    private static int skipValue(byte[] data, int i) {
+        if (i >= data.length) {
+            return i;
+        }
+        if (data[i] == '"') {
+            return Math.min(data.length, stringEnd(data, i + 1) + 1);
+        }
+        if (data[i] == '{' || data[i] == '[') {
+            int depth = 0;
+            for (; i < data.length; i++) {
+                byte b = data[i];
+                if (b == '"') {
+                    i = stringEnd(data, i + 1);
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if ((b == '}' || b == ']') && --depth == 0) {
+                    return i + 1;
+                }
+            }
+            return i;
+        }
+        while (i < data.length && data[i] != ',' && data[i] != '}' && data[i] != ']') {
+            i++;
+        }
+        return i;
+    }
+
+    // Position of the closing quote of a string whose contents start at i
+    private static int stringEnd(byte[] data, int i) {
+        while (i < data.length && data[i] != '"') {
+            i += data[i] == '\\' ? 2 : 1;
+        }
+        return Math.min(i, data.length);
+    }
+
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Diary export changed while it was being read");
+            }
+        }
+        return bytes;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equalsFolded(byte[] key, byte[] data, int from) {
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != lower(data[from + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte lower(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b | 0x20) : b;
+    }
+
+    private static boolean isLetter(byte b) {
+        return (b | 0x20) >= 'a' && (b | 0x20) <= 'z';
+    }
+
+    private static int skipSpaces(byte[] data, int from, int to) {
+        while (from < to && data[from] == ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private static int skipWhitespace(byte[] data, int from, int to) {
+        while (from < to && (data[from] == ' ' || data[from] == '\n' || data[from] == '\r' || data[from] == '\t')) {
+            from++;
+        }
+        return from;
+    }
+
+    // JSON counterpart of skipWhitespace for the end of a bare value (pretty-printed files put a newline
+    // between the last value and its '}')
+    private static int trimWhitespaceEnd(byte[] data, int from, int to) {
+        while (to > from && (data[to - 1] == ' ' || data[to - 1] == '\n' || data[to - 1] == '\r'
+                || data[to - 1] == '\t')) {
+            to--;
+        }
+        return to;
+    }
+
+    // `rows` diary rows over the last few years in the formats other apps export
+    static void generate(int rows, Path output) throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] foods = {"Bread", "pasta", "Chicken", "milk", "rice", "egg", "apple", "banana", "potato", "carrot",
+                "\"Oatmeal, cooked\"", "Greek yogurt", "protein bar"};
+        String[] quantities = {"150g", "2 cups", "1 slice", "1 1/2 cups", "0.5 l", "3 oz", "2 eggs", "250 ml",
+                "1 serving", "2 tbsp", "100", "1/2 cup"};
+        LocalDate start = LocalDate.now().minusDays(1500);
+        try (BufferedWriter out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            out.write("Date,Time,Food,Quantity,Calories\n");
+            for (int i = 0; i < rows; i++) {
+                LocalDate day = start.plusDays(i / 6 % 1500);
+                int minute = 7 * 60 + (i % 6) * 150 + random.nextInt(60);
+                out.write(day.toString());
+                out.write(',');
+                out.write(String.format(Locale.ROOT, "%02d:%02d", minute / 60, minute % 60));
+                out.write(',');
+                out.write(foods[random.nextInt(foods.length)]);
+                out.write(',');
+                out.write(quantities[random.nextInt(quantities.length)]);
+                out.write(',');
+                out.write(Integer.toString(50 + random.nextInt(600)));
+                out.write('\n');
+            }
+        }
+    }
+}
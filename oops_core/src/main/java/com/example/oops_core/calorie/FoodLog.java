@@ -0,0 +1,115 @@
+package com.example.oops_core.calorie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// All logged calorie entries as parallel primitive columns; food names are interned to int ids.
+//
+// A row is addressed by its index (insertion order). Nothing is formatted here: the UI turns a row
+// into text only when a cell for it becomes visible. Not thread-safe.
+public final class FoodLog {
+
+    private final Map<String, Integer> foodIds = new HashMap<>();
+    private final List<String> foodNames = new ArrayList<>();
+
+    private int size;
+    private long[] seqs = new long[256];
+    private long[] times = new long[256];
+    private int[] foods = new int[256];
+    private double[] quantities = new double[256];
+    private double[] calories = new double[256];
+    private boolean[] manual = new boolean[256];
+    private double totalCalories;
+
+    // Appends the entry and returns its row index
+    public int add(CalorieEntry entry) {
+        return add(entry.seq(), entry.timeMillis(), entry.food(), entry.quantity(), entry.calories(), entry.manual());
+    }
+
+    public int add(long seq, long timeMillis, String food, double quantity, double kcal, boolean isManual) {
+        if (size == seqs.length) {
+            int capacity = size * 2;
+            seqs = Arrays.copyOf(seqs, capacity);
+            times = Arrays.copyOf(times, capacity);
+            foods = Arrays.copyOf(foods, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            calories = Arrays.copyOf(calories, capacity);
+            manual = Arrays.copyOf(manual, capacity);
+        }
+        seqs[size] = seq;
+        times[size] = timeMillis;
+        foods[size] = internFood(food);
+        quantities[size] = quantity;
+        calories[size] = kcal;
+        manual[size] = isManual;
+        totalCalories += kcal;
+        return size++;
+    }
+
+    public int internFood(String food) {
+        Integer id = foodIds.get(food);
+        if (id == null) {
+            id = foodNames.size();
+            foodIds.put(food, id);
+            foodNames.add(food);
+        }
+        return id;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double totalCalories() {
+        return totalCalories;
+    }
+
+    public long seq(int row) {
+        return seqs[row];
+    }
+
+    public long timeMillis(int row) {
+        return times[row];
+    }
+
+    public int foodId(int row) {
+        return foods[row];
+    }
+
+    public String food(int row) {
+        return foodNames.get(foods[row]);
+    }
+
+    public String foodName(int foodId) {
+        return foodNames.get(foodId);
+    }
+
+    public int foodCount() {
+        return foodNames.size();
+    }
+
+    public double quantity(int row) {
+        return quantities[row];
+    }
+
+    public double calories(int row) {
+        return calories[row];
+    }
+
+    public boolean manual(int row) {
+        return manual[row];
+    }
+
+    // Row holding the entry with this sequence number, or -1 (rows are in sequence order)
+    public int rowOf(long seq) {
+        int row = Arrays.binarySearch(seqs, 0, size, seq);
+        return row >= 0 ? row : -1;
+    }
+
+    public CalorieEntry entry(int row) {
+        return new CalorieEntry(seqs[row], times[row], food(row), quantities[row], calories[row], manual[row]);
+    }
+}
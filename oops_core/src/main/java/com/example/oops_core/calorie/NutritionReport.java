@@ -0,0 +1,67 @@
+package com.example.oops_core.calorie;
+
+import com.example.oops_core.profile.ProfileStore;
+import com.example.oops_core.storage.AppData;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Locale;
+
+// Headless CSV export of the calorie rollups, using the same query API as the Calorie Counter chart.
+//
+// Usage: NutritionReport [--member id] [day|week|month] [from yyyy-MM-dd] [to yyyy-MM-dd] [output.csv]
+// Without a member the default profile is read; without dates the whole logged history is exported;
+// without an output file it prints to stdout.
+public final class NutritionReport {
+
+    private NutritionReport() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        String member = ProfileStore.DEFAULT_ID;
+        if (args.length > 1 && args[0].equals("--member")) {
+            member = args[1];
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        NutritionRollup.Granularity granularity = args.length > 0
+                ? NutritionRollup.Granularity.valueOf(args[0].toUpperCase(Locale.ROOT))
+                : NutritionRollup.Granularity.DAY;
+
+        NutritionRollup rollup = new NutritionRollup(ZoneId.systemDefault());
+        // Read-only, so the report can run while the app is writing the journal
+        CalorieJournal.replay(ProfileStore.dirFor(AppData.root(), member).resolve("calorie-log"), rollup::add);
+        if (rollup.firstDay() == null) {
+            System.err.println("No calorie entries logged yet.");
+            return;
+        }
+
+        LocalDate from = args.length > 1 ? LocalDate.parse(args[1]) : rollup.firstDay();
+        LocalDate to = args.length > 2 ? LocalDate.parse(args[2]) : rollup.lastDay();
+        NutritionRollup.Series series = rollup.query(granularity, from, to);
+
+        if (args.length > 3) {
+            try (PrintStream out = new PrintStream(new BufferedOutputStream(Files.newOutputStream(Path.of(args[3]))),
+                    false, StandardCharsets.UTF_8)) {
+                write(series, out);
+            }
+        } else {
+            write(series, System.out);
+        }
+    }
+
+    public static void write(NutritionRollup.Series series, PrintStream out) {
+        out.println("period_start,total_kcal,entries,logged_days,avg_kcal_per_logged_day");
+        for (int i = 0; i < series.size(); i++) {
+            out.printf(Locale.ROOT, "%s,%.2f,%d,%d,%.2f%n", series.bucketDate(i), series.total(i),
+                    series.entries(i), series.loggedDays(i), series.averagePerLoggedDay(i));
+        }
+        out.flush();
+    }
+}
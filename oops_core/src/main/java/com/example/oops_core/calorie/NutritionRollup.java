@@ -0,0 +1,242 @@
+package com.example.oops_core.calorie;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+
+// Day, week and month calorie totals kept as parallel primitive arrays.
+//
+// add() touches one bucket per granularity, so the aggregates stay current as entries arrive and
+// a range query costs one array read per bucket no matter how many entries fell into it.
+// Weeks start on Monday. Not thread-safe: feed and query it from one thread (or guard it).
+public final class NutritionRollup {
+
+    public enum Granularity { DAY, WEEK, MONTH }
+
+    private final ZoneId zone;
+    private final Buckets days = new Buckets();
+    private final Buckets weeks = new Buckets();
+    private final Buckets months = new Buckets();
+
+    public NutritionRollup(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    public void add(CalorieEntry entry) {
+        add(entry.timeMillis(), entry.calories());
+    }
+
+    public void add(long timeMillis, double calories) {
+        LocalDate date = Instant.ofEpochMilli(timeMillis).atZone(zone).toLocalDate();
+        boolean firstOfDay = days.add(date.toEpochDay(), calories, false);
+        weeks.add(weekIndex(date), calories, firstOfDay);
+        months.add(monthIndex(date), calories, firstOfDay);
+    }
+
+    public double total(LocalDate date) {
+        return days.sum(date.toEpochDay());
+    }
+
+    // Average over the days that have entries in the given range (0 when there are none)
+    public double averagePerLoggedDay(LocalDate from, LocalDate to) {
+        Series series = query(Granularity.DAY, from, to);
+        double sum = 0;
+        int logged = 0;
+        for (int i = 0; i < series.size(); i++) {
+            sum += series.total(i);
+            logged += series.loggedDays(i);
+        }
+        return logged == 0 ? 0 : sum / logged;
+    }
+
+    // One bucket per day/week/month overlapping [from, to], oldest first; empty buckets included
+    public Series query(Granularity granularity, LocalDate from, LocalDate to) {
+        LocalDate start = bucketStart(granularity, from);
+        Buckets buckets = buckets(granularity);
+        long first = index(granularity, start);
+        int size = (int) (index(granularity, to) - first + 1);
+        if (size <= 0) {
+            return new Series(granularity, start, new double[0], new int[0], new int[0]);
+        }
+        double[] totals = new double[size];
+        int[] entries = new int[size];
+        int[] loggedDays = new int[size];
+        for (int i = 0; i < size; i++) {
+            totals[i] = buckets.sum(first + i);
+            entries[i] = buckets.count(first + i);
+            loggedDays[i] = granularity == Granularity.DAY ? (entries[i] > 0 ? 1 : 0) : buckets.activeDays(first + i);
+        }
+        return new Series(granularity, start, totals, entries, loggedDays);
+    }
+
+    // First and last day with any entry, or null when nothing is logged
+    public LocalDate firstDay() {
+        return days.isEmpty() ? null : LocalDate.ofEpochDay(days.firstIndex());
+    }
+
+    public LocalDate lastDay() {
+        return days.isEmpty() ? null : LocalDate.ofEpochDay(days.lastIndex());
+    }
+
+    public static LocalDate bucketStart(Granularity granularity, LocalDate date) {
+        return switch (granularity) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    private Buckets buckets(Granularity granularity) {
+        return switch (granularity) {
+            case DAY -> days;
+            case WEEK -> weeks;
+            case MONTH -> months;
+        };
+    }
+
+    private static long index(Granularity granularity, LocalDate date) {
+        return switch (granularity) {
+            case DAY -> date.toEpochDay();
+            case WEEK -> weekIndex(date);
+            case MONTH -> monthIndex(date);
+        };
+    }
+
+    // 1970-01-01 was a Thursday, so shifting by 3 puts every Monday on a multiple of 7
+    private static long weekIndex(LocalDate date) {
+        return Math.floorDiv(date.toEpochDay() + 3, 7);
+    }
+
+    private static long monthIndex(LocalDate date) {
+        return date.getYear() * 12L + date.getMonthValue() - 1;
+    }
+
+    // Query result: parallel arrays, bucket i starts at start + i days/weeks/months
+    public record Series(Granularity granularity, LocalDate start, double[] totals, int[] entries, int[] loggedDays) {
+
+        public int size() {
+            return totals.length;
+        }
+
+        public LocalDate bucketDate(int i) {
+            return switch (granularity) {
+                case DAY -> start.plusDays(i);
+                case WEEK -> start.plusWeeks(i);
+                case MONTH -> start.plusMonths(i);
+            };
+        }
+
+        public double total(int i) {
+            return totals[i];
+        }
+
+        public int entries(int i) {
+            return entries[i];
+        }
+
+        public int loggedDays(int i) {
+            return loggedDays[i];
+        }
+
+        public double averagePerLoggedDay(int i) {
+            return loggedDays[i] == 0 ? 0 : totals[i] / loggedDays[i];
+        }
+    }
+
+    // Growable window of buckets addressed by an absolute index (epoch day, week or month number)
+    private static final class Buckets {
+        private long base;
+        private int used;
+        private double[] sums = new double[0];
+        private int[] counts = new int[0];
+        private int[] active = new int[0];
+
+        // Returns true when this was the bucket's first entry
+        boolean add(long index, double calories, boolean newActiveDay) {
+            int slot = slot(index);
+            sums[slot] += calories;
+            if (newActiveDay) {
+                active[slot]++;
+            }
+            return counts[slot]++ == 0;
+        }
+
+        double sum(long index) {
+            long slot = index - base;
+            return slot >= 0 && slot < used ? sums[(int) slot] : 0;
+        }
+
+        int count(long index) {
+            long slot = index - base;
+            return slot >= 0 && slot < used ? counts[(int) slot] : 0;
+        }
+
+        int activeDays(long index) {
+            long slot = index - base;
+            return slot >= 0 && slot < used ? active[(int) slot] : 0;
+        }
+
+        boolean isEmpty() {
+            return used == 0;
+        }
+
+        long firstIndex() {
+            for (int i = 0; i < used; i++) {
+                if (counts[i] > 0) {
+                    return base + i;
+                }
+            }
+            return base;
+        }
+
+        long lastIndex() {
+            for (int i = used - 1; i >= 0; i--) {
+                if (counts[i] > 0) {
+                    return base + i;
+                }
+            }
+            return base;
+        }
+
+        private int slot(long index) {
+            if (used == 0) {
+                base = index;
+                grow(16, 0);
+                used = 1;
+                return 0;
+            }
+            if (index < base) {
+                // Back-dated entry (imports): shift everything right, rare
+                int shift = (int) (base - index);
+                grow(used + shift, shift);
+                base = index;
+                used += shift;
+                return 0;
+            }
+            long slot = index - base;
+            if (slot >= used) {
+                grow((int) slot + 1, 0);
+                used = (int) slot + 1;
+            }
+            return (int) slot;
+        }
+
+        private void grow(int needed, int shift) {
+            if (needed <= sums.length && shift == 0) {
+                return;
+            }
+            int capacity = Math.max(needed, sums.length + (sums.length >> 1));
+            double[] newSums = new double[capacity];
+            int[] newCounts = new int[capacity];
+            int[] newActive = new int[capacity];
+            System.arraycopy(sums, 0, newSums, shift, used);
+            System.arraycopy(counts, 0, newCounts, shift, used);
+            System.arraycopy(active, 0, newActive, shift, used);
+            sums = newSums;
+            counts = newCounts;
+            active = newActive;
+        }
+    }
+}
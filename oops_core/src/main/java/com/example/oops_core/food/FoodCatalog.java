@@ -0,0 +1,354 @@
+package com.example.oops_core.food;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Read-only food catalog backed by a memory-mapped file written by FoodCatalogBuilder.
+//
+// File layout (little endian):
+//   header      magic, version, food count, trigram count, names size, postings count
+//   double[n]   per Nutrient, in ordinal order: that nutrient per gram/ml of each food, in name order
+//               (NaN when the source had no value); one column per nutrient, so summing a nutrient
+//               over many foods reads one contiguous array
+//   int[n + 1]  offsets of each name inside the names block
+//   byte[]      lowercase UTF-8 names, sorted by unsigned byte order
+//   int[t]      trigram keys, sorted
+//   int[t + 1]  offsets of each trigram's postings
+//   int[]       postings (food indexes)
+//
+// Nothing is copied onto the heap when the file is opened: lookups binary search the mapped names.
+public final class FoodCatalog implements AutoCloseable {
+
+    static final int MAGIC = 0x54414346; // "FCAT"
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 32;
+
+    // Trigrams shared by more foods than this carry too little signal for fuzzy matching
+    private static final int MAX_POSTINGS_PER_TRIGRAM = 20_000;
+
+    private final FileChannel channel;
+    private final ByteBuffer data;
+    private final int count;
+    private final int trigramCount;
+    private final int nutrientsPos;
+    private final int nameOffsetsPos;
+    private final int namesPos;
+    private final int trigramKeysPos;
+    private final int postingOffsetsPos;
+    private final int postingsPos;
+
+    // Fuzzy-match scores per food, reused across keystrokes; all zero between calls
+    private static final class Scratch {
+        final int[] scores;
+        int[] touched = new int[1024];
+
+        Scratch(int foods) {
+            scores = new int[foods];
+        }
+    }
+
+    private final ThreadLocal<Scratch> scratch;
+
+    private FoodCatalog(FileChannel channel, MappedByteBuffer mapped) throws IOException {
+        this.channel = channel;
+        this.data = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+            throw new IOException("Not a food catalog file (bad magic or version)");
+        }
+        count = data.getInt(8);
+        int foods = count;
+        scratch = ThreadLocal.withInitial(() -> new Scratch(foods));
+        trigramCount = data.getInt(12);
+        long namesSize = data.getLong(16);
+
+        nutrientsPos = HEADER_BYTES;
+        nameOffsetsPos = nutrientsPos + Nutrient.COUNT * count * Double.BYTES;
+        namesPos = nameOffsetsPos + (count + 1) * Integer.BYTES;
+        trigramKeysPos = align4(namesPos + (int) namesSize);
+        postingOffsetsPos = trigramKeysPos + trigramCount * Integer.BYTES;
+        postingsPos = postingOffsetsPos + (trigramCount + 1) * Integer.BYTES;
+    }
+
+    public static FoodCatalog open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Food catalog larger than 2 GB: " + file);
+            }
+            return new FoodCatalog(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Opens the binary catalog, rebuilding it first when the CSV source is newer, the binary is missing
+    // or it is in an older format
+    public static FoodCatalog openOrBuild(Path csv, Path binary) throws IOException {
+        boolean hasCsv = Files.exists(csv);
+        boolean stale = !Files.exists(binary)
+                || (hasCsv && Files.getLastModifiedTime(csv).compareTo(Files.getLastModifiedTime(binary)) > 0);
+        if (!stale) {
+            try {
+                return open(binary);
+            } catch (IOException e) {
+                // Written by an older version (or damaged): rebuilt from the source below
+            }
+        }
+        if (hasCsv) {
+            FoodCatalogBuilder.fromCsv(csv, binary);
+        } else {
+            FoodCatalogBuilder.fromDefaults(binary);
+        }
+        return open(binary);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // Index of the food with this exact (case-insensitive) name, or -1
+    public int indexOf(String name) {
+        byte[] key = normalize(name).getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareName(mid, key, false);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public String name(int index) {
+        int start = nameStart(index);
+        byte[] bytes = new byte[nameStart(index + 1) - start];
+        data.get(namesPos + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public double calories(int index) {
+        return nutrient(index, Nutrient.CALORIES);
+    }
+
+    // Per gram/ml; NaN when the source had no value for it
+    public double nutrient(int index, Nutrient nutrient) {
+        return data.getDouble(nutrientsPos + (nutrient.ordinal() * count + index) * Double.BYTES);
+    }
+
+    // Every nutrient of the food per gram/ml into perUnit (indexed by ordinal)
+    public void nutrients(int index, double[] perUnit) {
+        for (int n = 0; n < Nutrient.COUNT; n++) {
+            perUnit[n] = data.getDouble(nutrientsPos + (n * count + index) * Double.BYTES);
+        }
+    }
+
+    // Calories per gram/ml, or NaN when the food is not in the catalog
+    public double caloriesPerUnit(String name) {
+        int index = indexOf(name);
+        return index < 0 ? Double.NaN : calories(index);
+    }
+
+    // Names starting with the typed text, topped up with fuzzy (trigram) matches for typos
+    public List<String> complete(String typed, int limit) {
+        String query = normalize(typed);
+        List<String> result = new ArrayList<>(limit);
+        if (query.isEmpty() || limit <= 0) {
+            return result;
+        }
+
+        byte[] prefix = query.getBytes(StandardCharsets.UTF_8);
+        for (int i = lowerBound(prefix); i < count && result.size() < limit; i++) {
+            if (compareName(i, prefix, true) != 0) {
+                break;
+            }
+            result.add(name(i));
+        }
+
+        if (result.size() < limit && query.length() >= 3) {
+            for (int index : fuzzyMatches(query, limit * 2)) {
+                String name = name(index);
+                if (!result.contains(name)) {
+                    result.add(name);
+                    if (result.size() == limit) {
+                        break;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // Food indexes sharing the most trigrams with the query, best first (most shared trigrams, then the
+    // shortest name). Scores go into a per-thread int[] sized to the catalog; only the entries a query
+    // touched are reset, and the best `limit` are kept by insertion, so a keystroke allocates nothing
+    // proportional to the postings it reads.
+    int[] fuzzyMatches(String query, int limit) {
+        int[] queryTrigrams = trigrams(query);
+        Scratch scratch = this.scratch.get();
+        int[] scores = scratch.scores;
+        int touched = 0;
+        for (int key : queryTrigrams) {
+            int slot = findTrigram(key);
+            if (slot < 0) {
+                continue;
+            }
+            int from = postingOffset(slot);
+            int to = postingOffset(slot + 1);
+            if (to - from > MAX_POSTINGS_PER_TRIGRAM) {
+                continue;
+            }
+            for (int p = from; p < to; p++) {
+                int index = data.getInt(postingsPos + p * Integer.BYTES);
+                if (scores[index]++ == 0) {
+                    if (touched == scratch.touched.length) {
+                        scratch.touched = Arrays.copyOf(scratch.touched, touched * 2);
+                    }
+                    scratch.touched[touched++] = index;
+                }
+            }
+        }
+
+        int threshold = Math.max(1, queryTrigrams.length / 2);
+        int[] best = new int[Math.max(0, limit)];
+        int[] bestScore = new int[best.length];
+        int[] bestLength = new int[best.length];
+        int found = 0;
+        for (int t = 0; t < touched; t++) {
+            int index = scratch.touched[t];
+            int score = scores[index];
+            scores[index] = 0;
+            if (score < threshold || best.length == 0) {
+                continue;
+            }
+            int length = nameStart(index + 1) - nameStart(index);
+            if (found == best.length && !ranksBefore(score, length, index, bestScore[found - 1], bestLength[found - 1], best[found - 1])) {
+                continue;
+            }
+            int at = Math.min(found, best.length - 1);
+            while (at > 0 && ranksBefore(score, length, index, bestScore[at - 1], bestLength[at - 1], best[at - 1])) {
+                best[at] = best[at - 1];
+                bestScore[at] = bestScore[at - 1];
+                bestLength[at] = bestLength[at - 1];
+                at--;
+            }
+            best[at] = index;
+            bestScore[at] = score;
+            bestLength[at] = length;
+            found = Math.min(found + 1, best.length);
+        }
+        return Arrays.copyOf(best, found);
+    }
+
+    private static boolean ranksBefore(int score, int length, int index, int otherScore, int otherLength, int otherIndex) {
+        if (score != otherScore) {
+            return score > otherScore;
+        }
+        return length != otherLength ? length < otherLength : index < otherIndex;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Distinct trigram keys of " name ", so word boundaries count as well
+    static int[] trigrams(String name) {
+        String padded = " " + name + " ";
+        int[] keys = new int[Math.max(0, padded.length() - 2)];
+        int n = 0;
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            int key = (padded.charAt(i) * 31 + padded.charAt(i + 1)) * 31 + padded.charAt(i + 2);
+            boolean seen = false;
+            for (int j = 0; j < n && !seen; j++) {
+                seen = keys[j] == key;
+            }
+            if (!seen) {
+                keys[n++] = key;
+            }
+        }
+        return n == keys.length ? keys : Arrays.copyOf(keys, n);
+    }
+
+    static int align4(int position) {
+        return (position + 3) & ~3;
+    }
+
+    private int nameStart(int index) {
+        return data.getInt(nameOffsetsPos + index * Integer.BYTES);
+    }
+
+    private int postingOffset(int slot) {
+        return data.getInt(postingOffsetsPos + slot * Integer.BYTES);
+    }
+
+    // Unsigned byte comparison of a stored name against a key; with prefixOnly, a name that starts with the key is equal
+    private int compareName(int index, byte[] key, boolean prefixOnly) {
+        int start = namesPos + nameStart(index);
+        int length = nameStart(index + 1) - nameStart(index);
+        int shared = Math.min(length, key.length);
+        for (int i = 0; i < shared; i++) {
+            int cmp = Integer.compare(data.get(start + i) & 0xff, key[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        if (prefixOnly && length >= key.length) {
+            return 0;
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private int lowerBound(byte[] key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareName(mid, key, false) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int findTrigram(int key) {
+        int low = 0;
+        int high = trigramCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = data.getInt(trigramKeysPos + mid * Integer.BYTES);
+            if (value < key) {
+                low = mid + 1;
+            } else if (value > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+}
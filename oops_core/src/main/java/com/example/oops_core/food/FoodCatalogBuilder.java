@@ -0,0 +1,320 @@
+package com.example.oops_core.food;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Turns a nutrient CSV into the binary file read by FoodCatalog. Runs once per CSV change, never at normal startup.
+public final class FoodCatalogBuilder {
+
+    // The foods the app always knew about, per gram (per ml for milk): kcal, protein, fat, carbs
+    static final Map<String, double[]> DEFAULT_FOODS = new LinkedHashMap<>();
+
+    static {
+        DEFAULT_FOODS.put("bread", new double[] {2.5, 0.09, 0.032, 0.49});
+        DEFAULT_FOODS.put("pasta", new double[] {1.31, 0.05, 0.011, 0.25});
+        DEFAULT_FOODS.put("chicken", new double[] {2.39, 0.27, 0.14, 0});
+        DEFAULT_FOODS.put("milk", new double[] {0.62, 0.033, 0.033, 0.048});
+        DEFAULT_FOODS.put("rice", new double[] {1.3, 0.027, 0.003, 0.28});
+        DEFAULT_FOODS.put("egg", new double[] {1.55, 0.13, 0.11, 0.011});
+        DEFAULT_FOODS.put("apple", new double[] {0.52, 0.003, 0.002, 0.14});
+        DEFAULT_FOODS.put("banana", new double[] {0.89, 0.011, 0.003, 0.23});
+        DEFAULT_FOODS.put("potato", new double[] {0.77, 0.02, 0.001, 0.17});
+        DEFAULT_FOODS.put("carrot", new double[] {0.41, 0.009, 0.002, 0.096});
+    }
+
+    // Column names recognised for each nutrient, in Nutrient order; the first matching column is used
+    private static final String[][] NUTRIENT_COLUMNS = {
+            {"kcal", "calorie", "energy"},
+            {"protein"},
+            {"fat", "lipid"},
+            {"carb"},
+    };
+
+    private final List<byte[]> names = new ArrayList<>();
+    // One column per nutrient, as in the file
+    private final double[][] nutrients = new double[Nutrient.COUNT][1024];
+
+    private FoodCatalogBuilder() {
+    }
+
+    public static void fromDefaults(Path binary) throws IOException {
+        FoodCatalogBuilder builder = new FoodCatalogBuilder();
+        DEFAULT_FOODS.forEach(builder::add);
+        builder.write(binary);
+    }
+
+    // Reads a USDA-style CSV with a header row. The name column is the first one called
+    // name/description/food; the energy column the first mentioning kcal/calorie/energy, and protein,
+    // fat and carbohydrate columns are picked up when present (their values are NaN otherwise).
+    // Columns labelled per 100 g are scaled down to per gram.
+    public static int fromCsv(Path csv, Path binary) throws IOException {
+        FoodCatalogBuilder builder = new FoodCatalogBuilder();
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                throw new IOException("Food catalog CSV is empty: " + csv);
+            }
+            List<String> fields = new ArrayList<>();
+            splitCsvLine(headerLine, fields);
+            int nameColumn = findColumn(fields, "name", "description", "food");
+            int[] columns = new int[Nutrient.COUNT];
+            double[] scales = new double[Nutrient.COUNT];
+            for (int n = 0; n < Nutrient.COUNT; n++) {
+                columns[n] = findColumn(fields, NUTRIENT_COLUMNS[n]);
+                scales[n] = columns[n] >= 0 && fields.get(columns[n]).contains("100") ? 0.01 : 1.0;
+            }
+            int caloriesColumn = columns[Nutrient.CALORIES.ordinal()];
+            if (nameColumn < 0 || caloriesColumn < 0) {
+                throw new IOException("Food catalog CSV needs a name and a calories column: " + headerLine);
+            }
+
+            double[] perUnit = new double[Nutrient.COUNT];
+            String line;
+            while ((line = reader.readLine()) != null) {
+                splitCsvLine(line, fields);
+                if (fields.size() <= Math.max(nameColumn, caloriesColumn)) {
+                    continue;
+                }
+                try {
+                    for (int n = 0; n < Nutrient.COUNT; n++) {
+                        perUnit[n] = parseNutrient(fields, columns[n]) * scales[n];
+                    }
+                } catch (NumberFormatException ignored) {
+                    // Rows without a usable value are skipped
+                    continue;
+                }
+                if (!Double.isNaN(perUnit[Nutrient.CALORIES.ordinal()])) {
+                    builder.add(fields.get(nameColumn), perUnit);
+                }
+            }
+        }
+        return builder.write(binary);
+    }
+
+    private void add(String name, double[] perUnit) {
+        String normalized = FoodCatalog.normalize(name);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        for (int n = 0; n < Nutrient.COUNT; n++) {
+            if (names.size() == nutrients[n].length) {
+                nutrients[n] = Arrays.copyOf(nutrients[n], nutrients[n].length * 2);
+            }
+            nutrients[n][names.size()] = perUnit[n];
+        }
+        names.add(normalized.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Blank or missing cells are NaN (unknown); anything else must be a number
+    private static double parseNutrient(List<String> fields, int column) {
+        if (column < 0 || column >= fields.size() || fields.get(column).isBlank()) {
+            return Double.NaN;
+        }
+        return Double.parseDouble(fields.get(column).trim());
+    }
+
+    // Sorts, de-duplicates (first row wins) and writes the catalog atomically. Returns the number of foods.
+    private int write(Path binary) throws IOException {
+        Integer[] order = new Integer[names.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int cmp = Arrays.compareUnsigned(names.get(a), names.get(b));
+            return cmp != 0 ? cmp : Integer.compare(a, b);
+        });
+
+        List<byte[]> sortedNames = new ArrayList<>(order.length);
+        double[][] sortedNutrients = new double[Nutrient.COUNT][order.length];
+        for (int i : order) {
+            if (!sortedNames.isEmpty() && Arrays.equals(sortedNames.get(sortedNames.size() - 1), names.get(i))) {
+                continue;
+            }
+            for (int n = 0; n < Nutrient.COUNT; n++) {
+                sortedNutrients[n][sortedNames.size()] = nutrients[n][i];
+            }
+            sortedNames.add(names.get(i));
+        }
+        int count = sortedNames.size();
+
+        // Trigram postings as (key << 32 | food index) pairs; sorting groups them by key
+        long[] pairs = new long[256];
+        int pairCount = 0;
+        for (int i = 0; i < count; i++) {
+            for (int key : FoodCatalog.trigrams(new String(sortedNames.get(i), StandardCharsets.UTF_8))) {
+                if (pairCount == pairs.length) {
+                    pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                }
+                pairs[pairCount++] = ((long) key << 32) | i;
+            }
+        }
+        Arrays.sort(pairs, 0, pairCount);
+        int trigramCount = 0;
+        for (int i = 0; i < pairCount; i++) {
+            if (i == 0 || (int) (pairs[i] >> 32) != (int) (pairs[i - 1] >> 32)) {
+                trigramCount++;
+            }
+        }
+
+        long namesSize = 0;
+        for (byte[] name : sortedNames) {
+            namesSize += name.length;
+        }
+
+        Path temp = binary.resolveSibling(binary.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            BufferedChannel out = new BufferedChannel(channel);
+            out.putInt(FoodCatalog.MAGIC).putInt(FoodCatalog.VERSION).putInt(count).putInt(trigramCount)
+                    .putLong(namesSize).putLong(pairCount);
+            for (int n = 0; n < Nutrient.COUNT; n++) {
+                for (int i = 0; i < count; i++) {
+                    out.putDouble(sortedNutrients[n][i]);
+                }
+            }
+            int offset = 0;
+            out.putInt(0);
+            for (byte[] name : sortedNames) {
+                offset += name.length;
+                out.putInt(offset);
+            }
+            for (byte[] name : sortedNames) {
+                out.put(name);
+            }
+            out.padTo4();
+
+            for (int i = 0; i < pairCount; i++) {
+                if (i == 0 || (int) (pairs[i] >> 32) != (int) (pairs[i - 1] >> 32)) {
+                    out.putInt((int) (pairs[i] >> 32));
+                }
+            }
+            out.putInt(0);
+            for (int i = 1; i <= pairCount; i++) {
+                if (i == pairCount || (int) (pairs[i] >> 32) != (int) (pairs[i - 1] >> 32)) {
+                    out.putInt(i);
+                }
+            }
+            for (int i = 0; i < pairCount; i++) {
+                out.putInt((int) pairs[i]);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, binary, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    private static int findColumn(List<String> header, String... candidates) {
+        for (String candidate : candidates) {
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).toLowerCase(Locale.ROOT).contains(candidate)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Splits one CSV line into fields, honouring double-quoted fields with commas and "" escapes
+    static void splitCsvLine(String line, List<String> fields) {
+        fields.clear();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+    }
+
+    // Small write-behind buffer so the catalog is written in 64 KB chunks
+    private static final class BufferedChannel {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        private long written;
+
+        BufferedChannel(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        BufferedChannel putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+            return this;
+        }
+
+        BufferedChannel putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+            return this;
+        }
+
+        BufferedChannel putDouble(double value) throws IOException {
+            ensure(Double.BYTES);
+            buffer.putDouble(value);
+            return this;
+        }
+
+        void put(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int n = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, n);
+                offset += n;
+            }
+        }
+
+        void padTo4() throws IOException {
+            long position = written + buffer.position();
+            for (long i = position; i < FoodCatalog.align4((int) position); i++) {
+                ensure(1);
+                buffer.put((byte) 0);
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+}
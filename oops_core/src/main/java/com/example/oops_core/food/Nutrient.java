@@ -0,0 +1,28 @@
+package com.example.oops_core.food;
+
+// What the catalog and recipes track per gram/ml of a food. The ordinal is the column in the catalog
+// file and in every nutrient array, so new ones go at the end (and bump FoodCatalog.VERSION).
+public enum Nutrient {
+    CALORIES("Calories", "kcal"),
+    PROTEIN("Protein", "g"),
+    FAT("Fat", "g"),
+    CARBS("Carbs", "g");
+
+    public static final int COUNT = values().length;
+
+    private final String label;
+    private final String unit;
+
+    Nutrient(String label, String unit) {
+        this.label = label;
+        this.unit = unit;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public String unit() {
+        return unit;
+    }
+}
@@ -0,0 +1,484 @@
+package com.example.oops_core.food;
+
+import com.example.oops_core.storage.RecordLog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// A member's recipes: meals made of catalog foods and other recipes, with memoized nutrient totals.
+//
+// Foods and recipes are the nodes of a DAG, each recipe pointing at its ingredients (grams of each).
+// What a node gives per gram lives in struct-of-arrays columns, one double[] per Nutrient indexed by
+// node: for a food it is copied from the catalog, for a recipe it is its ingredients' sum over the
+// recipe's weight. A recipe's entries are filled on first lookup by a post-order walk that stops at
+// ingredients that are still valid, and then stay valid until something under the recipe changes.
+// Changing a recipe clears it and, through the reverse (used-by) edges, every recipe above it; a node
+// that is already invalid only has invalid users, so that walk stops there too. Logging a cached
+// 40-ingredient meal reads Nutrient.COUNT doubles.
+//
+// On disk it is a RecordLog of RECIPE and REMOVE records; the last record for a name wins, and the log
+// is rewritten on open once superseded records outnumber the recipes. Writes happen on a background
+// thread; the book itself is owned by the FX thread.
+public final class RecipeBook implements AutoCloseable {
+
+    public record Ingredient(String name, double grams) {
+    }
+
+    private static final byte RECIPE = 1;
+    private static final byte REMOVE = 2;
+    private static final int MIN_COMPACT = 256;
+    private static final int[] NONE = new int[0];
+
+    private static final System.Logger LOG = System.getLogger(RecipeBook.class.getName());
+
+    private final Map<String, Integer> nodes = new HashMap<>();
+    private String[] names = new String[64];
+    private boolean[] isRecipe = new boolean[64];
+    private int[][] ingredients = new int[64][];
+    private double[][] grams = new double[64][];
+    private int[][] users = new int[64][];
+    private int[] userCount = new int[64];
+    private final double[][] perGram = new double[Nutrient.COUNT][64];
+    private double[] weight = new double[64];
+    private boolean[] valid = new boolean[64];
+    private int nodeCount;
+    private int recipeCount;
+    private int[] stack = new int[64];
+
+    private FoodCatalog catalog;
+    private final RecordLog log;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "recipe-book-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private RecipeBook(Path file) throws IOException {
+        int[] superseded = {0};
+        long valid = RecordLog.replay(file, payload -> {
+            byte type = payload.get();
+            String name = readName(payload);
+            Integer node = nodes.get(name);
+            boolean replaces = node != null && isRecipe[node];
+            if (replaces) {
+                superseded[0]++;
+            }
+            if (type == RECIPE) {
+                List<Ingredient> list = new ArrayList<>();
+                for (int i = payload.getInt(); i > 0; i--) {
+                    list.add(new Ingredient(readName(payload), payload.getDouble()));
+                }
+                define(node(name), list);
+            } else if (type == REMOVE) {
+                // One dead record per removal: the recipe it removes, counted above, or else the REMOVE itself
+                if (!replaces) {
+                    superseded[0]++;
+                }
+                if (node != null) {
+                    undefine(node);
+                }
+            } else {
+                throw new IllegalStateException("Unknown recipe record type " + type);
+            }
+        });
+        if (superseded[0] >= MIN_COMPACT && superseded[0] > recipeCount) {
+            valid = compact(file);
+        }
+        log = RecordLog.openForAppend(file, valid);
+    }
+
+    public static RecipeBook open(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        return new RecipeBook(file);
+    }
+
+    // Foods come from this catalog from now on; every total is recomputed on its next lookup
+    public void setCatalog(FoodCatalog catalog) {
+        this.catalog = catalog;
+        Arrays.fill(valid, 0, nodeCount, false);
+    }
+
+    public int size() {
+        return recipeCount;
+    }
+
+    public boolean contains(String name) {
+        Integer node = nodes.get(FoodCatalog.normalize(name));
+        return node != null && isRecipe[node];
+    }
+
+    // Recipe names, sorted
+    public List<String> names() {
+        List<String> result = new ArrayList<>(recipeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            if (isRecipe[node]) {
+                result.add(names[node]);
+            }
+        }
+        result.sort(null);
+        return result;
+    }
+
+    public List<Ingredient> ingredients(String name) {
+        Integer node = nodes.get(FoodCatalog.normalize(name));
+        if (node == null || !isRecipe[node]) {
+            return List.of();
+        }
+        List<Ingredient> result = new ArrayList<>(ingredients[node].length);
+        for (int i = 0; i < ingredients[node].length; i++) {
+            result.add(new Ingredient(names[ingredients[node][i]], grams[node][i]));
+        }
+        return result;
+    }
+
+    // Adds or replaces a recipe. Ingredients must be catalog foods or other recipes, and a recipe may
+    // not end up (even indirectly) in its own ingredients; IllegalArgumentException otherwise.
+    public void put(String name, List<Ingredient> list) {
+        String key = FoodCatalog.normalize(name);
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("A recipe needs a name");
+        }
+        if (list.isEmpty()) {
+            throw new IllegalArgumentException("A recipe needs at least one ingredient");
+        }
+        if (catalog != null && catalog.indexOf(key) >= 0) {
+            throw new IllegalArgumentException("\"" + key + "\" is already a food in the catalog");
+        }
+        for (Ingredient ingredient : list) {
+            String ingredientName = FoodCatalog.normalize(ingredient.name());
+            if (!(ingredient.grams() > 0) || Double.isInfinite(ingredient.grams())) {
+                throw new IllegalArgumentException("Amount of " + ingredientName + " must be a positive number of grams");
+            }
+            if (!contains(ingredientName) && (catalog == null || catalog.indexOf(ingredientName) < 0)) {
+                throw new IllegalArgumentException("Unknown ingredient: " + ingredientName);
+            }
+            Integer ingredientNode = nodes.get(ingredientName);
+            if (ingredientName.equals(key) || (ingredientNode != null && nodes.containsKey(key)
+                    && reaches(ingredientNode, nodes.get(key)))) {
+                throw new IllegalArgumentException(ingredientName + " already uses " + key);
+            }
+        }
+        define(node(key), list);
+
+        int size = 1 + 2 + utf8(key).length + Integer.BYTES;
+        for (Ingredient ingredient : list) {
+            size += 2 + utf8(FoodCatalog.normalize(ingredient.name())).length + Double.BYTES;
+        }
+        ByteBuffer record = ByteBuffer.allocate(size).put(RECIPE);
+        putName(record, key);
+        record.putInt(list.size());
+        for (Ingredient ingredient : list) {
+            putName(record, FoodCatalog.normalize(ingredient.name()));
+            record.putDouble(ingredient.grams());
+        }
+        submit(record.flip());
+    }
+
+    // Removes a recipe no other recipe uses; false when there is no such recipe
+    public boolean remove(String name) {
+        String key = FoodCatalog.normalize(name);
+        Integer node = nodes.get(key);
+        if (node == null || !isRecipe[node]) {
+            return false;
+        }
+        for (int i = 0; i < userCount[node]; i++) {
+            if (isRecipe[users[node][i]]) {
+                throw new IllegalArgumentException(key + " is used by " + names[users[node][i]]);
+            }
+        }
+        undefine(node);
+        ByteBuffer record = ByteBuffer.allocate(1 + 2 + utf8(key).length).put(REMOVE);
+        putName(record, key);
+        submit(record.flip());
+        return true;
+    }
+
+    // The recipe's nutrients per gram into perGram (by Nutrient ordinal; NaN where an ingredient has no
+    // value for one); false when there is no such recipe. Cached after the first call.
+    public boolean nutrientsPerGram(String name, double[] into) {
+        Integer node = nodes.get(FoodCatalog.normalize(name));
+        if (node == null || !isRecipe[node]) {
+            return false;
+        }
+        evaluate(node);
+        for (int n = 0; n < Nutrient.COUNT; n++) {
+            into[n] = perGram[n][node];
+        }
+        return true;
+    }
+
+    // Grams of everything in the recipe, or NaN when there is no such recipe
+    public double weight(String name) {
+        Integer node = nodes.get(FoodCatalog.normalize(name));
+        return node == null || !isRecipe[node] ? Double.NaN : weight[node];
+    }
+
+    // Writes everything queued and closes the file
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+    }
+
+    private int node(String name) {
+        Integer existing = nodes.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        if (nodeCount == names.length) {
+            int capacity = nodeCount * 2;
+            names = Arrays.copyOf(names, capacity);
+            isRecipe = Arrays.copyOf(isRecipe, capacity);
+            ingredients = Arrays.copyOf(ingredients, capacity);
+            grams = Arrays.copyOf(grams, capacity);
+            users = Arrays.copyOf(users, capacity);
+            userCount = Arrays.copyOf(userCount, capacity);
+            for (int n = 0; n < Nutrient.COUNT; n++) {
+                perGram[n] = Arrays.copyOf(perGram[n], capacity);
+            }
+            weight = Arrays.copyOf(weight, capacity);
+            valid = Arrays.copyOf(valid, capacity);
+        }
+        int node = nodeCount++;
+        names[node] = name;
+        ingredients[node] = NONE;
+        users[node] = NONE;
+        nodes.put(name, node);
+        return node;
+    }
+
+    // Points the recipe at its new ingredients (creating food nodes for names seen the first time)
+    private void define(int node, List<Ingredient> list) {
+        unlink(node);
+        if (!isRecipe[node]) {
+            isRecipe[node] = true;
+            recipeCount++;
+        }
+        int[] ids = new int[list.size()];
+        double[] amounts = new double[list.size()];
+        double total = 0;
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = node(FoodCatalog.normalize(list.get(i).name()));
+            amounts[i] = list.get(i).grams();
+            total += amounts[i];
+            addUser(ids[i], node);
+        }
+        ingredients[node] = ids;
+        grams[node] = amounts;
+        weight[node] = total;
+        invalidate(node);
+    }
+
+    // A removed recipe stays a node (as an unknown food) so names keep their ids
+    private void undefine(int node) {
+        unlink(node);
+        isRecipe[node] = false;
+        recipeCount--;
+        weight[node] = 0;
+        invalidate(node);
+    }
+
+    private void unlink(int node) {
+        for (int ingredient : ingredients[node]) {
+            int[] list = users[ingredient];
+            int count = userCount[ingredient];
+            for (int i = 0; i < count; i++) {
+                if (list[i] == node) {
+                    list[i] = list[--count];
+                    i--;
+                }
+            }
+            userCount[ingredient] = count;
+        }
+        ingredients[node] = NONE;
+        grams[node] = null;
+    }
+
+    private void addUser(int ingredient, int user) {
+        int[] list = users[ingredient];
+        int count = userCount[ingredient];
+        for (int i = 0; i < count; i++) {
+            if (list[i] == user) {
+                return;
+            }
+        }
+        if (count == list.length) {
+            list = users[ingredient] = Arrays.copyOf(list, Math.max(4, count * 2));
+        }
+        list[count] = user;
+        userCount[ingredient] = count + 1;
+    }
+
+    // Clears the node and everything that uses it, directly or not
+    private void invalidate(int node) {
+        int size = 0;
+        stack[size++] = node;
+        valid[node] = false;
+        while (size > 0) {
+            int current = stack[--size];
+            for (int i = 0; i < userCount[current]; i++) {
+                int user = users[current][i];
+                if (valid[user]) {
+                    valid[user] = false;
+                    stack = ensure(stack, size + 1);
+                    stack[size++] = user;
+                }
+            }
+        }
+    }
+
+    // Post-order over the invalid part of the DAG under root: a recipe is summed once all of its
+    // ingredients are valid
+    private void evaluate(int root) {
+        int size = 0;
+        stack[size++] = root;
+        while (size > 0) {
+            int node = stack[size - 1];
+            if (valid[node]) {
+                size--;
+                continue;
+            }
+            if (!isRecipe[node]) {
+                loadFood(node);
+                size--;
+                continue;
+            }
+            boolean ready = true;
+            for (int ingredient : ingredients[node]) {
+                if (!valid[ingredient]) {
+                    stack = ensure(stack, size + 1);
+                    stack[size++] = ingredient;
+                    ready = false;
+                }
+            }
+            if (!ready) {
+                continue;
+            }
+            size--;
+            int[] ids = ingredients[node];
+            double[] amounts = grams[node];
+            for (int n = 0; n < Nutrient.COUNT; n++) {
+                double[] column = perGram[n];
+                double sum = 0;
+                for (int i = 0; i < ids.length; i++) {
+                    sum += amounts[i] * column[ids[i]];
+                }
+                column[node] = sum / weight[node];
+            }
+            valid[node] = true;
+        }
+    }
+
+    // A food the catalog does not have (or no catalog yet) counts as NaN
+    private void loadFood(int node) {
+        int index = catalog == null ? -1 : catalog.indexOf(names[node]);
+        for (int n = 0; n < Nutrient.COUNT; n++) {
+            perGram[n][node] = index < 0 ? Double.NaN : catalog.nutrient(index, Nutrient.values()[n]);
+        }
+        valid[node] = true;
+    }
+
+    // Whether `to` is among the ingredients of `from`, at any depth (or is `from`)
+    private boolean reaches(int from, int to) {
+        boolean[] seen = new boolean[nodeCount];
+        int size = 0;
+        stack[size++] = from;
+        seen[from] = true;
+        while (size > 0) {
+            int node = stack[--size];
+            if (node == to) {
+                return true;
+            }
+            for (int ingredient : ingredients[node]) {
+                if (!seen[ingredient]) {
+                    seen[ingredient] = true;
+                    stack = ensure(stack, size + 1);
+                    stack[size++] = ingredient;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int[] ensure(int[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+    }
+
+    // Appends are flushed (not fsynced); the recipe editor is not worth an fsync per save
+    private void submit(ByteBuffer record) {
+        if (writer.isShutdown()) {
+            return;
+        }
+        writer.execute(() -> {
+            try {
+                log.append(record);
+                log.flush(false);
+            } catch (IOException e) {
+                LOG.log(System.Logger.Level.ERROR, "Saving recipes failed", e);
+            }
+        });
+    }
+
+    // Rewrites the log with one RECIPE record per recipe; returns the new file's length
+    private long compact(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".compact");
+        Files.deleteIfExists(temp);
+        long length;
+        try (RecordLog compacted = RecordLog.openForAppend(temp, 0)) {
+            for (int node = 0; node < nodeCount; node++) {
+                if (!isRecipe[node]) {
+                    continue;
+                }
+                int size = 1 + 2 + utf8(names[node]).length + Integer.BYTES;
+                for (int ingredient : ingredients[node]) {
+                    size += 2 + utf8(names[ingredient]).length + Double.BYTES;
+                }
+                ByteBuffer record = ByteBuffer.allocate(size).put(RECIPE);
+                putName(record, names[node]);
+                record.putInt(ingredients[node].length);
+                for (int i = 0; i < ingredients[node].length; i++) {
+                    putName(record, names[ingredients[node][i]]);
+                    record.putDouble(grams[node][i]);
+                }
+                compacted.append(record.flip());
+            }
+            compacted.flush(true);
+            length = compacted.size();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOG.log(System.Logger.Level.DEBUG, "Compacted recipes {0}", file);
+        return length;
+    }
+
+    private static byte[] utf8(String name) {
+        return name.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putName(ByteBuffer buffer, String name) {
+        byte[] bytes = utf8(name);
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String readName(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
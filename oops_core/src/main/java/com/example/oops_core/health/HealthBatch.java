@@ -0,0 +1,497 @@
+package com.example.oops_core.health;
+
+import com.example.oops_core.text.AsciiBytes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// BMI, BMR and fitness goal for whole member files (millions of rows) without the UI.
+//
+// Input is CSV with a header naming at least height_cm and weight_kg (optional id, age, sex; any
+// order). The reader pulls fixed-size blocks from a FileChannel, cut at the last newline, and hands
+// each block to a fork-join pool. A worker parses its block straight from bytes into primitive
+// columns, runs the formulas over the columns in one tight loop and formats its slice of the output.
+// Finished blocks are written in input order; at most threads + 1 blocks are in flight, so memory
+// stays bounded by the thread count and block size (about 6 x block bytes per thread) whatever the
+// file size, and parsing, the dominant cost, scales with cores.
+//
+// Output: id,bmi,bmr,goal per input row. bmr is empty without age and sex; rows without a usable
+// height and weight get goal "invalid".
+//
+// Usage: HealthBatch input.csv output.csv [--threads n] [--block-kb n]
+//        HealthBatch --generate rows output.csv     (synthetic members, for trying it out)
+public final class HealthBatch {
+
+    static final int DEFAULT_BLOCK_BYTES = 1 << 20;
+
+    private static final byte[] OUTPUT_HEADER = "id,bmi,bmr,goal\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] INVALID = "invalid".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[][] GOAL_LABELS = new byte[HealthMath.FitnessGoal.values().length][];
+    private static final double[] POWERS_OF_TEN = new double[19];
+
+    static {
+        for (HealthMath.FitnessGoal goal : HealthMath.FitnessGoal.values()) {
+            GOAL_LABELS[goal.ordinal()] = goal.label().getBytes(StandardCharsets.US_ASCII);
+        }
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    // Per-worker column arrays, reused from block to block
+    private static final ThreadLocal<Columns> COLUMNS = ThreadLocal.withInitial(Columns::new);
+
+    private HealthBatch() {
+    }
+
+    public record Summary(long rows, long invalid, long nanos) {
+
+        public double rowsPerSecond() {
+            return rows / (nanos / 1e9);
+        }
+    }
+
+    // Column positions from the header; -1 when the column is absent
+    private record Layout(int id, int height, int weight, int age, int sex) {
+    }
+
+    private record BlockResult(byte[] output, int length, int rows, int invalid) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("--generate")) {
+            generate(Long.parseLong(args[1]), Path.of(args[2]));
+            return;
+        }
+        if (args.length < 2) {
+            System.err.println("Usage: HealthBatch input.csv output.csv [--threads n] [--block-kb n]");
+            System.err.println("       HealthBatch --generate rows output.csv");
+            System.exit(2);
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        int blockBytes = DEFAULT_BLOCK_BYTES;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--block-kb" -> blockBytes = Integer.parseInt(args[++i]) * 1024;
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        Summary summary = run(Path.of(args[0]), Path.of(args[1]), threads, blockBytes);
+        System.out.printf(Locale.ROOT, "%d rows (%d invalid) in %.2f s: %.0f rows/s on %d threads%n",
+                summary.rows(), summary.invalid(), summary.nanos() / 1e9, summary.rowsPerSecond(), threads);
+    }
+
+    public static Summary run(Path input, Path output, int threads, int blockBytes) throws IOException {
+        long started = System.nanoTime();
+        long rows = 0;
+        long invalid = 0;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            byte[] carry = new byte[0];
+            Layout layout = null;
+            ArrayDeque<Future<BlockResult>> inFlight = new ArrayDeque<>();
+            boolean eof = false;
+            while (!eof) {
+                // Unfinished last line of the previous block + the next read
+                byte[] block = Arrays.copyOf(carry, carry.length + blockBytes);
+                int filled = carry.length;
+                while (filled < block.length) {
+                    int read = in.read(ByteBuffer.wrap(block, filled, block.length - filled));
+                    if (read < 0) {
+                        eof = true;
+                        break;
+                    }
+                    filled += read;
+                }
+                int start = 0;
+                if (layout == null) {
+                    int headerEnd = AsciiBytes.indexOf(block, (byte) '\n', 0, filled);
+                    if (headerEnd < 0 && !eof) {
+                        carry = Arrays.copyOf(block, filled);
+                        continue;
+                    }
+                    layout = parseHeader(block, 0, headerEnd < 0 ? filled : headerEnd);
+                    out.write(ByteBuffer.wrap(OUTPUT_HEADER));
+                    start = headerEnd < 0 ? filled : headerEnd + 1;
+                }
+                int end = eof ? filled : lastIndexOf(block, (byte) '\n', start, filled) + 1;
+                if (end <= start && !eof) {
+                    // No complete line yet (very long line): read more before submitting
+                    carry = Arrays.copyOfRange(block, start, filled);
+                    continue;
+                }
+                carry = Arrays.copyOfRange(block, end, filled);
+
+                Layout columns = layout;
+                int from = start;
+                int to = end;
+                inFlight.add(pool.submit(() -> process(block, from, to, columns)));
+                while (inFlight.size() > threads) {
+                    BlockResult result = await(inFlight.poll());
+                    write(out, result);
+                    rows += result.rows();
+                    invalid += result.invalid();
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                BlockResult result = await(inFlight.poll());
+                write(out, result);
+                rows += result.rows();
+                invalid += result.invalid();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Summary(rows, invalid, System.nanoTime() - started);
+    }
+
+    private static BlockResult await(Future<BlockResult> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Processing a block failed", e.getCause());
+        }
+    }
+
+    private static void write(FileChannel out, BlockResult result) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(result.output(), 0, result.length());
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static Layout parseHeader(byte[] data, int from, int to) {
+        String[] names = new String(data, from, to - from, StandardCharsets.UTF_8).trim().split(",");
+        int id = -1;
+        int height = -1;
+        int weight = -1;
+        int age = -1;
+        int sex = -1;
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i].trim().replace("\"", "").toLowerCase(Locale.ROOT);
+            if (name.equals("id") || name.equals("member_id") || name.equals("member")) {
+                id = i;
+            } else if (name.startsWith("height")) {
+                height = i;
+            } else if (name.startsWith("weight")) {
+                weight = i;
+            } else if (name.equals("age")) {
+                age = i;
+            } else if (name.equals("sex") || name.equals("gender")) {
+                sex = i;
+            }
+        }
+        if (height < 0 || weight < 0) {
+            throw new IllegalArgumentException("Header must name height_cm and weight_kg columns");
+        }
+        return new Layout(id, height, weight, age, sex);
+    }
+
+    // Parse, compute and format one block of whole lines
+    private static BlockResult process(byte[] data, int from, int to, Layout layout) {
+        Columns columns = COLUMNS.get();
+        columns.parse(data, from, to, layout);
+        columns.compute();
+        return columns.format(data);
+    }
+
+    // One block's rows as primitive columns
+    private static final class Columns {
+        int size;
+        int[] idStart = new int[4096];
+        int[] idEnd = new int[4096];
+        double[] height = new double[4096];
+        double[] weight = new double[4096];
+        double[] age = new double[4096];
+        double[] sexOffset = new double[4096];
+        double[] bmi = new double[4096];
+        double[] bmr = new double[4096];
+        byte[] goal = new byte[4096];
+        boolean[] valid = new boolean[4096];
+
+        void parse(byte[] data, int from, int to, Layout layout) {
+            size = 0;
+            int lineStart = from;
+            while (lineStart < to) {
+                int lineEnd = AsciiBytes.indexOf(data, (byte) '\n', lineStart, to);
+                if (lineEnd < 0) {
+                    lineEnd = to;
+                }
+                int contentEnd = lineEnd > lineStart && data[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+                if (contentEnd > lineStart) {
+                    parseLine(data, lineStart, contentEnd, layout);
+                }
+                lineStart = lineEnd + 1;
+            }
+        }
+
+        private void parseLine(byte[] data, int from, int to, Layout layout) {
+            ensureCapacity(size + 1);
+            int row = size++;
+            idStart[row] = from;
+            idEnd[row] = from;
+            height[row] = Double.NaN;
+            weight[row] = Double.NaN;
+            age[row] = Double.NaN;
+            sexOffset[row] = Double.NaN;
+
+            int field = 0;
+            int start = from;
+            while (start <= to) {
+                int end = start;
+                if (end < to && data[end] == '"') {
+                    // Quoted field: commas inside do not split it
+                    end = AsciiBytes.indexOf(data, (byte) '"', end + 1, to);
+                    end = end < 0 ? to : end + 1;
+                }
+                int comma = AsciiBytes.indexOf(data, (byte) ',', end, to);
+                end = comma < 0 ? to : comma;
+
+                if (field == layout.id()) {
+                    idStart[row] = start;
+                    idEnd[row] = end;
+                } else if (field == layout.height()) {
+                    height[row] = parseNumber(data, start, end);
+                } else if (field == layout.weight()) {
+                    weight[row] = parseNumber(data, start, end);
+                } else if (field == layout.age()) {
+                    age[row] = parseNumber(data, start, end);
+                } else if (field == layout.sex()) {
+                    sexOffset[row] = sexOffset(data, start, end);
+                }
+                field++;
+                start = end + 1;
+            }
+            valid[row] = height[row] > 0 && weight[row] > 0 && height[row] < Double.POSITIVE_INFINITY
+                    && weight[row] < Double.POSITIVE_INFINITY;
+        }
+
+        // Same formulas as HealthMath, over whole columns: no branches on the data except the goal
+        // classification, so the loop stays simple enough for the JIT to unroll and vectorize
+        void compute() {
+            int n = size;
+            double[] h = height;
+            double[] w = weight;
+            double[] a = age;
+            double[] s = sexOffset;
+            double[] bmiOut = bmi;
+            double[] bmrOut = bmr;
+            for (int i = 0; i < n; i++) {
+                double meters = h[i] * 0.01;
+                bmiOut[i] = w[i] / (meters * meters);
+                // NaN when age or sex is missing
+                bmrOut[i] = 10 * w[i] + 6.25 * h[i] - 5 * a[i] + s[i];
+            }
+            byte gaining = (byte) HealthMath.FitnessGoal.GAINING_MUSCLE.ordinal();
+            byte losing = (byte) HealthMath.FitnessGoal.LOSING_WEIGHT.ordinal();
+            byte maintaining = (byte) HealthMath.FitnessGoal.MAINTAINING_FITNESS.ordinal();
+            for (int i = 0; i < n; i++) {
+                double value = bmiOut[i];
+                goal[i] = value < HealthMath.UNDERWEIGHT_BELOW ? gaining
+                        : value >= HealthMath.OVERWEIGHT_FROM ? losing : maintaining;
+            }
+        }
+
+        BlockResult format(byte[] data) {
+            // Upper bound: the id plus at most 64 bytes of numbers, separators and goal per row
+            int bound = 0;
+            for (int row = 0; row < size; row++) {
+                bound += idEnd[row] - idStart[row] + 64;
+            }
+            byte[] output = new byte[bound];
+            int length = 0;
+            int invalid = 0;
+            for (int row = 0; row < size; row++) {
+                int idLength = idEnd[row] - idStart[row];
+                System.arraycopy(data, idStart[row], output, length, idLength);
+                length += idLength;
+                output[length++] = ',';
+                if (!valid[row]) {
+                    invalid++;
+                    output[length++] = ',';
+                    output[length++] = ',';
+                    System.arraycopy(INVALID, 0, output, length, INVALID.length);
+                    length += INVALID.length;
+                } else {
+                    length = writeFixed2(bmi[row], output, length);
+                    output[length++] = ',';
+                    length = writeFixed2(bmr[row], output, length);
+                    output[length++] = ',';
+                    byte[] label = GOAL_LABELS[goal[row]];
+                    System.arraycopy(label, 0, output, length, label.length);
+                    length += label.length;
+                }
+                output[length++] = '\n';
+            }
+            return new BlockResult(output, length, size, invalid);
+        }
+
+        private void ensureCapacity(int needed) {
+            if (needed <= idStart.length) {
+                return;
+            }
+            int capacity = Math.max(needed, idStart.length * 2);
+            idStart = Arrays.copyOf(idStart, capacity);
+            idEnd = Arrays.copyOf(idEnd, capacity);
+            height = Arrays.copyOf(height, capacity);
+            weight = Arrays.copyOf(weight, capacity);
+            age = Arrays.copyOf(age, capacity);
+            sexOffset = Arrays.copyOf(sexOffset, capacity);
+            bmi = Arrays.copyOf(bmi, capacity);
+            bmr = Arrays.copyOf(bmr, capacity);
+            goal = Arrays.copyOf(goal, capacity);
+            valid = Arrays.copyOf(valid, capacity);
+        }
+    }
+
+    // Decimal number straight from bytes; NaN if the field is not a number. Exponents and very long
+    // mantissas fall back to Double.parseDouble.
+    static double parseNumber(byte[] data, int from, int to) {
+        while (from < to && (data[from] == ' ' || data[from] == '"')) {
+            from++;
+        }
+        while (to > from && (data[to - 1] == ' ' || data[to - 1] == '"')) {
+            to--;
+        }
+        if (from == to) {
+            return Double.NaN;
+        }
+        boolean negative = data[from] == '-';
+        int i = negative || data[from] == '+' ? from + 1 : from;
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean dot = false;
+        boolean sawDigit = false;
+        for (; i < to; i++) {
+            byte c = data[i];
+            if (c >= '0' && c <= '9') {
+                sawDigit = true;
+                if (digits == 15 || scale == POWERS_OF_TEN.length - 1) {
+                    return slowParse(data, from, to);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+                if (dot) {
+                    scale++;
+                }
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else if (c == 'e' || c == 'E') {
+                return slowParse(data, from, to);
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (!sawDigit) {
+            return Double.NaN;
+        }
+        double value = scale == 0 ? mantissa : mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    private static double slowParse(byte[] data, int from, int to) {
+        try {
+            return Double.parseDouble(new String(data, from, to - from, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static double sexOffset(byte[] data, int from, int to) {
+        while (from < to && (data[from] == ' ' || data[from] == '"')) {
+            from++;
+        }
+        if (from == to) {
+            return Double.NaN;
+        }
+        return switch (data[from]) {
+            case 'M', 'm' -> HealthMath.BMR_MALE_OFFSET;
+            case 'F', 'f' -> HealthMath.BMR_FEMALE_OFFSET;
+            default -> Double.NaN;
+        };
+    }
+
+    // Two decimals, rounded half up; writes nothing for NaN
+    static int writeFixed2(double value, byte[] out, int at) {
+        if (!(Math.abs(value) < 1e15)) {
+            return at;
+        }
+        long scaled = Math.round(value * 100);
+        if (scaled < 0) {
+            out[at++] = '-';
+            scaled = -scaled;
+        }
+        long whole = scaled / 100;
+        int cents = (int) (scaled % 100);
+        int digitsStart = at;
+        do {
+            out[at++] = (byte) ('0' + whole % 10);
+            whole /= 10;
+        } while (whole > 0);
+        for (int i = digitsStart, j = at - 1; i < j; i++, j--) {
+            byte tmp = out[i];
+            out[i] = out[j];
+            out[j] = tmp;
+        }
+        out[at++] = '.';
+        out[at++] = (byte) ('0' + cents / 10);
+        out[at++] = (byte) ('0' + cents % 10);
+        return at;
+    }
+
+    private static int lastIndexOf(byte[] data, byte value, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return from - 1;
+    }
+
+    // Writes `rows` random members, a few of them deliberately invalid
+    static void generate(long rows, Path output) throws IOException {
+        SplittableRandom random = new SplittableRandom(7);
+        try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            StringBuilder text = new StringBuilder(1 << 20);
+            text.append("id,height_cm,weight_kg,age,sex\n");
+            for (long i = 0; i < rows; i++) {
+                text.append('m').append(i).append(',');
+                if (random.nextInt(1000) == 0) {
+                    text.append("n/a");
+                } else {
+                    text.append(140 + random.nextInt(60)).append('.').append(random.nextInt(10));
+                }
+                text.append(',').append(40 + random.nextInt(90)).append('.').append(random.nextInt(10))
+                        .append(',').append(16 + random.nextInt(70))
+                        .append(',').append(random.nextBoolean() ? 'M' : 'F').append('\n');
+                if (text.length() > (1 << 20) - 64) {
+                    out.write(ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.US_ASCII)));
+                    text.setLength(0);
+                }
+            }
+            out.write(ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.US_ASCII)));
+        }
+    }
+}
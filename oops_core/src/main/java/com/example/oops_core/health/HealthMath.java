@@ -0,0 +1,112 @@
+package com.example.oops_core.health;
+
+import java.util.List;
+
+// BMI, BMR and workout suggestions shared by the Health Calculator, the Workout Planner and the
+// headless service. No JavaFX here, so it can run without the toolkit.
+public final class HealthMath {
+
+    // BMI thresholds for the fitness goal
+    public static final double UNDERWEIGHT_BELOW = 18.5;
+    public static final double OVERWEIGHT_FROM = 25;
+
+    // Mifflin-St Jeor sex terms
+    public static final double BMR_MALE_OFFSET = 5;
+    public static final double BMR_FEMALE_OFFSET = -161;
+
+    private HealthMath() {
+    }
+
+    public enum FitnessGoal {
+        GAINING_MUSCLE("Gaining Muscle", List.of(
+                "Chest Press: 3 x 12",
+                "Leg Press: 3 x 12",
+                "Hack Squats: 3 x 12",
+                "Shoulder Press: 3 x 12",
+                "Bicep Curl: 3 x 12",
+                "Tricep Pushdown: 3 x 12",
+                "Lat Pulldown: 3 x 12",
+                "Seated Row: 3 x 12",
+                "Hamstring Curl: 3 x 12",
+                "Calf Raise: 3 x 12",
+                "Ab Machine: 3 x 15")),
+        LOSING_WEIGHT("Losing Weight", List.of(
+                "Treadmill: 3 x 10 min",
+                "Elliptical: 3 x 10 min",
+                "Cycling: 3 x 15 min",
+                "Rowing Machine: 3 x 10 min",
+                "Stair Climber: 3 x 10 min",
+                "Jump Rope: 3 x 2 min",
+                "HIIT Circuit: 3 x 15 min",
+                "Speed Walking: 3 x 15 min",
+                "Aerobics: 3 x 20 min",
+                "Swimming: 3 x 15 min")),
+        MAINTAINING_FITNESS("Maintaining Fitness", List.of(
+                "Push-ups: 3 x 15",
+                "Squats: 3 x 15",
+                "Planks: 3 x 30 seconds",
+                "Lunges: 3 x 12 per leg",
+                "Jumping Jacks: 3 x 20",
+                "Mountain Climbers: 3 x 20",
+                "Burpees: 3 x 10",
+                "Dumbbell Rows: 3 x 12",
+                "Russian Twists: 3 x 20",
+                "Bicycle Crunches: 3 x 20"));
+
+        private final String label;
+        private final List<String> workouts;
+
+        FitnessGoal(String label, List<String> workouts) {
+            this.label = label;
+            this.workouts = workouts;
+        }
+
+        public String label() {
+            return label;
+        }
+
+        public List<String> workouts() {
+            return workouts;
+        }
+
+        // Matches either the label ("Losing Weight") or the constant name (LOSING_WEIGHT); null if neither
+        public static FitnessGoal fromLabel(String text) {
+            for (FitnessGoal goal : values()) {
+                if (goal.label.equalsIgnoreCase(text) || goal.name().equalsIgnoreCase(text)) {
+                    return goal;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    public static double bmi(double heightCm, double weightKg) {
+        double heightM = heightCm / 100; // Convert height to meters
+        return weightKg / (heightM * heightM);
+    }
+
+    // Mifflin-St Jeor; sex is 'M' or 'F'
+    public static double bmr(double weightKg, double heightCm, int age, char sex) {
+        double base = (10 * weightKg) + (6.25 * heightCm) - (5 * age);
+        return switch (Character.toUpperCase(sex)) {
+            case 'M' -> base + BMR_MALE_OFFSET;
+            case 'F' -> base + BMR_FEMALE_OFFSET;
+            default -> throw new IllegalArgumentException("Invalid gender entered! Use M or F.");
+        };
+    }
+
+    public static FitnessGoal fitnessGoal(double bmi) {
+        if (bmi < UNDERWEIGHT_BELOW) {
+            return FitnessGoal.GAINING_MUSCLE;
+        } else if (bmi >= OVERWEIGHT_FROM) {
+            return FitnessGoal.LOSING_WEIGHT;
+        } else {
+            return FitnessGoal.MAINTAINING_FITNESS;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.oops_core.planner;
+
+import com.example.oops_core.storage.RecordLog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// What each imported calendar event looked like at its last sync: the calendar it came from (the ICS
+// file name) and its SEQUENCE and LAST-MODIFIED. A re-import skips events whose version has not moved,
+// so an edit made in the planner survives until the calendar itself changes that event. Events missing
+// from a re-import of the same calendar are removed.
+//
+// On disk it is a RecordLog of SYNCED, FORGET and CLEAR records, rewritten on open once superseded records
+// outnumber the events. Writes happen on a background thread; the import reads it while parsing, off
+// the FX thread, so every method is synchronized.
+public final class CalendarSync implements AutoCloseable {
+
+    private record Version(String calendar, int sequence, long modified) {
+    }
+
+    private static final byte SYNCED = 1;
+    private static final byte FORGET = 2;
+    private static final byte CLEAR = 3;
+    private static final int MIN_COMPACT = 1_000;
+
+    private static final System.Logger LOG = System.getLogger(CalendarSync.class.getName());
+
+    private final Map<String, Version> versions = new HashMap<>();
+    private final RecordLog log;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "calendar-sync-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private CalendarSync(Path file) throws IOException {
+        int[] records = {0};
+        long valid = RecordLog.replay(file, payload -> {
+            records[0]++;
+            byte type = payload.get();
+            if (type == SYNCED) {
+                versions.put(readString(payload), new Version(readString(payload), payload.getInt(), payload.getLong()));
+            } else if (type == FORGET) {
+                versions.remove(readString(payload));
+            } else if (type == CLEAR) {
+                versions.clear();
+            } else {
+                throw new IllegalStateException("Unknown calendar sync record type " + type);
+            }
+        });
+        if (records[0] >= MIN_COMPACT && records[0] > 2 * versions.size()) {
+            valid = compact(file);
+        }
+        log = RecordLog.openForAppend(file, valid);
+    }
+
+    public static CalendarSync open(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        return new CalendarSync(file);
+    }
+
+    // True when the event is new to the planner or the calendar has a newer version than the last sync
+    public synchronized boolean changed(String uid, int sequence, long modified) {
+        Version last = versions.get(uid);
+        return last == null || sequence > last.sequence() || (sequence == last.sequence() && modified > last.modified());
+    }
+
+    public synchronized boolean contains(String uid) {
+        return versions.containsKey(uid);
+    }
+
+    // SEQUENCE last imported for the event, or 0 for events that did not come from a calendar
+    public synchronized int sequence(String uid) {
+        Version last = versions.get(uid);
+        return last == null ? 0 : last.sequence();
+    }
+
+    public synchronized void synced(String uid, String calendar, int sequence, long modified) {
+        Version version = new Version(calendar, sequence, modified);
+        if (version.equals(versions.put(uid, version))) {
+            return;
+        }
+        submit(syncedRecord(uid, version));
+    }
+
+    public synchronized void forget(String uid) {
+        if (versions.remove(uid) == null) {
+            return;
+        }
+        byte[] uidBytes = utf8(uid);
+        submit(ByteBuffer.allocate(1 + 2 + uidBytes.length).put(FORGET).putShort((short) uidBytes.length).put(uidBytes).flip());
+    }
+
+    // After Reset All: the next import of any calendar brings back all of its events
+    public synchronized void clear() {
+        if (versions.isEmpty()) {
+            return;
+        }
+        versions.clear();
+        submit(ByteBuffer.allocate(1).put(CLEAR).flip());
+    }
+
+    // Every event last imported from this calendar
+    public synchronized List<String> uids(String calendar) {
+        List<String> uids = new ArrayList<>();
+        for (Map.Entry<String, Version> entry : versions.entrySet()) {
+            if (entry.getValue().calendar().equals(calendar)) {
+                uids.add(entry.getKey());
+            }
+        }
+        return uids;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+    }
+
+    // Appends are flushed (not fsynced): losing the last sync only makes the next import redo it
+    private void submit(ByteBuffer record) {
+        if (writer.isShutdown()) {
+            return;
+        }
+        writer.execute(() -> {
+            try {
+                log.append(record);
+                log.flush(false);
+            } catch (IOException e) {
+                LOG.log(System.Logger.Level.ERROR, "Saving calendar sync state failed", e);
+            }
+        });
+    }
+
+    // Rewrites the log with one SYNCED record per event; returns the new file's length
+    private long compact(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".compact");
+        Files.deleteIfExists(temp);
+        long length;
+        try (RecordLog compacted = RecordLog.openForAppend(temp, 0)) {
+            for (Map.Entry<String, Version> entry : versions.entrySet()) {
+                compacted.append(syncedRecord(entry.getKey(), entry.getValue()));
+            }
+            compacted.flush(true);
+            length = compacted.size();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOG.log(System.Logger.Level.DEBUG, "Compacted calendar sync state {0}", file);
+        return length;
+    }
+
+    private static ByteBuffer syncedRecord(String uid, Version version) {
+        byte[] uidBytes = utf8(uid);
+        byte[] calendarBytes = utf8(version.calendar());
+        ByteBuffer record = ByteBuffer.allocate(1 + 2 + uidBytes.length + 2 + calendarBytes.length + Integer.BYTES + Long.BYTES);
+        record.put(SYNCED).putShort((short) uidBytes.length).put(uidBytes)
+                .putShort((short) calendarBytes.length).put(calendarBytes)
+                .putInt(version.sequence()).putLong(version.modified());
+        return record.flip();
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String readString(ByteBuffer payload) {
+        byte[] bytes = new byte[Short.toUnsignedInt(payload.getShort())];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
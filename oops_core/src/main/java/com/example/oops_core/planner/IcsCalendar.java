@@ -0,0 +1,666 @@
+package com.example.oops_core.planner;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+// iCalendar (.ics) import and export for the planner.
+//
+// Both directions stream: the reader unfolds lines and keeps only the VEVENT being read, and the writer
+// writes each event as it goes, so a calendar with tens of thousands of events never has to fit in memory
+// as text. Repeating events stay rules: DAILY and WEEKLY RRULEs (INTERVAL, COUNT, UNTIL, BYDAY) become
+// Recurrence rules that the Schedule expands per window. A weekly rule on several days becomes one rule
+// per day (uid#MO, uid#WE, ...). Other rules (monthly, yearly, BYMONTHDAY, ...) and moved or cancelled
+// occurrences (RECURRENCE-ID, EXDATE) have no Recurrence equivalent: the first occurrence or the series is
+// imported as is and counted as approximated.
+//
+// Re-importing a calendar is incremental: only the events whose SEQUENCE/LAST-MODIFIED moved past what
+// CalendarSync recorded replace their old planner events (found through the Schedule's uid index), and the
+// events dropped from the calendar are removed at the end. importInto() reads off the FX thread and applies
+// the changes on it in batches of BATCH, so even a first import holds one batch plus the set of uids seen,
+// not the calendar. read() + apply() do the same in one step and keep every change until apply().
+// Times are converted to the planner's wall clock in `zone` and rounded out to its 5-minute grid;
+// all-day events cover their whole days.
+//
+// Usage: IcsCalendar calendar.ics                       (parses it and prints what an import would do)
+//        IcsCalendar --generate events calendar.ics     (synthetic calendar, for trying it out)
+public final class IcsCalendar {
+
+    private static final String[] DAY_CODES = {"MO", "TU", "WE", "TH", "FR", "SA", "SU"};
+    private static final DateTimeFormatter LOCAL_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter UTC_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final int MAX_LINE_OCTETS = 75;
+    // Changed events importInto() holds before handing them to the FX thread
+    static final int BATCH = 1_000;
+
+    private IcsCalendar() {
+    }
+
+    public record Summary(int events, int added, int updated, int unchanged, int removed, int approximated,
+                          int skipped, long nanos) {
+    }
+
+    // One planner event made from a VEVENT (several for a weekly rule on several days)
+    private record Part(String uid, String title, long startMinute, long endMinute, Recurrence recurrence) {
+    }
+
+    private record Change(String uid, int sequence, long modified, List<Part> parts) {
+    }
+
+    // The changed events of one calendar, applied as they come in batches (importInto) or all at once
+    public static final class Import {
+        private final String calendar;
+        private final int batchSize;
+        // Called by the reader when `changes` holds batchSize events; applies them before reading on
+        private final Consumer<Import> full;
+        private final List<Change> changes = new ArrayList<>();
+        private final Set<String> seen = new HashSet<>();
+        private int events;
+        private int changed;
+        private int approximated;
+        private int skipped;
+        private int added;
+        private int updated;
+        private final long started = System.nanoTime();
+
+        private Import(String calendar, int batchSize, Consumer<Import> full) {
+            this.calendar = calendar;
+            this.batchSize = batchSize;
+            this.full = full;
+        }
+
+        public int changedEvents() {
+            return changed;
+        }
+
+        // FX thread: replaces the changed events not applied yet and drops the ones gone from the calendar
+        public Summary apply(Schedule schedule, CalendarSync sync) {
+            applyChanges(schedule, sync);
+            List<String> gone = new ArrayList<>();
+            for (String uid : sync.uids(calendar)) {
+                if (!seen.contains(uid)) {
+                    gone.add(uid);
+                }
+            }
+            for (String uid : gone) {
+                existing(schedule, uid).forEach(schedule::remove);
+                sync.forget(uid);
+            }
+            return new Summary(events, added, updated, events - changed - skipped, gone.size(), approximated,
+                    skipped, System.nanoTime() - started);
+        }
+
+        // FX thread: replaces the events in `changes` (found through the schedule's uid index) and empties it
+        private void applyChanges(Schedule schedule, CalendarSync sync) {
+            for (Change change : changes) {
+                List<Long> ids = existing(schedule, change.uid());
+                if (!ids.isEmpty() || sync.contains(change.uid())) {
+                    updated++;
+                } else {
+                    added++;
+                }
+                ids.forEach(schedule::remove);
+                for (Part part : change.parts()) {
+                    schedule.add(part.uid(), part.title(), part.startMinute(), part.endMinute(), part.recurrence());
+                }
+                sync.synced(change.uid(), calendar, change.sequence(), change.modified());
+            }
+            changes.clear();
+        }
+
+        // The planner events made from the calendar event: its own, plus a series' per-day events (uid#MO,
+        // ...) unless the calendar has an event with that uid
+        private List<Long> existing(Schedule schedule, String uid) {
+            List<Long> ids = new ArrayList<>(schedule.idsWithUid(uid));
+            for (String code : DAY_CODES) {
+                String dayUid = uid + "#" + code;
+                if (!seen.contains(dayUid)) {
+                    ids.addAll(schedule.idsWithUid(dayUid));
+                }
+            }
+            return ids;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("--generate")) {
+            generate(Integer.parseInt(args[1]), Path.of(args[2]));
+            return;
+        }
+        if (args.length != 1) {
+            System.err.println("Usage: IcsCalendar calendar.ics");
+            System.err.println("       IcsCalendar --generate events calendar.ics");
+            System.exit(2);
+        }
+        Path dir = Files.createTempDirectory("ics");
+        Path syncFile = dir.resolve("calendar-sync.log");
+        try (CalendarSync sync = CalendarSync.open(syncFile)) {
+            Schedule schedule = new Schedule();
+            Summary summary = importInto(Path.of(args[0]), ZoneId.systemDefault(), sync, schedule, Runnable::run);
+            System.err.printf(Locale.ROOT, "%,d events: %,d planner events (%,d repeating), %,d approximated, %,d skipped in %.2f s%n",
+                    summary.events(), schedule.size(), schedule.all().stream().filter(PlannerEvent::recurring).count(),
+                    summary.approximated(), summary.skipped(), summary.nanos() / 1e9);
+        } finally {
+            Files.deleteIfExists(syncFile);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    // Streams the calendar and keeps every event that changed since the last sync for apply(); safe off
+    // the FX thread. The calendar is known by its file name, so re-importing a newer download of it
+    // updates it in place.
+    public static Import read(Path file, ZoneId zone, CalendarSync sync) throws IOException {
+        Import result = new Import(file.getFileName().toString(), Integer.MAX_VALUE, null);
+        read(file, zone, sync, result);
+        return result;
+    }
+
+    // Imports the calendar into the schedule while streaming it: every BATCH changed events are applied
+    // on `owner` (the FX thread in the app) before reading on, so memory is one batch plus the uids seen
+    // (needed to find the events dropped from the calendar). Call it off the owner thread.
+    public static Summary importInto(Path file, ZoneId zone, CalendarSync sync, Schedule schedule, Executor owner)
+            throws IOException {
+        return importInto(file, zone, sync, schedule, owner, BATCH);
+    }
+
+    static Summary importInto(Path file, ZoneId zone, CalendarSync sync, Schedule schedule, Executor owner,
+                              int batchSize) throws IOException {
+        Import result = new Import(file.getFileName().toString(), batchSize,
+                full -> CompletableFuture.runAsync(() -> full.applyChanges(schedule, sync), owner).join());
+        read(file, zone, sync, result);
+        return CompletableFuture.supplyAsync(() -> result.apply(schedule, sync), owner).join();
+    }
+
+    private static void read(Path file, ZoneId zone, CalendarSync sync, Import result) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            EventReader event = new EventReader(zone);
+            StringBuilder line = new StringBuilder();
+            String raw;
+            while ((raw = reader.readLine()) != null) {
+                // Folded lines continue after a leading space or tab
+                if (!raw.isEmpty() && (raw.charAt(0) == ' ' || raw.charAt(0) == '\t')) {
+                    line.append(raw, 1, raw.length());
+                    continue;
+                }
+                if (!line.isEmpty()) {
+                    event.line(line.toString(), result, sync);
+                }
+                line.setLength(0);
+                line.append(raw);
+            }
+            if (!line.isEmpty()) {
+                event.line(line.toString(), result, sync);
+            }
+        }
+    }
+
+    // Writes the events as a calendar of floating (wall-clock) times, the planner's own notion of time
+    public static int export(Collection<PlannerEvent> events, Path file, CalendarSync sync) throws IOException {
+        String stamp = UTC_FORMAT.format(LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC));
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeLine(out, "BEGIN:VCALENDAR");
+            writeLine(out, "VERSION:2.0");
+            writeLine(out, "PRODID:-//Self-Improvement App//Daily Planner//EN");
+            for (PlannerEvent event : events) {
+                writeLine(out, "BEGIN:VEVENT");
+                writeLine(out, "UID:" + event.uid());
+                writeLine(out, "DTSTAMP:" + stamp);
+                String uid = sync.contains(event.uid()) ? event.uid() : seriesUid(event.uid());
+                writeLine(out, "SEQUENCE:" + sync.sequence(uid));
+                writeLine(out, "SUMMARY:" + escape(event.title()));
+                writeLine(out, "DTSTART:" + LOCAL_FORMAT.format(PlannerEvent.toDateTime(event.startMinute())));
+                writeLine(out, "DTEND:" + LOCAL_FORMAT.format(PlannerEvent.toDateTime(event.endMinute())));
+                if (event.recurring()) {
+                    writeLine(out, rrule(event.recurrence()));
+                }
+                writeLine(out, "END:VEVENT");
+            }
+            writeLine(out, "END:VCALENDAR");
+        }
+        return events.size();
+    }
+
+    // Collects one VEVENT's properties (ignoring nested components such as VALARM) and converts it at END
+    private static final class EventReader {
+        private final ZoneId zone;
+        private boolean inEvent;
+        private int nested;
+        private String uid;
+        private String summary;
+        private String start;
+        private String startParams;
+        private String end;
+        private String endParams;
+        private String duration;
+        private String rrule;
+        private int sequence;
+        private long modified;
+        private boolean approximate;
+        private boolean override;
+
+        EventReader(ZoneId zone) {
+            this.zone = zone;
+        }
+
+        void line(String line, Import result, CalendarSync sync) {
+            int colon = valueStart(line);
+            if (colon < 0) {
+                return;
+            }
+            int semicolon = line.indexOf(';');
+            int nameEnd = semicolon >= 0 && semicolon < colon ? semicolon : colon;
+            String name = line.substring(0, nameEnd).toUpperCase(Locale.ROOT);
+            String params = line.substring(nameEnd, colon);
+            String value = line.substring(colon + 1);
+            if (name.equals("BEGIN")) {
+                if (inEvent) {
+                    nested++;
+                } else if (value.equalsIgnoreCase("VEVENT")) {
+                    reset();
+                    inEvent = true;
+                }
+                return;
+            }
+            if (name.equals("END")) {
+                if (inEvent && nested > 0) {
+                    nested--;
+                } else if (inEvent && value.equalsIgnoreCase("VEVENT")) {
+                    inEvent = false;
+                    finish(result, sync);
+                }
+                return;
+            }
+            if (!inEvent || nested > 0) {
+                return;
+            }
+            switch (name) {
+                case "UID" -> uid = value.trim();
+                case "SUMMARY" -> summary = unescape(value);
+                case "DTSTART" -> {
+                    start = value.trim();
+                    startParams = params;
+                }
+                case "DTEND" -> {
+                    end = value.trim();
+                    endParams = params;
+                }
+                case "DURATION" -> duration = value.trim();
+                case "RRULE" -> rrule = value.trim().toUpperCase(Locale.ROOT);
+                case "SEQUENCE" -> sequence = parseInt(value.trim(), 0);
+                case "LAST-MODIFIED" -> {
+                    long minute = minute(value.trim(), "");
+                    modified = minute == Long.MIN_VALUE ? 0 : minute;
+                }
+                case "RECURRENCE-ID" -> override = true;
+                case "EXDATE", "RDATE" -> approximate = true;
+                default -> {
+                }
+            }
+        }
+
+        private void reset() {
+            nested = 0;
+            uid = null;
+            summary = null;
+            start = null;
+            startParams = "";
+            end = null;
+            endParams = "";
+            duration = null;
+            rrule = null;
+            sequence = 0;
+            modified = 0;
+            approximate = false;
+            override = false;
+        }
+
+        private void finish(Import result, CalendarSync sync) {
+            result.events++;
+            if (uid == null || uid.isEmpty() || start == null) {
+                result.skipped++;
+                return;
+            }
+            if (override) {
+                // A moved occurrence: the series keeps it at its original time
+                result.approximated++;
+                result.skipped++;
+                return;
+            }
+            result.seen.add(uid);
+            if (!sync.changed(uid, sequence, modified)) {
+                return;
+            }
+            boolean allDay = isDate(start, startParams);
+            long startMinute = minute(start, startParams);
+            long endMinute = end != null ? minute(end, endParams)
+                    : duration != null ? startMinute + durationMinutes(duration)
+                    : startMinute + (allDay ? Schedule.MINUTES_PER_DAY : 0);
+            if (startMinute == Long.MIN_VALUE || endMinute == Long.MIN_VALUE) {
+                // Whatever an earlier import made of it stays
+                result.skipped++;
+                return;
+            }
+            startMinute = Math.floorDiv(startMinute, Schedule.GRANULARITY_MINUTES) * Schedule.GRANULARITY_MINUTES;
+            endMinute = Math.max(startMinute + Schedule.GRANULARITY_MINUTES,
+                    Math.floorDiv(endMinute + Schedule.GRANULARITY_MINUTES - 1, Schedule.GRANULARITY_MINUTES) * Schedule.GRANULARITY_MINUTES);
+            String title = summary == null || summary.isBlank() ? "(no title)" : summary.trim();
+
+            List<Part> parts = new ArrayList<>();
+            if (rrule == null) {
+                parts.add(new Part(uid, title, startMinute, endMinute, null));
+            } else if (!recurrence(title, startMinute, endMinute, parts)) {
+                parts.clear();
+                parts.add(new Part(uid, title, startMinute, endMinute, null));
+                approximate = true;
+            }
+            if (approximate) {
+                result.approximated++;
+            }
+            result.changes.add(new Change(uid, sequence, modified, parts));
+            result.changed++;
+            if (result.changes.size() == result.batchSize) {
+                result.full.accept(result);
+            }
+        }
+
+        // DAILY and WEEKLY rules as Recurrence parts; false when the rule has no such equivalent
+        private boolean recurrence(String title, long startMinute, long endMinute, List<Part> parts) {
+            String frequency = null;
+            int interval = 1;
+            int count = Recurrence.UNBOUNDED;
+            long until = Long.MAX_VALUE;
+            String byDay = null;
+            for (String rule : rrule.split(";")) {
+                int equals = rule.indexOf('=');
+                if (equals < 0) {
+                    continue;
+                }
+                String key = rule.substring(0, equals);
+                String value = rule.substring(equals + 1);
+                switch (key) {
+                    case "FREQ" -> frequency = value;
+                    case "INTERVAL" -> interval = parseInt(value, -1);
+                    case "COUNT" -> count = parseInt(value, -1);
+                    case "UNTIL" -> {
+                        // A date includes its whole day
+                        until = minute(value, "");
+                        if (until != Long.MIN_VALUE && value.length() == 8) {
+                            until += Schedule.MINUTES_PER_DAY - 1;
+                        }
+                    }
+                    case "BYDAY" -> byDay = value;
+                    case "WKST" -> {
+                    }
+                    default -> {
+                        return false;
+                    }
+                }
+            }
+            if (interval < 1 || count < 0 || until == Long.MIN_VALUE) {
+                return false;
+            }
+            long duration = endMinute - startMinute;
+            if ("DAILY".equals(frequency) && byDay == null) {
+                parts.add(new Part(uid, title, startMinute, endMinute,
+                        new Recurrence(Recurrence.Frequency.DAILY, interval, count, until)));
+                return true;
+            }
+            if ("DAILY".equals(frequency) && interval == 1) {
+                // Every listed weekday is the same as a weekly rule on those days
+                frequency = "WEEKLY";
+            }
+            if (!"WEEKLY".equals(frequency)) {
+                return false;
+            }
+            LocalDateTime first = PlannerEvent.toDateTime(startMinute);
+            List<DayOfWeek> days = new ArrayList<>();
+            if (byDay == null) {
+                days.add(first.getDayOfWeek());
+            } else {
+                for (String code : byDay.split(",")) {
+                    int day = List.of(DAY_CODES).indexOf(code.trim());
+                    if (day < 0) {
+                        // "1MO" and the like belong to monthly rules
+                        return false;
+                    }
+                    days.add(DayOfWeek.of(day + 1));
+                }
+            }
+            // First occurrence per day: in DTSTART's week (weeks start on Monday), or the next period's
+            long period = interval * 7 * Schedule.MINUTES_PER_DAY;
+            long weekStart = startMinute - (first.getDayOfWeek().getValue() - 1) * Schedule.MINUTES_PER_DAY;
+            List<long[]> starts = new ArrayList<>();
+            for (DayOfWeek day : days) {
+                long dayStart = weekStart + (day.getValue() - 1) * Schedule.MINUTES_PER_DAY;
+                starts.add(new long[] {dayStart < startMinute ? dayStart + period : dayStart, day.getValue() - 1});
+            }
+            starts.sort((a, b) -> Long.compare(a[0], b[0]));
+            // COUNT runs over all days in turn: the i-th day in order gets every days.size()-th occurrence
+            for (int i = 0; i < starts.size(); i++) {
+                int partCount = Recurrence.UNBOUNDED;
+                if (count != Recurrence.UNBOUNDED) {
+                    partCount = (count - i + starts.size() - 1) / starts.size();
+                    if (partCount <= 0) {
+                        continue;
+                    }
+                }
+                long partStart = starts.get(i)[0];
+                if (partStart > until) {
+                    continue;
+                }
+                String partUid = starts.size() == 1 ? uid : uid + "#" + DAY_CODES[(int) starts.get(i)[1]];
+                parts.add(new Part(partUid, title, partStart, partStart + duration,
+                        new Recurrence(Recurrence.Frequency.WEEKLY, interval, partCount, until)));
+            }
+            return !parts.isEmpty();
+        }
+
+        // Wall-clock minute in the planner's zone: floating times as written, UTC ("Z") and TZID times
+        // converted, dates at midnight. Long.MIN_VALUE when unreadable.
+        private long minute(String value, String params) {
+            try {
+                if (value.length() == 8) {
+                    return PlannerEvent.toMinute(LocalDate.parse(value, DateTimeFormatter.BASIC_ISO_DATE).atStartOfDay());
+                }
+                LocalDateTime time = LocalDateTime.parse(value.substring(0, 15), LOCAL_FORMAT);
+                ZoneId source = null;
+                if (value.endsWith("Z")) {
+                    source = ZoneOffset.UTC;
+                } else {
+                    String tzid = param(params, "TZID");
+                    if (tzid != null) {
+                        try {
+                            source = ZoneId.of(tzid.startsWith("/") ? tzid.substring(1) : tzid);
+                        } catch (DateTimeException e) {
+                            // Custom VTIMEZONE names: read as floating time
+                        }
+                    }
+                }
+                if (source != null && !source.equals(zone)) {
+                    time = time.atZone(source).withZoneSameInstant(zone).toLocalDateTime();
+                }
+                return PlannerEvent.toMinute(time);
+            } catch (DateTimeException | IndexOutOfBoundsException e) {
+                return Long.MIN_VALUE;
+            }
+        }
+    }
+
+    private static boolean isDate(String value, String params) {
+        return value.length() == 8 || "DATE".equalsIgnoreCase(param(params, "VALUE"));
+    }
+
+    // ";TZID=Europe/Berlin;VALUE=DATE-TIME" -> the named parameter's value (quotes removed), or null
+    private static String param(String params, String name) {
+        for (String param : params.split(";")) {
+            int equals = param.indexOf('=');
+            if (equals > 0 && param.substring(0, equals).equalsIgnoreCase(name)) {
+                String value = param.substring(equals + 1);
+                return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")
+                        ? value.substring(1, value.length() - 1) : value;
+            }
+        }
+        return null;
+    }
+
+    // Position of the colon ending the name and parameters (colons inside quoted parameters do not count)
+    private static int valueStart(String line) {
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ':' && !quoted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // "PT1H30M", "P1D", "P2W" -> minutes; negative and malformed durations give 0
+    static long durationMinutes(String value) {
+        long minutes = 0;
+        long number = 0;
+        boolean negative = value.startsWith("-");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                number = number * 10 + (c - '0');
+                continue;
+            }
+            switch (c) {
+                case 'W' -> minutes += number * 7 * Schedule.MINUTES_PER_DAY;
+                case 'D' -> minutes += number * Schedule.MINUTES_PER_DAY;
+                case 'H' -> minutes += number * 60;
+                case 'M' -> minutes += number;
+                case 'S' -> minutes += number / 60;
+                default -> {
+                }
+            }
+            number = 0;
+        }
+        return negative ? 0 : minutes;
+    }
+
+    // Events split from one weekly rule (uid#MO) belong to their calendar event's uid
+    static String seriesUid(String uid) {
+        int hash = uid.lastIndexOf('#');
+        if (hash >= 0 && uid.length() - hash == 3 && List.of(DAY_CODES).contains(uid.substring(hash + 1))) {
+            return uid.substring(0, hash);
+        }
+        return uid;
+    }
+
+    private static String rrule(Recurrence recurrence) {
+        StringBuilder rule = new StringBuilder("RRULE:FREQ=").append(recurrence.frequency().name())
+                .append(";INTERVAL=").append(recurrence.interval());
+        if (recurrence.count() != Recurrence.UNBOUNDED) {
+            rule.append(";COUNT=").append(recurrence.count());
+        }
+        if (recurrence.untilMinute() != Long.MAX_VALUE) {
+            rule.append(";UNTIL=").append(LOCAL_FORMAT.format(PlannerEvent.toDateTime(recurrence.untilMinute())));
+        }
+        return rule.toString();
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace(";", "\\;").replace(",", "\\,").replace("\n", "\\n");
+    }
+
+    private static String unescape(String text) {
+        if (text.indexOf('\\') < 0) {
+            return text;
+        }
+        StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                result.append(next == 'n' || next == 'N' ? ' ' : next);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    // Content lines are folded at 75 octets, never inside a UTF-8 sequence
+    private static void writeLine(Writer out, String line) throws IOException {
+        int octets = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            int size = c < 0x80 ? 1 : c < 0x800 ? 2 : Character.isHighSurrogate(c) ? 4 : Character.isLowSurrogate(c) ? 0 : 3;
+            if (octets + size > MAX_LINE_OCTETS) {
+                out.write("\r\n ");
+                octets = 1;
+            }
+            out.write(c);
+            octets += size;
+        }
+        out.write("\r\n");
+    }
+
+    private static int parseInt(String value, int fallback) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    // `events` events over two years: mostly one-offs, some daily and weekly series, an all-day event now and then
+    static void generate(int events, Path output) throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] titles = {"Gym", "Stand-up", "Lunch with Sam", "Dentist", "Reading, fiction", "Run"};
+        LocalDate first = LocalDate.now().minusYears(1);
+        try (BufferedWriter out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            writeLine(out, "BEGIN:VCALENDAR");
+            writeLine(out, "VERSION:2.0");
+            writeLine(out, "PRODID:-//Self-Improvement App//Generated//EN");
+            for (int i = 0; i < events; i++) {
+                LocalDateTime start = first.plusDays(random.nextInt(730)).atTime(6 + random.nextInt(14), random.nextInt(4) * 15);
+                writeLine(out, "BEGIN:VEVENT");
+                writeLine(out, "UID:generated-" + i + "@example.com");
+                writeLine(out, "DTSTAMP:20240101T000000Z");
+                writeLine(out, "SUMMARY:" + escape(titles[random.nextInt(titles.length)]));
+                if (i % 50 == 0) {
+                    writeLine(out, "DTSTART;VALUE=DATE:" + DateTimeFormatter.BASIC_ISO_DATE.format(start.toLocalDate()));
+                } else {
+                    writeLine(out, "DTSTART;TZID=Europe/London:" + LOCAL_FORMAT.format(start));
+                    writeLine(out, "DURATION:PT" + (30 + random.nextInt(4) * 15) + "M");
+                }
+                if (i % 20 == 1) {
+                    writeLine(out, "RRULE:FREQ=WEEKLY;BYDAY=MO,WE,FR;COUNT=" + (10 + random.nextInt(30)));
+                } else if (i % 20 == 2) {
+                    writeLine(out, "RRULE:FREQ=DAILY;INTERVAL=2;UNTIL=" + LOCAL_FORMAT.format(start.plusMonths(3)) + "Z");
+                } else if (i % 100 == 3) {
+                    writeLine(out, "RRULE:FREQ=MONTHLY;BYMONTHDAY=1");
+                }
+                writeLine(out, "END:VEVENT");
+            }
+            writeLine(out, "END:VCALENDAR");
+        }
+    }
+}
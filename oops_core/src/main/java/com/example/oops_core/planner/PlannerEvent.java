@@ -0,0 +1,36 @@
+package com.example.oops_core.planner;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// A planner entry covering [startMinute, endMinute) in local wall-clock minutes since 1970-01-01T00:00.
+// Wall-clock minutes keep "every Monday 07:00" at 07:00 across DST changes.
+// recurrence is null for one-off events.
+public record PlannerEvent(long id, String uid, String title, long startMinute, long endMinute, Recurrence recurrence) {
+
+    public PlannerEvent {
+        if (endMinute <= startMinute) {
+            throw new IllegalArgumentException("Event must end after it starts");
+        }
+    }
+
+    public long durationMinutes() {
+        return endMinute - startMinute;
+    }
+
+    public boolean recurring() {
+        return recurrence != null;
+    }
+
+    public PlannerEvent withTitle(String newTitle) {
+        return new PlannerEvent(id, uid, newTitle, startMinute, endMinute, recurrence);
+    }
+
+    public static long toMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    public static LocalDateTime toDateTime(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.oops_core.planner;
+
+import com.example.oops_core.storage.RecordLog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Keeps a Schedule on disk as a RecordLog of per-event PUT/DELETE records (plus CLEAR for Reset All).
+//
+// Schedule changes only update a pending map (latest version per event id); a background thread writes
+// it DEBOUNCE_MILLIS after the first change, so a burst of edits to one cell becomes a single record
+// and the FX thread never touches the disk. When superseded records
+// outnumber live events the log is rewritten with only the live events.
+public final class PlannerStore implements Schedule.Listener, AutoCloseable {
+
+    static final long DEBOUNCE_MILLIS = 300;
+    private static final int COMPACT_MIN_RECORDS = 1_000;
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final byte CLEAR = 3;
+
+    private static final System.Logger LOG = System.getLogger(PlannerStore.class.getName());
+
+    private final Path file;
+    private final Schedule schedule;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "planner-store-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this: latest state of each changed event (null value = deleted) since the last write
+    private Map<Long, PlannerEvent> pending = new LinkedHashMap<>();
+    private boolean pendingClear;
+    private ScheduledFuture<?> scheduledFlush;
+
+    // Writer thread only
+    private RecordLog log;
+    private int records;
+    private final Set<Long> liveIds;
+
+    private PlannerStore(Path file, Schedule schedule, int records, Set<Long> liveIds, long valid) throws IOException {
+        this.file = file;
+        this.schedule = schedule;
+        this.records = records;
+        this.liveIds = liveIds;
+        this.log = RecordLog.openForAppend(file, valid);
+    }
+
+    // Loads the saved events into the schedule and starts tracking its changes
+    public static PlannerStore open(Path file, Schedule schedule) throws IOException {
+        Files.createDirectories(file.getParent());
+        Map<Long, PlannerEvent> events = new LinkedHashMap<>();
+        int[] records = {0};
+        long valid = readLive(file, events, records);
+        for (PlannerEvent event : events.values()) {
+            schedule.put(event);
+        }
+        PlannerStore store = new PlannerStore(file, schedule, records[0], new HashSet<>(events.keySet()), valid);
+        schedule.addListener(store);
+        return store;
+    }
+
+    @Override
+    public synchronized void eventPut(PlannerEvent event) {
+        pending.put(event.id(), event);
+        scheduleFlush();
+    }
+
+    @Override
+    public synchronized void eventRemoved(PlannerEvent event) {
+        pending.put(event.id(), null);
+        scheduleFlush();
+    }
+
+    @Override
+    public synchronized void cleared() {
+        pending.clear();
+        pendingClear = true;
+        scheduleFlush();
+    }
+
+    // Writes anything pending and stops the writer; safe to call from the FX thread at shutdown
+    @Override
+    public void close() throws IOException {
+        schedule.removeListener(this);
+        synchronized (this) {
+            // The final flush below writes it now rather than after the debounce delay
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+            }
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        log.close();
+    }
+
+    private void scheduleFlush() {
+        if (scheduledFlush == null && !writer.isShutdown()) {
+            scheduledFlush = writer.schedule(this::flushQuietly, DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            LOG.log(System.Logger.Level.ERROR, "Saving planner changes failed", e);
+        }
+    }
+
+    private void flush() throws IOException {
+        Map<Long, PlannerEvent> changes;
+        boolean clear;
+        synchronized (this) {
+            changes = pending;
+            clear = pendingClear;
+            pending = new LinkedHashMap<>();
+            pendingClear = false;
+            scheduledFlush = null;
+        }
+        if (changes.isEmpty() && !clear) {
+            return;
+        }
+        if (clear) {
+            log.append(ByteBuffer.allocate(1).put(CLEAR).flip());
+            records++;
+            liveIds.clear();
+        }
+        for (Map.Entry<Long, PlannerEvent> change : changes.entrySet()) {
+            if (change.getValue() == null) {
+                log.append(ByteBuffer.allocate(1 + Long.BYTES).put(DELETE).putLong(change.getKey()).flip());
+                liveIds.remove(change.getKey());
+            } else {
+                log.append(encode(change.getValue()));
+                liveIds.add(change.getKey());
+            }
+            records++;
+        }
+        log.flush(true);
+
+        if (records > COMPACT_MIN_RECORDS && records > 2 * liveIds.size()) {
+            compact();
+        }
+    }
+
+    // Rewrites the log with one PUT per live event (read back from the file, not from the FX-owned schedule)
+    private void compact() throws IOException {
+        Map<Long, PlannerEvent> live = new LinkedHashMap<>();
+        readLive(file, live, new int[1]);
+        Path temp = file.resolveSibling(file.getFileName() + ".compact");
+        Files.deleteIfExists(temp);
+        long valid;
+        try (RecordLog compacted = RecordLog.openForAppend(temp, 0)) {
+            for (PlannerEvent event : live.values()) {
+                compacted.append(encode(event));
+            }
+            compacted.flush(true);
+            valid = compacted.size();
+        }
+        log.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log = RecordLog.openForAppend(file, valid);
+        records = live.size();
+    }
+
+    // Replays the log into the map of live events, counting records read into records[0]; returns the
+    // length of the valid prefix
+    private static long readLive(Path file, Map<Long, PlannerEvent> live, int[] records) throws IOException {
+        return RecordLog.replay(file, payload -> {
+            records[0]++;
+            switch (payload.get()) {
+                case PUT -> {
+                    PlannerEvent event = decode(payload);
+                    live.put(event.id(), event);
+                }
+                case DELETE -> live.remove(payload.getLong());
+                case CLEAR -> live.clear();
+                default -> throw new IllegalStateException("Unknown planner record type");
+            }
+        });
+    }
+
+    static ByteBuffer encode(PlannerEvent event) {
+        byte[] uid = event.uid().getBytes(StandardCharsets.UTF_8);
+        byte[] title = event.title().getBytes(StandardCharsets.UTF_8);
+        Recurrence recurrence = event.recurrence();
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 8 + 2 + uid.length + 4 + title.length + 8 + 8 + 1 + 1 + 4 + 4 + 8);
+        buffer.put(PUT).putLong(event.id())
+                .putShort((short) uid.length).put(uid)
+                .putInt(title.length).put(title)
+                .putLong(event.startMinute()).putLong(event.endMinute());
+        if (recurrence == null) {
+            buffer.put((byte) 0);
+        } else {
+            buffer.put((byte) 1)
+                    .put((byte) recurrence.frequency().ordinal())
+                    .putInt(recurrence.interval())
+                    .putInt(recurrence.count())
+                    .putLong(recurrence.untilMinute());
+        }
+        return buffer.flip();
+    }
+
+    // Reads a PUT payload positioned just after its type byte
+    static PlannerEvent decode(ByteBuffer payload) {
+        long id = payload.getLong();
+        byte[] uid = new byte[Short.toUnsignedInt(payload.getShort())];
+        payload.get(uid);
+        byte[] title = new byte[payload.getInt()];
+        payload.get(title);
+        long start = payload.getLong();
+        long end = payload.getLong();
+        Recurrence recurrence = null;
+        if (payload.get() == 1) {
+            recurrence = new Recurrence(Recurrence.Frequency.values()[payload.get()],
+                    payload.getInt(), payload.getInt(), payload.getLong());
+        }
+        return new PlannerEvent(id, new String(uid, StandardCharsets.UTF_8), new String(title, StandardCharsets.UTF_8),
+                start, end, recurrence);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.oops_core.planner;
+
+import java.util.function.LongConsumer;
+
+// Repeat rule for a planner event: every `interval` days or weeks, optionally limited by a number
+// of occurrences and/or the last allowed start minute. Occurrences are computed, never stored.
+public record Recurrence(Frequency frequency, int interval, int count, long untilMinute) {
+
+    public enum Frequency { DAILY, WEEKLY }
+
+    public static final int UNBOUNDED = 0;
+
+    public Recurrence {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Recurrence interval must be at least 1");
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Recurrence count cannot be negative");
+        }
+    }
+
+    public static Recurrence daily() {
+        return new Recurrence(Frequency.DAILY, 1, UNBOUNDED, Long.MAX_VALUE);
+    }
+
+    public static Recurrence weekly() {
+        return new Recurrence(Frequency.WEEKLY, 1, UNBOUNDED, Long.MAX_VALUE);
+    }
+
+    public long periodMinutes() {
+        return (frequency == Frequency.DAILY ? 24L * 60 : 7L * 24 * 60) * interval;
+    }
+
+    // Start minute of every occurrence of [start, start + duration) overlapping [from, to).
+    // Jumps straight to the first candidate, so the cost is the number of matches, not the history.
+    public void occurrencesOverlapping(long start, long duration, long from, long to, LongConsumer action) {
+        long period = periodMinutes();
+        long first = Math.max(0, Math.floorDiv(from - duration - start, period) + 1);
+        long last = Math.floorDiv(to - 1 - start, period);
+        if (count != UNBOUNDED) {
+            last = Math.min(last, count - 1L);
+        }
+        if (untilMinute != Long.MAX_VALUE) {
+            last = Math.min(last, Math.floorDiv(untilMinute - start, period));
+        }
+        for (long k = first; k <= last; k++) {
+            action.accept(start + k * period);
+        }
+    }
+
+    // Minute at which the last occurrence ends, or Long.MAX_VALUE for open-ended rules
+    public long endOfSeries(long start, long duration) {
+        long period = periodMinutes();
+        long last = Long.MAX_VALUE;
+        if (count != UNBOUNDED) {
+            last = count - 1L;
+        }
+        if (untilMinute != Long.MAX_VALUE) {
+            last = Math.min(last, Math.floorDiv(untilMinute - start, period));
+        }
+        return last == Long.MAX_VALUE ? Long.MAX_VALUE : start + last * period + duration;
+    }
+}
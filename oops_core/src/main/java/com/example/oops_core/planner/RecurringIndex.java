@@ -0,0 +1,94 @@
+package com.example.oops_core.planner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Recurring events indexed by where their occurrences fall within their period.
+//
+// Every occurrence of a rule with period P starts at the same phase (start mod P), so a rule occupies the
+// fixed span [phase, phase + duration) of each period. Rules are grouped by period (one group per distinct
+// "every n days/weeks") and each group keeps those spans in an IntervalTree, split in two where a span
+// wraps past the end of the period. A window shorter than the period maps to one or two phase ranges,
+// so finding the rules that may occur in it is O(groups * (log n + matches)) instead of a scan over
+// every rule. Candidates still go through Recurrence.occurrencesOverlapping for the count/until limits
+// and the series start. Rules lasting a whole period or longer overlap every window and are kept apart.
+final class RecurringIndex {
+
+    private final Map<Long, IntervalTree<PlannerEvent>> byPeriod = new HashMap<>();
+    private final List<PlannerEvent> wide = new ArrayList<>();
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    void add(PlannerEvent event) {
+        long period = event.recurrence().periodMinutes();
+        long duration = event.durationMinutes();
+        size++;
+        if (duration >= period) {
+            wide.add(event);
+            return;
+        }
+        IntervalTree<PlannerEvent> tree = byPeriod.computeIfAbsent(period, p -> new IntervalTree<>());
+        long phase = Math.floorMod(event.startMinute(), period);
+        if (phase + duration <= period) {
+            tree.insert(phase, phase + duration, event.id(), event);
+        } else {
+            tree.insert(phase, period, event.id(), event);
+            tree.insert(0, phase + duration - period, event.id(), event);
+        }
+    }
+
+    void remove(PlannerEvent event) {
+        long period = event.recurrence().periodMinutes();
+        size--;
+        if (event.durationMinutes() >= period) {
+            wide.remove(event);
+            return;
+        }
+        IntervalTree<PlannerEvent> tree = byPeriod.get(period);
+        long phase = Math.floorMod(event.startMinute(), period);
+        tree.remove(phase, event.id());
+        if (phase + event.durationMinutes() > period) {
+            tree.remove(0, event.id());
+        }
+        if (tree.size() == 0) {
+            byPeriod.remove(period);
+        }
+    }
+
+    void clear() {
+        byPeriod.clear();
+        wide.clear();
+        size = 0;
+    }
+
+    // Every rule with an occurrence that may overlap [from, to), each once
+    void candidates(long from, long to, Consumer<PlannerEvent> action) {
+        if (size == 0 || to <= from) {
+            return;
+        }
+        Set<PlannerEvent> found = new LinkedHashSet<>(wide);
+        for (Map.Entry<Long, IntervalTree<PlannerEvent>> group : byPeriod.entrySet()) {
+            long period = group.getKey();
+            IntervalTree<PlannerEvent> tree = group.getValue();
+            if (to - from >= period) {
+                tree.overlapping(0, period, found::add);
+                continue;
+            }
+            long phaseFrom = Math.floorMod(from, period);
+            long phaseTo = phaseFrom + (to - from);
+            tree.overlapping(phaseFrom, Math.min(phaseTo, period), found::add);
+            if (phaseTo > period) {
+                tree.overlapping(0, phaseTo - period, found::add);
+            }
+        }
+        found.forEach(action);
+    }
+}
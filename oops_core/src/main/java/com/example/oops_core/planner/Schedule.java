@@ -0,0 +1,229 @@
+package com.example.oops_core.planner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Sparse planner state: only occupied time is stored.
+//
+// One-off events live in an interval tree (O(log n) conflict checks); recurring events are kept as
+// rules, indexed by the part of their period they occupy (RecurringIndex), and expanded on demand for
+// the window being asked about, so a weekly event costs the same whether the planner is viewed one
+// week or a year ahead, and a window only looks at the rules that can land in it. Times are wall-clock minutes (see
+// PlannerEvent) on a 5-minute grid. Not thread-safe; owned by the FX thread.
+public final class Schedule {
+
+    public static final int GRANULARITY_MINUTES = 5;
+    public static final long MINUTES_PER_DAY = 24 * 60;
+
+    // How far ahead a new recurring event is checked for clashes
+    static final long CONFLICT_HORIZON_MINUTES = 366 * MINUTES_PER_DAY;
+
+    private final Map<Long, PlannerEvent> events = new HashMap<>();
+    // Event ids by uid, so a calendar re-import finds what it replaces without a scan
+    private final Map<String, List<Long>> byUid = new HashMap<>();
+    private final IntervalTree<PlannerEvent> oneOff = new IntervalTree<>();
+    private final RecurringIndex recurring = new RecurringIndex();
+    private final List<Listener> listeners = new ArrayList<>();
+    private long nextId = 1;
+
+    // Notified after every change, on the thread that made it
+    public interface Listener {
+        void eventPut(PlannerEvent event);
+
+        void eventRemoved(PlannerEvent event);
+
+        void cleared();
+    }
+
+    // A concrete occurrence of an event (the event itself for one-off events)
+    public record Occurrence(PlannerEvent event, long startMinute, long endMinute) {
+    }
+
+    public PlannerEvent add(String title, long startMinute, long endMinute, Recurrence recurrence) {
+        return add(UUID.randomUUID().toString(), title, startMinute, endMinute, recurrence);
+    }
+
+    // With the uid it has elsewhere (an imported calendar event)
+    public PlannerEvent add(String uid, String title, long startMinute, long endMinute, Recurrence recurrence) {
+        return put(new PlannerEvent(nextId, uid, title, startMinute, endMinute, recurrence));
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Inserts the event, replacing any event with the same id
+    public PlannerEvent put(PlannerEvent event) {
+        if (event.startMinute() % GRANULARITY_MINUTES != 0 || event.endMinute() % GRANULARITY_MINUTES != 0) {
+            throw new IllegalArgumentException("Planner times must be on a " + GRANULARITY_MINUTES + "-minute grid");
+        }
+        unlink(event.id());
+        events.put(event.id(), event);
+        byUid.computeIfAbsent(event.uid(), uid -> new ArrayList<>(1)).add(event.id());
+        if (event.recurring()) {
+            recurring.add(event);
+        } else {
+            oneOff.insert(event.startMinute(), event.endMinute(), event.id(), event);
+        }
+        nextId = Math.max(nextId, event.id() + 1);
+        for (Listener listener : listeners) {
+            listener.eventPut(event);
+        }
+        return event;
+    }
+
+    public PlannerEvent remove(long id) {
+        PlannerEvent event = unlink(id);
+        if (event != null) {
+            for (Listener listener : listeners) {
+                listener.eventRemoved(event);
+            }
+        }
+        return event;
+    }
+
+    public PlannerEvent get(long id) {
+        return events.get(id);
+    }
+
+    public Collection<PlannerEvent> all() {
+        return Collections.unmodifiableCollection(events.values());
+    }
+
+    // Ids of the events with this uid (usually one)
+    public List<Long> idsWithUid(String uid) {
+        List<Long> ids = byUid.get(uid);
+        return ids == null ? List.of() : List.copyOf(ids);
+    }
+
+    public int size() {
+        return events.size();
+    }
+
+    public void clear() {
+        events.clear();
+        byUid.clear();
+        oneOff.clear();
+        recurring.clear();
+        for (Listener listener : listeners) {
+            listener.cleared();
+        }
+    }
+
+    // Every occurrence overlapping [from, to), sorted by start
+    public List<Occurrence> between(long from, long to) {
+        List<Occurrence> result = new ArrayList<>();
+        oneOff.overlapping(from, to, event -> result.add(new Occurrence(event, event.startMinute(), event.endMinute())));
+        int oneOffCount = result.size();
+        recurring.candidates(from, to, event -> event.recurrence().occurrencesOverlapping(event.startMinute(),
+                event.durationMinutes(), from, to, start -> result.add(new Occurrence(event, start, start + event.durationMinutes()))));
+        if (result.size() > oneOffCount) {
+            result.sort(Comparator.comparingLong(Occurrence::startMinute));
+        }
+        return result;
+    }
+
+    // Events that would clash with [start, end) (and its repeats, when recurrence is set); ignoreId skips
+    // the event being edited
+    public List<PlannerEvent> conflicts(long startMinute, long endMinute, Recurrence recurrence, long ignoreId) {
+        List<PlannerEvent> clashes = new ArrayList<>();
+        if (recurrence == null) {
+            collectConflicts(startMinute, endMinute, ignoreId, clashes);
+        } else {
+            long duration = endMinute - startMinute;
+            long horizon = Math.min(recurrence.endOfSeries(startMinute, duration), startMinute + CONFLICT_HORIZON_MINUTES);
+            recurrence.occurrencesOverlapping(startMinute, duration, startMinute, horizon,
+                    start -> collectConflicts(start, start + duration, ignoreId, clashes));
+        }
+        return clashes;
+    }
+
+    public boolean hasConflict(long startMinute, long endMinute) {
+        PlannerEvent hit = oneOff.anyOverlap(startMinute, endMinute);
+        if (hit != null) {
+            return true;
+        }
+        boolean[] found = {false};
+        recurring.candidates(startMinute, endMinute, event -> {
+            if (!found[0]) {
+                event.recurrence().occurrencesOverlapping(event.startMinute(), event.durationMinutes(),
+                        startMinute, endMinute, start -> found[0] = true);
+            }
+        });
+        return found[0];
+    }
+
+    // Earliest start of a free block of `minutes` within [from, to), only between dayStart and dayEnd
+    // (minutes after midnight) on each day. Returns -1 when there is none.
+    public long findFreeSlot(long from, long to, int minutes, int dayStart, int dayEnd) {
+        long day = Math.floorDiv(from, MINUTES_PER_DAY) * MINUTES_PER_DAY;
+        for (; day < to; day += MINUTES_PER_DAY) {
+            long windowStart = roundUp(Math.max(from, day + dayStart));
+            long windowEnd = Math.min(to, day + dayEnd);
+            if (windowEnd - windowStart < minutes) {
+                continue;
+            }
+            long candidate = windowStart;
+            for (Occurrence busy : between(windowStart, windowEnd)) {
+                if (busy.startMinute() - candidate >= minutes) {
+                    return candidate;
+                }
+                candidate = Math.max(candidate, roundUp(busy.endMinute()));
+            }
+            if (windowEnd - candidate >= minutes) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    private PlannerEvent unlink(long id) {
+        PlannerEvent event = events.remove(id);
+        if (event != null) {
+            List<Long> ids = byUid.get(event.uid());
+            ids.remove(Long.valueOf(id));
+            if (ids.isEmpty()) {
+                byUid.remove(event.uid());
+            }
+            if (event.recurring()) {
+                recurring.remove(event);
+            } else {
+                oneOff.remove(event.startMinute(), event.id());
+            }
+        }
+        return event;
+    }
+
+    private void collectConflicts(long start, long end, long ignoreId, List<PlannerEvent> clashes) {
+        oneOff.overlapping(start, end, event -> {
+            if (event.id() != ignoreId && !clashes.contains(event)) {
+                clashes.add(event);
+            }
+        });
+        recurring.candidates(start, end, event -> {
+            if (event.id() == ignoreId || clashes.contains(event)) {
+                return;
+            }
+            event.recurrence().occurrencesOverlapping(event.startMinute(), event.durationMinutes(), start, end,
+                    occurrence -> {
+                        if (!clashes.contains(event)) {
+                            clashes.add(event);
+                        }
+                    });
+        });
+    }
+
+    private static long roundUp(long minute) {
+        return Math.floorDiv(minute + GRANULARITY_MINUTES - 1, GRANULARITY_MINUTES) * GRANULARITY_MINUTES;
+    }
+}
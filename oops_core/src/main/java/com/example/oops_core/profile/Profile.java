@@ -0,0 +1,163 @@
+package com.example.oops_core.profile;
+
+import com.example.oops_core.brain.AdaptiveDifficulty;
+import com.example.oops_core.brain.TrialHistory;
+import com.example.oops_core.calorie.CalorieJournal;
+import com.example.oops_core.calorie.FoodLog;
+import com.example.oops_core.calorie.NutritionRollup;
+import com.example.oops_core.food.RecipeBook;
+import com.example.oops_core.planner.CalendarSync;
+import com.example.oops_core.planner.PlannerStore;
+import com.example.oops_core.planner.Schedule;
+import com.example.oops_core.search.MemberSearch;
+import com.example.oops_core.sleep.SleepHistory;
+import com.example.oops_core.sync.SyncAgent;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+// Everything one member has logged: planner events, the calorie log with its rollups, recipes, Brain
+// Trainer trials and sleep, plus the search index over them and the sync log.
+//
+// Opened on a ProfileStore loader thread; after it is handed over, its state is owned by the FX thread
+// like the single-user fields it replaces (the stores write on their own threads).
+public final class Profile implements AutoCloseable {
+
+    private final String id;
+    private final Path dir;
+    private final Schedule schedule = new Schedule();
+    private final FoodLog calorieLog = new FoodLog();
+    private final NutritionRollup nutritionRollup = new NutritionRollup(ZoneId.systemDefault());
+    private final AdaptiveDifficulty equationDifficulty = new AdaptiveDifficulty(1);
+    private final PlannerStore plannerStore;
+    private final CalendarSync calendarSync;
+    private final CalorieJournal calorieJournal;
+    private final RecipeBook recipes;
+    private final TrialHistory trialHistory;
+    private final SleepHistory sleepHistory;
+    private final MemberSearch search;
+    private final SyncAgent sync;
+    // Everything above that holds a file or a writer thread, in the order it was opened
+    private final List<AutoCloseable> stores = new ArrayList<>();
+
+    private Profile(String id, Path dir) throws IOException {
+        this.id = id;
+        this.dir = dir;
+        try {
+            this.plannerStore = track(PlannerStore.open(dir.resolve("planner").resolve("planner.log"), schedule));
+            this.calendarSync = track(CalendarSync.open(dir.resolve("planner").resolve("calendar-sync.log")));
+            this.calorieJournal = track(CalorieJournal.open(dir.resolve("calorie-log"), entry -> {
+                calorieLog.add(entry);
+                nutritionRollup.add(entry);
+            }));
+            this.recipes = track(RecipeBook.open(dir.resolve("recipes").resolve("recipes.log")));
+            this.trialHistory = track(TrialHistory.open(dir.resolve("brain").resolve("trials.log")));
+            this.sleepHistory = track(SleepHistory.open(dir.resolve("sleep").resolve("sleep.log")));
+            this.search = track(MemberSearch.open(dir.resolve("search").resolve("index.snap")));
+            search.sync(calorieLog, schedule);
+            // Last: it records everything loaded above as this install's first ops
+            this.sync = track(SyncAgent.open(this, dir.resolve("sync")));
+        } catch (IOException | RuntimeException e) {
+            try {
+                close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    static Profile open(String id, Path dir) throws IOException {
+        return new Profile(id, dir);
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public Path dir() {
+        return dir;
+    }
+
+    public Schedule schedule() {
+        return schedule;
+    }
+
+    // Versions of the planner events imported from calendars, for incremental re-imports
+    public CalendarSync calendarSync() {
+        return calendarSync;
+    }
+
+    public FoodLog calorieLog() {
+        return calorieLog;
+    }
+
+    public NutritionRollup nutritionRollup() {
+        return nutritionRollup;
+    }
+
+    public CalorieJournal calorieJournal() {
+        return calorieJournal;
+    }
+
+    // Meals made of catalog foods and other recipes; totals resolve against the catalog it is given
+    public RecipeBook recipes() {
+        return recipes;
+    }
+
+    // Equation Game level; starts at tier 1 (operands 1-20, all four operations, as the game always had)
+    public AdaptiveDifficulty equationDifficulty() {
+        return equationDifficulty;
+    }
+
+    // Every Equation and Memory Game answer, for the Brain Trainer trends
+    public TrialHistory trialHistory() {
+        return trialHistory;
+    }
+
+    public SleepHistory sleepHistory() {
+        return sleepHistory;
+    }
+
+    // Food log, planner and workouts; new calorie entries are passed to it like to the rollup
+    public MemberSearch search() {
+        return search;
+    }
+
+    // Operation log shared with the member's other installs; calorie entries added here are passed to it
+    // like to the search index
+    public SyncAgent sync() {
+        return sync;
+    }
+
+    // Writes pending planner changes, journal entries, recipes, trials and nights, stops their writer threads and
+    // saves the search index
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (int i = stores.size() - 1; i >= 0; i--) {
+            try {
+                stores.get(i).close();
+            } catch (Exception e) {
+                IOException wrapped = e instanceof IOException io ? io : new IOException(e);
+                if (failure == null) {
+                    failure = wrapped;
+                } else {
+                    failure.addSuppressed(wrapped);
+                }
+            }
+        }
+        stores.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private <T extends AutoCloseable> T track(T store) {
+        stores.add(store);
+        return store;
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.oops_core.profile;
+
+import com.example.oops_core.storage.AppData;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Member profiles for shared (kiosk) installs: profiles/<member id>/ under the data directory.
+//
+// At most `capacity` profiles are kept open in an access-ordered LRU; when a switch pushes it over,
+// the least recently used profiles other than the one on screen are flushed and closed, so the heap
+// holds a fixed number of profiles however many members exist. Profiles used off screen (a sync session)
+// are leased with acquire()/release() and not evicted until the last lease goes. Opening and closing run on a
+// single loader thread, so a profile's files are never opened while a previous close is still writing
+// them. The DEFAULT_ID profile is the single-user data directory itself, so existing data is kept.
+public final class ProfileStore implements AutoCloseable {
+
+    public static final String DEFAULT_ID = "default";
+    public static final int DEFAULT_CAPACITY = Integer.getInteger("oops_app.hotProfiles", 8);
+
+    private static final Pattern VALID_ID = Pattern.compile("[a-z0-9][a-z0-9_.-]{0,63}");
+    private static final System.Logger LOG = System.getLogger(ProfileStore.class.getName());
+
+    private final Path root;
+    private final int capacity;
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "profile-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this
+    private final LinkedHashMap<String, Profile> hot = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Profile>> loading = new HashMap<>();
+    private final Map<String, Integer> leases = new HashMap<>();
+    private String pinned;
+
+    public ProfileStore(Path root, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("At least one profile must fit in memory");
+        }
+        this.root = root;
+        this.capacity = capacity;
+    }
+
+    public static ProfileStore openDefault() {
+        return new ProfileStore(AppData.root(), DEFAULT_CAPACITY);
+    }
+
+    // Lower-cases and checks a member id typed at login; throws IllegalArgumentException if unusable
+    public static String normalizeId(String memberId) {
+        String id = memberId == null ? "" : memberId.trim().toLowerCase(Locale.ROOT);
+        if (!VALID_ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Member ids use letters, digits, '.', '_' or '-' (up to 64)");
+        }
+        return id;
+    }
+
+    // Member ids that have data on disk, plus the default profile
+    public List<String> members() throws IOException {
+        TreeSet<String> ids = new TreeSet<>();
+        ids.add(DEFAULT_ID);
+        Path dir = root.resolve("profiles");
+        if (Files.isDirectory(dir)) {
+            try (Stream<Path> entries = Files.list(dir)) {
+                entries.filter(Files::isDirectory)
+                        .map(path -> path.getFileName().toString())
+                        .filter(name -> VALID_ID.matcher(name).matches())
+                        .forEach(ids::add);
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
+    // Returns the member's profile, loading it in the background if it is not in memory. Completes
+    // immediately for hot profiles.
+    public CompletableFuture<Profile> open(String memberId) {
+        String id = normalizeId(memberId);
+        synchronized (this) {
+            Profile profile = hot.get(id);
+            if (profile != null) {
+                return CompletableFuture.completedFuture(profile);
+            }
+            CompletableFuture<Profile> pending = loading.get(id);
+            if (pending == null) {
+                pending = CompletableFuture.supplyAsync(() -> load(id), loader);
+                loading.put(id, pending);
+            }
+            return pending;
+        }
+    }
+
+    // Like open(), and keeps the profile in memory until the matching release(), whether or not the
+    // load succeeds
+    public CompletableFuture<Profile> acquire(String memberId) {
+        String id = normalizeId(memberId);
+        synchronized (this) {
+            leases.merge(id, 1, Integer::sum);
+        }
+        return open(id);
+    }
+
+    public void release(String memberId) {
+        String id = normalizeId(memberId);
+        synchronized (this) {
+            Integer held = leases.get(id);
+            if (held == null) {
+                throw new IllegalStateException("Profile " + id + " was not acquired");
+            }
+            if (held == 1) {
+                leases.remove(id);
+            } else {
+                leases.put(id, held - 1);
+            }
+        }
+        evictBeyondCapacity();
+    }
+
+    // Marks the profile now on screen, which is never evicted, and pages out the least recently used
+    // profiles beyond capacity. Call after switching to it, so the previous one is no longer in use.
+    public void pin(Profile profile) {
+        synchronized (this) {
+            pinned = profile.id();
+            hot.get(pinned);
+        }
+        evictBeyondCapacity();
+    }
+
+    public synchronized int hotCount() {
+        return hot.size();
+    }
+
+    // Closes every open profile; waits for the loader to finish what it is doing first
+    @Override
+    public void close() throws IOException {
+        loader.shutdown();
+        try {
+            loader.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Profile> open;
+        synchronized (this) {
+            open = new ArrayList<>(hot.values());
+            hot.clear();
+        }
+        IOException failure = null;
+        for (Profile profile : open) {
+            try {
+                profile.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void evictBeyondCapacity() {
+        List<Profile> evicted = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Profile> eldestFirst = hot.values().iterator();
+            while (hot.size() > capacity && eldestFirst.hasNext()) {
+                Profile candidate = eldestFirst.next();
+                if (!candidate.id().equals(pinned) && !leases.containsKey(candidate.id())) {
+                    eldestFirst.remove();
+                    evicted.add(candidate);
+                }
+            }
+        }
+        if (!evicted.isEmpty()) {
+            loader.execute(() -> pageOut(evicted));
+        }
+    }
+
+    // Loader thread only
+    private void pageOut(List<Profile> evicted) {
+        for (Profile cold : evicted) {
+            try {
+                cold.close();
+                LOG.log(System.Logger.Level.DEBUG, "Paged out profile {0}", cold.id());
+            } catch (IOException e) {
+                LOG.log(System.Logger.Level.ERROR, "Closing profile " + cold.id() + " failed", e);
+            }
+        }
+    }
+
+    private Path dirFor(String id) {
+        return dirFor(root, id);
+    }
+
+    // Where a member's files live under a data directory (for tools that read them without a store)
+    public static Path dirFor(Path root, String memberId) {
+        String id = normalizeId(memberId);
+        return DEFAULT_ID.equals(id) ? root : root.resolve("profiles").resolve(id);
+    }
+
+    // Loader thread only
+    private Profile load(String id) {
+        long started = System.nanoTime();
+        Profile profile;
+        try {
+            profile = Profile.open(id, dirFor(id));
+        } catch (IOException e) {
+            synchronized (this) {
+                loading.remove(id);
+            }
+            throw new UncheckedIOException(e);
+        }
+        synchronized (this) {
+            hot.put(id, profile);
+            loading.remove(id);
+        }
+        LOG.log(System.Logger.Level.INFO, "Loaded profile {0} in {1} ms", id,
+                String.format("%.2f", (System.nanoTime() - started) / 1e6));
+        return profile;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.oops_core.reminder;
+
+// A task registered with a ReminderScheduler. Only the scheduler thread touches the wheel fields.
+public final class Reminder {
+
+    private final ReminderScheduler scheduler;
+    final Runnable task;
+    final long periodTicks;
+    long deadlineTick;
+
+    // Wheel bucket links (scheduler thread only)
+    Reminder next;
+    Reminder previous;
+    Bucket bucket;
+
+    private volatile boolean cancelled;
+    private volatile boolean done;
+
+    Reminder(ReminderScheduler scheduler, Runnable task, long deadlineTick, long periodTicks) {
+        this.scheduler = scheduler;
+        this.task = task;
+        this.deadlineTick = deadlineTick;
+        this.periodTicks = periodTicks;
+    }
+
+    // Safe from any thread; the task will not start after this returns (a run already in progress finishes)
+    public void cancel() {
+        if (!cancelled) {
+            cancelled = true;
+            scheduler.cancelled(this);
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // One-shot reminder that has run, or any reminder that was cancelled
+    public boolean isDone() {
+        return done || cancelled;
+    }
+
+    boolean periodic() {
+        return periodTicks > 0;
+    }
+
+    void markDone() {
+        done = true;
+    }
+
+    // Intrusive doubly-linked list of reminders in one wheel slot
+    static final class Bucket {
+        Reminder head;
+
+        void add(Reminder reminder) {
+            reminder.bucket = this;
+            reminder.previous = null;
+            reminder.next = head;
+            if (head != null) {
+                head.previous = reminder;
+            }
+            head = reminder;
+        }
+
+        void remove(Reminder reminder) {
+            if (reminder.previous != null) {
+                reminder.previous.next = reminder.next;
+            } else {
+                head = reminder.next;
+            }
+            if (reminder.next != null) {
+                reminder.next.previous = reminder.previous;
+            }
+            reminder.next = null;
+            reminder.previous = null;
+            reminder.bucket = null;
+        }
+
+        // Detaches and returns the whole list
+        Reminder drain() {
+            Reminder first = head;
+            head = null;
+            return first;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.oops_core.reminder;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// One thread for every reminder in the app (water, planner, ...), however many are active.
+//
+// Reminders sit in a hierarchical timer wheel: LEVELS wheels of 64 slots, where level 0 slots are one
+// tick wide and each level above covers 64 times the span of the one below. Scheduling and cancelling
+// are O(1); a reminder is moved down a level at most LEVELS - 1 times before it fires. Other threads
+// only enqueue (schedule/cancel); the wheel itself is touched by the scheduler thread alone. The
+// thread parks while nothing is scheduled.
+//
+// Tasks run on the scheduler thread and must be short: UI work should be handed to the FX thread.
+public final class ReminderScheduler implements AutoCloseable {
+
+    public static final long DEFAULT_TICK_MILLIS = 100;
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    // Longest delay the wheel can hold directly; later deadlines wait in the top level and are re-filed
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private static final System.Logger LOG = System.getLogger(ReminderScheduler.class.getName());
+
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+    private final Reminder.Bucket[][] wheel = new Reminder.Bucket[LEVELS][SLOTS];
+    private final ConcurrentLinkedQueue<Reminder> added = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Reminder> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final Thread thread;
+    private volatile boolean closed;
+
+    // Scheduler thread only
+    private long currentTick;
+
+    public ReminderScheduler() {
+        this(DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public ReminderScheduler(long tick, TimeUnit unit) {
+        tickNanos = unit.toNanos(tick);
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        for (Reminder.Bucket[] level : wheel) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                level[slot] = new Reminder.Bucket();
+            }
+        }
+        thread = new Thread(this::run, "reminder-scheduler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public Reminder schedule(long delay, TimeUnit unit, Runnable task) {
+        return submit(task, delay, 0, unit);
+    }
+
+    // Runs task after initialDelay and then every period (fixed rate, measured in ticks)
+    public Reminder scheduleAtFixedRate(long initialDelay, long period, TimeUnit unit, Runnable task) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive");
+        }
+        return submit(task, initialDelay, Math.max(1, ticks(period, unit)), unit);
+    }
+
+    // Reminders scheduled and not yet finished or cancelled
+    public int activeCount() {
+        return active.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.NANOSECONDS.toMillis(tickNanos) * 10 + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Reminder submit(Runnable task, long delay, long periodTicks, TimeUnit unit) {
+        if (closed) {
+            throw new IllegalStateException("Reminder scheduler is closed");
+        }
+        // Rounded up, so a reminder never fires early
+        long dueNanos = System.nanoTime() - startNanos + unit.toNanos(Math.max(0, delay));
+        long deadline = Math.max(1, (dueNanos + tickNanos - 1) / tickNanos);
+        Reminder reminder = new Reminder(this, task, deadline, periodTicks);
+        active.incrementAndGet();
+        added.add(reminder);
+        LockSupport.unpark(thread);
+        return reminder;
+    }
+
+    void cancelled(Reminder reminder) {
+        cancelled.add(reminder);
+    }
+
+    private long ticks(long duration, TimeUnit unit) {
+        long nanos = unit.toNanos(Math.max(0, duration));
+        return (nanos + tickNanos - 1) / tickNanos;
+    }
+
+    private long elapsedTicks() {
+        return (System.nanoTime() - startNanos) / tickNanos;
+    }
+
+    private void run() {
+        while (!closed) {
+            drainQueues();
+            long target = elapsedTicks();
+            if (active.get() == 0 && added.isEmpty()) {
+                // Nothing to wait for: jump the wheel forward instead of turning empty slots
+                currentTick = Math.max(currentTick, target);
+                LockSupport.park(this);
+                continue;
+            }
+            while (currentTick < target && !closed) {
+                currentTick++;
+                tick();
+            }
+            long nextTickAt = startNanos + (currentTick + 1) * tickNanos;
+            LockSupport.parkNanos(this, nextTickAt - System.nanoTime());
+        }
+    }
+
+    private void drainQueues() {
+        Reminder reminder;
+        while ((reminder = added.poll()) != null) {
+            if (reminder.isCancelled()) {
+                finish(reminder);
+            } else {
+                file(reminder, currentTick + 1);
+            }
+        }
+        while ((reminder = cancelled.poll()) != null) {
+            if (reminder.bucket != null) {
+                reminder.bucket.remove(reminder);
+                finish(reminder);
+            }
+        }
+    }
+
+    // Moves expiring higher-level slots down, then runs level 0's current slot
+    private void tick() {
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            int shift = SLOT_BITS * level;
+            if ((currentTick & ((1L << shift) - 1)) == 0) {
+                Reminder reminder = wheel[level][(int) ((currentTick >>> shift) & SLOT_MASK)].drain();
+                while (reminder != null) {
+                    Reminder next = reminder.next;
+                    reminder.bucket = null;
+                    file(reminder, currentTick);
+                    reminder = next;
+                }
+            }
+        }
+        Reminder reminder = wheel[0][(int) (currentTick & SLOT_MASK)].drain();
+        while (reminder != null) {
+            Reminder next = reminder.next;
+            reminder.bucket = null;
+            reminder.next = null;
+            reminder.previous = null;
+            fire(reminder);
+            reminder = next;
+        }
+    }
+
+    private void fire(Reminder reminder) {
+        if (reminder.isCancelled()) {
+            finish(reminder);
+            return;
+        }
+        try {
+            reminder.task.run();
+        } catch (RuntimeException e) {
+            LOG.log(System.Logger.Level.ERROR, "Reminder task failed", e);
+        }
+        if (reminder.periodic() && !reminder.isCancelled()) {
+            reminder.deadlineTick += reminder.periodTicks;
+            if (reminder.deadlineTick <= currentTick) {
+                // Fell behind (machine asleep, long pause): skip the missed runs rather than firing a burst
+                long behind = currentTick - reminder.deadlineTick;
+                reminder.deadlineTick += (behind / reminder.periodTicks + 1) * reminder.periodTicks;
+            }
+            file(reminder, currentTick + 1);
+        } else {
+            finish(reminder);
+        }
+    }
+
+    private void finish(Reminder reminder) {
+        reminder.markDone();
+        active.decrementAndGet();
+    }
+
+    // Puts the reminder in the lowest level whose span reaches its deadline. earliestTick is the first
+    // level 0 slot still to be run: the current one while cascading, otherwise the next one.
+    private void file(Reminder reminder, long earliestTick) {
+        long deadline = Math.max(reminder.deadlineTick, earliestTick);
+        long delta = Math.min(deadline - currentTick, MAX_DELTA);
+        deadline = currentTick + delta;
+        int level = 0;
+        while (level < LEVELS - 1 && (delta >>> (SLOT_BITS * (level + 1))) != 0) {
+            level++;
+        }
+        wheel[level][(int) ((deadline >>> (SLOT_BITS * level)) & SLOT_MASK)].add(reminder);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.oops_core.search;
+
+import java.util.Arrays;
+
+// long -> non-negative int hash map with open addressing, so hundreds of thousands of keys cost two
+// arrays rather than as many boxed entries. get() and remove() return -1 for a missing key.
+final class LongIntMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final long REMOVED = Long.MIN_VALUE + 1;
+
+    private long[] keys = new long[64];
+    private int[] values = new int[64];
+    private int size;
+    // Live keys plus REMOVED markers, which also lengthen probe sequences
+    private int used;
+
+    LongIntMap() {
+        Arrays.fill(keys, EMPTY);
+    }
+
+    int get(long key) {
+        int slot = find(key);
+        return slot < 0 ? -1 : values[slot];
+    }
+
+    void put(long key, int value) {
+        if (key == EMPTY || key == REMOVED) {
+            throw new IllegalArgumentException("Reserved key " + key);
+        }
+        int slot = find(key);
+        if (slot >= 0) {
+            values[slot] = value;
+            return;
+        }
+        if ((used + 1) * 4 > keys.length * 3) {
+            rehash(size * 4 > keys.length ? keys.length * 2 : keys.length);
+        }
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY && keys[i] != REMOVED) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == EMPTY) {
+            used++;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    int remove(long key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return -1;
+        }
+        keys[slot] = REMOVED;
+        size--;
+        return values[slot];
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        used = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY && oldKeys[i] != REMOVED) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.oops_core.search;
+
+import com.example.oops_core.calorie.CalorieEntry;
+import com.example.oops_core.calorie.FoodLog;
+import com.example.oops_core.health.HealthMath;
+import com.example.oops_core.planner.PlannerEvent;
+import com.example.oops_core.planner.Schedule;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Search over one member's food log, planner entries and the workout programs.
+//
+// Keys are the kind in the top byte and the entry's own id below it (journal seq, planner event id,
+// goal and line for workouts). The index is saved next to the member's data when the profile closes
+// and read back on the next open, so only what changed since then is tokenized: food entries after the
+// saved sequence number (all of them if the entry at that number is not the one the index saw, e.g.
+// after a restore) and the planner events, which are few and simply indexed again. After that the
+// planner is followed through its listener and new food entries are passed in by the caller.
+// Not thread-safe; owned by the FX thread like the rest of the profile.
+public final class MemberSearch implements Schedule.Listener, AutoCloseable {
+
+    private static final int SNAPSHOT_MAGIC = 0x5345_4152; // "SEAR"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int KIND_SHIFT = 56;
+    private static final long ID_MASK = (1L << KIND_SHIFT) - 1;
+    private static final Kind[] KINDS = Kind.values();
+
+    private static final System.Logger LOG = System.getLogger(MemberSearch.class.getName());
+
+    public enum Kind {
+        FOOD("Food log"),
+        PLANNER("Planner"),
+        WORKOUT("Workout");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    // id is the journal seq (FOOD), the planner event id (PLANNER) or goal ordinal * 256 + line (WORKOUT)
+    public record Result(Kind kind, long id, double score) {
+    }
+
+    private final Path file;
+    private final SearchIndex index = new SearchIndex();
+    private Schedule schedule;
+    // The newest food entry in the index and a fingerprint of it, to tell whether the log still matches
+    private long foodSeq;
+    private int foodFingerprint;
+    // Of the planner events as the saved index had them
+    private int plannerFingerprint;
+    private boolean dirty;
+
+    private MemberSearch(Path file) {
+        this.file = file;
+    }
+
+    // Reads the saved index, if there is a usable one; sync() must follow once the data is loaded
+    public static MemberSearch open(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        MemberSearch search = new MemberSearch(file);
+        if (Files.exists(file)) {
+            try {
+                search.read();
+            } catch (IOException e) {
+                LOG.log(System.Logger.Level.WARNING, "Search index " + file + " is unreadable; rebuilding it", e);
+                search = new MemberSearch(file);
+            }
+        }
+        return search;
+    }
+
+    // Catches up with the loaded food log and schedule and starts following the schedule
+    public void sync(FoodLog foodLog, Schedule plannerSchedule) {
+        long started = System.nanoTime();
+        int from = 0;
+        if (foodSeq > 0) {
+            int row = foodLog.rowOf(foodSeq);
+            if (row >= 0 && fingerprint(foodLog.entry(row)) == foodFingerprint) {
+                from = row + 1;
+            } else {
+                index.removeIf(key -> kind(key) == Kind.FOOD);
+                foodSeq = 0;
+            }
+        }
+        for (int row = from; row < foodLog.size(); row++) {
+            foodAdded(foodLog.entry(row));
+        }
+
+        if (plannerFingerprint(plannerSchedule) != plannerFingerprint) {
+            index.removeIf(key -> kind(key) == Kind.PLANNER);
+            for (PlannerEvent event : plannerSchedule.all()) {
+                eventPut(event);
+            }
+        }
+        HealthMath.FitnessGoal[] goals = HealthMath.FitnessGoal.values();
+        for (HealthMath.FitnessGoal goal : goals) {
+            List<String> workouts = goal.workouts();
+            for (int line = 0; line < workouts.size(); line++) {
+                long key = key(Kind.WORKOUT, goal.ordinal() * 256L + line);
+                if (!index.contains(key)) {
+                    index.put(key, goal.label() + " " + workouts.get(line));
+                    dirty = true;
+                }
+            }
+        }
+        schedule = plannerSchedule;
+        schedule.addListener(this);
+        LOG.log(System.Logger.Level.DEBUG, "Search index ready with {0} entries ({1} food added) in {2} ms", index.size(),
+                foodLog.size() - from, String.format("%.2f", (System.nanoTime() - started) / 1e6));
+    }
+
+    public void foodAdded(CalorieEntry entry) {
+        if (entry.seq() <= foodSeq) {
+            return;
+        }
+        index.put(key(Kind.FOOD, entry.seq()), entry.food());
+        foodSeq = entry.seq();
+        foodFingerprint = fingerprint(entry);
+        dirty = true;
+    }
+
+    @Override
+    public void eventPut(PlannerEvent event) {
+        index.put(key(Kind.PLANNER, event.id()), event.title());
+        dirty = true;
+    }
+
+    @Override
+    public void eventRemoved(PlannerEvent event) {
+        index.remove(key(Kind.PLANNER, event.id()));
+        dirty = true;
+    }
+
+    @Override
+    public void cleared() {
+        index.removeIf(key -> kind(key) == Kind.PLANNER);
+        dirty = true;
+    }
+
+    public List<Result> search(String query, int limit) {
+        List<Result> results = new ArrayList<>();
+        for (SearchIndex.Hit hit : index.search(query, limit)) {
+            results.add(new Result(kind(hit.key()), hit.key() & ID_MASK, hit.score()));
+        }
+        return results;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    // Saves the index if it changed since it was read
+    @Override
+    public void close() throws IOException {
+        if (schedule != null) {
+            schedule.removeListener(this);
+            plannerFingerprint = plannerFingerprint(schedule);
+            schedule = null;
+        }
+        if (!dirty) {
+            return;
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream raw = Files.newOutputStream(temp)) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(raw, 64 * 1024), new CRC32C());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(foodSeq);
+            out.writeInt(foodFingerprint);
+            out.writeInt(plannerFingerprint);
+            index.write(out);
+            out.flush();
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        dirty = false;
+    }
+
+    private void read() throws IOException {
+        try (InputStream raw = Files.newInputStream(file)) {
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(raw, 64 * 1024), new CRC32C());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Not a search index: " + file);
+            }
+            foodSeq = in.readLong();
+            foodFingerprint = in.readInt();
+            plannerFingerprint = in.readInt();
+            index.read(in);
+            int expected = (int) checked.getChecksum().getValue();
+            if (in.readInt() != expected) {
+                throw new IOException("Search index checksum mismatch: " + file);
+            }
+        }
+    }
+
+    private static long key(Kind kind, long id) {
+        return (long) kind.ordinal() << KIND_SHIFT | id;
+    }
+
+    private static Kind kind(long key) {
+        return KINDS[(int) (key >>> KIND_SHIFT)];
+    }
+
+    private static int fingerprint(CalorieEntry entry) {
+        return Objects.hash(entry.seq(), entry.timeMillis(), entry.food());
+    }
+
+    // Independent of iteration order
+    private static int plannerFingerprint(Schedule schedule) {
+        int sum = schedule.size();
+        for (PlannerEvent event : schedule.all()) {
+            sum += Objects.hash(event.id(), event.title());
+        }
+        return sum;
+    }
+}
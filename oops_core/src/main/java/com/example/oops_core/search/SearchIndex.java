@@ -0,0 +1,368 @@
+package com.example.oops_core.search;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.LongPredicate;
+
+// In-memory inverted index over short texts, each identified by a caller-chosen long key.
+//
+// Every term has a postings list: the documents containing it, in the order they were indexed, with
+// the term's count in each. Documents get dense ordinals, which lets a query score into plain arrays
+// instead of maps. Removing a document only marks its ordinal dead (queries skip it); once dead
+// documents are a quarter of the index, one sweep drops them from every list and renumbers the rest.
+// Queries match all their words, the last one also as a prefix (search as you type), and rank with
+// BM25; a prefix match scores a little below the whole word.
+// Not thread-safe.
+public final class SearchIndex {
+
+    // BM25 parameters (the usual defaults)
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // A prefix that would expand to more terms than this only uses the first ones (alphabetically)
+    static final int MAX_EXPANSIONS = 64;
+    private static final double PREFIX_WEIGHT = 0.8;
+    private static final int MIN_PURGE = 1024;
+
+    public record Hit(long key, double score) {
+    }
+
+    // Term dictionary: sorted, so a prefix is a sub-map
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final LongIntMap docsByKey = new LongIntMap();
+
+    // Per document ordinal; a removed document has length -1 until the next purge
+    private long[] keys = new long[256];
+    private int[] lengths = new int[256];
+    private int docCount;
+    private int liveDocs;
+    private int deadDocs;
+    private long totalLength;
+
+    // Query scratch space, reused between queries
+    private float[] scores = new float[0];
+    private float[] wordScores = new float[0];
+    private int[] matched = new int[0];
+
+    public int size() {
+        return liveDocs;
+    }
+
+    public boolean contains(long key) {
+        return docsByKey.get(key) >= 0;
+    }
+
+    // Indexes the text under key, replacing whatever was indexed under it before
+    public void put(long key, String text) {
+        remove(key);
+        List<String> tokens = tokenize(text);
+        if (docCount == keys.length) {
+            keys = Arrays.copyOf(keys, docCount * 2);
+            lengths = Arrays.copyOf(lengths, docCount * 2);
+        }
+        int doc = docCount++;
+        keys[doc] = key;
+        lengths[doc] = tokens.size();
+        docsByKey.put(key, doc);
+        liveDocs++;
+        totalLength += tokens.size();
+
+        // Sorted, equal tokens are adjacent: one posting per distinct term with its count
+        tokens.sort(null);
+        for (int i = 0; i < tokens.size(); ) {
+            int j = i + 1;
+            while (j < tokens.size() && tokens.get(j).equals(tokens.get(i))) {
+                j++;
+            }
+            terms.computeIfAbsent(tokens.get(i), term -> new Postings()).add(doc, j - i);
+            i = j;
+        }
+    }
+
+    public boolean remove(long key) {
+        int doc = docsByKey.remove(key);
+        if (doc < 0) {
+            return false;
+        }
+        kill(doc);
+        if (deadDocs >= MIN_PURGE && deadDocs * 4 > liveDocs) {
+            purge();
+        }
+        return true;
+    }
+
+    // Removes every document whose key the filter accepts
+    public void removeIf(LongPredicate filter) {
+        boolean removed = false;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (lengths[doc] >= 0 && filter.test(keys[doc])) {
+                docsByKey.remove(keys[doc]);
+                kill(doc);
+                removed = true;
+            }
+        }
+        if (removed) {
+            purge();
+        }
+    }
+
+    // The best `limit` documents containing every word of the query, best first
+    public List<Hit> search(String query, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || liveDocs == 0 || limit <= 0) {
+            return List.of();
+        }
+        boolean lastIsPrefix = !query.isEmpty() && Character.isLetterOrDigit(query.charAt(query.length() - 1));
+
+        // One group of postings per word: the word itself, plus its expansions for the last word
+        List<Group> groups = new ArrayList<>();
+        for (int w = 0; w < words.size(); w++) {
+            String word = words.get(w);
+            Group group = new Group();
+            Postings exact = terms.get(word);
+            if (exact != null && exact.size > 0) {
+                group.add(exact, 1);
+            }
+            if (w == words.size() - 1 && lastIsPrefix) {
+                int expansions = 0;
+                for (Map.Entry<String, Postings> entry : terms.subMap(word, false, word + Character.MAX_VALUE, false).entrySet()) {
+                    if (entry.getValue().size > 0) {
+                        group.add(entry.getValue(), PREFIX_WEIGHT);
+                        if (++expansions == MAX_EXPANSIONS) {
+                            break;
+                        }
+                    }
+                }
+            }
+            if (group.postings.isEmpty()) {
+                return List.of();
+            }
+            groups.add(group);
+        }
+        // Rarest word first: it decides which documents are candidates at all
+        groups.sort(Comparator.comparingLong(group -> group.total));
+
+        if (scores.length < docCount) {
+            scores = new float[keys.length];
+            wordScores = new float[keys.length];
+            matched = new int[keys.length];
+        }
+        double averageLength = (double) totalLength / liveDocs;
+        int[] candidates = new int[0];
+        int candidateCount = 0;
+        for (int g = 0; g < groups.size(); g++) {
+            Group group = groups.get(g);
+            for (int p = 0; p < group.postings.size(); p++) {
+                Postings list = group.postings.get(p);
+                double idf = Math.log(1 + Math.max(0, liveDocs - list.size + 0.5) / (list.size + 0.5)) * group.weights.get(p);
+                for (int i = 0; i < list.size; i++) {
+                    int doc = list.docs[i];
+                    // Only documents that matched every earlier word stay in the running
+                    if (matched[doc] < g || lengths[doc] < 0) {
+                        continue;
+                    }
+                    int tf = list.counts[i];
+                    double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+                    float score = (float) (idf * tf * (K1 + 1) / (tf + norm));
+                    if (matched[doc] == g) {
+                        matched[doc] = g + 1;
+                        scores[doc] += score;
+                        wordScores[doc] = score;
+                        if (g == 0) {
+                            if (candidateCount == candidates.length) {
+                                candidates = Arrays.copyOf(candidates, Math.max(64, candidateCount * 2));
+                            }
+                            candidates[candidateCount++] = doc;
+                        }
+                    } else if (score > wordScores[doc]) {
+                        // Another expansion of the same word: only the better one counts
+                        scores[doc] += score - wordScores[doc];
+                        wordScores[doc] = score;
+                    }
+                }
+            }
+        }
+
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        for (int c = 0; c < candidateCount; c++) {
+            int doc = candidates[c];
+            if (matched[doc] == groups.size()) {
+                Hit hit = new Hit(keys[doc], scores[doc]);
+                if (best.size() < limit) {
+                    best.add(hit);
+                } else if (RANKING.compare(hit, best.peek()) < 0) {
+                    best.poll();
+                    best.add(hit);
+                }
+            }
+            scores[doc] = 0;
+            matched[doc] = 0;
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(RANKING);
+        return hits;
+    }
+
+    // Higher score first; on a tie the larger key (for counters and sequence numbers: the newer one)
+    private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::score).reversed()
+            .thenComparing(Comparator.comparingLong(Hit::key).reversed());
+
+    // Lower-cased runs of letters and digits
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private void kill(int doc) {
+        liveDocs--;
+        deadDocs++;
+        totalLength -= lengths[doc];
+        lengths[doc] = -1;
+    }
+
+    // Drops dead documents from every postings list (and terms left without any) and renumbers the rest
+    private void purge() {
+        int[] renumbered = new int[docCount];
+        int live = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (lengths[doc] >= 0) {
+                renumbered[doc] = live;
+                keys[live] = keys[doc];
+                lengths[live] = lengths[doc];
+                docsByKey.put(keys[live], live);
+                live++;
+            } else {
+                renumbered[doc] = -1;
+            }
+        }
+        docCount = live;
+        deadDocs = 0;
+        Iterator<Postings> lists = terms.values().iterator();
+        while (lists.hasNext()) {
+            Postings list = lists.next();
+            int kept = 0;
+            for (int i = 0; i < list.size; i++) {
+                int doc = renumbered[list.docs[i]];
+                if (doc >= 0) {
+                    list.docs[kept] = doc;
+                    list.counts[kept++] = list.counts[i];
+                }
+            }
+            list.size = kept;
+            if (kept == 0) {
+                lists.remove();
+            }
+        }
+    }
+
+    // Documents (keys and lengths) then per term its postings, as bulk int arrays so reading it back is
+    // mostly array copies. Dead documents are purged first and never written.
+    void write(DataOutputStream out) throws IOException {
+        if (deadDocs > 0) {
+            purge();
+        }
+        out.writeInt(docCount);
+        ByteBuffer docs = ByteBuffer.allocate(docCount * (Long.BYTES + Integer.BYTES));
+        docs.asLongBuffer().put(keys, 0, docCount);
+        docs.position(docCount * Long.BYTES);
+        docs.asIntBuffer().put(lengths, 0, docCount);
+        out.write(docs.array());
+        out.writeInt(terms.size());
+        for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+            Postings list = entry.getValue();
+            out.writeUTF(entry.getKey());
+            out.writeInt(list.size);
+            ByteBuffer postings = ByteBuffer.allocate(list.size * 2 * Integer.BYTES);
+            postings.asIntBuffer().put(list.docs, 0, list.size).put(list.counts, 0, list.size);
+            out.write(postings.array());
+        }
+    }
+
+    // Fills an empty index from what write() produced
+    void read(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        byte[] docBytes = new byte[count * (Long.BYTES + Integer.BYTES)];
+        in.readFully(docBytes);
+        ByteBuffer docs = ByteBuffer.wrap(docBytes);
+        keys = new long[Math.max(256, count)];
+        lengths = new int[keys.length];
+        docs.asLongBuffer().get(keys, 0, count);
+        docs.position(count * Long.BYTES);
+        docs.asIntBuffer().get(lengths, 0, count);
+        docCount = count;
+        liveDocs = count;
+        for (int doc = 0; doc < count; doc++) {
+            docsByKey.put(keys[doc], doc);
+            totalLength += lengths[doc];
+        }
+        for (int t = in.readInt(); t > 0; t--) {
+            String term = in.readUTF();
+            int size = in.readInt();
+            byte[] bytes = new byte[size * 2 * Integer.BYTES];
+            in.readFully(bytes);
+            Postings list = new Postings(Math.max(4, size));
+            ByteBuffer.wrap(bytes).asIntBuffer().get(list.docs, 0, size).get(list.counts, 0, size);
+            list.size = size;
+            terms.put(term, list);
+        }
+    }
+
+    // Documents containing one term, by ascending ordinal, with the term's count in each
+    private static final class Postings {
+        int[] docs;
+        int[] counts;
+        int size;
+
+        Postings() {
+            this(4);
+        }
+
+        Postings(int capacity) {
+            docs = new int[capacity];
+            counts = new int[capacity];
+        }
+
+        // Ordinals only grow, so appending keeps the list sorted
+        void add(int doc, int count) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            docs[size] = doc;
+            counts[size++] = count;
+        }
+    }
+
+    // The postings one query word matches, with the weight of each (1 for the word, less for a prefix)
+    private static final class Group {
+        final List<Postings> postings = new ArrayList<>();
+        final List<Double> weights = new ArrayList<>();
+        long total;
+
+        void add(Postings list, double weight) {
+            postings.add(list);
+            weights.add(weight);
+            total += list.size;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.oops_core.service;
+
+import com.example.oops_core.health.HealthMath;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Local HTTP/JSON API over HealthMath for the member portal; runs without the JavaFX toolkit.
+//
+//   POST /v1/health        {"heightCm":180,"weightKg":75,"age":30,"sex":"M"}  -> bmi, bmr, goal, workouts
+//   POST /v1/health/batch  {"members":[{...}, ...]} or a bare array           -> {"results":[...]}
+//   GET  /v1/workouts?goal=Losing%20Weight                                    -> the workout list
+//   GET  /v1/ping
+//
+// age and sex are optional (bmr is only returned with both); an "id" field is echoed back so batch
+// results can be matched up. Invalid members in a batch get an "error" entry instead of failing the
+// request. Every exchange runs on its own virtual thread.
+//
+// Usage: HealthServer [--bind address] [--port n]   (defaults to 127.0.0.1:8085)
+public final class HealthServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 8085;
+    static final int MAX_BODY_BYTES = 8 << 20;
+    static final int MAX_BATCH = 50_000;
+
+    private static final System.Logger LOG = System.getLogger(HealthServer.class.getName());
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private HealthServer(InetSocketAddress address) throws IOException {
+        // Headers and body go out as separate writes; without TCP_NODELAY every small response waits
+        // out the client's delayed ACK (~40 ms). Read once when the JDK server is first used.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext("/v1/health", this::handleHealth);
+        server.createContext("/v1/workouts", this::handleWorkouts);
+        server.createContext("/v1/ping", exchange -> send(exchange, 200, Map.of("status", "ok")));
+    }
+
+    public static HealthServer start(InetSocketAddress address) throws IOException {
+        HealthServer service = new HealthServer(address);
+        service.server.start();
+        return service;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String bind = "127.0.0.1";
+        int port = DEFAULT_PORT;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--bind" -> bind = args[++i];
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        HealthServer service = start(new InetSocketAddress(InetAddress.getByName(bind), port));
+        Runtime.getRuntime().addShutdownHook(new Thread(service::close));
+        System.out.println("Health service listening on http://" + bind + ":" + service.port() + "/v1/");
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.close();
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            boolean batch = path.equals("/v1/health/batch");
+            if (!batch && !path.equals("/v1/health")) {
+                send(exchange, 404, error("Not found"));
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                send(exchange, 405, error("Use POST"));
+                return;
+            }
+            Object body;
+            try {
+                body = Json.parse(readBody(exchange));
+            } catch (BodyTooLargeException e) {
+                send(exchange, 413, error("Request body over " + MAX_BODY_BYTES + " bytes"));
+                return;
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, error("Malformed JSON: " + e.getMessage()));
+                return;
+            }
+
+            if (!batch) {
+                if (!(body instanceof Map<?, ?> member)) {
+                    send(exchange, 400, error("Expected a JSON object"));
+                    return;
+                }
+                try {
+                    Map<String, Object> result = evaluate(member);
+                    result.put("workouts", HealthMath.fitnessGoal((Double) result.get("bmi")).workouts());
+                    send(exchange, 200, result);
+                } catch (IllegalArgumentException e) {
+                    send(exchange, 400, error(e.getMessage()));
+                }
+                return;
+            }
+
+            Object members = body instanceof Map<?, ?> map ? map.get("members") : body;
+            if (!(members instanceof List<?> list)) {
+                send(exchange, 400, error("Expected {\"members\": [...]} or an array"));
+                return;
+            }
+            if (list.size() > MAX_BATCH) {
+                send(exchange, 413, error("At most " + MAX_BATCH + " members per batch"));
+                return;
+            }
+            List<Object> results = new ArrayList<>(list.size());
+            for (Object item : list) {
+                try {
+                    if (!(item instanceof Map<?, ?> member)) {
+                        throw new IllegalArgumentException("Expected a JSON object");
+                    }
+                    results.add(evaluate(member));
+                } catch (IllegalArgumentException e) {
+                    Map<String, Object> failed = error(e.getMessage());
+                    if (item instanceof Map<?, ?> member && member.containsKey("id")) {
+                        failed.put("id", member.get("id"));
+                    }
+                    results.add(failed);
+                }
+            }
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("count", results.size());
+            response.put("results", results);
+            send(exchange, 200, response);
+        } catch (RuntimeException e) {
+            LOG.log(System.Logger.Level.ERROR, "Health request failed", e);
+            throw e;
+        }
+    }
+
+    private void handleWorkouts(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                send(exchange, 405, error("Use GET"));
+                return;
+            }
+            String goalText = query(exchange, "goal");
+            HealthMath.FitnessGoal goal = goalText == null ? null : HealthMath.FitnessGoal.fromLabel(goalText);
+            if (goal == null) {
+                send(exchange, 400, error("goal must be one of Gaining Muscle, Losing Weight, Maintaining Fitness"));
+                return;
+            }
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("goal", goal.label());
+            response.put("workouts", goal.workouts());
+            send(exchange, 200, response);
+        }
+    }
+
+    // BMI and goal always; BMR when age and sex are given
+    static Map<String, Object> evaluate(Map<?, ?> member) {
+        double heightCm = positive(member, "heightCm");
+        double weightKg = positive(member, "weightKg");
+        double bmi = HealthMath.bmi(heightCm, weightKg);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (member.containsKey("id")) {
+            result.put("id", member.get("id"));
+        }
+        result.put("bmi", bmi);
+        Object age = member.get("age");
+        Object sex = member.get("sex");
+        if (age != null && sex != null) {
+            if (!(age instanceof Double years) || years < 0 || years != Math.rint(years)) {
+                throw new IllegalArgumentException("age must be a whole number of years");
+            }
+            if (!(sex instanceof String text) || text.isEmpty()) {
+                throw new IllegalArgumentException("sex must be \"M\" or \"F\"");
+            }
+            result.put("bmr", HealthMath.bmr(weightKg, heightCm, years.intValue(), text.charAt(0)));
+        }
+        result.put("goal", HealthMath.fitnessGoal(bmi).label());
+        return result;
+    }
+
+    private static double positive(Map<?, ?> member, String field) {
+        if (!(member.get(field) instanceof Double value) || !(value > 0) || value.isInfinite()) {
+            throw new IllegalArgumentException(field + " must be a positive number");
+        }
+        return value;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new BodyTooLargeException();
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String query(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            if (key.equals(name)) {
+                return eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("error", message);
+        return error;
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static final class BodyTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.oops_core.sleep;
+
+import com.example.oops_core.storage.RecordLog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Minutes slept per night, with rolling 7/30/90-day averages and the running sleep debt.
+//
+// A night is labelled with the date of the morning it ends. Nights are kept in an int array indexed by
+// day; the rolling windows and the debt are updated as each night arrives, so logging the newest night
+// is O(1) whatever the length of the history. Changing an older night adjusts the windows in O(1) but
+// replays the debt, which depends on the order of the nights.
+//
+// Debt carries over from night to night: each logged night adds (goal - slept) and it never goes below
+// zero, so extra sleep pays debt off but cannot be banked ahead. Nights that were not logged are skipped.
+//
+// Persisted as a RecordLog of NIGHT and GOAL records written on a background thread; the log is
+// rewritten when most of its records are superseded. Owned by the FX thread.
+public final class SleepHistory implements AutoCloseable {
+
+    public static final int[] WINDOW_DAYS = {7, 30, 90};
+    public static final int DEFAULT_GOAL_MINUTES = 8 * 60;
+
+    private static final int NOT_LOGGED = -1;
+    private static final int COMPACT_MIN_RECORDS = 1_000;
+    private static final byte NIGHT = 1;
+    private static final byte GOAL = 2;
+
+    private static final System.Logger LOG = System.getLogger(SleepHistory.class.getName());
+
+    private final Path file;
+    private final SleepWindow[] windows = new SleepWindow[WINDOW_DAYS.length];
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sleep-history-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // nights[i] is day firstDay + i
+    private long firstDay;
+    private int[] nights = new int[0];
+    private long lastDay = Long.MIN_VALUE;
+    private int logged;
+    private int goalMinutes = DEFAULT_GOAL_MINUTES;
+    private long debtMinutes;
+    private long debtBeforeLast;
+
+    // Writer thread only after open
+    private RecordLog log;
+    private int records;
+
+    private SleepHistory(Path file) {
+        this.file = file;
+        for (int i = 0; i < windows.length; i++) {
+            windows[i] = new SleepWindow(WINDOW_DAYS[i]);
+        }
+    }
+
+    public static SleepHistory open(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        SleepHistory history = new SleepHistory(file);
+        int[] records = {0};
+        long valid = RecordLog.replay(file, payload -> {
+            records[0]++;
+            switch (payload.get()) {
+                case NIGHT -> history.store(payload.getInt(), payload.getInt());
+                case GOAL -> history.goalMinutes = payload.getInt();
+                default -> throw new IllegalStateException("Unknown sleep record type");
+            }
+        });
+        history.rebuild();
+        history.records = records[0];
+        if (history.records > COMPACT_MIN_RECORDS && history.records > 2 * (history.logged + 1)) {
+            valid = history.compact();
+        }
+        history.log = RecordLog.openForAppend(file, valid);
+        return history;
+    }
+
+    // Logs (or corrects) one night
+    public void put(LocalDate night, int minutesSlept) {
+        long day = night.toEpochDay();
+        int previous = store(day, minutesSlept);
+        if (day > lastDay) {
+            for (SleepWindow window : windows) {
+                window.advanceTo(day);
+                window.set(day, minutesSlept);
+            }
+            lastDay = day;
+            debtBeforeLast = debtMinutes;
+            debtMinutes = Math.max(0, debtMinutes + goalMinutes - minutesSlept);
+        } else {
+            for (SleepWindow window : windows) {
+                window.set(day, minutesSlept);
+            }
+            if (day == lastDay) {
+                // Topping up the latest night (the tracker adds sleep as it is reported)
+                debtMinutes = Math.max(0, debtBeforeLast + goalMinutes - minutesSlept);
+            } else if (previous != minutesSlept) {
+                replayDebt();
+            }
+        }
+        submit(nightRecord(day, minutesSlept));
+    }
+
+    // Logs many nights at once (an import), in any order; the windows and debt are rebuilt once
+    public void putAll(long[] days, int[] minutes, int count) {
+        ByteBuffer[] batch = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            store(days[i], minutes[i]);
+            batch[i] = nightRecord(days[i], minutes[i]);
+        }
+        rebuild();
+        submit(batch);
+    }
+
+    public void setGoalMinutes(int minutes) {
+        if (minutes <= 0 || minutes > 24 * 60) {
+            throw new IllegalArgumentException("Sleep goal must be between 0 and 24 hours");
+        }
+        if (minutes == goalMinutes) {
+            return;
+        }
+        goalMinutes = minutes;
+        replayDebt();
+        submit(ByteBuffer.allocate(1 + Integer.BYTES).put(GOAL).putInt(minutes).flip());
+    }
+
+    public int goalMinutes() {
+        return goalMinutes;
+    }
+
+    // Minutes slept that night, or -1 if it was not logged
+    public int night(LocalDate night) {
+        long index = night.toEpochDay() - firstDay;
+        return index < 0 || index >= nights.length ? NOT_LOGGED : nights[(int) index];
+    }
+
+    public int loggedNights() {
+        return logged;
+    }
+
+    // The most recent logged night, or null when there are none
+    public LocalDate lastNight() {
+        return lastDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(lastDay);
+    }
+
+    // Average minutes per logged night over the WINDOW_DAYS[window] days up to the last night (-1 if none)
+    public double average(int window) {
+        SleepWindow w = windows[window];
+        return w.logged() == 0 ? -1 : w.sum() / (double) w.logged();
+    }
+
+    // Goal minus sleep over the logged nights of the window (negative when ahead of the goal)
+    public long windowDebtMinutes(int window) {
+        SleepWindow w = windows[window];
+        return (long) w.logged() * goalMinutes - w.sum();
+    }
+
+    // Running debt after the last logged night
+    public long debtMinutes() {
+        return debtMinutes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+    }
+
+    // Sets the night in the array and returns its old value (-1 if not logged)
+    private int store(long day, int minutes) {
+        if (minutes < 0 || minutes > 24 * 60) {
+            throw new IllegalArgumentException("Minutes slept must be between 0 and 24 hours");
+        }
+        if (nights.length == 0) {
+            firstDay = day;
+        }
+        if (day < firstDay) {
+            int shift = Math.toIntExact(firstDay - day);
+            int[] grown = new int[nights.length + Math.max(shift, 64)];
+            Arrays.fill(grown, NOT_LOGGED);
+            int extra = grown.length - nights.length;
+            System.arraycopy(nights, 0, grown, extra, nights.length);
+            firstDay -= extra;
+            nights = grown;
+        }
+        int index = Math.toIntExact(day - firstDay);
+        if (index >= nights.length) {
+            int oldLength = nights.length;
+            nights = Arrays.copyOf(nights, Math.max(index + 1, Math.max(64, oldLength * 2)));
+            Arrays.fill(nights, oldLength, nights.length, NOT_LOGGED);
+        }
+        int previous = nights[index];
+        if (previous == NOT_LOGGED) {
+            logged++;
+        }
+        nights[index] = minutes;
+        return previous;
+    }
+
+    // Recomputes the windows and the debt from the nights array
+    private void rebuild() {
+        lastDay = Long.MIN_VALUE;
+        for (int i = nights.length - 1; i >= 0; i--) {
+            if (nights[i] != NOT_LOGGED) {
+                lastDay = firstDay + i;
+                break;
+            }
+        }
+        for (SleepWindow window : windows) {
+            window.reset();
+            if (lastDay == Long.MIN_VALUE) {
+                continue;
+            }
+            window.advanceTo(lastDay);
+            for (long day = Math.max(firstDay, lastDay - window.length() + 1); day <= lastDay; day++) {
+                int minutes = nights[(int) (day - firstDay)];
+                if (minutes != NOT_LOGGED) {
+                    window.set(day, minutes);
+                }
+            }
+        }
+        replayDebt();
+    }
+
+    private void replayDebt() {
+        long debt = 0;
+        long before = 0;
+        for (int minutes : nights) {
+            if (minutes != NOT_LOGGED) {
+                before = debt;
+                debt = Math.max(0, debt + goalMinutes - minutes);
+            }
+        }
+        debtMinutes = debt;
+        debtBeforeLast = before;
+    }
+
+    private static ByteBuffer nightRecord(long day, int minutes) {
+        return ByteBuffer.allocate(1 + 2 * Integer.BYTES).put(NIGHT).putInt(Math.toIntExact(day)).putInt(minutes).flip();
+    }
+
+    private void submit(ByteBuffer... batch) {
+        if (writer.isShutdown()) {
+            return;
+        }
+        writer.execute(() -> {
+            try {
+                for (ByteBuffer record : batch) {
+                    log.append(record);
+                }
+                records += batch.length;
+                log.flush(true);
+            } catch (IOException e) {
+                LOG.log(System.Logger.Level.ERROR, "Saving sleep history failed", e);
+            }
+        });
+    }
+
+    // Rewrites the log as the goal plus one NIGHT record per logged night (loading thread, before the
+    // writer starts); returns the new file's length
+    private long compact() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".compact");
+        Files.deleteIfExists(temp);
+        long size;
+        try (RecordLog compacted = RecordLog.openForAppend(temp, 0)) {
+            compacted.append(ByteBuffer.allocate(1 + Integer.BYTES).put(GOAL).putInt(goalMinutes).flip());
+            for (int i = 0; i < nights.length; i++) {
+                if (nights[i] != NOT_LOGGED) {
+                    compacted.append(nightRecord(firstDay + i, nights[i]));
+                }
+            }
+            compacted.flush(true);
+            size = compacted.size();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        records = logged + 1;
+        return size;
+    }
+}
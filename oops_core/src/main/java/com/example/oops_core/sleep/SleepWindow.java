@@ -0,0 +1,85 @@
+package com.example.oops_core.sleep;
+
+import java.util.Arrays;
+
+// Sum and count of logged nights over the last `length` days, as a ring of per-day minutes.
+//
+// Moving the window forward clears the days that drop out of it (at most `length` slots however far it
+// moves) and setting a day inside the window adjusts the sum by the difference, so both are O(1) for
+// a night at a time.
+final class SleepWindow {
+
+    private static final int NOT_LOGGED = -1;
+
+    private final int length;
+    private final int[] minutes;
+    private long endDay = Long.MIN_VALUE;
+    private long sum;
+    private int logged;
+
+    SleepWindow(int length) {
+        this.length = length;
+        this.minutes = new int[length];
+        Arrays.fill(minutes, NOT_LOGGED);
+    }
+
+    int length() {
+        return length;
+    }
+
+    long sum() {
+        return sum;
+    }
+
+    int logged() {
+        return logged;
+    }
+
+    // Makes `day` the last day of the window; days before the current end are ignored
+    void advanceTo(long day) {
+        if (endDay != Long.MIN_VALUE && day <= endDay) {
+            return;
+        }
+        if (endDay == Long.MIN_VALUE || day - endDay >= length) {
+            Arrays.fill(minutes, NOT_LOGGED);
+            sum = 0;
+            logged = 0;
+        } else {
+            for (long d = endDay + 1; d <= day; d++) {
+                clear(slot(d));
+            }
+        }
+        endDay = day;
+    }
+
+    // Records the night if it falls inside the window (replacing an earlier value for that day)
+    void set(long day, int nightMinutes) {
+        if (endDay == Long.MIN_VALUE || day > endDay || day <= endDay - length) {
+            return;
+        }
+        int slot = slot(day);
+        clear(slot);
+        minutes[slot] = nightMinutes;
+        sum += nightMinutes;
+        logged++;
+    }
+
+    void reset() {
+        Arrays.fill(minutes, NOT_LOGGED);
+        endDay = Long.MIN_VALUE;
+        sum = 0;
+        logged = 0;
+    }
+
+    private void clear(int slot) {
+        if (minutes[slot] != NOT_LOGGED) {
+            sum -= minutes[slot];
+            logged--;
+            minutes[slot] = NOT_LOGGED;
+        }
+    }
+
+    private int slot(long day) {
+        return (int) Math.floorMod(day, (long) length);
+    }
+}
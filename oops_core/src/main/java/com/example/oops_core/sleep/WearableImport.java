@@ -0,0 +1,411 @@
+package com.example.oops_core.sleep;
+
+import com.example.oops_core.text.AsciiBytes;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+// Nightly totals from a wearable's minute-by-minute sleep export, in one pass and constant memory.
+//
+// Input is CSV, one row per minute: a timestamp and a sleep state. The header (optional) picks the
+// columns: the first one whose name mentions "time" or "date" and the first one mentioning "stage",
+// "state", "sleep", "status" or "value"; otherwise the first two columns are used. Timestamps are ISO
+// local date-times ("2024-03-01T23:14", seconds and an offset or Z allowed; offsets are converted to
+// the member's zone) or epoch seconds/milliseconds. States such as asleep, light, deep, rem, core or a
+// non-zero number count as asleep; anything else (awake, in_bed, 0) does not.
+//
+// Each asleep minute goes to the night ending on the morning of its date: minutes from noon one day
+// to noon the next belong to the second day. Rows are expected in time order (as exports are); a
+// repeated minute is counted once and rows for a night that has already been emitted are skipped.
+// The file is read in fixed-size blocks straight from bytes, so memory does not depend on its size.
+//
+// Usage: WearableImport export.csv                  (prints the nightly totals)
+//        WearableImport --generate days export.csv  (synthetic export, for trying it out)
+public final class WearableImport {
+
+    static final int BLOCK_BYTES = 1 << 20;
+
+    private static final long MINUTES_PER_DAY = 24 * 60;
+    private static final long NOON = 12 * 60;
+    private static final byte[][] ASLEEP_STATES = ascii("asleep", "sleep", "light", "deep", "rem", "core",
+            "n1", "n2", "n3");
+    private static final byte[][] TIME_NAMES = ascii("time", "date");
+    private static final byte[][] STATE_NAMES = ascii("stage", "state", "sleep", "status", "value");
+
+    private WearableImport() {
+    }
+
+    // Receives each finished night in the order they complete
+    public interface NightSink {
+        void night(long epochDay, int minutesAsleep);
+    }
+
+    // Collects the nights for SleepHistory.putAll (a few thousand at most, whatever the row count)
+    public static final class Nights implements NightSink {
+        private long[] days = new long[64];
+        private int[] minutes = new int[64];
+        private int count;
+
+        @Override
+        public void night(long epochDay, int minutesAsleep) {
+            if (count == days.length) {
+                days = Arrays.copyOf(days, count * 2);
+                minutes = Arrays.copyOf(minutes, count * 2);
+            }
+            days[count] = epochDay;
+            minutes[count++] = minutesAsleep;
+        }
+
+        public long[] days() {
+            return days;
+        }
+
+        public int[] minutes() {
+            return minutes;
+        }
+
+        public int count() {
+            return count;
+        }
+    }
+
+    public record Summary(long rows, long asleepMinutes, int nights, long skipped, long nanos) {
+
+        public double rowsPerSecond() {
+            return rows / (nanos / 1e9);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("--generate")) {
+            generate(Integer.parseInt(args[1]), Path.of(args[2]));
+            return;
+        }
+        if (args.length != 1) {
+            System.err.println("Usage: WearableImport export.csv");
+            System.err.println("       WearableImport --generate days export.csv");
+            System.exit(2);
+        }
+        Summary summary = run(Path.of(args[0]), ZoneId.systemDefault(), (day, minutes) -> System.out.printf(
+                Locale.ROOT, "%s %d:%02d%n", LocalDate.ofEpochDay(day), minutes / 60, minutes % 60));
+        System.err.printf(Locale.ROOT, "%,d rows, %d nights, %,d skipped in %.2f s (%,.0f rows/s)%n",
+                summary.rows(), summary.nights(), summary.skipped(), summary.nanos() / 1e9, summary.rowsPerSecond());
+    }
+
+    public static Summary run(Path file, ZoneId zone, NightSink sink) throws IOException {
+        long started = System.nanoTime();
+        Aggregator aggregator = new Aggregator(zone.getRules(), sink);
+        byte[] data = new byte[BLOCK_BYTES];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int filled = 0;
+            boolean eof = false;
+            while (!eof || filled > 0) {
+                if (!eof) {
+                    buffer.limit(data.length).position(filled);
+                    int read = channel.read(buffer);
+                    if (read < 0) {
+                        eof = true;
+                    } else {
+                        filled += read;
+                    }
+                }
+                int start = 0;
+                while (true) {
+                    int newline = AsciiBytes.indexOf(data, (byte) '\n', start, filled);
+                    if (newline < 0) {
+                        break;
+                    }
+                    aggregator.line(data, start, newline);
+                    start = newline + 1;
+                }
+                if (eof && start < filled) {
+                    // Last line without a newline
+                    aggregator.line(data, start, filled);
+                    start = filled;
+                }
+                if (start == 0 && filled == data.length) {
+                    throw new IOException("Line longer than " + data.length + " bytes");
+                }
+                System.arraycopy(data, start, data, 0, filled - start);
+                filled -= start;
+            }
+        }
+        aggregator.finish();
+        return new Summary(aggregator.rows, aggregator.asleepMinutes, aggregator.nights, aggregator.skipped,
+                System.nanoTime() - started);
+    }
+
+    // Running state of the night being read; everything before it has gone to the sink
+    private static final class Aggregator {
+        private final ZoneRules rules;
+        private final NightSink sink;
+        private boolean headerChecked;
+        private int timeColumn = 0;
+        private int stateColumn = 1;
+
+        private long night = Long.MIN_VALUE;
+        private int nightMinutes;
+        private long lastMinute = Long.MIN_VALUE;
+
+        // Offset cache for epoch timestamps: valid for one UTC hour at a time
+        private long offsetHour = Long.MIN_VALUE;
+        private long offsetMinutes;
+
+        long rows;
+        long asleepMinutes;
+        int nights;
+        long skipped;
+
+        Aggregator(ZoneRules rules, NightSink sink) {
+            this.rules = rules;
+            this.sink = sink;
+        }
+
+        void line(byte[] data, int from, int to) {
+            if (to > from && data[to - 1] == '\r') {
+                to--;
+            }
+            if (to <= from) {
+                return;
+            }
+            if (!headerChecked) {
+                headerChecked = true;
+                if (!AsciiBytes.isDigit(data[skipQuote(data, from, to)])) {
+                    header(data, from, to);
+                    return;
+                }
+            }
+            rows++;
+            int timeFrom = -1;
+            int timeTo = -1;
+            int stateFrom = -1;
+            int stateTo = -1;
+            int column = 0;
+            int cell = from;
+            for (int i = from; i <= to; i++) {
+                if (i == to || data[i] == ',') {
+                    if (column == timeColumn) {
+                        timeFrom = cell;
+                        timeTo = i;
+                    } else if (column == stateColumn) {
+                        stateFrom = cell;
+                        stateTo = i;
+                    }
+                    column++;
+                    cell = i + 1;
+                }
+            }
+            if (timeFrom < 0 || stateFrom < 0) {
+                skipped++;
+                return;
+            }
+            long minute = localMinute(data, AsciiBytes.trimStart(data, timeFrom, timeTo),
+                    AsciiBytes.trimEnd(data, timeFrom, timeTo));
+            if (minute == Long.MIN_VALUE) {
+                skipped++;
+                return;
+            }
+            long rowNight = Math.floorDiv(minute + NOON, MINUTES_PER_DAY);
+            if (rowNight < night || minute == lastMinute) {
+                skipped++;
+                return;
+            }
+            if (rowNight != night) {
+                emit();
+                night = rowNight;
+                nightMinutes = 0;
+            }
+            lastMinute = minute;
+            if (asleep(data, AsciiBytes.trimStart(data, stateFrom, stateTo),
+                    AsciiBytes.trimEnd(data, stateFrom, stateTo))) {
+                nightMinutes++;
+                asleepMinutes++;
+            }
+        }
+
+        void finish() {
+            emit();
+            night = Long.MIN_VALUE;
+        }
+
+        private void emit() {
+            if (night != Long.MIN_VALUE && nightMinutes > 0) {
+                sink.night(night, (int) Math.min(nightMinutes, MINUTES_PER_DAY));
+                nights++;
+            }
+        }
+
+        private void header(byte[] data, int from, int to) {
+            int foundTime = -1;
+            int foundState = -1;
+            int column = 0;
+            int cell = from;
+            for (int i = from; i <= to; i++) {
+                if (i == to || data[i] == ',') {
+                    if (foundTime < 0 && containsAny(data, cell, i, TIME_NAMES)) {
+                        foundTime = column;
+                    } else if (foundState < 0 && containsAny(data, cell, i, STATE_NAMES)) {
+                        foundState = column;
+                    }
+                    column++;
+                    cell = i + 1;
+                }
+            }
+            if (foundTime >= 0 && foundState >= 0) {
+                timeColumn = foundTime;
+                stateColumn = foundState;
+            }
+        }
+
+        // Local wall-clock minute since the epoch, or Long.MIN_VALUE when the timestamp is unreadable
+        private long localMinute(byte[] data, int from, int to) {
+            if (to - from >= 16 && data[from + 4] == '-') {
+                return isoMinute(data, from, to);
+            }
+            long value = 0;
+            int digits = 0;
+            for (int i = from; i < to && AsciiBytes.isDigit(data[i]); i++) {
+                value = value * 10 + (data[i] - '0');
+                digits++;
+            }
+            if (digits == 0 || digits > 15) {
+                return Long.MIN_VALUE;
+            }
+            long epochSecond = digits > 11 ? value / 1000 : value;
+            return Math.floorDiv(epochSecond, 60) + offsetMinutes(Math.floorDiv(epochSecond, 3600));
+        }
+
+        // yyyy-MM-dd[T ]HH:mm[:ss[.fff]][Z|+hh:mm|-hh:mm]
+        private long isoMinute(byte[] data, int from, int to) {
+            int year = AsciiBytes.digits(data, from, 4);
+            int month = AsciiBytes.digits(data, from + 5, 2);
+            int day = AsciiBytes.digits(data, from + 8, 2);
+            int hour = AsciiBytes.digits(data, from + 11, 2);
+            int minuteOfHour = AsciiBytes.digits(data, from + 14, 2);
+            if (year < 0 || !AsciiBytes.isDate(year, month, day) || hour < 0 || hour > 23
+                    || minuteOfHour < 0 || minuteOfHour > 59) {
+                return Long.MIN_VALUE;
+            }
+            long local = AsciiBytes.daysFromCivil(year, month, day) * MINUTES_PER_DAY + hour * 60L + minuteOfHour;
+            // An explicit offset: convert to UTC, then to the member's zone
+            int offsetAt = -1;
+            for (int i = from + 16; i < to; i++) {
+                if (data[i] == 'Z' || data[i] == '+' || data[i] == '-') {
+                    offsetAt = i;
+                    break;
+                }
+            }
+            if (offsetAt < 0) {
+                return local;
+            }
+            long utc = local;
+            if (data[offsetAt] != 'Z') {
+                int offsetHours = AsciiBytes.digits(data, offsetAt + 1, 2);
+                int offsetMins = to - offsetAt >= 6 ? AsciiBytes.digits(data, offsetAt + 4, 2) : 0;
+                if (offsetHours < 0 || offsetMins < 0) {
+                    return Long.MIN_VALUE;
+                }
+                int offset = offsetHours * 60 + offsetMins;
+                utc -= data[offsetAt] == '+' ? offset : -offset;
+            }
+            return utc + offsetMinutes(Math.floorDiv(utc, 60));
+        }
+
+        private long offsetMinutes(long utcHour) {
+            if (utcHour != offsetHour) {
+                offsetHour = utcHour;
+                offsetMinutes = rules.getOffset(Instant.ofEpochSecond(utcHour * 3600)).getTotalSeconds() / 60;
+            }
+            return offsetMinutes;
+        }
+
+        private static boolean asleep(byte[] data, int from, int to) {
+            if (from < to && (AsciiBytes.isDigit(data[from]) || data[from] == '-')) {
+                for (int i = from; i < to; i++) {
+                    if (data[i] >= '1' && data[i] <= '9') {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            for (byte[] state : ASLEEP_STATES) {
+                if (startsWithIgnoreCase(data, from, to, state)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static int skipQuote(byte[] data, int from, int to) {
+        return from + 1 < to && data[from] == '"' ? from + 1 : from;
+    }
+
+    private static boolean startsWithIgnoreCase(byte[] data, int from, int to, byte[] prefix) {
+        if (to - from < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((data[from + i] | 0x20) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsAny(byte[] data, int from, int to, byte[][] names) {
+        for (byte[] name : names) {
+            for (int i = from; i + name.length <= to; i++) {
+                if (startsWithIgnoreCase(data, i, to, name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static byte[][] ascii(String... values) {
+        byte[][] bytes = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = values[i].getBytes(StandardCharsets.US_ASCII);
+        }
+        return bytes;
+    }
+
+    // One row per minute for `days` days: awake during the day, a 6-9 hour night with stages
+    static void generate(int days, Path output) throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] stages = {"light", "deep", "rem"};
+        LocalDateTime start = LocalDateTime.now().toLocalDate().minusDays(days).atTime(12, 0);
+        try (BufferedWriter out = Files.newBufferedWriter(output, StandardCharsets.US_ASCII)) {
+            out.write("timestamp,stage\n");
+            for (int d = 0; d < days; d++) {
+                int bedtime = 21 * 60 + 30 + random.nextInt(150);
+                int asleep = 6 * 60 + random.nextInt(3 * 60);
+                LocalDateTime noon = start.plusDays(d);
+                for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+                    boolean sleeping = minute + NOON >= bedtime && minute + NOON < bedtime + asleep;
+                    out.write(noon.plusMinutes(minute).toString());
+                    out.write(',');
+                    out.write(sleeping ? stages[random.nextInt(stages.length)] : "awake");
+                    out.write('\n');
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.oops_core.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Location of every file the app writes (catalogs, logs, snapshots)
+public final class AppData {
+
+    // Override with -Doops_app.dataDir=/some/folder
+    public static final String DATA_DIR_PROPERTY = "oops_app.dataDir";
+
+    private AppData() {
+    }
+
+    public static Path root() {
+        String configured = System.getProperty(DATA_DIR_PROPERTY);
+        Path root = configured != null
+                ? Path.of(configured)
+                : Path.of(System.getProperty("user.home"), ".oops_app");
+        return ensureDirectory(root);
+    }
+
+    public static Path resolve(String name) {
+        return root().resolve(name);
+    }
+
+    public static Path ensureDirectory(Path dir) {
+        try {
+            return Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create data directory " + dir, e);
+        }
+    }
+}
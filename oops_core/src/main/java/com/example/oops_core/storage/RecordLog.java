@@ -0,0 +1,139 @@
+package com.example.oops_core.storage;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+// Append-only file of length-prefixed, checksummed records.
+//
+// Frame: int payload length, int CRC32C of the payload, payload bytes.
+// A crash can only leave a torn frame at the very end; it is dropped (and truncated) on the next open.
+public final class RecordLog implements Closeable {
+
+    public static final int FRAME_HEADER = 2 * Integer.BYTES;
+    private static final int MAX_RECORD = 16 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private final CRC32C crc = new CRC32C();
+
+    private RecordLog(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    // Opens (or creates) the file for appending, cutting off any torn record left by a crash
+    public static RecordLog openForAppend(Path file) throws IOException {
+        return openForAppend(file, Files.exists(file) ? replay(file, payload -> { }) : 0);
+    }
+
+    // The same when the caller already knows the valid length (it just replayed the file, or wrote it
+    // itself), so the file is not read a second time just to append to it
+    public static RecordLog openForAppend(Path file, long valid) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.size() > valid) {
+            channel.truncate(valid);
+        }
+        channel.position(valid);
+        return new RecordLog(channel);
+    }
+
+    // Feeds every intact record to the consumer and returns the length of the valid prefix
+    public static long replay(Path file, Consumer<ByteBuffer> consumer) throws IOException {
+        return replay(file, 0, consumer);
+    }
+
+    // The same from `from`, which must be the start of a record; returns the end of the valid records
+    public static long replay(Path file, long from, Consumer<ByteBuffer> consumer) throws IOException {
+        if (!Files.exists(file)) {
+            return from;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            in.skipNBytes(from);
+            return from + replay(in, consumer);
+        }
+    }
+
+    // The same over a stream opened by the caller; returns the length of the valid records read. Never
+    // writes, so it is safe on a file another process is appending to (a torn tail just ends the replay).
+    public static long replay(InputStream stream, Consumer<ByteBuffer> consumer) throws IOException {
+        long valid = 0;
+        CRC32C check = new CRC32C();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 64 * 1024));
+        while (true) {
+            int length;
+            int expected;
+            byte[] payload;
+            try {
+                length = in.readInt();
+                expected = in.readInt();
+                if (length < 0 || length > MAX_RECORD) {
+                    break;
+                }
+                payload = new byte[length];
+                in.readFully(payload);
+            } catch (EOFException e) {
+                break;
+            }
+            check.reset();
+            check.update(payload);
+            if ((int) check.getValue() != expected) {
+                break;
+            }
+            consumer.accept(ByteBuffer.wrap(payload));
+            valid += FRAME_HEADER + length;
+        }
+        return valid;
+    }
+
+    // Buffers one record; nothing reaches the file until flush()
+    public void append(ByteBuffer payload) {
+        int length = payload.remaining();
+        if (length > MAX_RECORD) {
+            throw new IllegalArgumentException("Record too large: " + length + " bytes");
+        }
+        if (pending.remaining() < FRAME_HEADER + length) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + FRAME_HEADER + length));
+            pending.flip();
+            bigger.put(pending);
+            pending = bigger;
+        }
+        crc.reset();
+        crc.update(payload.duplicate());
+        pending.putInt(length).putInt((int) crc.getValue()).put(payload);
+    }
+
+    // Writes everything buffered since the last flush, optionally forcing it to disk (one fsync per batch)
+    public void flush(boolean fsync) throws IOException {
+        pending.flip();
+        while (pending.hasRemaining()) {
+            channel.write(pending);
+        }
+        pending.clear();
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush(true);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.oops_core.sync;
+
+import com.example.oops_core.storage.RecordLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Sync through a folder every install can reach (a cloud drive, a USB stick, a network share).
+//
+// Layout: <folder>/<member id>/<replica hex>.ops   ops this install published, appended to only by it
+//                              <replica hex>.vv    generation, valid length and version vector of the .ops
+// An install only writes its own two files, so installs never write the same file. Publishing appends
+// the ops that no .vv in the folder covers yet; reading starts each peer's .ops where the last sync
+// stopped (cursors kept in the profile's sync directory), so both cost the changes since the last sync.
+// A .ops file that is started over gets a new generation, which sends readers back to its start.
+public final class FolderTransport {
+
+    private static final int VECTOR_MAGIC = 0x4F505656; // "OPVV"
+    private static final int CURSORS_MAGIC = 0x4F504355; // "OPCU"
+    private static final String OPS = ".ops";
+    private static final String VECTOR = ".vv";
+
+    private static final System.Logger LOG = System.getLogger(FolderTransport.class.getName());
+
+    private record Published(long generation, long length, VersionVector vector) {
+    }
+
+    private record Cursor(long generation, long offset) {
+    }
+
+    private record Pulled(List<ByteBuffer> ops, Map<String, Cursor> cursors) {
+    }
+
+    private FolderTransport() {
+    }
+
+    // Reads and writes the folder off the FX thread and applies what it brings on `owner`
+    public static CompletableFuture<SyncAgent.Report> sync(SyncAgent agent, Path folder, Executor owner) {
+        long start = System.nanoTime();
+        Path memberDir = folder.resolve(agent.memberId());
+        Path cursorFile = agent.dir().resolve("folder-cursors");
+        String cursorPrefix = memberDir.toAbsolutePath().normalize() + "/";
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return pull(agent, memberDir, cursorFile, cursorPrefix);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).thenApplyAsync(pulled -> Map.entry(pulled, agent.apply(pulled.ops())), owner).thenApplyAsync(result -> {
+            try {
+                // Ops skipped for a gap or not saved are read again next time
+                if (result.getValue().gaps() == 0 && result.getValue().failure() == null) {
+                    writeCursors(cursorFile, result.getKey().cursors());
+                }
+                long sent = push(agent, memberDir);
+                return new SyncAgent.Report(sent, result.getKey().ops().size(), result.getValue(), System.nanoTime() - start);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // New ops in the other installs' files, with the cursors that come after them
+    private static Pulled pull(SyncAgent agent, Path memberDir, Path cursorFile, String cursorPrefix) throws IOException {
+        List<ByteBuffer> ops = new ArrayList<>();
+        Map<String, Cursor> cursors = readCursors(cursorFile);
+        if (!Files.isDirectory(memberDir)) {
+            return new Pulled(ops, cursors);
+        }
+        VersionVector have = agent.vector();
+        String own = Long.toHexString(agent.replica());
+        for (Map.Entry<String, Published> peer : published(memberDir).entrySet()) {
+            if (peer.getKey().equals(own)) {
+                continue;
+            }
+            Published published = peer.getValue();
+            String key = cursorPrefix + peer.getKey();
+            Cursor cursor = cursors.get(key);
+            long from = cursor != null && cursor.generation() == published.generation() && cursor.offset() <= published.length()
+                    ? cursor.offset() : 0;
+            if (from == published.length()) {
+                continue;
+            }
+            // Only up to the published length: anything after it may still be rewritten
+            long[] position = {from};
+            RecordLog.replay(memberDir.resolve(peer.getKey() + OPS), from, payload -> {
+                long end = position[0] + RecordLog.FRAME_HEADER + payload.remaining();
+                if (end > published.length()) {
+                    return;
+                }
+                position[0] = end;
+                if (Op.counterOf(payload) > have.get(Op.replicaOf(payload))) {
+                    ops.add(payload);
+                }
+            });
+            cursors.put(key, new Cursor(published.generation(), position[0]));
+        }
+        return new Pulled(ops, cursors);
+    }
+
+    // Appends the ops missing from every published vector to this install's file; returns how many
+    private static long push(SyncAgent agent, Path memberDir) throws IOException {
+        Files.createDirectories(memberDir);
+        String own = Long.toHexString(agent.replica());
+        Map<String, Published> published = published(memberDir);
+        Map<Long, Long> inFolder = new HashMap<>();
+        for (Published peer : published.values()) {
+            peer.vector().counts().forEach((replica, count) -> inFolder.merge(replica, count, Math::max));
+        }
+        List<ByteBuffer> ops = agent.missing(new VersionVector(inFolder));
+        Published mine = published.get(own);
+        Path opsFile = memberDir.resolve(own + OPS);
+        if (ops.isEmpty() && mine != null) {
+            return 0;
+        }
+        long generation = mine != null ? mine.generation() : new SecureRandom().nextLong();
+        Map<Long, Long> counts = new HashMap<>(mine != null ? mine.vector().counts() : Map.of());
+        long length;
+        try (RecordLog out = RecordLog.openForAppend(opsFile, mine != null ? mine.length() : 0)) {
+            for (ByteBuffer op : ops) {
+                counts.merge(Op.replicaOf(op), Op.counterOf(op), Math::max);
+                out.append(op);
+            }
+            out.flush(true);
+            length = out.size();
+        }
+        writePublished(memberDir.resolve(own + VECTOR), new Published(generation, length, new VersionVector(counts)));
+        return ops.size();
+    }
+
+    // Every install's published state, by replica hex; files half-written by a peer are left for next time
+    private static Map<String, Published> published(Path memberDir) throws IOException {
+        Map<String, Published> published = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(memberDir, "*" + VECTOR)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                    if (in.readInt() != VECTOR_MAGIC) {
+                        continue;
+                    }
+                    published.put(name.substring(0, name.length() - VECTOR.length()),
+                            new Published(in.readLong(), in.readLong(), VersionVector.read(in)));
+                } catch (NoSuchFileException e) {
+                    // Being replaced right now
+                } catch (IOException e) {
+                    LOG.log(System.Logger.Level.WARNING, "Skipping unreadable sync file {0}", file);
+                }
+            }
+        }
+        return published;
+    }
+
+    private static void writePublished(Path file, Published published) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(VECTOR_MAGIC);
+            out.writeLong(published.generation());
+            out.writeLong(published.length());
+            published.vector().write(out);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Map<String, Cursor> readCursors(Path file) throws IOException {
+        Map<String, Cursor> cursors = new HashMap<>();
+        if (!Files.exists(file)) {
+            return cursors;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != CURSORS_MAGIC) {
+                return cursors;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                cursors.put(in.readUTF(), new Cursor(in.readLong(), in.readLong()));
+            }
+        }
+        return cursors;
+    }
+
+    private static void writeCursors(Path file, Map<String, Cursor> cursors) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(CURSORS_MAGIC);
+            out.writeInt(cursors.size());
+            for (Map.Entry<String, Cursor> entry : cursors.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().generation());
+                out.writeLong(entry.getValue().offset());
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
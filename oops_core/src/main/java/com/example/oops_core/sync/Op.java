@@ -0,0 +1,141 @@
+package com.example.oops_core.sync;
+
+import com.example.oops_core.calorie.CalorieEntry;
+import com.example.oops_core.planner.PlannerEvent;
+import com.example.oops_core.planner.Recurrence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// One change made on one install. (replica, counter) names it; counters run 1, 2, 3... per replica, so a
+// version vector says exactly which ops an install has. lamport orders concurrent planner changes.
+//
+// Payload: long replica, long counter, long lamport, byte kind, then per kind
+//   PLANNER_PUT: uid, title (short length + UTF-8 each), long start, long end, byte repeats
+//                [byte frequency, int interval, int count, long until]
+//   PLANNER_REMOVE: uid
+//   FOOD_ADD: long time, food, double quantity, double calories, byte manual
+record Op(long replica, long counter, long lamport, Kind kind, PlannerEvent event, String uid, CalorieEntry food) {
+
+    enum Kind { PLANNER_PUT, PLANNER_REMOVE, FOOD_ADD }
+
+    static final int HEADER = 3 * Long.BYTES + 1;
+
+    static Op put(long replica, long counter, long lamport, PlannerEvent event) {
+        return new Op(replica, counter, lamport, Kind.PLANNER_PUT, event, event.uid(), null);
+    }
+
+    static Op remove(long replica, long counter, long lamport, String uid) {
+        return new Op(replica, counter, lamport, Kind.PLANNER_REMOVE, null, uid, null);
+    }
+
+    static Op food(long replica, long counter, long lamport, CalorieEntry entry) {
+        return new Op(replica, counter, lamport, Kind.FOOD_ADD, null, null, entry);
+    }
+
+    // Replica, counter and lamport of a payload without decoding the rest
+    static long replicaOf(ByteBuffer payload) {
+        return payload.getLong(payload.position());
+    }
+
+    static long counterOf(ByteBuffer payload) {
+        return payload.getLong(payload.position() + Long.BYTES);
+    }
+
+    static long lamportOf(ByteBuffer payload) {
+        return payload.getLong(payload.position() + 2 * Long.BYTES);
+    }
+
+    static Kind kindOf(ByteBuffer payload) {
+        return Kind.values()[payload.get(payload.position() + 3 * Long.BYTES)];
+    }
+
+    ByteBuffer encode() {
+        byte[] first;
+        byte[] second = null;
+        int size = HEADER;
+        switch (kind) {
+            case PLANNER_PUT -> {
+                first = utf8(uid);
+                second = utf8(event.title());
+                size += 2 + first.length + 2 + second.length + 2 * Long.BYTES + 1
+                        + (event.recurring() ? 1 + 2 * Integer.BYTES + Long.BYTES : 0);
+            }
+            case PLANNER_REMOVE -> {
+                first = utf8(uid);
+                size += 2 + first.length;
+            }
+            default -> {
+                first = utf8(food.food());
+                size += Long.BYTES + 2 + first.length + 2 * Double.BYTES + 1;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putLong(replica).putLong(counter).putLong(lamport).put((byte) kind.ordinal());
+        switch (kind) {
+            case PLANNER_PUT -> {
+                putString(buffer, first);
+                putString(buffer, second);
+                buffer.putLong(event.startMinute()).putLong(event.endMinute());
+                Recurrence recurrence = event.recurrence();
+                if (recurrence == null) {
+                    buffer.put((byte) 0);
+                } else {
+                    buffer.put((byte) 1).put((byte) recurrence.frequency().ordinal()).putInt(recurrence.interval())
+                            .putInt(recurrence.count()).putLong(recurrence.untilMinute());
+                }
+            }
+            case PLANNER_REMOVE -> putString(buffer, first);
+            default -> {
+                buffer.putLong(food.timeMillis());
+                putString(buffer, first);
+                buffer.putDouble(food.quantity()).putDouble(food.calories()).put((byte) (food.manual() ? 1 : 0));
+            }
+        }
+        return buffer.flip();
+    }
+
+    // Planner events come back with id 0 and food entries with seq 0: both are local numbers
+    static Op decode(ByteBuffer payload) {
+        ByteBuffer in = payload.duplicate();
+        long replica = in.getLong();
+        long counter = in.getLong();
+        long lamport = in.getLong();
+        Kind kind = Kind.values()[in.get()];
+        switch (kind) {
+            case PLANNER_PUT -> {
+                String uid = readString(in);
+                String title = readString(in);
+                long start = in.getLong();
+                long end = in.getLong();
+                Recurrence recurrence = null;
+                if (in.get() == 1) {
+                    recurrence = new Recurrence(Recurrence.Frequency.values()[in.get()], in.getInt(), in.getInt(), in.getLong());
+                }
+                return put(replica, counter, lamport, new PlannerEvent(0, uid, title, start, end, recurrence));
+            }
+            case PLANNER_REMOVE -> {
+                return remove(replica, counter, lamport, readString(in));
+            }
+            default -> {
+                long time = in.getLong();
+                String food = readString(in);
+                return food(replica, counter, lamport, new CalorieEntry(0, time, food, in.getDouble(), in.getDouble(), in.get() == 1));
+            }
+        }
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.oops_core.sync;
+
+import com.example.oops_core.storage.RecordLog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Every op an install has, one RecordLog per replica (ops/<replica hex>.ops) in counter order.
+//
+// The file offset of each op is kept in memory, so the ops a peer is missing are read starting at its
+// counter, and a sync costs the ops sent, not the history. Appends only buffer (they are made from the
+// FX thread); a background writer flushes them. Everything else is synchronized: transports read from
+// their own threads, and only take the lock to flush and note where to read, never for the read itself.
+final class OpLog implements AutoCloseable {
+
+    private static final String SUFFIX = ".ops";
+
+    private static final System.Logger LOG = System.getLogger(OpLog.class.getName());
+
+    private static final class Replica {
+        final long id;
+        final Path file;
+        RecordLog log;
+        long[] offsets = new long[64];
+        long count;
+        long end;
+        boolean dirty;
+
+        Replica(long id, Path file) {
+            this.id = id;
+            this.file = file;
+        }
+
+        void add(long length) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[(int) count++] = end;
+            end += RecordLog.FRAME_HEADER + length;
+        }
+    }
+
+    // The ops of one replica a peer lacks: `ops` records starting at `offset`
+    private record Range(Path file, long offset, long ops) {
+    }
+
+    private final Path dir;
+    private final Map<Long, Replica> replicas = new HashMap<>();
+    private boolean flushScheduled;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sync-log-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private OpLog(Path dir) {
+        this.dir = dir;
+    }
+
+    // Replays every op (per replica, in counter order) into `replay` while indexing the files
+    static OpLog open(Path dir, Consumer<ByteBuffer> replay) throws IOException {
+        Files.createDirectories(dir);
+        OpLog opLog = new OpLog(dir);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long replicaId = Long.parseUnsignedLong(name.substring(0, name.length() - SUFFIX.length()), 16);
+                Replica replica = new Replica(replicaId, file);
+                // replica.end ends up at the valid length, where appending will cut off a torn tail
+                RecordLog.replay(file, payload -> {
+                    replica.add(payload.remaining());
+                    replay.accept(payload);
+                });
+                opLog.replicas.put(replicaId, replica);
+            }
+        }
+        return opLog;
+    }
+
+    synchronized boolean has(long replica) {
+        return replicas.containsKey(replica);
+    }
+
+    synchronized long count(long replica) {
+        Replica known = replicas.get(replica);
+        return known == null ? 0 : known.count;
+    }
+
+    synchronized VersionVector vector() {
+        Map<Long, Long> counts = new HashMap<>();
+        replicas.forEach((id, replica) -> counts.put(id, replica.count));
+        return new VersionVector(counts);
+    }
+
+    // Creates the replica's file even before its first op (marks this install's bootstrap as done)
+    synchronized void create(long replica) throws IOException {
+        if (!replicas.containsKey(replica)) {
+            Replica created = new Replica(replica, dir.resolve(Long.toHexString(replica) + SUFFIX));
+            created.log = RecordLog.openForAppend(created.file, 0);
+            replicas.put(replica, created);
+        }
+    }
+
+    // The op must be the replica's next counter; the caller checks
+    synchronized void append(long replicaId, ByteBuffer payload) throws IOException {
+        create(replicaId);
+        Replica replica = replicas.get(replicaId);
+        if (replica.log == null) {
+            // Files are only opened for writing once something is appended to them, at the end open() found
+            replica.log = RecordLog.openForAppend(replica.file, replica.end);
+        }
+        int length = payload.remaining();
+        replica.log.append(payload);
+        replica.add(length);
+        replica.dirty = true;
+        if (!flushScheduled && !writer.isShutdown()) {
+            flushScheduled = true;
+            writer.execute(this::flushQuietly);
+        }
+    }
+
+    // Feeds the ops `theirs` lacks to `out`, oldest first per replica; returns how many. The files are
+    // read outside the lock, so appends made meanwhile do not wait; ops appended after the call are not sent.
+    long missing(VersionVector theirs, Consumer<ByteBuffer> out) throws IOException {
+        List<Range> ranges = new ArrayList<>();
+        synchronized (this) {
+            flush();
+            for (Replica replica : replicas.values()) {
+                long from = theirs.get(replica.id);
+                if (from < replica.count) {
+                    ranges.add(new Range(replica.file, replica.offsets[(int) from], replica.count - from));
+                }
+            }
+        }
+        long sent = 0;
+        for (Range range : ranges) {
+            long[] left = {range.ops()};
+            RecordLog.replay(range.file(), range.offset(), payload -> {
+                if (left[0] > 0) {
+                    left[0]--;
+                    out.accept(payload);
+                }
+            });
+            sent += range.ops() - left[0];
+        }
+        return sent;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            IOException failure = null;
+            for (Replica replica : replicas.values()) {
+                if (replica.log == null) {
+                    continue;
+                }
+                try {
+                    replica.log.close();
+                } catch (IOException e) {
+                    failure = failure == null ? e : failure;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private synchronized void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            LOG.log(System.Logger.Level.ERROR, "Saving sync operations failed", e);
+        }
+    }
+
+    private void flush() throws IOException {
+        flushScheduled = false;
+        for (Replica replica : replicas.values()) {
+            if (replica.dirty) {
+                replica.log.flush(false);
+                replica.dirty = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.oops_core.sync;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Client side of a direct sync with another install running a SyncServer.
+//
+// Session (DataOutputStream encoding):
+//   client: int MAGIC, UTF member id, client vector
+//   server: server vector, the ops the client lacks, -1
+//   client: the ops the server lacks, -1
+//   server: int ops it applied (after applying them; it closes instead when saving them failed)
+// An op goes as int length + payload. Both sides send only what the other's vector lacks.
+public final class SocketTransport {
+
+    static final int MAGIC = 0x4F505359; // "OPSY"
+    static final int END = -1;
+    static final int TIMEOUT_MILLIS = 30_000;
+    private static final int MAX_OP = 1 << 20;
+
+    private SocketTransport() {
+    }
+
+    // Talks to the server off the FX thread and applies what it sends on `owner`, before answering, so
+    // ops the apply makes (the first sync's calorie rows) go back in the same session
+    public static CompletableFuture<SyncAgent.Report> sync(SyncAgent agent, String host, int port, Executor owner) {
+        long start = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(host, port), 5_000);
+                socket.setSoTimeout(TIMEOUT_MILLIS);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                out.writeInt(MAGIC);
+                out.writeUTF(agent.memberId());
+                agent.vector().write(out);
+                out.flush();
+
+                VersionVector theirs = VersionVector.read(in);
+                List<ByteBuffer> received = readOps(in);
+                SyncAgent.Applied applied = CompletableFuture.supplyAsync(() -> agent.apply(received), owner).join();
+                List<ByteBuffer> missing = agent.missing(theirs);
+                writeOps(out, missing);
+                out.flush();
+                in.readInt();
+                return new SyncAgent.Report(missing.size(), received.size(), applied, System.nanoTime() - start);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    static List<ByteBuffer> readOps(DataInputStream in) throws IOException {
+        List<ByteBuffer> ops = new ArrayList<>();
+        int length;
+        while ((length = in.readInt()) != END) {
+            if (length < Op.HEADER || length > MAX_OP) {
+                throw new IOException("Bad sync operation length " + length);
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            ops.add(ByteBuffer.wrap(payload));
+        }
+        return ops;
+    }
+
+    static void writeOps(DataOutputStream out, List<ByteBuffer> ops) throws IOException {
+        for (ByteBuffer op : ops) {
+            out.writeInt(op.remaining());
+            out.write(op.array(), op.arrayOffset() + op.position(), op.remaining());
+        }
+        out.writeInt(END);
+    }
+}
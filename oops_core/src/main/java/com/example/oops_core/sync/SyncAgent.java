@@ -0,0 +1,415 @@
+package com.example.oops_core.sync;
+
+import com.example.oops_core.calorie.CalorieEntry;
+import com.example.oops_core.calorie.FoodLog;
+import com.example.oops_core.planner.PlannerEvent;
+import com.example.oops_core.planner.Schedule;
+import com.example.oops_core.profile.Profile;
+import com.example.oops_core.profile.ProfileStore;
+import com.example.oops_core.storage.AppData;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+// Keeps one member's planner and calorie log in step with their other installs.
+//
+// Every local change is recorded as an op in the OpLog; installs swap the ops the other lacks (by version
+// vector) through a shared folder (FolderTransport) or a socket (SocketTransport / SyncServer), so a
+// sync costs the changes since the last one. Merging needs no conflict handling:
+//   planner: last writer wins per event uid, ordered by (lamport clock, replica), removes included
+//   calorie log: a grow-only set of entries named by their op, (replica, counter); every op is taken
+//                once, so identical entries logged twice stay two entries everywhere
+// Every install that applies the same ops ends with the same planner and log, in any order.
+//
+// The replica id (sync/replica) is made on first open (or after a restore cleared sync/). Planner events
+// already there become this replica's first ops right away. Calorie entries already there may be
+// copies of entries other installs have (a copied or restored profile), so they wait for the first
+// sync (sync/pending-food holds how many): the entries it brings are matched against them once, as a
+// multiset by time, food and kcal, and only the unmatched ones become ops. That first sync should be
+// with an install that has the member's history. Owned by the FX thread like the rest of the profile,
+// except vector() and missing(), which transports call from their own threads.
+//
+// Usage: SyncAgent member folder /shared/folder      (the app must be closed; honours -Doops_app.dataDir)
+//        SyncAgent member listen [port]
+//        SyncAgent member connect host:port
+public final class SyncAgent implements Schedule.Listener, AutoCloseable {
+
+    // New ops this install took from a sync: planner changes that won, calorie entries added, and ops
+    // that could not be taken yet because an earlier op of their replica is missing. `failure` is set
+    // when saving an op failed: the ops from there on were not taken, and the sync must not count as done.
+    public record Applied(int applied, int planner, int food, int gaps, IOException failure) {
+    }
+
+    public record Report(long sent, long received, Applied applied, long nanos) {
+    }
+
+    private record Register(long lamport, long replica, boolean live) {
+    }
+
+    private record FoodKey(long timeMillis, String food, double calories) {
+    }
+
+    private static final System.Logger LOG = System.getLogger(SyncAgent.class.getName());
+
+    private final Profile profile;
+    private final Schedule schedule;
+    private final Path dir;
+    private final long replica;
+    private final OpLog log;
+    private final Path pendingFile;
+    // Latest op per planner uid, and the local event id of every uid
+    private final Map<String, Register> registers = new HashMap<>();
+    private final Map<String, Long> ids = new HashMap<>();
+    // Calorie rows [0, pendingRows) are still waiting for the first sync, or -1; `unclaimed` counts those
+    // not yet matched by an incoming entry
+    private long pendingRows = -1;
+    private Map<FoodKey, Integer> unclaimed;
+    private long clock;
+    private boolean applying;
+
+    private SyncAgent(Profile profile, Path dir, long replica) throws IOException {
+        this.profile = profile;
+        this.schedule = profile.schedule();
+        this.dir = dir;
+        this.replica = replica;
+        this.log = OpLog.open(dir.resolve("ops"), this::replayed);
+        this.pendingFile = dir.resolve("pending-food");
+        if (Files.exists(pendingFile)) {
+            pendingRows = Long.parseLong(Files.readString(pendingFile, StandardCharsets.UTF_8).trim());
+        }
+        for (PlannerEvent event : schedule.all()) {
+            ids.put(event.uid(), event.id());
+        }
+    }
+
+    public static SyncAgent open(Profile profile, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        SyncAgent agent = new SyncAgent(profile, dir, replicaId(dir.resolve("replica")));
+        try {
+            if (!agent.log.has(agent.replica)) {
+                agent.bootstrap();
+            }
+        } catch (IOException | RuntimeException e) {
+            agent.log.close();
+            throw e;
+        }
+        agent.schedule.addListener(agent);
+        return agent;
+    }
+
+    public long replica() {
+        return replica;
+    }
+
+    public String memberId() {
+        return profile.id();
+    }
+
+    public Path dir() {
+        return dir;
+    }
+
+    // Safe off the FX thread
+    public VersionVector vector() {
+        return log.vector();
+    }
+
+    // The ops `theirs` lacks, each replica's in counter order; safe off the FX thread
+    public List<ByteBuffer> missing(VersionVector theirs) throws IOException {
+        List<ByteBuffer> ops = new ArrayList<>();
+        log.missing(theirs, ops::add);
+        return ops;
+    }
+
+    // Call with every entry added to the calorie log here (next to MemberSearch.foodAdded)
+    public void foodAdded(CalorieEntry entry) {
+        if (!applying) {
+            emit(Op.food(replica, next(), ++clock, entry));
+        }
+    }
+
+    @Override
+    public void eventPut(PlannerEvent event) {
+        ids.put(event.uid(), event.id());
+        if (!applying) {
+            registers.put(event.uid(), new Register(++clock, replica, true));
+            emit(Op.put(replica, next(), clock, event));
+        }
+    }
+
+    @Override
+    public void eventRemoved(PlannerEvent event) {
+        ids.remove(event.uid(), event.id());
+        if (!applying) {
+            registers.put(event.uid(), new Register(++clock, replica, false));
+            emit(Op.remove(replica, next(), clock, event.uid()));
+        }
+    }
+
+    @Override
+    public void cleared() {
+        ids.clear();
+        if (applying) {
+            return;
+        }
+        for (Map.Entry<String, Register> entry : registers.entrySet()) {
+            if (entry.getValue().live()) {
+                entry.setValue(new Register(++clock, replica, false));
+                emit(Op.remove(replica, next(), clock, entry.getKey()));
+            }
+        }
+    }
+
+    // Takes ops from another install (in any order, duplicates included) into the op log, the planner and
+    // the calorie log; on the first sync, then turns the calorie rows nothing matched into ops. Each op is
+    // logged before it takes effect, so an op that could not be saved is taken again by the next sync
+    // rather than twice. On the FX thread.
+    public Applied apply(List<ByteBuffer> ops) {
+        List<ByteBuffer> ordered = new ArrayList<>(ops);
+        ordered.sort(Comparator.comparingLong(Op::replicaOf).thenComparingLong(Op::counterOf));
+        int applied = 0;
+        int planner = 0;
+        int food = 0;
+        int gaps = 0;
+        IOException failure = null;
+        applying = true;
+        try {
+            for (ByteBuffer payload : ordered) {
+                long origin = Op.replicaOf(payload);
+                long counter = Op.counterOf(payload);
+                long have = log.count(origin);
+                if (counter <= have) {
+                    continue;
+                }
+                if (counter > have + 1) {
+                    gaps++;
+                    continue;
+                }
+                Op op = Op.decode(payload);
+                log.append(origin, payload.duplicate());
+                applied++;
+                clock = Math.max(clock, op.lamport());
+                try {
+                    switch (op.kind()) {
+                        case PLANNER_PUT, PLANNER_REMOVE -> planner += applyPlanner(op) ? 1 : 0;
+                        case FOOD_ADD -> food += applyFood(op.food()) ? 1 : 0;
+                    }
+                } catch (IllegalArgumentException e) {
+                    // Still logged: the replica's later ops count on it
+                    LOG.log(System.Logger.Level.WARNING, "Skipped unusable sync operation {0}", op);
+                }
+            }
+            if (pendingRows >= 0) {
+                seedFood();
+            }
+        } catch (IOException e) {
+            LOG.log(System.Logger.Level.ERROR, "Saving sync operations failed", e);
+            failure = e;
+        } finally {
+            applying = false;
+        }
+        return new Applied(applied, planner, food, gaps, failure);
+    }
+
+    @Override
+    public void close() throws IOException {
+        schedule.removeListener(this);
+        log.close();
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || !List.of("folder", "listen", "connect").contains(args[1])
+                || (!args[1].equals("listen") && args.length != 3)) {
+            System.err.println("Usage: SyncAgent member folder /shared/folder");
+            System.err.println("       SyncAgent member listen [port]");
+            System.err.println("       SyncAgent member connect host:port");
+            System.exit(2);
+        }
+        try (ProfileStore store = new ProfileStore(AppData.root(), 1)) {
+            SyncAgent agent = store.open(args[0]).join().sync();
+            switch (args[1]) {
+                case "folder" -> print(FolderTransport.sync(agent, Path.of(args[2]), Runnable::run).join());
+                case "connect" -> {
+                    int colon = args[2].lastIndexOf(':');
+                    print(SocketTransport.sync(agent, args[2].substring(0, colon),
+                            Integer.parseInt(args[2].substring(colon + 1)), Runnable::run).join());
+                }
+                default -> {
+                    int port = args.length == 3 ? Integer.parseInt(args[2]) : SyncServer.DEFAULT_PORT;
+                    CountDownLatch stopped = new CountDownLatch(1);
+                    try (SyncServer server = SyncServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                            member -> member.equals(agent.memberId()) ? CompletableFuture.completedFuture(agent)
+                                    : CompletableFuture.failedFuture(new IllegalArgumentException("No profile " + member)),
+                            member -> { }, Runnable::run, applied -> System.err.println("Applied " + applied))) {
+                        Runtime.getRuntime().addShutdownHook(new Thread(stopped::countDown));
+                        System.err.println("Accepting sync for " + agent.memberId() + " on 127.0.0.1:" + server.port());
+                        stopped.await();
+                    }
+                }
+            }
+        }
+    }
+
+    private static void print(Report report) {
+        if (report.applied().failure() != null) {
+            System.err.println("Saving the received ops failed: " + report.applied().failure().getMessage());
+        }
+        System.err.printf(Locale.ROOT, "Sent %,d ops, received %,d (%,d new: %,d planner, %,d food) in %.1f ms%n",
+                report.sent(), report.received(), report.applied().applied(), report.applied().planner(),
+                report.applied().food(), report.nanos() / 1e6);
+    }
+
+    // Rebuilds the planner registers and the clock from the op log at open
+    private void replayed(ByteBuffer payload) {
+        clock = Math.max(clock, Op.lamportOf(payload));
+        Op.Kind kind = Op.kindOf(payload);
+        if (kind == Op.Kind.FOOD_ADD) {
+            return;
+        }
+        Op op = Op.decode(payload);
+        if (wins(op)) {
+            registers.put(op.uid(), new Register(op.lamport(), op.replica(), kind == Op.Kind.PLANNER_PUT));
+        }
+    }
+
+    // Planner events logged before sync was set up become this replica's first ops; calorie rows wait for
+    // the first sync
+    private void bootstrap() throws IOException {
+        int rows = profile.calorieLog().size();
+        if (rows > 0) {
+            Path temp = pendingFile.resolveSibling(pendingFile.getFileName() + ".tmp");
+            Files.writeString(temp, Integer.toString(rows), StandardCharsets.UTF_8);
+            Files.move(temp, pendingFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            pendingRows = rows;
+        }
+        log.create(replica);
+        for (PlannerEvent event : schedule.all()) {
+            registers.put(event.uid(), new Register(++clock, replica, true));
+            emit(Op.put(replica, next(), clock, event));
+        }
+        LOG.log(System.Logger.Level.INFO, "Sync replica {0} for {1} starts with {2} ops, {3} calorie rows pending",
+                Long.toHexString(replica), profile.id(), log.count(replica), rows);
+    }
+
+    // End of the first sync: the pending rows no incoming entry matched are this replica's own
+    private void seedFood() throws IOException {
+        FoodLog calorieLog = profile.calorieLog();
+        Map<FoodKey, Integer> left = unclaimed();
+        int seeded = 0;
+        for (int row = 0; row < pendingRows; row++) {
+            if (claim(left, new FoodKey(calorieLog.timeMillis(row), calorieLog.food(row), calorieLog.calories(row)))) {
+                emit(Op.food(replica, next(), ++clock, calorieLog.entry(row)));
+                seeded++;
+            }
+        }
+        LOG.log(System.Logger.Level.INFO, "First sync of {0}: {1} of {2} calorie rows were new", profile.id(), seeded, pendingRows);
+        pendingRows = -1;
+        unclaimed = null;
+        Files.deleteIfExists(pendingFile);
+    }
+
+    private Map<FoodKey, Integer> unclaimed() {
+        if (unclaimed == null) {
+            FoodLog calorieLog = profile.calorieLog();
+            unclaimed = new HashMap<>();
+            for (int row = 0; row < pendingRows; row++) {
+                unclaimed.merge(new FoodKey(calorieLog.timeMillis(row), calorieLog.food(row), calorieLog.calories(row)), 1, Integer::sum);
+            }
+        }
+        return unclaimed;
+    }
+
+    // Takes one of the key off the multiset; false when none is left
+    private static boolean claim(Map<FoodKey, Integer> multiset, FoodKey key) {
+        Integer count = multiset.get(key);
+        if (count == null) {
+            return false;
+        }
+        if (count == 1) {
+            multiset.remove(key);
+        } else {
+            multiset.put(key, count - 1);
+        }
+        return true;
+    }
+
+    private boolean applyPlanner(Op op) {
+        if (!wins(op)) {
+            return false;
+        }
+        boolean put = op.kind() == Op.Kind.PLANNER_PUT;
+        registers.put(op.uid(), new Register(op.lamport(), op.replica(), put));
+        Long id = ids.get(op.uid());
+        if (!put) {
+            return id != null && schedule.remove(id) != null;
+        }
+        PlannerEvent event = op.event();
+        if (id != null) {
+            schedule.put(new PlannerEvent(id, event.uid(), event.title(), event.startMinute(), event.endMinute(), event.recurrence()));
+        } else {
+            schedule.add(event.uid(), event.title(), event.startMinute(), event.endMinute(), event.recurrence());
+        }
+        return true;
+    }
+
+    private boolean applyFood(CalorieEntry remote) {
+        // Before the first sync completes, an incoming entry may be one of the pending rows
+        if (pendingRows >= 0 && claim(unclaimed(), new FoodKey(remote.timeMillis(), remote.food(), remote.calories()))) {
+            return false;
+        }
+        CalorieEntry entry = profile.calorieJournal().append(remote.timeMillis(), remote.food(), remote.quantity(),
+                remote.calories(), remote.manual());
+        profile.calorieLog().add(entry);
+        profile.nutritionRollup().add(entry);
+        profile.search().foodAdded(entry);
+        return true;
+    }
+
+    private boolean wins(Op op) {
+        Register last = registers.get(op.uid());
+        return last == null || op.lamport() > last.lamport()
+                || (op.lamport() == last.lamport() && op.replica() > last.replica());
+    }
+
+    private long next() {
+        return log.count(replica) + 1;
+    }
+
+    private void emit(Op op) {
+        try {
+            log.append(replica, op.encode());
+        } catch (IOException e) {
+            LOG.log(System.Logger.Level.ERROR, "Saving sync operations failed", e);
+        }
+    }
+
+    private static long replicaId(Path file) throws IOException {
+        if (Files.exists(file)) {
+            return Long.parseUnsignedLong(Files.readString(file, StandardCharsets.UTF_8).trim(), 16);
+        }
+        SecureRandom random = new SecureRandom();
+        long id;
+        do {
+            id = random.nextLong();
+        } while (id == 0);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temp, Long.toHexString(id), StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return id;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.oops_core.sync;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Accepts SocketTransport sessions from other installs (see SocketTransport for the exchange).
+//
+// Sessions are handled one at a time on a daemon thread; the ops they bring are applied on `owner`
+// (the FX thread in the app), and `applied` is told about them there so the screens can refresh.
+public final class SyncServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 8086;
+
+    private static final System.Logger LOG = System.getLogger(SyncServer.class.getName());
+
+    private final ServerSocket server;
+    private final Function<String, CompletableFuture<SyncAgent>> agents;
+    private final Consumer<String> release;
+    private final Executor owner;
+    private final Consumer<SyncAgent.Applied> applied;
+    private final Thread acceptor;
+
+    private SyncServer(ServerSocket server, Function<String, CompletableFuture<SyncAgent>> agents,
+                       Consumer<String> release, Executor owner, Consumer<SyncAgent.Applied> applied) {
+        this.server = server;
+        this.agents = agents;
+        this.release = release;
+        this.owner = owner;
+        this.applied = applied;
+        this.acceptor = new Thread(this::acceptLoop, "sync-server");
+        acceptor.setDaemon(true);
+    }
+
+    // `agents` finds the sync agent of a member id a client asks for and keeps it open until the session
+    // hands the id to `release` (once per agents call that returned, even if the agent never loaded)
+    public static SyncServer start(InetSocketAddress address, Function<String, CompletableFuture<SyncAgent>> agents,
+                                   Consumer<String> release, Executor owner, Consumer<SyncAgent.Applied> applied)
+            throws IOException {
+        ServerSocket socket = new ServerSocket();
+        try {
+            socket.bind(address);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        SyncServer server = new SyncServer(socket, agents, release, owner, applied);
+        server.acceptor.start();
+        return server;
+    }
+
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try (Socket socket = server.accept()) {
+                socket.setSoTimeout(SocketTransport.TIMEOUT_MILLIS);
+                session(socket);
+            } catch (IOException | RuntimeException e) {
+                if (!server.isClosed()) {
+                    LOG.log(System.Logger.Level.WARNING, "Sync session failed", e);
+                }
+            }
+        }
+    }
+
+    private void session(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        if (in.readInt() != SocketTransport.MAGIC) {
+            throw new IOException("Not a sync client: " + socket.getRemoteSocketAddress());
+        }
+        String member = in.readUTF();
+        VersionVector theirs = VersionVector.read(in);
+        CompletableFuture<SyncAgent> found;
+        try {
+            found = agents.apply(member);
+        } catch (RuntimeException e) {
+            throw new IOException("No sync for member " + member, e);
+        }
+        try {
+            exchange(in, out, member, theirs, found);
+        } finally {
+            release.accept(member);
+        }
+    }
+
+    private void exchange(DataInputStream in, DataOutputStream out, String member, VersionVector theirs,
+                          CompletableFuture<SyncAgent> found) throws IOException {
+        SyncAgent agent;
+        try {
+            agent = found.get(SocketTransport.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            throw new IOException("No sync for member " + member, e);
+        }
+        agent.vector().write(out);
+        SocketTransport.writeOps(out, agent.missing(theirs));
+        out.flush();
+
+        List<ByteBuffer> received = SocketTransport.readOps(in);
+        SyncAgent.Applied result = CompletableFuture.supplyAsync(() -> {
+            SyncAgent.Applied taken = agent.apply(received);
+            applied.accept(taken);
+            return taken;
+        }, owner).join();
+        // No answer: the client's sync fails rather than report ops this install did not keep
+        if (result.failure() != null) {
+            throw new IOException("Saving the ops from member " + member + " failed", result.failure());
+        }
+        out.writeInt(result.applied());
+        out.flush();
+    }
+}
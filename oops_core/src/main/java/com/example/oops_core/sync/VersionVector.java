@@ -0,0 +1,66 @@
+package com.example.oops_core.sync;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+// How many operations of each replica an install has: everything a peer is missing is the ops with a
+// higher counter than its vector shows for their replica. Immutable.
+public final class VersionVector {
+
+    public static final VersionVector EMPTY = new VersionVector(Map.of());
+
+    private final Map<Long, Long> counts;
+
+    VersionVector(Map<Long, Long> counts) {
+        this.counts = Map.copyOf(counts);
+    }
+
+    public long get(long replica) {
+        return counts.getOrDefault(replica, 0L);
+    }
+
+    public Map<Long, Long> counts() {
+        return counts;
+    }
+
+    // True when this has every op `other` has
+    public boolean covers(VersionVector other) {
+        for (Map.Entry<Long, Long> entry : other.counts.entrySet()) {
+            if (get(entry.getKey()) < entry.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(counts.size());
+        for (Map.Entry<Long, Long> entry : counts.entrySet()) {
+            out.writeLong(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    public static VersionVector read(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0 || size > 1 << 16) {
+            throw new IOException("Bad version vector size " + size);
+        }
+        Map<Long, Long> counts = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            counts.put(in.readLong(), in.readLong());
+        }
+        return new VersionVector(counts);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("{");
+        counts.forEach((replica, count) -> text.append(text.length() > 1 ? ", " : "").append(Long.toHexString(replica))
+                .append('=').append(count));
+        return text.append('}').toString();
+    }
+}
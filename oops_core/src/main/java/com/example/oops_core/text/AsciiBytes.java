@@ -0,0 +1,74 @@
+package com.example.oops_core.text;
+
+// Byte-level helpers for the importers that parse their files as raw bytes without decoding them to
+// Strings (DiaryImport, WearableImport, HealthBatch). Ranges are [from, to). The package is not
+// exported, so this stays inside oops_core.
+public final class AsciiBytes {
+
+    private AsciiBytes() {
+    }
+
+    public static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    // The `count`-digit number at `at`, or -1 when any of those bytes is missing or not a digit
+    public static int digits(byte[] data, int at, int count) {
+        int value = 0;
+        for (int i = at; i < at + count; i++) {
+            if (i >= data.length || !isDigit(data[i])) {
+                return -1;
+            }
+            value = value * 10 + (data[i] - '0');
+        }
+        return value;
+    }
+
+    public static int indexOf(byte[] data, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Skips the spaces and quotes around a CSV cell
+    public static int trimStart(byte[] data, int from, int to) {
+        while (from < to && (data[from] == ' ' || data[from] == '"')) {
+            from++;
+        }
+        return from;
+    }
+
+    public static int trimEnd(byte[] data, int from, int to) {
+        while (to > from && (data[to - 1] == ' ' || data[to - 1] == '"')) {
+            to--;
+        }
+        return to;
+    }
+
+    // True for a real proleptic Gregorian date: 2024-02-29 is one, 2023-02-29 and 2024-04-31 are not
+    public static boolean isDate(int year, int month, int day) {
+        return month >= 1 && month <= 12 && day >= 1 && day <= daysInMonth(year, month);
+    }
+
+    public static int daysInMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    // Days since 1970-01-01 of a proleptic Gregorian date (H. Hinnant's days_from_civil); the date must
+    // pass isDate, or it rolls over into the next month
+    public static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+}
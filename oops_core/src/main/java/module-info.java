@@ -0,0 +1,18 @@
+// Domain logic and storage for the app, with no JavaFX dependency
+module com.example.oops_core {
+    requires jdk.httpserver;
+
+    exports com.example.oops_core.backup;
+    exports com.example.oops_core.brain;
+    exports com.example.oops_core.calorie;
+    exports com.example.oops_core.food;
+    exports com.example.oops_core.health;
+    exports com.example.oops_core.planner;
+    exports com.example.oops_core.profile;
+    exports com.example.oops_core.reminder;
+    exports com.example.oops_core.search;
+    exports com.example.oops_core.service;
+    exports com.example.oops_core.sleep;
+    exports com.example.oops_core.storage;
+    exports com.example.oops_core.sync;
+}
@@ -0,0 +1,109 @@
+package com.example.oops_core.backup;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackupTest {
+
+    @TempDir
+    Path dir;
+
+    private Path data;
+    private Path archive;
+    // Two and a half segments, half random (stored as-is) and half repetitive (deflated)
+    private byte[] trials;
+
+    @BeforeEach
+    void createData() throws IOException {
+        data = dir.resolve("data");
+        archive = dir.resolve("backup.oopsbak");
+        trials = new byte[Backup.SEGMENT_BYTES * 5 / 2];
+        new Random(19).nextBytes(trials);
+        Arrays.fill(trials, trials.length / 2, trials.length, (byte) 7);
+        write(data.resolve("brain/trials.log"), trials);
+        write(data.resolve("planner/planner.log"), "planner".getBytes(StandardCharsets.UTF_8));
+        write(data.resolve("profiles/bob/sleep/sleep.log"), "bob sleeps".getBytes(StandardCharsets.UTF_8));
+        write(data.resolve("food-catalog.csv"), "not backed up".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void restoreIntoAnEmptyDirectoryRecreatesEveryStore() throws IOException {
+        Backup.ExportSummary exported = Backup.export(data, archive);
+        assertEquals(3, exported.files());
+        assertTrue(exported.archiveBytes() < exported.bytes());
+        Backup.verify(archive);
+
+        Path target = dir.resolve("restored");
+        Backup.RestoreSummary restored = Backup.restore(archive, target);
+        assertEquals(3, restored.files());
+        assertEquals(0, restored.segmentsKept());
+        assertArrayEquals(trials, Files.readAllBytes(target.resolve("brain/trials.log")));
+        assertEquals("bob sleeps", Files.readString(target.resolve("profiles/bob/sleep/sleep.log")));
+        assertFalse(Files.exists(target.resolve("food-catalog.csv")));
+    }
+
+    @Test
+    void restoreWritesOnlyTheSegmentsThatDiffer() throws IOException {
+        Backup.export(data, archive);
+        byte[] changed = Arrays.copyOf(trials, trials.length + 100);
+        changed[Backup.SEGMENT_BYTES + 10] ^= 1;
+        write(data.resolve("brain/trials.log"), changed);
+        write(data.resolve("brain/newer.log"), new byte[]{1});
+        write(data.resolve("profiles/bob/sync/replica"), new byte[]{2});
+        write(data.resolve("profiles/carol/sleep/sleep.log"), new byte[]{3});
+
+        Backup.RestoreSummary restored = Backup.restore(archive, data);
+        assertEquals(1, restored.segmentsWritten());
+        assertEquals(Backup.SEGMENT_BYTES, restored.bytesWritten());
+        assertEquals(4, restored.segmentsKept());
+        assertArrayEquals(trials, Files.readAllBytes(data.resolve("brain/trials.log")));
+        // The extra store file and bob's sync state go; carol is not in the archive and what is outside
+        // the store directories is left alone
+        assertFalse(Files.exists(data.resolve("brain/newer.log")));
+        assertFalse(Files.exists(data.resolve("profiles/bob/sync")));
+        assertEquals(2, restored.filesRemoved());
+        assertTrue(Files.exists(data.resolve("profiles/carol/sleep/sleep.log")));
+        assertTrue(Files.exists(data.resolve("food-catalog.csv")));
+    }
+
+    @Test
+    void corruptArchiveIsRejectedBeforeAnythingIsWritten() throws IOException {
+        Backup.export(data, archive);
+        byte[] bytes = Files.readAllBytes(archive);
+        bytes[1_000] ^= 1;
+        Files.write(archive, bytes);
+        write(data.resolve("planner/planner.log"), "edited".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> Backup.verify(archive));
+        assertThrows(IOException.class, () -> Backup.restore(archive, data));
+        assertEquals("edited", Files.readString(data.resolve("planner/planner.log")));
+    }
+
+    @Test
+    void truncatedArchiveIsRejected() throws IOException {
+        Backup.export(data, archive);
+        byte[] bytes = Files.readAllBytes(archive);
+        Files.write(archive, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThrows(IOException.class, () -> Backup.restore(archive, dir.resolve("restored")));
+    }
+
+    private static void write(Path file, byte[] bytes) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, bytes);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.oops_core.brain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveDifficultyTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final SplittableRandom random = new SplittableRandom(11);
+
+    @Test
+    void quickCorrectAnswersMoveUpOneTierPerWindow() {
+        AdaptiveDifficulty difficulty = new AdaptiveDifficulty(0);
+        for (int i = 0; i < AdaptiveDifficulty.MIN_SAMPLES - 1; i++) {
+            assertEquals(0, difficulty.record(true, between(1, 3)));
+        }
+        assertEquals(1, difficulty.record(true, between(1, 3)));
+
+        // The window starts over at the new tier
+        for (int i = 0; i < AdaptiveDifficulty.MIN_SAMPLES - 1; i++) {
+            assertEquals(1, difficulty.record(true, between(1, 3)));
+        }
+        assertEquals(2, difficulty.record(true, between(1, 3)));
+    }
+
+    @Test
+    void slowAnswersMoveDown() {
+        AdaptiveDifficulty difficulty = new AdaptiveDifficulty(2);
+        int tier = difficulty.tier();
+        for (int i = 0; i < AdaptiveDifficulty.MIN_SAMPLES; i++) {
+            tier = difficulty.record(true, between(13, 30));
+        }
+        assertEquals(1, tier);
+    }
+
+    @Test
+    void wrongAnswersMoveDown() {
+        AdaptiveDifficulty difficulty = new AdaptiveDifficulty(3);
+        int tier = difficulty.tier();
+        for (int i = 0; i < AdaptiveDifficulty.MIN_SAMPLES; i++) {
+            tier = difficulty.record(i == 0, between(1, 3));
+        }
+        assertEquals(2, tier);
+    }
+
+    @Test
+    void steadyMiddlingPlayStaysPut() {
+        AdaptiveDifficulty difficulty = new AdaptiveDifficulty(1);
+        for (int i = 0; i < 3 * AdaptiveDifficulty.WINDOW; i++) {
+            // Always right, but between the fast and slow budgets for a one-step tier
+            assertEquals(1, difficulty.record(true, between(5, 10)));
+        }
+        long median = difficulty.medianCorrectNanos();
+        assertTrue(median >= 5 * SECOND && median <= 10 * SECOND);
+    }
+
+    @Test
+    void tiersAreClamped() {
+        AdaptiveDifficulty top = new AdaptiveDifficulty(99);
+        assertEquals(EquationGenerator.TIERS.length - 1, top.tier());
+        for (int i = 0; i < AdaptiveDifficulty.WINDOW; i++) {
+            top.record(true, between(1, 2));
+        }
+        assertEquals(EquationGenerator.TIERS.length - 1, top.tier());
+
+        AdaptiveDifficulty bottom = new AdaptiveDifficulty(-3);
+        for (int i = 0; i < AdaptiveDifficulty.WINDOW; i++) {
+            bottom.record(false, between(20, 40));
+        }
+        assertEquals(0, bottom.tier());
+        assertEquals(-1, bottom.medianCorrectNanos());
+    }
+
+    private long between(int fromSeconds, int toSeconds) {
+        return random.nextLong(fromSeconds * SECOND, toSeconds * SECOND);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.oops_core.brain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EquationGeneratorTest {
+
+    @Test
+    void answersMatchTheTextAndStayInTheTierRange() {
+        EquationGenerator generator = new EquationGenerator(new SplittableRandom(42));
+        for (int tierIndex = 0; tierIndex < EquationGenerator.TIERS.length; tierIndex++) {
+            EquationGenerator.Tier tier = EquationGenerator.TIERS[tierIndex];
+            long max = tier.max();
+            long bound = tier.steps() == 1 ? max * max : max * max * max + max;
+            for (int i = 0; i < 5 * EquationGenerator.BATCH; i++) {
+                int slot = generator.next(tierIndex);
+                String text = generator.text(slot);
+
+                assertEquals(tier.steps(), generator.steps(slot), text);
+                assertEquals(evaluate(text, tier), generator.answer(slot), text);
+                assertTrue(Math.abs(generator.answer(slot)) <= bound, text);
+            }
+        }
+    }
+
+    @Test
+    void sameSeedSameProblems() {
+        EquationGenerator a = new EquationGenerator(new SplittableRandom(7));
+        EquationGenerator b = new EquationGenerator(new SplittableRandom(7));
+        for (int i = 0; i < 200; i++) {
+            int tier = i % EquationGenerator.TIERS.length;
+            assertEquals(a.text(a.next(tier)), b.text(b.next(tier)));
+        }
+    }
+
+    @Test
+    void eachTierKeepsItsOwnBatch() {
+        EquationGenerator generator = new EquationGenerator(new SplittableRandom(3));
+        int first = generator.next(0);
+        String text = generator.text(first);
+        for (int i = 0; i < 3 * EquationGenerator.BATCH; i++) {
+            generator.next(4);
+        }
+
+        assertEquals(text, generator.text(first));
+        assertEquals(first + 1, generator.next(0));
+    }
+
+    // Evaluates "a op b" or "(a op b) op c" exactly, checking that every division is whole and that every
+    // operand after the first (which may be a dividend or the rest of a split) is in the tier's range
+    private static long evaluate(String text, EquationGenerator.Tier tier) {
+        String[] parts = text.replace("(", "").replace(")", "").split(" ");
+        long left = Long.parseLong(parts[0]);
+        for (int i = 1; i < parts.length; i += 2) {
+            char op = parts[i].charAt(0);
+            long right = Long.parseLong(parts[i + 1]);
+            assertTrue(right >= tier.min() && right <= tier.max(), text);
+            left = switch (op) {
+                case '+' -> left + right;
+                case '-' -> left - right;
+                case '*' -> left * right;
+                case '/' -> {
+                    assertEquals(0, left % right, text);
+                    yield left / right;
+                }
+                default -> throw new AssertionError(text);
+            };
+        }
+        return left;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.oops_core.brain;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrialBlockTest {
+
+    private record Trial(long timeMillis, int difficulty, boolean correct, int latencyMillis) {
+    }
+
+    @Test
+    void everyBucketRoundTrips() {
+        List<Trial> trials = new ArrayList<>();
+        long time = 1_700_000_000_000L;
+        long[] steps = {0, 1_000, 1_000, 1_050, 900, 20_000, 3_600_000, 86_400_000L * 30, -5_000, 1_000};
+        int[] latencies = {0, 4_095, 4_096, 131_071, 131_072, Integer.MAX_VALUE, 800, 1, 2, 3};
+        for (int i = 0; i < steps.length; i++) {
+            time += steps[i];
+            trials.add(new Trial(time, i < 3 ? 5 : i * 25, i % 3 != 0, latencies[i]));
+        }
+
+        assertEquals(trials, decode(blockOf(trials)));
+    }
+
+    @Test
+    void randomTrialsRoundTripThroughSerialization() {
+        Random random = new Random(14);
+        List<Trial> trials = new ArrayList<>();
+        long time = 1_700_000_000_000L;
+        for (int i = 0; i < TrialBlock.CAPACITY; i++) {
+            time += random.nextInt(10) == 0 ? random.nextInt(1 << 30) : 1_000 + random.nextInt(200);
+            trials.add(new Trial(time, random.nextInt(4) == 0 ? random.nextInt(256) : 3, random.nextBoolean(),
+                    random.nextInt(10) == 0 ? random.nextInt(1 << 20) : random.nextInt(3_000)));
+        }
+        TrialBlock block = blockOf(trials);
+        assertTrue(block.full());
+        assertThrows(IllegalStateException.class, () -> block.append(0, 0, true, 0));
+
+        TrialBlock read = TrialBlock.readFrom(serialize(block));
+        assertEquals(trials, decode(read));
+        assertEquals(block.correctCount(), read.correctCount());
+        assertEquals(block.minTime(), read.minTime());
+        assertEquals(block.maxTime(), read.maxTime());
+    }
+
+    @Test
+    void readBlockKeepsGrowingAsIfNeverSaved() {
+        List<Trial> first = List.of(new Trial(10_000, 2, true, 700), new Trial(11_000, 2, false, 900));
+        List<Trial> more = List.of(new Trial(12_000, 2, true, 650), new Trial(12_500, 3, true, 5_000));
+        TrialBlock straight = blockOf(first);
+        TrialBlock reloaded = TrialBlock.readFrom(serialize(blockOf(first)));
+        for (Trial trial : more) {
+            straight.append(trial.timeMillis(), trial.difficulty(), trial.correct(), trial.latencyMillis());
+            reloaded.append(trial.timeMillis(), trial.difficulty(), trial.correct(), trial.latencyMillis());
+        }
+
+        assertEquals(decode(straight), decode(reloaded));
+        assertEquals(straight.packedBytes(), reloaded.packedBytes());
+        assertEquals(3, reloaded.correctCount());
+    }
+
+    @Test
+    void steadySessionPacksToAFewBytesPerTrial() {
+        List<Trial> trials = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            trials.add(new Trial(1_000_000 + i * 2_000L, 4, i % 5 != 0, 900 + i % 50));
+        }
+        assertTrue(blockOf(trials).packedBytes() <= 500 * 5);
+    }
+
+    @Test
+    void headerAnswersRangeQueries() {
+        TrialBlock block = blockOf(List.of(new Trial(100, 1, true, 1), new Trial(200, 1, true, 1)));
+        assertTrue(block.overlaps(200, 300));
+        assertTrue(block.overlaps(0, 101));
+        assertFalse(block.overlaps(201, 300));
+        assertFalse(block.overlaps(0, 100));
+        assertFalse(new TrialBlock().overlaps(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void difficultyMustFitInAByte() {
+        TrialBlock block = new TrialBlock();
+        assertThrows(IllegalArgumentException.class, () -> block.append(0, 256, true, 0));
+        assertThrows(IllegalArgumentException.class, () -> block.append(0, -1, true, 0));
+    }
+
+    private static TrialBlock blockOf(List<Trial> trials) {
+        TrialBlock block = new TrialBlock();
+        for (Trial trial : trials) {
+            block.append(trial.timeMillis(), trial.difficulty(), trial.correct(), trial.latencyMillis());
+        }
+        return block;
+    }
+
+    private static List<Trial> decode(TrialBlock block) {
+        List<Trial> trials = new ArrayList<>();
+        block.forEach((time, difficulty, correct, latency) -> trials.add(new Trial(time, difficulty, correct, latency)));
+        return trials;
+    }
+
+    private static ByteBuffer serialize(TrialBlock block) {
+        ByteBuffer buffer = ByteBuffer.allocate(block.serializedSize());
+        block.writeTo(buffer);
+        assertFalse(buffer.hasRemaining());
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.oops_core.brain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrialHistoryTest {
+
+    private static final long DAY = 86_400_000L;
+    // Monday 2024-01-01T00:00Z
+    private static final long MONDAY = LocalDate.of(2024, 1, 1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void summaryCountsAndPercentiles() throws IOException {
+        try (TrialHistory history = TrialHistory.open(dir.resolve("trials.log"))) {
+            for (int i = 1; i <= 100; i++) {
+                history.record(TrialHistory.Game.EQUATIONS, MONDAY + i * 1_000L, 3, i % 4 != 0, i * 1_000_000L);
+            }
+            history.record(TrialHistory.Game.MEMORY, MONDAY, 1, true, 0);
+
+            TrialHistory.Summary all = history.summary(TrialHistory.Game.EQUATIONS, MONDAY, MONDAY + DAY);
+            assertEquals(new TrialHistory.Summary(100, 75, 50, 90, 99), all);
+            assertEquals(0.75, all.accuracy(), 1e-9);
+            TrialHistory.Summary tail = history.summary(TrialHistory.Game.EQUATIONS, MONDAY + 91_000, MONDAY + DAY);
+            assertEquals(10, tail.trials());
+            assertEquals(new TrialHistory.Summary(0, 0, -1, -1, -1),
+                    history.summary(TrialHistory.Game.EQUATIONS, MONDAY + DAY, MONDAY + 2 * DAY));
+        }
+    }
+
+    @Test
+    void historySurvivesReopenAcrossSealedBlocks() throws IOException {
+        Path file = dir.resolve("trials.log");
+        int trials = 3 * TrialBlock.CAPACITY + 17;
+        TrialHistory.Summary before;
+        try (TrialHistory history = TrialHistory.open(file)) {
+            for (int i = 0; i < trials; i++) {
+                history.record(TrialHistory.Game.MEMORY, MONDAY + i * 30_000L, i / 500, i % 3 != 0, (500 + i % 700) * 1_000_000L);
+            }
+            before = history.summary(TrialHistory.Game.MEMORY, MONDAY, MONDAY + 7 * DAY);
+        }
+
+        try (TrialHistory history = TrialHistory.open(file)) {
+            assertEquals(trials, history.trials(TrialHistory.Game.MEMORY));
+            assertEquals(0, history.trials(TrialHistory.Game.EQUATIONS));
+            assertEquals(before, history.summary(TrialHistory.Game.MEMORY, MONDAY, MONDAY + 7 * DAY));
+        }
+        // Superseded TRIAL records were folded into blocks on open: a few bytes per trial remain
+        assertTrue(Files.size(file) < trials * 10L);
+    }
+
+    @Test
+    void weeklySplitsOnMondays() throws IOException {
+        try (TrialHistory history = TrialHistory.open(dir.resolve("trials.log"))) {
+            history.record(TrialHistory.Game.EQUATIONS, MONDAY + 6 * DAY + DAY - 1, 1, true, 1_000_000_000L);
+            history.record(TrialHistory.Game.EQUATIONS, MONDAY + 7 * DAY, 1, false, 2_000_000_000L);
+            history.record(TrialHistory.Game.EQUATIONS, MONDAY + 8 * DAY, 1, true, 3_000_000_000L);
+
+            List<TrialHistory.Week> weeks = history.weekly(TrialHistory.Game.EQUATIONS, ZoneOffset.UTC, LocalDate.of(2024, 1, 1), 3);
+            assertEquals(List.of(
+                    new TrialHistory.Week(LocalDate.of(2024, 1, 1), new TrialHistory.Summary(1, 1, 1_000, 1_000, 1_000)),
+                    new TrialHistory.Week(LocalDate.of(2024, 1, 8), new TrialHistory.Summary(2, 1, 2_000, 3_000, 3_000)),
+                    new TrialHistory.Week(LocalDate.of(2024, 1, 15), new TrialHistory.Summary(0, 0, -1, -1, -1))), weeks);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.oops_core.calorie;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CalorieJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void entriesSurviveReopen() throws IOException {
+        try (CalorieJournal journal = CalorieJournal.open(dir, entry -> { })) {
+            journal.append(1_000, "apple", 150, 78, false);
+            journal.append(2_000, "coffee", 120, 120, true);
+        }
+
+        List<CalorieEntry> entries = open();
+        assertEquals(List.of(
+                new CalorieEntry(1, 1_000, "apple", 150, 78, false),
+                new CalorieEntry(2, 2_000, "coffee", 120, 120, true)), entries);
+    }
+
+    @Test
+    void tornTailIsDroppedAndSequenceContinues() throws IOException {
+        try (CalorieJournal journal = CalorieJournal.open(dir, entry -> { })) {
+            journal.append(1_000, "apple", 150, 78, false);
+            journal.append(2_000, "pear", 180, 103, false);
+        }
+        Files.write(files(".wal").get(0), new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        try (CalorieJournal journal = CalorieJournal.open(dir, entry -> { })) {
+            assertEquals(3, journal.append(3_000, "kiwi", 70, 43, false).seq());
+        }
+        List<CalorieEntry> entries = open();
+        assertEquals(3, entries.size());
+        assertEquals("kiwi", entries.get(2).food());
+    }
+
+    @Test
+    void snapshotPlusTailReplaysEveryEntryOnce() throws IOException {
+        int total = CalorieJournal.SNAPSHOT_EVERY + 25;
+        try (CalorieJournal journal = CalorieJournal.open(dir, entry -> { })) {
+            for (int i = 0; i < total; i++) {
+                journal.append(i, "food " + i, 100, i, false);
+            }
+            journal.sync().join();
+        }
+        assertEquals(1, files(".snap").size());
+
+        List<CalorieEntry> entries = open();
+        assertEquals(total, entries.size());
+        for (int i = 0; i < total; i++) {
+            assertEquals(i + 1, entries.get(i).seq());
+            assertEquals("food " + i, entries.get(i).food());
+        }
+
+        List<CalorieEntry> readOnly = new ArrayList<>();
+        CalorieJournal.replay(dir, readOnly::add);
+        assertEquals(entries, readOnly);
+    }
+
+    @Test
+    void readOnlyReplayLeavesATornTailInPlace() throws IOException {
+        try (CalorieJournal journal = CalorieJournal.open(dir, entry -> { })) {
+            journal.append(1_000, "apple", 150, 78, false);
+        }
+        Path segment = files(".wal").get(0);
+        Files.write(segment, new byte[]{0, 0}, StandardOpenOption.APPEND);
+        long size = Files.size(segment);
+
+        List<CalorieEntry> entries = new ArrayList<>();
+        CalorieJournal.replay(dir, entries::add);
+        assertEquals(1, entries.size());
+        assertEquals(size, Files.size(segment));
+    }
+
+    @Test
+    void appendAfterCloseFails() throws IOException {
+        CalorieJournal journal = CalorieJournal.open(dir, entry -> { });
+        journal.close();
+        assertThrows(IllegalStateException.class, () -> journal.append(1_000, "apple", 150, 78, false));
+    }
+
+    private List<CalorieEntry> open() throws IOException {
+        List<CalorieEntry> entries = new ArrayList<>();
+        CalorieJournal.open(dir, entries::add).close();
+        return entries;
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+}
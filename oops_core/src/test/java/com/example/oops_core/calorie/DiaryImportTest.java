@@ -0,0 +1,216 @@
+package com.example.oops_core.calorie;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiaryImportTest {
+
+    // Epoch second on a whole minute, so times come back exactly
+    private static final long FIRST_SECOND = 1_699_999_980L;
+    private static final ToDoubleFunction<String> CATALOG = name -> Map.of("bread", 2.5, "milk", 0.62, "jam {x}", 2.8)
+            .getOrDefault(name, Double.NaN);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void quantitiesConvertToGrams() {
+        assertEquals(150, grams("150g"), 1e-9);
+        assertEquals(480, grams("2 cups"), 1e-9);
+        assertEquals(45, grams("1 1/2 slices"), 1e-9);
+        assertEquals(120, grams("1/2 cup"), 1e-9);
+        assertEquals(500, grams("0.5 l"), 1e-9);
+        assertEquals(1500, grams("1,5 kg"), 1e-9);
+        assertEquals(3 * 28.3495, grams("3 oz"), 1e-9);
+        assertEquals(2 * 29.5735, grams("2 fl. oz"), 1e-9);
+        assertEquals(2 * DiaryImport.PIECE_GRAMS, grams("2 eggs"), 1e-9);
+        assertEquals(DiaryImport.SERVING_GRAMS, grams("1 Serving"), 1e-9);
+        // A bare number is grams
+        assertEquals(100, grams("100"), 1e-9);
+        assertTrue(Double.isNaN(grams("some")));
+        assertTrue(Double.isNaN(grams("1/0 cup")));
+    }
+
+    @Test
+    void numbersAndTimesOfDay() {
+        assertEquals(1234.5, number("1,234.5"), 1e-9);
+        assertEquals(1234, number("1,234"), 1e-9);
+        assertEquals(1.5, number("1,5"), 1e-9);
+        assertTrue(Double.isNaN(number("12a")));
+
+        assertEquals(19 * 60 + 5, timeOfDay("7:05 pm"));
+        assertEquals(30, timeOfDay("12:30 AM"));
+        assertEquals(23 * 60 + 59, timeOfDay("23:59:30"));
+        assertEquals(-1, timeOfDay("24:00"));
+        assertEquals(-1, timeOfDay("noon"));
+    }
+
+    @Test
+    void csvRowsAreReadByHeaderName() throws IOException {
+        Path file = dir.resolve("diary.csv");
+        Files.writeString(file, "\uFEFFLogged On,Time,Food Name,Amount,Energy (kcal)\r\n"
+                + "2024-03-01,8:15 am,Bread,2 slices,999\r\n"
+                + "2024-03-01,,\"Milk\",250 ml,\r\n"
+                + "2024-03-02 19:30,07:00,\"Curry, green\",1 serving,410\r\n"
+                + "1709290800000,,mystery,1 cup,\r\n"
+                + "yesterday,,bread,1 slice,80\r\n"
+                + "2024-03-03,,,1 slice,80\r\n"
+                + "2024-02-31,,bread,1 slice,80\r\n"
+                + "2023-02-29,,bread,1 slice,80\r\n"
+                + "2024-02-29,,bread,1 slice,80\r\n", StandardCharsets.UTF_8);
+
+        DiaryImport.Diary diary = DiaryImport.run(file, ZoneOffset.ofHours(1), CATALOG);
+
+        assertEquals(4, diary.size());
+        assertEquals(time(2024, 3, 1, 7, 15), diary.timeMillis(0));
+        assertEquals("bread", diary.food(0));
+        assertEquals(2 * DiaryImport.SLICE_GRAMS * 2.5, diary.calories(0), 1e-9);
+        assertFalse(diary.manual(0));
+        // A date alone is noon; the time inside the timestamp wins over the time column
+        assertEquals(time(2024, 3, 1, 11, 0), diary.timeMillis(1));
+        assertEquals(250 * 0.62, diary.calories(1), 1e-9);
+        assertEquals(time(2024, 3, 2, 18, 30), diary.timeMillis(2));
+        assertEquals("curry, green", diary.food(2));
+        assertEquals(410, diary.calories(2), 1e-9);
+        assertTrue(diary.manual(2));
+        // Days past the end of their month are unreadable rather than rolled over; leap days are fine
+        assertEquals(time(2024, 2, 29, 11, 0), diary.timeMillis(3));
+
+        DiaryImport.Summary summary = diary.summary();
+        assertEquals(9, summary.rows());
+        assertEquals(4, summary.skipped());
+        assertEquals(1, summary.unresolved());
+        assertEquals(4, summary.foods());
+        assertEquals(2, summary.unknownFoods());
+    }
+
+    @Test
+    void csvWithoutADateOrFoodColumnIsRejected() throws IOException {
+        Path file = dir.resolve("diary.csv");
+        Files.writeString(file, "Food,Quantity\nbread,1 slice\n");
+        assertThrows(IOException.class, () -> DiaryImport.run(file, ZoneOffset.UTC, CATALOG));
+        Files.writeString(file, "  \n");
+        assertThrows(IOException.class, () -> DiaryImport.run(file, ZoneOffset.UTC, CATALOG));
+    }
+
+    @Test
+    void csvOverSeveralChunksKeepsEveryRowInOrder() throws IOException {
+        Path file = dir.resolve("diary.csv");
+        int rows;
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("date,food,quantity\n");
+            long bytes = 0;
+            for (rows = 0; bytes < DiaryImport.CHUNK_BYTES * 5L / 2; rows++) {
+                // Varying line lengths, so the boundaries fall anywhere in a line
+                String line = (FIRST_SECOND + rows * 60L) + "," + (rows % 2 == 0 ? "bread" : "\"Milk\"") + ","
+                        + (rows + 1) + " g" + " ".repeat(rows % 13) + "\n";
+                out.write(line);
+                bytes += line.length();
+            }
+        }
+
+        assertEveryRow(DiaryImport.run(file, ZoneOffset.UTC, CATALOG), rows, "bread", "milk");
+    }
+
+    @Test
+    void jsonArrayOverSeveralChunksKeepsEveryRowInOrder() throws IOException {
+        Path file = dir.resolve("diary.json");
+        int rows;
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("[\n");
+            long bytes = 0;
+            for (rows = 0; bytes < DiaryImport.CHUNK_BYTES * 5L / 2; rows++) {
+                // Braces and escaped quotes inside strings, and a nested value, must not look like records
+                String line = (rows == 0 ? "" : ",\n") + "{\"timestamp\": " + (FIRST_SECOND + rows * 60L)
+                        + ", \"note\": \"{\\\"not\\\": [a record}\", \"tags\": {\"meal\": [1, {\"x\": 2}]}"
+                        + ", \"food\": \"" + (rows % 2 == 0 ? "jam {x}" : "Milk") + "\", \"quantity\": \"" + (rows + 1)
+                        + "g\"}";
+                out.write(line);
+                bytes += line.length();
+            }
+            out.write("\n]\n");
+        }
+
+        assertEveryRow(DiaryImport.run(file, ZoneOffset.UTC, CATALOG), rows, "jam {x}", "milk");
+    }
+
+    @Test
+    void prettyPrintedJsonValuesEndAtTheirLineBreak() throws IOException {
+        // Bare values followed by a newline and indentation (or a tab or CRLF) before the '}'
+        Path file = dir.resolve("diary.json");
+        Files.writeString(file, "[{\"date\": " + FIRST_SECOND + ", \"food\": \"mystery stew\", \"calories\": 250\n  },"
+                + " {\"date\": " + (FIRST_SECOND + 60) + ", \"food\": \"mystery stew\", \"calories\": 300\t\r\n}]\n",
+                StandardCharsets.UTF_8);
+
+        DiaryImport.Diary diary = DiaryImport.run(file, ZoneOffset.UTC, CATALOG);
+
+        assertEquals(2, diary.size());
+        assertEquals(0, diary.summary().unresolved());
+        assertEquals(250, diary.calories(0), 1e-9);
+        assertEquals(300, diary.calories(1), 1e-9);
+        assertTrue(diary.manual(0));
+        assertEquals((FIRST_SECOND + 60) * 1000, diary.timeMillis(1));
+    }
+
+    @Test
+    void jsonLinesOverSeveralChunksKeepsEveryRowInOrder() throws IOException {
+        Path file = dir.resolve("diary.jsonl");
+        int rows;
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            long bytes = 0;
+            for (rows = 0; bytes < DiaryImport.CHUNK_BYTES * 5L / 2; rows++) {
+                String line = "{\"date\":\"" + (FIRST_SECOND + rows * 60L) * 1000 + "\",\"food\":\""
+                        + (rows % 2 == 0 ? "Br\\u0065ad" : "milk") + "\",\"amount\":" + (rows + 1) + "}\n";
+                out.write(line);
+                bytes += line.length();
+            }
+        }
+
+        assertEveryRow(DiaryImport.run(file, ZoneOffset.UTC, CATALOG), rows, "bread", "milk");
+    }
+
+    private static void assertEveryRow(DiaryImport.Diary diary, int rows, String even, String odd) {
+        assertEquals(rows, diary.summary().rows());
+        assertEquals(rows, diary.size());
+        assertEquals(2, diary.summary().foods());
+        for (int row = 0; row < rows; row++) {
+            assertEquals((FIRST_SECOND + row * 60L) * 1000, diary.timeMillis(row));
+            assertEquals(row % 2 == 0 ? even : odd, diary.food(row));
+            assertEquals(row + 1, diary.quantity(row), 1e-9);
+        }
+    }
+
+    private static long time(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static double grams(String quantity) {
+        byte[] bytes = quantity.getBytes(StandardCharsets.US_ASCII);
+        return DiaryImport.quantityGrams(bytes, 0, bytes.length);
+    }
+
+    private static double number(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        return DiaryImport.number(bytes, 0, bytes.length);
+    }
+
+    private static int timeOfDay(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        return DiaryImport.timeOfDay(bytes, 0, bytes.length);
+    }
+}
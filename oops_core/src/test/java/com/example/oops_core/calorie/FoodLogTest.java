@@ -0,0 +1,76 @@
+package com.example.oops_core.calorie;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FoodLogTest {
+
+    @Test
+    void columnsGrowPastTheirInitialCapacity() {
+        FoodLog log = new FoodLog();
+        int rows = 1_000;
+        for (int i = 0; i < rows; i++) {
+            assertEquals(i, log.add(i + 1, 1_000L * i, "food " + (i % 7), i, i * 2.5, i % 3 == 0));
+        }
+        assertEquals(rows, log.size());
+        for (int i = 0; i < rows; i++) {
+            assertEquals(i + 1, log.seq(i));
+            assertEquals(1_000L * i, log.timeMillis(i));
+            assertEquals("food " + (i % 7), log.food(i));
+            assertEquals(i, log.quantity(i), 1e-9);
+            assertEquals(i * 2.5, log.calories(i), 1e-9);
+            assertEquals(i % 3 == 0, log.manual(i));
+        }
+        assertEquals(2.5 * rows * (rows - 1) / 2, log.totalCalories(), 1e-6);
+    }
+
+    @Test
+    void foodNamesAreInternedOnce() {
+        FoodLog log = new FoodLog();
+        log.add(1, 1_000, "apple", 150, 78, false);
+        log.add(2, 2_000, "pear", 180, 103, false);
+        log.add(3, 3_000, "apple", 100, 52, false);
+
+        assertEquals(2, log.foodCount());
+        assertEquals(log.foodId(0), log.foodId(2));
+        assertEquals("pear", log.foodName(log.foodId(1)));
+        assertEquals(log.foodId(1), log.internFood("pear"));
+        assertEquals(2, log.internFood("kiwi"));
+        assertEquals(3, log.foodCount());
+    }
+
+    @Test
+    void entryRoundTripsTheRow() {
+        FoodLog log = new FoodLog();
+        CalorieEntry apple = new CalorieEntry(41, 1_000, "apple", 150, 78, false);
+        CalorieEntry coffee = new CalorieEntry(42, 2_000, "coffee", 120, 120, true);
+        assertEquals(0, log.add(apple));
+        assertEquals(1, log.add(coffee));
+
+        assertEquals(apple, log.entry(0));
+        assertEquals(coffee, log.entry(1));
+        assertFalse(log.manual(0));
+        assertTrue(log.manual(1));
+        assertEquals(198, log.totalCalories(), 1e-9);
+    }
+
+    @Test
+    void rowOfFindsSequenceNumbersWithGaps() {
+        FoodLog log = new FoodLog();
+        for (int i = 0; i < 500; i++) {
+            // Sequence numbers 10, 13, 16, ...: deleted entries leave gaps
+            log.add(10 + 3L * i, i, "food", 1, 1, false);
+        }
+
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, log.rowOf(10 + 3L * i));
+            assertEquals(-1, log.rowOf(11 + 3L * i));
+        }
+        assertEquals(-1, log.rowOf(0));
+        assertEquals(-1, log.rowOf(10 + 3L * 500));
+        assertEquals(-1, new FoodLog().rowOf(1));
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.oops_core.calorie;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class NutritionRollupTest {
+
+    // Clocks go forward on 2024-03-31 and back on 2024-10-27
+    private static final ZoneId LONDON = ZoneId.of("Europe/London");
+
+    private record Logged(LocalDate date, double calories) {
+    }
+
+    @Test
+    void bucketsMatchABruteForceSumAcrossWeekMonthAndDstBoundaries() {
+        SplittableRandom random = new SplittableRandom(7);
+        NutritionRollup rollup = new NutritionRollup(LONDON);
+        List<Logged> logged = new ArrayList<>();
+        LocalDate first = LocalDate.of(2023, 12, 20);
+        for (int i = 0; i < 5_000; i++) {
+            // Any order, so back-dated entries grow the buckets to the left as well
+            LocalDateTime time = first.plusDays(random.nextInt(400)).atTime(random.nextInt(24), random.nextInt(60));
+            double calories = random.nextInt(1, 900);
+            rollup.add(time.atZone(LONDON).toInstant().toEpochMilli(), calories);
+            logged.add(new Logged(time.toLocalDate(), calories));
+        }
+        // Late evening and just after midnight on the DST days land on their own local day
+        addAt(rollup, logged, LocalDateTime.of(2024, 3, 31, 0, 30), 111);
+        addAt(rollup, logged, LocalDateTime.of(2024, 3, 31, 23, 59), 222);
+        addAt(rollup, logged, LocalDateTime.of(2024, 10, 27, 1, 30), 333);
+        addAt(rollup, logged, LocalDateTime.of(2024, 10, 27, 23, 30), 444);
+
+        LocalDate from = LocalDate.of(2023, 12, 1);
+        LocalDate to = LocalDate.of(2025, 2, 10);
+        for (NutritionRollup.Granularity granularity : NutritionRollup.Granularity.values()) {
+            NutritionRollup.Series series = rollup.query(granularity, from, to);
+            Map<LocalDate, Double> totals = new HashMap<>();
+            Map<LocalDate, Integer> entries = new HashMap<>();
+            Map<LocalDate, Set<LocalDate>> days = new HashMap<>();
+            for (Logged entry : logged) {
+                LocalDate bucket = NutritionRollup.bucketStart(granularity, entry.date());
+                totals.merge(bucket, entry.calories(), Double::sum);
+                entries.merge(bucket, 1, Integer::sum);
+                days.computeIfAbsent(bucket, key -> new HashSet<>()).add(entry.date());
+            }
+            assertEquals(NutritionRollup.bucketStart(granularity, from), series.bucketDate(0));
+            int seen = 0;
+            for (int i = 0; i < series.size(); i++) {
+                LocalDate bucket = series.bucketDate(i);
+                assertEquals(totals.getOrDefault(bucket, 0.0), series.total(i), 1e-6, granularity + " " + bucket);
+                assertEquals(entries.getOrDefault(bucket, 0), series.entries(i), granularity + " " + bucket);
+                assertEquals(days.getOrDefault(bucket, Set.of()).size(), series.loggedDays(i), granularity + " " + bucket);
+                seen += series.entries(i);
+            }
+            assertEquals(logged.size(), seen, granularity.name());
+        }
+    }
+
+    @Test
+    void dstDaysKeepTheirOwnTotals() {
+        NutritionRollup rollup = new NutritionRollup(LONDON);
+        List<Logged> logged = new ArrayList<>();
+        addAt(rollup, logged, LocalDateTime.of(2024, 3, 30, 23, 30), 100);
+        addAt(rollup, logged, LocalDateTime.of(2024, 3, 31, 0, 30), 200);
+        addAt(rollup, logged, LocalDateTime.of(2024, 3, 31, 23, 30), 300);
+        addAt(rollup, logged, LocalDateTime.of(2024, 4, 1, 0, 10), 400);
+
+        assertEquals(100, rollup.total(LocalDate.of(2024, 3, 30)), 1e-9);
+        assertEquals(500, rollup.total(LocalDate.of(2024, 3, 31)), 1e-9);
+        assertEquals(400, rollup.total(LocalDate.of(2024, 4, 1)), 1e-9);
+        // Saturday 30th and Sunday 31st are one week, Monday 1st starts the next; March and April split the same way
+        NutritionRollup.Series weeks = rollup.query(NutritionRollup.Granularity.WEEK, LocalDate.of(2024, 3, 30), LocalDate.of(2024, 4, 1));
+        assertEquals(2, weeks.size());
+        assertEquals(600, weeks.total(0), 1e-9);
+        assertEquals(400, weeks.total(1), 1e-9);
+        assertEquals(2, weeks.loggedDays(0));
+        assertEquals(300, weeks.averagePerLoggedDay(0), 1e-9);
+        NutritionRollup.Series months = rollup.query(NutritionRollup.Granularity.MONTH, LocalDate.of(2024, 3, 15), LocalDate.of(2024, 4, 15));
+        assertEquals(LocalDate.of(2024, 3, 1), months.bucketDate(0));
+        assertEquals(600, months.total(0), 1e-9);
+        assertEquals(400, months.total(1), 1e-9);
+        assertEquals(1000.0 / 3, rollup.averagePerLoggedDay(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 4, 30)), 1e-9);
+    }
+
+    @Test
+    void emptyRollupHasNoDaysAndZeroBuckets() {
+        NutritionRollup rollup = new NutritionRollup(LONDON);
+        assertNull(rollup.firstDay());
+        assertNull(rollup.lastDay());
+        NutritionRollup.Series series = rollup.query(NutritionRollup.Granularity.DAY, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 3));
+        assertEquals(3, series.size());
+        assertEquals(0, series.total(1), 1e-9);
+        assertEquals(0, rollup.averagePerLoggedDay(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 3)), 1e-9);
+        assertEquals(0, rollup.query(NutritionRollup.Granularity.DAY, LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 1)).size());
+    }
+
+    private static void addAt(NutritionRollup rollup, List<Logged> logged, LocalDateTime time, double calories) {
+        rollup.add(time.atZone(LONDON).toInstant().toEpochMilli(), calories);
+        logged.add(new Logged(time.toLocalDate(), calories));
+    }
+}
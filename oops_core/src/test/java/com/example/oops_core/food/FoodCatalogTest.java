@@ -0,0 +1,145 @@
+package com.example.oops_core.food;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FoodCatalogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void defaultsRoundTripThroughTheMappedFile() throws IOException {
+        Path binary = dir.resolve("foods.bin");
+        FoodCatalogBuilder.fromDefaults(binary);
+        try (FoodCatalog catalog = FoodCatalog.open(binary)) {
+            assertEquals(FoodCatalogBuilder.DEFAULT_FOODS.size(), catalog.size());
+            FoodCatalogBuilder.DEFAULT_FOODS.forEach((name, perUnit) -> {
+                int index = catalog.indexOf(name);
+                for (Nutrient nutrient : Nutrient.values()) {
+                    assertEquals(perUnit[nutrient.ordinal()], catalog.nutrient(index, nutrient), 1e-9, name);
+                }
+                assertEquals(perUnit[Nutrient.CALORIES.ordinal()], catalog.caloriesPerUnit(name), 1e-9, name);
+            });
+            assertEquals(2.5, catalog.caloriesPerUnit("  BREAD "), 1e-9);
+            assertTrue(Double.isNaN(catalog.caloriesPerUnit("bre")));
+            assertEquals(-1, catalog.indexOf("breads"));
+            // Names are stored in byte order, so indexes follow the sorted names
+            for (int i = 1; i < catalog.size(); i++) {
+                assertTrue(catalog.name(i - 1).compareTo(catalog.name(i)) < 0);
+            }
+        }
+    }
+
+    @Test
+    void csvKeepsTheFirstRowOfADuplicateAndScalesPer100Grams() throws IOException {
+        Path binary = build("""
+                description,energy_kcal_per_100g
+                "Cheese, cheddar",403
+                Apple,52
+                apple,99
+                Water,
+                ,10
+                """);
+        try (FoodCatalog catalog = FoodCatalog.open(binary)) {
+            assertEquals(List.of("apple", "cheese, cheddar"), names(catalog));
+            assertEquals(0.52, catalog.caloriesPerUnit("apple"), 1e-9);
+            assertEquals(4.03, catalog.caloriesPerUnit("cheese, cheddar"), 1e-9);
+        }
+    }
+
+    @Test
+    void prefixMatchesComeFirstInNameOrder() throws IOException {
+        Path binary = build("name,kcal\napple pie,2.4\napple,0.52\napricot,0.48\nbanana,0.89\npineapple,0.5\n");
+        try (FoodCatalog catalog = FoodCatalog.open(binary)) {
+            assertEquals(List.of("apple", "apple pie"), catalog.complete("APP", 2));
+            assertEquals(List.of("apple", "apple pie", "apricot"), catalog.complete("ap", 5));
+            assertEquals(List.of("banana"), catalog.complete("b", 5));
+            assertEquals(List.of(), catalog.complete("  ", 5));
+            assertEquals(List.of(), catalog.complete("apple", 0));
+        }
+    }
+
+    @Test
+    void typosAreToppedUpWithTrigramMatches() throws IOException {
+        Path binary = build("name,kcal\nchicken breast,1.65\nchicken,2.39\nchickpeas,1.64\nrice,1.3\n");
+        try (FoodCatalog catalog = FoodCatalog.open(binary)) {
+            List<String> matches = catalog.complete("chikcen", 3);
+            assertEquals("chicken", matches.get(0));
+            assertTrue(matches.contains("chicken breast"));
+            assertFalse(matches.contains("rice"));
+            // The scratch scores are reset between queries, so asking twice ranks the same way
+            assertEquals(matches, catalog.complete("chikcen", 3));
+            assertEquals(List.of("rice"), catalog.complete("ricee", 3));
+        }
+    }
+
+    @Test
+    void fuzzyMatchesKeepTheBestLimitByScoreThenLength() throws IOException {
+        Path binary = build("name,kcal\ntomato soup,0.3\ntomato,0.18\ntomatoes canned,0.2\ntomato sauce,0.3\n");
+        try (FoodCatalog catalog = FoodCatalog.open(binary)) {
+            int[] best = catalog.fuzzyMatches("tomato", 2);
+            assertEquals(2, best.length);
+            assertEquals("tomato", catalog.name(best[0]));
+            assertEquals("tomato soup", catalog.name(best[1]));
+            assertEquals(0, catalog.fuzzyMatches("tomato", 0).length);
+        }
+    }
+
+    @Test
+    void rebuildsOnlyWhenTheCsvIsNewer() throws IOException {
+        Path csv = dir.resolve("foods.csv");
+        Path binary = dir.resolve("foods.bin");
+        Files.writeString(csv, "name,kcal\nkiwi,0.61\n", StandardCharsets.UTF_8);
+        try (FoodCatalog catalog = FoodCatalog.openOrBuild(csv, binary)) {
+            assertEquals(List.of("kiwi"), names(catalog));
+        }
+
+        Files.writeString(csv, "name,kcal\nkiwi,0.61\nmango,0.6\n", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(binary).toMillis() - 60_000));
+        try (FoodCatalog catalog = FoodCatalog.openOrBuild(csv, binary)) {
+            assertEquals(List.of("kiwi"), names(catalog));
+        }
+
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(binary).toMillis() + 60_000));
+        try (FoodCatalog catalog = FoodCatalog.openOrBuild(csv, binary)) {
+            assertEquals(List.of("kiwi", "mango"), names(catalog));
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotACatalog() throws IOException {
+        Path file = dir.resolve("foods.bin");
+        Files.write(file, new byte[FoodCatalog.HEADER_BYTES]);
+        assertThrows(IOException.class, () -> FoodCatalog.open(file));
+    }
+
+    private Path build(String csv) throws IOException {
+        Path source = dir.resolve("foods.csv");
+        Path binary = dir.resolve("foods.bin");
+        Files.writeString(source, csv, StandardCharsets.UTF_8);
+        FoodCatalogBuilder.fromCsv(source, binary);
+        return binary;
+    }
+
+    private static List<String> names(FoodCatalog catalog) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < catalog.size(); i++) {
+            names.add(catalog.name(i));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.oops_core.food;
+
+import com.example.oops_core.storage.RecordLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecipeBookTest {
+
+    @TempDir
+    Path dir;
+
+    private FoodCatalog catalog;
+    private Path file;
+    private final double[] perGram = new double[Nutrient.COUNT];
+
+    @BeforeEach
+    void openCatalog() throws IOException {
+        Path binary = dir.resolve("catalog.bin");
+        FoodCatalogBuilder.fromDefaults(binary);
+        catalog = FoodCatalog.open(binary);
+        file = dir.resolve("recipes/recipes.log");
+    }
+
+    @AfterEach
+    void closeCatalog() throws IOException {
+        catalog.close();
+    }
+
+    @Test
+    void recipeGivesTheWeightedMeanOfItsIngredients() throws IOException {
+        try (RecipeBook book = open()) {
+            book.put("Toast and Egg", List.of(new RecipeBook.Ingredient("bread", 60), new RecipeBook.Ingredient(" EGG ", 40)));
+
+            assertTrue(book.contains("toast and egg"));
+            assertEquals(100, book.weight("toast and egg"), 1e-9);
+            assertTrue(book.nutrientsPerGram("toast and egg", perGram));
+            for (Nutrient nutrient : Nutrient.values()) {
+                double expected = (60 * food("bread", nutrient) + 40 * food("egg", nutrient)) / 100;
+                assertEquals(expected, perGram[nutrient.ordinal()], 1e-12);
+            }
+            assertFalse(book.nutrientsPerGram("bread", perGram));
+        }
+    }
+
+    @Test
+    void changingAnInnerRecipeUpdatesEveryRecipeAboveIt() throws IOException {
+        try (RecipeBook book = open()) {
+            book.put("mash", List.of(new RecipeBook.Ingredient("potato", 200), new RecipeBook.Ingredient("milk", 50)));
+            book.put("dinner", List.of(new RecipeBook.Ingredient("mash", 250), new RecipeBook.Ingredient("chicken", 150)));
+            book.put("feast", List.of(new RecipeBook.Ingredient("dinner", 400), new RecipeBook.Ingredient("apple", 100)));
+            book.nutrientsPerGram("feast", perGram);
+            double before = perGram[Nutrient.CALORIES.ordinal()];
+
+            book.put("mash", List.of(new RecipeBook.Ingredient("potato", 250)));
+            book.nutrientsPerGram("feast", perGram);
+            double mash = food("potato", Nutrient.CALORIES);
+            double dinner = (250 * mash + 150 * food("chicken", Nutrient.CALORIES)) / 400;
+            double feast = (400 * dinner + 100 * food("apple", Nutrient.CALORIES)) / 500;
+            assertEquals(feast, perGram[Nutrient.CALORIES.ordinal()], 1e-12);
+            assertTrue(feast != before);
+        }
+    }
+
+    @Test
+    void badRecipesAreRejected() throws IOException {
+        try (RecipeBook book = open()) {
+            book.put("a", List.of(new RecipeBook.Ingredient("rice", 100)));
+            book.put("b", List.of(new RecipeBook.Ingredient("a", 100)));
+
+            assertThrows(IllegalArgumentException.class, () -> book.put("a", List.of(new RecipeBook.Ingredient("b", 10))));
+            assertThrows(IllegalArgumentException.class, () -> book.put("c", List.of(new RecipeBook.Ingredient("c", 10))));
+            assertThrows(IllegalArgumentException.class, () -> book.put("c", List.of(new RecipeBook.Ingredient("caviar", 10))));
+            assertThrows(IllegalArgumentException.class, () -> book.put("c", List.of(new RecipeBook.Ingredient("rice", 0))));
+            assertThrows(IllegalArgumentException.class, () -> book.put("c", List.of()));
+            assertThrows(IllegalArgumentException.class, () -> book.put("rice", List.of(new RecipeBook.Ingredient("egg", 10))));
+            // Still intact after the rejected changes
+            assertEquals(List.of(new RecipeBook.Ingredient("rice", 100)), book.ingredients("a"));
+        }
+    }
+
+    @Test
+    void onlyUnusedRecipesCanBeRemoved() throws IOException {
+        try (RecipeBook book = open()) {
+            book.put("base", List.of(new RecipeBook.Ingredient("pasta", 100)));
+            book.put("top", List.of(new RecipeBook.Ingredient("base", 100), new RecipeBook.Ingredient("egg", 50)));
+
+            assertThrows(IllegalArgumentException.class, () -> book.remove("base"));
+            assertTrue(book.remove("top"));
+            assertTrue(book.remove("base"));
+            assertFalse(book.remove("base"));
+            assertEquals(0, book.size());
+        }
+    }
+
+    @Test
+    void bookSurvivesReopenAndIsCompacted() throws IOException {
+        try (RecipeBook book = open()) {
+            for (int i = 1; i <= 300; i++) {
+                book.put("porridge", List.of(new RecipeBook.Ingredient("milk", i), new RecipeBook.Ingredient("banana", 50)));
+            }
+            book.put("gone", List.of(new RecipeBook.Ingredient("carrot", 10)));
+            book.remove("gone");
+        }
+
+        try (RecipeBook book = open()) {
+            assertEquals(List.of("porridge"), book.names());
+            assertEquals(List.of(new RecipeBook.Ingredient("milk", 300), new RecipeBook.Ingredient("banana", 50)),
+                    book.ingredients("porridge"));
+            assertEquals(350, book.weight("porridge"), 1e-9);
+        }
+        int[] records = {0};
+        RecordLog.replay(file, payload -> records[0]++);
+        assertEquals(1, records[0]);
+    }
+
+    @Test
+    void eachRemovalCountsOnceTowardsCompaction() throws IOException {
+        // 150 removals of a live recipe: 150 dead records, below the 256 that start a compaction
+        try (RecipeBook book = open()) {
+            book.put("porridge", List.of(new RecipeBook.Ingredient("milk", 200)));
+            for (int i = 0; i < 150; i++) {
+                book.put("gone", List.of(new RecipeBook.Ingredient("carrot", 10)));
+                book.remove("gone");
+            }
+        }
+
+        try (RecipeBook book = open()) {
+            assertEquals(List.of("porridge"), book.names());
+        }
+        int[] records = {0};
+        RecordLog.replay(file, payload -> records[0]++);
+        assertEquals(301, records[0]);
+    }
+
+    private RecipeBook open() throws IOException {
+        RecipeBook book = RecipeBook.open(file);
+        book.setCatalog(catalog);
+        return book;
+    }
+
+    private double food(String name, Nutrient nutrient) {
+        return catalog.nutrient(catalog.indexOf(name), nutrient);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.oops_core.health;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HealthBatchTest {
+
+    private static final String INPUT = """
+            id,height_cm,weight_kg,age,sex
+            a,180,81,30,M
+            "Smith, J",160,64,45,F
+            b,n/a,70,20,M
+            "x,y,z", 175.5 ,"70.25",,
+            c,170,50,40,f
+            """;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void computesEachRow() throws IOException {
+        Path input = write(INPUT);
+        Path output = dir.resolve("out.csv");
+
+        HealthBatch.Summary summary = HealthBatch.run(input, output, 1, HealthBatch.DEFAULT_BLOCK_BYTES);
+
+        assertEquals(5, summary.rows());
+        assertEquals(1, summary.invalid());
+        assertEquals(List.of(
+                "id,bmi,bmr,goal",
+                "a,25.00,1790.00,Losing Weight",
+                "\"Smith, J\",25.00,1254.00,Maintaining Fitness",
+                "b,,,invalid",
+                "\"x,y,z\",22.81,,Maintaining Fitness",
+                "c,17.30,1201.50,Gaining Muscle"), Files.readAllLines(output));
+    }
+
+    @Test
+    void everyBlockSizeGivesTheSameOutput() throws IOException {
+        // Small blocks put a block edge on every byte of the input at some size, including inside the
+        // quoted ids and right at their commas; lines cut by an edge are carried into the next block
+        Path input = write(INPUT);
+        Path expected = dir.resolve("expected.csv");
+        HealthBatch.run(input, expected, 1, HealthBatch.DEFAULT_BLOCK_BYTES);
+
+        for (int blockBytes = 1; blockBytes <= INPUT.length(); blockBytes++) {
+            Path output = dir.resolve("out-" + blockBytes + ".csv");
+            HealthBatch.Summary summary = HealthBatch.run(input, output, 3, blockBytes);
+
+            assertEquals(5, summary.rows(), "block " + blockBytes);
+            assertEquals(Files.readAllLines(expected), Files.readAllLines(output), "block " + blockBytes);
+        }
+    }
+
+    @Test
+    void manyBlocksStayInInputOrder() throws IOException {
+        Path input = dir.resolve("members.csv");
+        HealthBatch.generate(20_000, input);
+        Path expected = dir.resolve("expected.csv");
+        Path output = dir.resolve("out.csv");
+
+        HealthBatch.Summary single = HealthBatch.run(input, expected, 1, HealthBatch.DEFAULT_BLOCK_BYTES);
+        HealthBatch.Summary split = HealthBatch.run(input, output, 4, 4096);
+
+        assertEquals(20_000, split.rows());
+        assertEquals(single.invalid(), split.invalid());
+        assertEquals(Files.readAllLines(expected), Files.readAllLines(output));
+    }
+
+    @Test
+    void widestRowsFitTheOutputBound() throws IOException {
+        // bmi just under 1e15 and a bmr just over -1e15: the longest numbers writeFixed2 still writes
+        Path input = write("""
+                id,height_cm,weight_kg,age,sex
+                wide,1,99999999999,199900000000000,M
+                huge,1,1e300,1,F
+                """);
+        Path output = dir.resolve("out.csv");
+
+        HealthBatch.run(input, output, 1, HealthBatch.DEFAULT_BLOCK_BYTES);
+
+        List<String> lines = Files.readAllLines(output);
+        assertEquals("wide,999999999990000.00,-998499999999998.72,Losing Weight", lines.get(1));
+        assertEquals("huge,,,Losing Weight", lines.get(2));
+        for (String line : lines.subList(1, lines.size())) {
+            int id = line.indexOf(',');
+            assertTrue(line.length() + 1 <= id + 64, line);
+        }
+    }
+
+    @Test
+    void parsesNumbersStraightFromBytes() {
+        assertEquals(175.5, parse(" 175.5 "));
+        assertEquals(-3.25, parse("-3.25"));
+        assertEquals(1200.0, parse("1.2e3"));
+        assertEquals(70.0, parse("\"70\""));
+        assertTrue(Double.isNaN(parse("n/a")));
+        assertTrue(Double.isNaN(parse("")));
+        assertTrue(Double.isNaN(parse("-")));
+    }
+
+    private Path write(String text) throws IOException {
+        Path file = dir.resolve("members.csv");
+        Files.writeString(file, text, StandardCharsets.US_ASCII);
+        return file;
+    }
+
+    private static double parse(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        return HealthBatch.parseNumber(bytes, 0, bytes.length);
+    }
+}
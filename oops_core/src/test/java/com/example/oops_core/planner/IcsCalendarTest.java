@@ -0,0 +1,242 @@
+package com.example.oops_core.planner;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IcsCalendarTest {
+
+    private static final long DAY = Schedule.MINUTES_PER_DAY;
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+    private CalendarSync sync;
+    private final Schedule schedule = new Schedule();
+
+    @BeforeEach
+    void openSync() throws IOException {
+        file = dir.resolve("work.ics");
+        sync = CalendarSync.open(dir.resolve("calendar-sync.log"));
+    }
+
+    @AfterEach
+    void closeSync() throws IOException {
+        sync.close();
+    }
+
+    @Test
+    void weeklyRuleOnSeveralDaysSharesItsCountOutInTurn() throws IOException {
+        // Wednesday 3 January 2024
+        write(event("standup", "DTSTART:20240103T090000", "DTEND:20240103T091500",
+                "RRULE:FREQ=WEEKLY;BYDAY=MO,WE,FR;COUNT=5"));
+        IcsCalendar.Summary summary = IcsCalendar.read(file, ZoneOffset.UTC, sync).apply(schedule, sync);
+
+        assertEquals(1, summary.added());
+        assertEquals(Set.of("standup#MO", "standup#WE", "standup#FR"), uids());
+        assertEquals(List.of(at(2024, 1, 3, 9), at(2024, 1, 5, 9), at(2024, 1, 8, 9), at(2024, 1, 10, 9), at(2024, 1, 12, 9)),
+                starts());
+        assertEquals(2, recurrence("standup#WE").count());
+        assertEquals(2, recurrence("standup#FR").count());
+        assertEquals(1, recurrence("standup#MO").count());
+    }
+
+    @Test
+    void untilDateIncludesItsWholeDay() throws IOException {
+        // Tuesday 2 January 2024; the second rule runs every other week
+        write(event("gym", "DTSTART:20240102T180000", "DURATION:PT1H", "RRULE:FREQ=WEEKLY;BYDAY=TU,TH;UNTIL=20240118"),
+                event("class", "DTSTART:20240104T070000", "DTEND:20240104T080000",
+                        "RRULE:FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,TH;UNTIL=20240129T070000Z"));
+        IcsCalendar.read(file, ZoneOffset.UTC, sync).apply(schedule, sync);
+
+        assertEquals(List.of(at(2024, 1, 2, 18), at(2024, 1, 4, 18), at(2024, 1, 9, 18), at(2024, 1, 11, 18),
+                at(2024, 1, 16, 18), at(2024, 1, 18, 18)), starts("gym"));
+        // Monday 1 January is before DTSTART, so the Monday part starts a period later
+        assertEquals(List.of(at(2024, 1, 4, 7), at(2024, 1, 15, 7), at(2024, 1, 18, 7), at(2024, 1, 29, 7)), starts("class"));
+    }
+
+    @Test
+    void dailyRulesStayDailyUnlessTheyListWeekdays() throws IOException {
+        write(event("pills", "DTSTART:20240101T080000", "DTEND:20240101T080500", "RRULE:FREQ=DAILY;INTERVAL=2;COUNT=3"),
+                event("walk", "DTSTART:20240101T120000", "DTEND:20240101T123000", "RRULE:FREQ=DAILY;BYDAY=SA,SU;COUNT=3"));
+        IcsCalendar.read(file, ZoneOffset.UTC, sync).apply(schedule, sync);
+
+        assertEquals(List.of(at(2024, 1, 1, 8), at(2024, 1, 3, 8), at(2024, 1, 5, 8)), starts("pills"));
+        assertEquals(List.of(at(2024, 1, 6, 12), at(2024, 1, 7, 12), at(2024, 1, 13, 12)), starts("walk"));
+    }
+
+    @Test
+    void rulesWithoutARecurrenceAreApproximated() throws IOException {
+        write(event("rent", "DTSTART:20240101T090000", "DTEND:20240101T091000", "RRULE:FREQ=MONTHLY;BYMONTHDAY=1"),
+                event("moved", "DTSTART:20240103T090000", "DTEND:20240103T091500", "RECURRENCE-ID:20240102T090000"),
+                event("holiday", "DTSTART;VALUE=DATE:20240105"),
+                "BEGIN:VEVENT\r\nSUMMARY:no uid\r\nDTSTART:20240101T090000\r\nEND:VEVENT\r\n");
+        IcsCalendar.Summary summary = IcsCalendar.read(file, ZoneOffset.UTC, sync).apply(schedule, sync);
+
+        assertEquals(4, summary.events());
+        assertEquals(2, summary.added());
+        assertEquals(2, summary.approximated());
+        assertEquals(2, summary.skipped());
+        assertEquals(List.of(at(2024, 1, 1, 9)), starts("rent"));
+        PlannerEvent holiday = event("holiday");
+        assertEquals(at(2024, 1, 5, 0), holiday.startMinute());
+        assertEquals(DAY, holiday.durationMinutes());
+    }
+
+    @Test
+    void reimportReplacesOnlyWhatChanged() throws IOException {
+        write(event("a", "DTSTART:20240101T090000", "DTEND:20240101T100000", "SEQUENCE:1"),
+                event("b", "DTSTART:20240102T090000", "DTEND:20240102T100000", "RRULE:FREQ=WEEKLY;BYDAY=TU,TH"),
+                event("c", "DTSTART:20240103T090000", "DTEND:20240103T100000"));
+        IcsCalendar.read(file, ZoneOffset.UTC, sync).apply(schedule, sync);
+        assertEquals(4, schedule.size());
+        assertEquals(0, IcsCalendar.read(file, ZoneOffset.UTC, sync).changedEvents());
+
+        // a moves, b drops to one day, c is deleted
+        write(event("a", "DTSTART:20240101T140000", "DTEND:20240101T150000", "SEQUENCE:2"),
+                event("b", "DTSTART:20240102T090000", "DTEND:20240102T100000", "RRULE:FREQ=WEEKLY",
+                        "LAST-MODIFIED:20240110T120000Z"));
+        IcsCalendar.Summary summary = IcsCalendar.read(file, ZoneOffset.UTC, sync).apply(schedule, sync);
+
+        assertEquals(2, summary.updated());
+        assertEquals(1, summary.removed());
+        assertEquals(Set.of("a", "b"), uids());
+        assertEquals(at(2024, 1, 1, 14), event("a").startMinute());
+        assertEquals(Set.of("a", "b"), Set.copyOf(sync.uids("work.ics")));
+    }
+
+    @Test
+    void timesAreConvertedAndRoundedOutToTheGrid() throws IOException {
+        write(event("call", "DTSTART:20240601T070302Z", "DTEND:20240601T073100Z"),
+                event("flight", "DTSTART;TZID=America/New_York:20240601T090000", "DURATION:PT7H"));
+        IcsCalendar.read(file, ZoneId.of("Europe/Berlin"), sync).apply(schedule, sync);
+
+        PlannerEvent call = event("call");
+        assertEquals(at(2024, 6, 1, 9), call.startMinute());
+        assertEquals(at(2024, 6, 1, 9) + 35, call.endMinute());
+        assertEquals(at(2024, 6, 1, 15), event("flight").startMinute());
+        assertEquals(7 * 60, event("flight").durationMinutes());
+        assertEquals(90, IcsCalendar.durationMinutes("PT1H30M"));
+        assertEquals(2 * DAY + 60, IcsCalendar.durationMinutes("P2DT1H"));
+        assertEquals(0, IcsCalendar.durationMinutes("-PT15M"));
+    }
+
+    @Test
+    void importIntoAppliesInBatchesAsItReads() throws IOException {
+        write(event("a", "DTSTART:20240101T090000", "DTEND:20240101T100000"),
+                event("b", "DTSTART:20240102T090000", "DTEND:20240102T100000", "RRULE:FREQ=WEEKLY;BYDAY=TU,TH"),
+                event("c", "DTSTART:20240103T090000", "DTEND:20240103T100000"),
+                event("d", "DTSTART:20240104T090000", "DTEND:20240104T100000"),
+                event("e", "DTSTART:20240105T090000", "DTEND:20240105T100000"));
+        List<Integer> sizes = new ArrayList<>();
+        IcsCalendar.Summary summary = IcsCalendar.importInto(file, ZoneOffset.UTC, sync, schedule, task -> {
+            task.run();
+            sizes.add(schedule.size());
+        }, 2);
+
+        // Two full batches while reading, then the last event and the removals
+        assertEquals(List.of(3, 5, 6), sizes);
+        assertEquals(5, summary.added());
+        assertEquals(Set.of("a", "b#TU", "b#TH", "c", "d", "e"), uids());
+
+        // b drops to one day, d is deleted, the rest is unchanged
+        write(event("a", "DTSTART:20240101T090000", "DTEND:20240101T100000"),
+                event("b", "DTSTART:20240102T090000", "DTEND:20240102T100000", "RRULE:FREQ=WEEKLY", "SEQUENCE:1"),
+                event("c", "DTSTART:20240103T090000", "DTEND:20240103T100000"),
+                event("e", "DTSTART:20240105T090000", "DTEND:20240105T100000"));
+        summary = IcsCalendar.importInto(file, ZoneOffset.UTC, sync, schedule, Runnable::run, 2);
+
+        assertEquals(1, summary.updated());
+        assertEquals(3, summary.unchanged());
+        assertEquals(1, summary.removed());
+        assertEquals(Set.of("a", "b", "c", "e"), uids());
+    }
+
+    @Test
+    void exportReadsBackAsTheSameSchedule() throws IOException {
+        write(event("standup", "DTSTART:20240103T090000", "DTEND:20240103T091500",
+                "RRULE:FREQ=WEEKLY;BYDAY=MO,WE,FR;COUNT=7"));
+        IcsCalendar.read(file, ZoneOffset.UTC, sync).apply(schedule, sync);
+        String title = "Café; planning, \\ review ".repeat(6).trim();
+        schedule.add(title, at(2024, 1, 4, 13), at(2024, 1, 4, 14), new Recurrence(Recurrence.Frequency.DAILY, 3, 0,
+                at(2024, 1, 20, 0)));
+
+        Path exported = dir.resolve("planner.ics");
+        assertEquals(4, IcsCalendar.export(schedule.all(), exported, sync));
+        for (String line : Files.readAllLines(exported, StandardCharsets.UTF_8)) {
+            assertTrue(line.getBytes(StandardCharsets.UTF_8).length <= 75, line);
+        }
+        try (CalendarSync otherSync = CalendarSync.open(dir.resolve("other/calendar-sync.log"))) {
+            Schedule other = new Schedule();
+            IcsCalendar.read(exported, ZoneOffset.UTC, otherSync).apply(other, otherSync);
+            assertEquals(occurrences(schedule), occurrences(other));
+        }
+    }
+
+    private void write(String... events) throws IOException {
+        Files.writeString(file, "BEGIN:VCALENDAR\r\nVERSION:2.0\r\n" + String.join("", events) + "END:VCALENDAR\r\n",
+                StandardCharsets.UTF_8);
+    }
+
+    private static String event(String uid, String... properties) {
+        StringBuilder event = new StringBuilder("BEGIN:VEVENT\r\nUID:" + uid + "\r\nSUMMARY:" + uid + "\r\n");
+        for (String property : properties) {
+            event.append(property).append("\r\n");
+        }
+        // Alarms are nested components and must not leak into the event
+        return event.append("BEGIN:VALARM\r\nDTSTART:20300101T000000\r\nEND:VALARM\r\nEND:VEVENT\r\n").toString();
+    }
+
+    private Set<String> uids() {
+        return schedule.all().stream().map(PlannerEvent::uid).collect(Collectors.toSet());
+    }
+
+    private PlannerEvent event(String uid) {
+        return schedule.all().stream().filter(event -> event.uid().equals(uid)).findFirst().orElseThrow();
+    }
+
+    private Recurrence recurrence(String uid) {
+        return event(uid).recurrence();
+    }
+
+    private List<Long> starts() {
+        return schedule.between(at(2023, 1, 1, 0), at(2025, 1, 1, 0)).stream().map(Schedule.Occurrence::startMinute)
+                .sorted().toList();
+    }
+
+    private List<Long> starts(String title) {
+        return schedule.between(at(2023, 1, 1, 0), at(2025, 1, 1, 0)).stream()
+                .filter(occurrence -> occurrence.event().title().equals(title))
+                .map(Schedule.Occurrence::startMinute).sorted().toList();
+    }
+
+    private static Set<String> occurrences(Schedule schedule) {
+        Set<String> occurrences = new TreeSet<>();
+        for (Schedule.Occurrence occurrence : schedule.between(at(2023, 1, 1, 0), at(2025, 1, 1, 0))) {
+            occurrences.add(occurrence.startMinute() + "-" + occurrence.endMinute() + " " + occurrence.event().title());
+        }
+        return occurrences;
+    }
+
+    private static long at(int year, int month, int day, int hour) {
+        return PlannerEvent.toMinute(LocalDateTime.of(year, month, day, hour, 0));
+    }
+}
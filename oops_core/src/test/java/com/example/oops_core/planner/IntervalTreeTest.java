@@ -0,0 +1,94 @@
+package com.example.oops_core.planner;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntervalTreeTest {
+
+    private record Span(long start, long end, long id) {
+    }
+
+    @Test
+    void intervalsAreHalfOpen() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(60, 120, 1, "a");
+
+        assertNull(tree.anyOverlap(0, 60));
+        assertNull(tree.anyOverlap(120, 180));
+        assertEquals("a", tree.anyOverlap(119, 180));
+        assertEquals("a", tree.anyOverlap(0, 61));
+    }
+
+    @Test
+    void overlappingListsInStartOrder() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(30, 40, 3, "c");
+        tree.insert(10, 50, 1, "a");
+        tree.insert(20, 25, 2, "b");
+        tree.insert(60, 70, 4, "d");
+
+        List<String> found = new ArrayList<>();
+        tree.overlapping(22, 35, found::add);
+        assertEquals(List.of("a", "b", "c"), found);
+    }
+
+    @Test
+    void removeTakesOutOnlyTheMatchingInterval() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(10, 20, 1, "a");
+        tree.insert(10, 30, 2, "b");
+
+        assertFalse(tree.remove(10, 3));
+        assertFalse(tree.remove(11, 1));
+        assertTrue(tree.remove(10, 1));
+        assertEquals(1, tree.size());
+        assertEquals("b", tree.anyOverlap(20, 25));
+        assertNull(tree.anyOverlap(0, 10));
+    }
+
+    @Test
+    void matchesABruteForceScanThroughInsertsAndRemoves() {
+        Random random = new Random(42);
+        IntervalTree<Span> tree = new IntervalTree<>();
+        List<Span> spans = new ArrayList<>();
+        for (int step = 0; step < 5_000; step++) {
+            if (spans.isEmpty() || random.nextInt(3) > 0) {
+                long start = random.nextInt(10_000);
+                Span span = new Span(start, start + 1 + random.nextInt(300), step);
+                tree.insert(span.start(), span.end(), span.id(), span);
+                spans.add(span);
+            } else {
+                Span span = spans.remove(random.nextInt(spans.size()));
+                assertTrue(tree.remove(span.start(), span.id()));
+            }
+
+            long from = random.nextInt(10_000);
+            long to = from + random.nextInt(500);
+            List<Span> expected = new ArrayList<>();
+            for (Span span : spans) {
+                if (span.start() < to && span.end() > from) {
+                    expected.add(span);
+                }
+            }
+            List<Span> found = new ArrayList<>();
+            tree.overlapping(from, to, found::add);
+            assertEquals(expected.size(), found.size());
+            assertTrue(found.containsAll(expected));
+            if (expected.isEmpty()) {
+                assertNull(tree.anyOverlap(from, to));
+            } else {
+                assertNotNull(tree.anyOverlap(from, to));
+            }
+        }
+        assertEquals(spans.size(), tree.size());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.oops_core.planner;
+
+import com.example.oops_core.storage.RecordLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PlannerStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void encodeAndDecodeRoundTrip() {
+        PlannerEvent event = new PlannerEvent(7, "uid-7", "Läufer 🏃", 1_000, 1_060,
+                new Recurrence(Recurrence.Frequency.WEEKLY, 2, 10, 50_000));
+        ByteBuffer payload = PlannerStore.encode(event);
+        payload.get();
+
+        assertEquals(event, PlannerStore.decode(payload));
+        assertEquals(0, payload.remaining());
+    }
+
+    @Test
+    void changesSurviveReopen() throws IOException {
+        Path file = dir.resolve("planner.log");
+        Schedule schedule = new Schedule();
+        try (PlannerStore store = PlannerStore.open(file, schedule)) {
+            PlannerEvent gym = schedule.add("gym", 600, 660, Recurrence.daily());
+            PlannerEvent lunch = schedule.add("lunch", 720, 780, null);
+            schedule.put(lunch.withTitle("late lunch"));
+            schedule.remove(gym.id());
+        }
+
+        Schedule reopened = new Schedule();
+        PlannerStore.open(file, reopened).close();
+        assertEquals(1, reopened.size());
+        PlannerEvent lunch = reopened.all().iterator().next();
+        assertEquals("late lunch", lunch.title());
+        assertNull(lunch.recurrence());
+    }
+
+    @Test
+    void clearDropsEverythingBeforeIt() throws IOException {
+        Path file = dir.resolve("planner.log");
+        Schedule schedule = new Schedule();
+        try (PlannerStore store = PlannerStore.open(file, schedule)) {
+            schedule.add("a", 0, 60, null);
+            schedule.add("b", 60, 120, null);
+            schedule.clear();
+            schedule.add("c", 120, 180, null);
+        }
+
+        Schedule reopened = new Schedule();
+        PlannerStore.open(file, reopened).close();
+        assertEquals(List.of("c"), reopened.all().stream().map(PlannerEvent::title).toList());
+    }
+
+    @Test
+    void burstOfEditsToOneEventIsOneRecord() throws IOException {
+        Path file = dir.resolve("planner.log");
+        Schedule schedule = new Schedule();
+        try (PlannerStore store = PlannerStore.open(file, schedule)) {
+            PlannerEvent event = schedule.add("draft", 0, 60, null);
+            for (int i = 0; i < 100; i++) {
+                schedule.put(event.withTitle("draft " + i));
+            }
+        }
+
+        assertEquals(1, records(file));
+    }
+
+    @Test
+    void mostlySupersededLogIsCompacted() throws IOException {
+        Path file = dir.resolve("planner.log");
+        Schedule schedule = new Schedule();
+        try (PlannerStore store = PlannerStore.open(file, schedule)) {
+            for (int i = 0; i < 1_100; i++) {
+                schedule.add("event " + i, i * 5L, i * 5L + 5, null);
+            }
+        }
+        assertEquals(1_100, records(file));
+
+        Schedule reopened = new Schedule();
+        try (PlannerStore store = PlannerStore.open(file, reopened)) {
+            List<PlannerEvent> events = reopened.all().stream().sorted(Comparator.comparingLong(PlannerEvent::id)).toList();
+            for (PlannerEvent event : events.subList(0, 1_090)) {
+                reopened.remove(event.id());
+            }
+        }
+        assertEquals(10, records(file));
+
+        Schedule compacted = new Schedule();
+        PlannerStore.open(file, compacted).close();
+        assertEquals(10, compacted.size());
+    }
+
+    private static int records(Path file) throws IOException {
+        int[] count = {0};
+        RecordLog.replay(file, payload -> count[0]++);
+        return count[0];
+    }
+}
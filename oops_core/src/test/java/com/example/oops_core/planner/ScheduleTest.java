@@ -0,0 +1,151 @@
+package com.example.oops_core.planner;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScheduleTest {
+
+    private static final long DAY = Schedule.MINUTES_PER_DAY;
+    private static final long MONDAY = PlannerEvent.toMinute(LocalDateTime.of(2024, 1, 1, 0, 0));
+
+    @Test
+    void weeklyEventRepeatsInsideTheWindowOnly() {
+        Schedule schedule = new Schedule();
+        PlannerEvent gym = schedule.add("gym", MONDAY + 7 * 60, MONDAY + 8 * 60, Recurrence.weekly());
+
+        List<Schedule.Occurrence> occurrences = schedule.between(MONDAY + DAY, MONDAY + 22 * DAY);
+        assertEquals(List.of(
+                new Schedule.Occurrence(gym, MONDAY + 7 * DAY + 7 * 60, MONDAY + 7 * DAY + 8 * 60),
+                new Schedule.Occurrence(gym, MONDAY + 14 * DAY + 7 * 60, MONDAY + 14 * DAY + 8 * 60),
+                new Schedule.Occurrence(gym, MONDAY + 21 * DAY + 7 * 60, MONDAY + 21 * DAY + 8 * 60)), occurrences);
+        assertTrue(schedule.between(MONDAY - 7 * DAY, MONDAY).isEmpty());
+    }
+
+    @Test
+    void uidIndexFollowsPutsRemovesAndClear() {
+        Schedule schedule = new Schedule();
+        PlannerEvent first = schedule.add("cal-1", "standup", MONDAY + 9 * 60, MONDAY + 9 * 60 + 15, null);
+        PlannerEvent second = schedule.add("cal-1", "standup", MONDAY + DAY + 9 * 60, MONDAY + DAY + 9 * 60 + 15, null);
+        schedule.add("cal-2", "review", MONDAY + 14 * 60, MONDAY + 15 * 60, Recurrence.weekly());
+        assertEquals(List.of(first.id(), second.id()), schedule.idsWithUid("cal-1"));
+
+        schedule.remove(first.id());
+        assertEquals(List.of(second.id()), schedule.idsWithUid("cal-1"));
+        schedule.put(new PlannerEvent(second.id(), "cal-3", "moved", second.startMinute(), second.endMinute(), null));
+        assertTrue(schedule.idsWithUid("cal-1").isEmpty());
+        assertEquals(List.of(second.id()), schedule.idsWithUid("cal-3"));
+
+        schedule.clear();
+        assertTrue(schedule.idsWithUid("cal-2").isEmpty());
+        assertTrue(schedule.idsWithUid("cal-3").isEmpty());
+    }
+
+    @Test
+    void countAndUntilEndTheSeries() {
+        Schedule schedule = new Schedule();
+        schedule.add("three times", MONDAY, MONDAY + 60, new Recurrence(Recurrence.Frequency.DAILY, 1, 3, Long.MAX_VALUE));
+        schedule.add("until wednesday", MONDAY + 120, MONDAY + 180,
+                new Recurrence(Recurrence.Frequency.DAILY, 1, Recurrence.UNBOUNDED, MONDAY + 2 * DAY + 120));
+
+        List<Schedule.Occurrence> occurrences = schedule.between(MONDAY, MONDAY + 30 * DAY);
+        assertEquals(3, occurrences.stream().filter(o -> o.event().title().equals("three times")).count());
+        assertEquals(3, occurrences.stream().filter(o -> o.event().title().equals("until wednesday")).count());
+        assertEquals(MONDAY + 2 * DAY + 120, occurrences.get(occurrences.size() - 1).startMinute());
+    }
+
+    @Test
+    void eventCrossingMidnightIsFoundOnBothDays() {
+        Schedule schedule = new Schedule();
+        schedule.add("night shift", MONDAY + 23 * 60, MONDAY + DAY + 60, Recurrence.daily());
+
+        assertTrue(schedule.hasConflict(MONDAY + 3 * DAY + 30, MONDAY + 3 * DAY + 45));
+        assertTrue(schedule.hasConflict(MONDAY + 3 * DAY + 23 * 60, MONDAY + 3 * DAY + 23 * 60 + 5));
+        assertFalse(schedule.hasConflict(MONDAY + 3 * DAY + 60, MONDAY + 3 * DAY + 23 * 60));
+    }
+
+    @Test
+    void conflictsSkipTheEventBeingEdited() {
+        Schedule schedule = new Schedule();
+        PlannerEvent meeting = schedule.add("meeting", MONDAY + 9 * 60, MONDAY + 10 * 60, null);
+        PlannerEvent standup = schedule.add("standup", MONDAY + 9 * 60 + 30, MONDAY + 9 * 60 + 45, Recurrence.daily());
+
+        assertEquals(List.of(meeting, standup), schedule.conflicts(MONDAY + 9 * 60, MONDAY + 10 * 60, null, -1));
+        assertEquals(List.of(standup), schedule.conflicts(MONDAY + 9 * 60, MONDAY + 10 * 60, null, meeting.id()));
+        // A daily rule proposed from a week earlier first meets them on the Monday
+        long earlier = MONDAY - 7 * DAY + 9 * 60 + 40;
+        assertEquals(List.of(meeting, standup), schedule.conflicts(earlier, earlier + 10, Recurrence.daily(), -1));
+        assertEquals(List.of(standup), schedule.conflicts(earlier, earlier + 10, Recurrence.daily(), meeting.id()));
+    }
+
+    @Test
+    void removedAndReplacedEventsLeaveNoTrace() {
+        Schedule schedule = new Schedule();
+        PlannerEvent run = schedule.add("run", MONDAY + 6 * 60, MONDAY + 7 * 60, Recurrence.daily());
+        schedule.put(new PlannerEvent(run.id(), run.uid(), "run", MONDAY + 18 * 60, MONDAY + 19 * 60, null));
+
+        assertFalse(schedule.hasConflict(MONDAY + 6 * 60, MONDAY + 7 * 60));
+        assertTrue(schedule.hasConflict(MONDAY + 18 * 60, MONDAY + 19 * 60));
+        schedule.remove(run.id());
+        assertTrue(schedule.between(MONDAY, MONDAY + 7 * DAY).isEmpty());
+        assertEquals(0, schedule.size());
+    }
+
+    @Test
+    void findFreeSlotSkipsBusyTime() {
+        Schedule schedule = new Schedule();
+        schedule.add("work", MONDAY + 9 * 60, MONDAY + 17 * 60, null);
+
+        assertEquals(MONDAY + 8 * 60, schedule.findFreeSlot(MONDAY, MONDAY + DAY, 60, 8 * 60, 20 * 60));
+        assertEquals(MONDAY + 17 * 60, schedule.findFreeSlot(MONDAY, MONDAY + DAY, 2 * 60, 8 * 60, 20 * 60));
+        assertEquals(-1, schedule.findFreeSlot(MONDAY, MONDAY + DAY, 4 * 60, 8 * 60, 20 * 60));
+    }
+
+    @Test
+    void timesOffTheGridAreRejected() {
+        Schedule schedule = new Schedule();
+        assertThrows(IllegalArgumentException.class, () -> schedule.add("odd", MONDAY + 1, MONDAY + 60, null));
+    }
+
+    @Test
+    void recurringLookupsMatchExpandingEveryRule() {
+        Random random = new Random(7);
+        Schedule schedule = new Schedule();
+        List<PlannerEvent> rules = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Recurrence.Frequency frequency = random.nextBoolean() ? Recurrence.Frequency.DAILY : Recurrence.Frequency.WEEKLY;
+            Recurrence recurrence = new Recurrence(frequency, 1 + random.nextInt(3), random.nextInt(4) == 0 ? 5 : 0, Long.MAX_VALUE);
+            long start = MONDAY + 5L * random.nextInt((int) (60 * DAY / 5));
+            long duration = 5L * (1 + random.nextInt(recurrence.periodMinutes() > DAY * 7 ? 600 : 100));
+            if (i % 50 == 0) {
+                // Longer than its period, so every window may meet it
+                duration = recurrence.periodMinutes() + 60;
+            }
+            rules.add(schedule.add("rule " + i, start, start + duration, recurrence));
+        }
+        for (int i = 0; i < 50; i++) {
+            schedule.remove(rules.remove(random.nextInt(rules.size())).id());
+        }
+
+        for (int probe = 0; probe < 500; probe++) {
+            long from = MONDAY + 5L * random.nextInt((int) (120 * DAY / 5));
+            long to = from + 5L * (1 + random.nextInt(probe % 2 == 0 ? 24 : 3000));
+            int expected = 0;
+            for (PlannerEvent rule : rules) {
+                int[] count = {0};
+                rule.recurrence().occurrencesOverlapping(rule.startMinute(), rule.durationMinutes(), from, to, start -> count[0]++);
+                expected += count[0];
+            }
+            assertEquals(expected, schedule.between(from, to).size());
+            assertEquals(expected > 0, schedule.hasConflict(from, to));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.oops_core.profile;
+
+import com.example.oops_core.planner.PlannerEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProfileStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void pinEvictsTheLeastRecentlyUsedProfiles() throws IOException {
+        try (ProfileStore store = new ProfileStore(dir, 2)) {
+            Profile alice = store.open("alice").join();
+            Profile bob = store.open("bob").join();
+            Profile carol = store.open("carol").join();
+            assertEquals(3, store.hotCount());
+
+            store.pin(carol);
+
+            assertEquals(2, store.hotCount());
+            assertSame(bob, store.open("bob").join());
+            assertNotSame(alice, store.open("alice").join());
+        }
+    }
+
+    @Test
+    void usingAProfileMovesItToTheBackOfTheLine() throws IOException {
+        try (ProfileStore store = new ProfileStore(dir, 2)) {
+            Profile alice = store.open("alice").join();
+            Profile bob = store.open("bob").join();
+            store.open("alice").join();
+            Profile carol = store.open("carol").join();
+
+            store.pin(carol);
+
+            assertSame(alice, store.open("alice").join());
+            assertNotSame(bob, store.open("bob").join());
+        }
+    }
+
+    @Test
+    void thePinnedProfileIsNeverEvicted() throws IOException {
+        try (ProfileStore store = new ProfileStore(dir, 1)) {
+            Profile alice = store.open("alice").join();
+            store.pin(alice);
+            store.open("bob").join();
+            store.open("carol").join();
+
+            store.pin(alice);
+
+            assertEquals(1, store.hotCount());
+            assertSame(alice, store.open("alice").join());
+        }
+    }
+
+    @Test
+    void aLeasedProfileStaysUntilReleased() throws IOException {
+        try (ProfileStore store = new ProfileStore(dir, 1)) {
+            Profile alice = store.acquire("alice").join();
+            Profile bob = store.open("bob").join();
+            store.pin(bob);
+
+            assertEquals(2, store.hotCount());
+            assertSame(alice, store.open("alice").join());
+
+            store.release("Alice");
+
+            assertEquals(1, store.hotCount());
+            assertSame(bob, store.open("bob").join());
+            assertThrows(IllegalStateException.class, () -> store.release("alice"));
+        }
+    }
+
+    @Test
+    void anEvictedProfileIsSavedAndReloaded() throws IOException {
+        try (ProfileStore store = new ProfileStore(dir, 1)) {
+            Profile alice = store.open("alice").join();
+            alice.schedule().add("gym", 600, 660, null);
+            Profile bob = store.open("bob").join();
+            store.pin(bob);
+
+            Profile reloaded = store.open("alice").join();
+
+            assertNotSame(alice, reloaded);
+            assertEquals(List.of("gym"), reloaded.schedule().all().stream().map(PlannerEvent::title).toList());
+        }
+    }
+
+    @Test
+    void memberDirectories() {
+        assertEquals(dir, ProfileStore.dirFor(dir, "Default"));
+        assertEquals(dir.resolve("profiles").resolve("alice"), ProfileStore.dirFor(dir, " Alice "));
+        assertThrows(IllegalArgumentException.class, () -> ProfileStore.dirFor(dir, "../etc"));
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.oops_core.reminder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReminderSchedulerTest {
+
+    // 100 µs ticks: 6.4 ms fills level 0 and 410 ms level 1, so the delays below cascade through three levels
+    private final ReminderScheduler scheduler = new ReminderScheduler(100, TimeUnit.MICROSECONDS);
+
+    @AfterEach
+    void close() {
+        scheduler.close();
+    }
+
+    @Test
+    void remindersFireInDeadlineOrderAcrossLevels() throws InterruptedException {
+        List<Long> fired = Collections.synchronizedList(new ArrayList<>());
+        List<Long> early = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(4);
+        long started = System.nanoTime();
+        for (long delay : new long[]{600, 2, 40, 0}) {
+            scheduler.schedule(delay, TimeUnit.MILLISECONDS, () -> {
+                if (System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(delay)) {
+                    early.add(delay);
+                }
+                fired.add(delay);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(0L, 2L, 40L, 600L), fired);
+        assertEquals(List.of(), early);
+        awaitIdle();
+    }
+
+    @Test
+    void cancelledReminderNeverRuns() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        Reminder near = scheduler.schedule(30, TimeUnit.MILLISECONDS, runs::incrementAndGet);
+        Reminder far = scheduler.schedule(500, TimeUnit.MILLISECONDS, runs::incrementAndGet);
+        CountDownLatch after = new CountDownLatch(1);
+        scheduler.schedule(700, TimeUnit.MILLISECONDS, after::countDown);
+        near.cancel();
+        Thread.sleep(100);
+        far.cancel();
+
+        assertTrue(after.await(5, TimeUnit.SECONDS));
+        assertEquals(0, runs.get());
+        assertTrue(near.isDone());
+        assertTrue(far.isDone());
+        awaitIdle();
+    }
+
+    @Test
+    void fixedRateRepeatsUntilCancelled() throws InterruptedException {
+        CountDownLatch three = new CountDownLatch(3);
+        Reminder reminder = scheduler.scheduleAtFixedRate(0, 20, TimeUnit.MILLISECONDS, three::countDown);
+
+        assertTrue(three.await(5, TimeUnit.SECONDS));
+        assertFalse(reminder.isDone());
+        reminder.cancel();
+        assertTrue(reminder.isDone());
+    }
+
+    @Test
+    void failingTaskDoesNotStopTheScheduler() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        scheduler.schedule(1, TimeUnit.MILLISECONDS, () -> {
+            throw new IllegalStateException("boom");
+        });
+        scheduler.schedule(5, TimeUnit.MILLISECONDS, ran::countDown);
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void closedSchedulerRejectsNewReminders() {
+        scheduler.close();
+        assertThrows(IllegalStateException.class, () -> scheduler.schedule(1, TimeUnit.SECONDS, () -> { }));
+    }
+
+    // A reminder is finished just after its task returns
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.activeCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, scheduler.activeCount());
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.oops_core.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchIndexTest {
+
+    @Test
+    void tokensAreLowerCasedWordsAndNumbers() {
+        assertEquals(List.of("2", "eggs", "on", "toast", "café"), SearchIndex.tokenize("2 Eggs-on TOAST, café!"));
+        assertEquals(List.of(), SearchIndex.tokenize(" ,.- "));
+    }
+
+    @Test
+    void everyWordMustMatchAndTheLastIsAlsoAPrefix() {
+        SearchIndex index = new SearchIndex();
+        index.put(1, "chicken salad");
+        index.put(2, "chicken soup");
+        index.put(3, "salmon salad");
+
+        assertEquals(Set.of(1L), keys(index.search("salad chicken", 10)));
+        assertEquals(Set.of(1L, 3L), keys(index.search("sal", 10)));
+        assertEquals(Set.of(1L, 3L), keys(index.search("sa", 10)));
+        // A finished word (followed by a space) is not expanded
+        assertEquals(Set.of(), keys(index.search("sal ", 10)));
+        assertEquals(Set.of(), keys(index.search("chicken pasta", 10)));
+    }
+
+    @Test
+    void wholeWordRanksAboveAPrefixMatch() {
+        SearchIndex index = new SearchIndex();
+        index.put(1, "tea");
+        index.put(2, "teacake");
+
+        List<SearchIndex.Hit> hits = index.search("tea", 10);
+        assertEquals(List.of(1L, 2L), hits.stream().map(SearchIndex.Hit::key).toList());
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+    }
+
+    @Test
+    void tiesGoToTheNewerKeyAndLimitCuts() {
+        SearchIndex index = new SearchIndex();
+        for (long key = 1; key <= 5; key++) {
+            index.put(key, "oatmeal");
+        }
+        assertEquals(List.of(5L, 4L), index.search("oatmeal", 2).stream().map(SearchIndex.Hit::key).toList());
+    }
+
+    @Test
+    void putReplacesAndRemoveForgets() {
+        SearchIndex index = new SearchIndex();
+        index.put(1, "banana bread");
+        index.put(1, "apple pie");
+        assertEquals(1, index.size());
+        assertEquals(Set.of(), keys(index.search("banana", 10)));
+        assertEquals(Set.of(1L), keys(index.search("apple", 10)));
+
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        assertFalse(index.contains(1));
+        assertEquals(List.of(), index.search("apple", 10));
+    }
+
+    @Test
+    void resultsStayRightThroughPurges() {
+        SearchIndex index = new SearchIndex();
+        for (long key = 0; key < 6_000; key++) {
+            index.put(key, "entry " + key + (key % 3 == 0 ? " fizz" : ""));
+        }
+        for (long key = 0; key < 6_000; key += 2) {
+            index.remove(key);
+        }
+        index.removeIf(key -> key % 5 == 0);
+
+        Set<Long> expected = new HashSet<>();
+        for (long key = 1; key < 6_000; key += 2) {
+            if (key % 3 == 0 && key % 5 != 0) {
+                expected.add(key);
+            }
+        }
+        assertEquals(expected, keys(index.search("fizz", 10_000)));
+        assertEquals(Set.of(4_999L), keys(index.search("entry 4999", 10)));
+        assertEquals(Set.of(), keys(index.search("entry 4998", 10)));
+    }
+
+    @Test
+    void writeAndReadGiveTheSameResults() throws IOException {
+        SearchIndex index = new SearchIndex();
+        index.put(10, "greek yogurt with honey");
+        index.put(20, "honey roasted peanuts");
+        index.put(30, "plain yogurt");
+        index.remove(30);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.write(new DataOutputStream(bytes));
+        SearchIndex read = new SearchIndex();
+        read.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(2, read.size());
+        for (String query : List.of("honey", "yog", "peanuts", "plain")) {
+            assertEquals(index.search(query, 10), read.search(query, 10));
+        }
+        read.put(40, "honey cake");
+        assertEquals(3, read.search("honey", 10).size());
+    }
+
+    private static Set<Long> keys(List<SearchIndex.Hit> hits) {
+        Set<Long> keys = new HashSet<>();
+        for (SearchIndex.Hit hit : hits) {
+            keys.add(hit.key());
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.oops_core.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HealthServerTest {
+
+    private HealthServer server;
+
+    // java.net.http is not in the module graph, so the plain HttpURLConnection does the requests
+    private record Response(int statusCode, String body, String allow) {
+    }
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HealthServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void batchEvaluatesEachMemberAndReportsBadOnes() throws IOException {
+        Response response = post("/v1/health/batch", """
+                {"members": [
+                  {"id": "a", "heightCm": 180, "weightKg": 81, "age": 30, "sex": "M"},
+                  {"id": "b", "heightCm": 0, "weightKg": 60},
+                  42
+                ]}""");
+
+        assertEquals(200, response.statusCode());
+        Map<?, ?> body = (Map<?, ?>) Json.parse(response.body());
+        assertEquals(3.0, body.get("count"));
+        List<?> results = (List<?>) body.get("results");
+        Map<?, ?> first = (Map<?, ?>) results.get(0);
+        assertEquals("a", first.get("id"));
+        assertEquals(25.0, (Double) first.get("bmi"), 1e-9);
+        assertTrue(first.containsKey("bmr"));
+        assertTrue(first.containsKey("goal"));
+        assertEquals(Map.of("error", "heightCm must be a positive number", "id", "b"), results.get(1));
+        assertEquals(Map.of("error", "Expected a JSON object"), results.get(2));
+    }
+
+    @Test
+    void aBareArrayIsABatchToo() throws IOException {
+        Response response = post("/v1/health/batch", "[{\"heightCm\": 160, \"weightKg\": 64}]");
+
+        assertEquals(200, response.statusCode());
+        assertEquals(1.0, ((Map<?, ?>) Json.parse(response.body())).get("count"));
+    }
+
+    @Test
+    void malformedJsonIs400() throws IOException {
+        Response response = post("/v1/health", "{\"heightCm\": ");
+
+        assertEquals(400, response.statusCode());
+        assertTrue(error(response).startsWith("Malformed JSON"), response.body());
+        assertEquals(400, post("/v1/health/batch", "{\"people\": []}").statusCode());
+    }
+
+    @Test
+    void wrongMethodIs405() throws IOException {
+        Response response = send("GET", "/v1/health", null);
+
+        assertEquals(405, response.statusCode());
+        assertEquals("POST", response.allow());
+    }
+
+    @Test
+    void oversizedBodyAndBatchAre413() throws IOException {
+        Response tooLarge = post("/v1/health", " ".repeat(HealthServer.MAX_BODY_BYTES + 1));
+        assertEquals(413, tooLarge.statusCode());
+
+        String members = "[" + "{},".repeat(HealthServer.MAX_BATCH) + "{}]";
+        Response tooMany = post("/v1/health/batch", members);
+        assertEquals(413, tooMany.statusCode());
+        assertEquals("At most " + HealthServer.MAX_BATCH + " members per batch", error(tooMany));
+    }
+
+    private Response post(String path, String body) throws IOException {
+        return send("POST", path, body);
+    }
+
+    private Response send(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) URI.create("http://127.0.0.1:" + server.port() + path)
+                .toURL().openConnection();
+        try {
+            connection.setRequestMethod(method);
+            if (body != null) {
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                connection.setDoOutput(true);
+                connection.setFixedLengthStreamingMode(bytes.length);
+                connection.setRequestProperty("Content-Type", "application/json");
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(bytes);
+                }
+            }
+            int status = connection.getResponseCode();
+            InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            String text = in == null ? "" : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return new Response(status, text, connection.getHeaderField("Allow"));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static String error(Response response) {
+        return (String) ((Map<?, ?>) Json.parse(response.body())).get("error");
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.oops_core.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonTest {
+
+    @Test
+    void parsesNestedValues() {
+        Object parsed = Json.parse(" {\"a\": [1, 2.5, -3e2], \"b\": {\"c\": true, \"d\": null}, \"e\": false}\n");
+
+        Map<String, Object> inner = new LinkedHashMap<>();
+        inner.put("c", true);
+        inner.put("d", null);
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("a", List.of(1.0, 2.5, -300.0));
+        expected.put("b", inner);
+        expected.put("e", false);
+        assertEquals(expected, parsed);
+        assertEquals(List.of(), Json.parse("[]"));
+        assertEquals(Map.of(), Json.parse("{ }"));
+    }
+
+    @Test
+    void decodesEscapes() {
+        assertEquals("quote \" slash / back \\ tab \t line \n é",
+                Json.parse("\"quote \\\" slash \\/ back \\\\ tab \\t line \\n \\u00e9\""));
+    }
+
+    @Test
+    void writeEscapesWhatParseDecodes() {
+        String text = "a\"b\\c\nd\re\tf\u0001g";
+        String written = Json.write(text);
+
+        assertEquals("\"a\\\"b\\\\c\\nd\\re\\tf\\u0001g\"", written);
+        assertEquals(text, Json.parse(written));
+    }
+
+    @Test
+    void writesWholeNumbersWithoutAFraction() {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("whole", 42.0);
+        value.put("fraction", 0.5);
+        value.put("nan", Double.NaN);
+        value.put("list", Arrays.asList(1, null, "x"));
+
+        assertEquals("{\"whole\":42,\"fraction\":0.5,\"nan\":null,\"list\":[1,null,\"x\"]}", Json.write(value));
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        for (String bad : List.of("", "{", "[1,]", "{\"a\" 1}", "{a:1}", "\"open", "\"bad \\q\"", "\"\\u12\"",
+                "tru", "1 2", "[1] x", "-", "{\"a\":1,}")) {
+            assertThrows(IllegalArgumentException.class, () -> Json.parse(bad), bad);
+        }
+    }
+
+    @Test
+    void rejectsDeepNesting() {
+        String deep = "[".repeat(65) + "]".repeat(65);
+        assertThrows(IllegalArgumentException.class, () -> Json.parse(deep));
+
+        String allowed = "[".repeat(64) + "]".repeat(64);
+        Object value = Json.parse(allowed);
+        int depth = 0;
+        while (value instanceof List<?> list && !list.isEmpty()) {
+            value = list.get(0);
+            depth++;
+        }
+        assertEquals(63, depth);
+        assertEquals(new ArrayList<>(), value);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.oops_core.sleep;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SleepHistoryTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void debtCarriesOverButIsNeverBanked() throws IOException {
+        try (SleepHistory history = SleepHistory.open(dir.resolve("sleep.log"))) {
+            assertNull(history.lastNight());
+            history.put(START, 6 * 60);
+            history.put(START.plusDays(1), 7 * 60);
+            assertEquals(180, history.debtMinutes());
+            history.put(START.plusDays(2), 12 * 60);
+            assertEquals(0, history.debtMinutes());
+            history.put(START.plusDays(3), 7 * 60);
+            assertEquals(60, history.debtMinutes());
+            assertEquals(START.plusDays(3), history.lastNight());
+        }
+    }
+
+    @Test
+    void averagesCoverTheirWindowsOnly() throws IOException {
+        try (SleepHistory history = SleepHistory.open(dir.resolve("sleep.log"))) {
+            for (int i = 0; i < 100; i++) {
+                history.put(START.plusDays(i), i < 90 ? 6 * 60 : 8 * 60);
+            }
+            assertEquals(8 * 60, history.average(0), 1e-9);
+            assertEquals((10 * 480 + 20 * 360) / 30.0, history.average(1), 1e-9);
+            assertEquals((10 * 480 + 80 * 360) / 90.0, history.average(2), 1e-9);
+            assertEquals(0, history.windowDebtMinutes(0));
+            assertEquals(20 * 120, history.windowDebtMinutes(1));
+        }
+    }
+
+    @Test
+    void correctingAnOlderNightReplaysTheDebt() throws IOException {
+        try (SleepHistory history = SleepHistory.open(dir.resolve("sleep.log"))) {
+            history.put(START, 8 * 60);
+            history.put(START.plusDays(1), 8 * 60);
+            history.put(START, 5 * 60);
+            assertEquals(180, history.debtMinutes());
+            history.put(START.plusDays(1), 9 * 60);
+            assertEquals(120, history.debtMinutes());
+            assertEquals(2, history.loggedNights());
+        }
+    }
+
+    @Test
+    void importMatchesLoggingNightByNightAndSurvivesReopen() throws IOException {
+        long[] days = new long[40];
+        int[] minutes = new int[40];
+        for (int i = 0; i < days.length; i++) {
+            // Newest first, with a gap, the way an export may list them
+            days[i] = START.plusDays(45 - i - (i > 20 ? 5 : 0)).toEpochDay();
+            minutes[i] = 300 + i * 7;
+        }
+        Path file = dir.resolve("sleep.log");
+        try (SleepHistory imported = SleepHistory.open(file);
+             SleepHistory oneByOne = SleepHistory.open(dir.resolve("other.log"))) {
+            imported.setGoalMinutes(7 * 60);
+            oneByOne.setGoalMinutes(7 * 60);
+            imported.putAll(days, minutes, days.length);
+            for (int i = days.length - 1; i >= 0; i--) {
+                oneByOne.put(LocalDate.ofEpochDay(days[i]), minutes[i]);
+            }
+            assertSameState(oneByOne, imported);
+        }
+
+        try (SleepHistory reopened = SleepHistory.open(file)) {
+            assertEquals(7 * 60, reopened.goalMinutes());
+            assertEquals(40, reopened.loggedNights());
+            assertEquals(minutes[0], reopened.night(LocalDate.ofEpochDay(days[0])));
+            assertEquals(-1, reopened.night(START.minusDays(1)));
+        }
+    }
+
+    private static void assertSameState(SleepHistory expected, SleepHistory actual) {
+        assertEquals(expected.lastNight(), actual.lastNight());
+        assertEquals(expected.loggedNights(), actual.loggedNights());
+        assertEquals(expected.debtMinutes(), actual.debtMinutes());
+        for (int window = 0; window < SleepHistory.WINDOW_DAYS.length; window++) {
+            assertEquals(expected.average(window), actual.average(window), 1e-9);
+            assertEquals(expected.windowDebtMinutes(window), actual.windowDebtMinutes(window));
+        }
+    }
+}
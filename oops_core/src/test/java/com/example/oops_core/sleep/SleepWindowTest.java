@@ -0,0 +1,86 @@
+package com.example.oops_core.sleep;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SleepWindowTest {
+
+    @Test
+    void nightsOutsideTheWindowAreIgnored() {
+        SleepWindow window = new SleepWindow(7);
+        window.set(100, 480);
+        assertEquals(0, window.logged());
+
+        window.advanceTo(100);
+        window.set(101, 480);
+        window.set(93, 480);
+        window.set(94, 420);
+        window.set(100, 450);
+        assertEquals(2, window.logged());
+        assertEquals(870, window.sum());
+    }
+
+    @Test
+    void correctingANightReplacesIt() {
+        SleepWindow window = new SleepWindow(7);
+        window.advanceTo(10);
+        window.set(10, 300);
+        window.set(10, 420);
+        assertEquals(1, window.logged());
+        assertEquals(420, window.sum());
+    }
+
+    @Test
+    void advancingDropsOnlyTheDaysThatLeave() {
+        SleepWindow window = new SleepWindow(3);
+        window.advanceTo(5);
+        window.set(3, 100);
+        window.set(4, 200);
+        window.set(5, 300);
+
+        window.advanceTo(6);
+        assertEquals(500, window.sum());
+        window.advanceTo(4);
+        assertEquals(500, window.sum());
+        window.advanceTo(100);
+        assertEquals(0, window.logged());
+        assertEquals(0, window.sum());
+    }
+
+    @Test
+    void matchesSummingTheWindowDirectly() {
+        Random random = new Random(15);
+        SleepWindow window = new SleepWindow(30);
+        Map<Long, Integer> nights = new HashMap<>();
+        long end = -5;
+        window.advanceTo(end);
+        for (int step = 0; step < 20_000; step++) {
+            if (random.nextInt(4) == 0) {
+                end += random.nextInt(10) == 0 ? random.nextInt(60) : 1;
+                window.advanceTo(end);
+            }
+            long day = end - random.nextInt(35);
+            int minutes = random.nextInt(12 * 60);
+            window.set(day, minutes);
+            if (day > end - 30) {
+                nights.put(day, minutes);
+            }
+
+            long sum = 0;
+            int logged = 0;
+            for (Map.Entry<Long, Integer> night : nights.entrySet()) {
+                if (night.getKey() > end - 30) {
+                    sum += night.getValue();
+                    logged++;
+                }
+            }
+            assertEquals(sum, window.sum());
+            assertEquals(logged, window.logged());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.oops_core.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecordLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysRecordsInOrder() throws IOException {
+        Path file = dir.resolve("log.wal");
+        write(file, "one", "two", "three");
+
+        assertEquals(List.of("one", "two", "three"), read(file));
+        assertEquals(Files.size(file), RecordLog.replay(file, payload -> { }));
+    }
+
+    @Test
+    void tornTailIsDroppedAndCutOffOnOpen() throws IOException {
+        Path file = dir.resolve("log.wal");
+        write(file, "one", "two");
+        long valid = Files.size(file);
+        // A crash in the middle of the third record: its header and half its payload
+        ByteBuffer torn = ByteBuffer.allocate(2 * Integer.BYTES + 2).putInt(4).putInt(0x1234).put((byte) 't').put((byte) 'h');
+        Files.write(file, torn.array(), StandardOpenOption.APPEND);
+
+        assertEquals(valid, RecordLog.replay(file, payload -> { }));
+        assertEquals(List.of("one", "two"), read(file));
+
+        try (RecordLog log = RecordLog.openForAppend(file)) {
+            assertEquals(valid, log.size());
+            log.append(utf8("three"));
+        }
+        assertEquals(List.of("one", "two", "three"), read(file));
+    }
+
+    @Test
+    void openingAtAKnownLengthCutsOffWithoutReplaying() throws IOException {
+        Path file = dir.resolve("log.wal");
+        write(file, "one", "two");
+        long valid = RecordLog.replay(file, payload -> { });
+        Files.write(file, new byte[]{0, 0, 0}, StandardOpenOption.APPEND);
+
+        try (RecordLog log = RecordLog.openForAppend(file, valid)) {
+            assertEquals(valid, log.size());
+            log.append(utf8("three"));
+        }
+        assertEquals(List.of("one", "two", "three"), read(file));
+    }
+
+    @Test
+    void replayFromAnOffsetReadsOnlyLaterRecords() throws IOException {
+        Path file = dir.resolve("log.wal");
+        write(file, "one");
+        long first = Files.size(file);
+        try (RecordLog log = RecordLog.openForAppend(file)) {
+            log.append(utf8("two"));
+            log.append(utf8("three"));
+        }
+
+        List<String> later = new ArrayList<>();
+        long end = RecordLog.replay(file, first, payload -> later.add(string(payload)));
+        assertEquals(List.of("two", "three"), later);
+        assertEquals(Files.size(file), end);
+    }
+
+    @Test
+    void badChecksumEndsTheReplay() throws IOException {
+        Path file = dir.resolve("log.wal");
+        write(file, "one", "two");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+
+        assertEquals(List.of("one"), read(file));
+    }
+
+    @Test
+    void streamReplayLeavesATornTailInPlace() throws IOException {
+        Path file = dir.resolve("log.wal");
+        write(file, "one");
+        Files.write(file, new byte[]{0, 0}, StandardOpenOption.APPEND);
+        long size = Files.size(file);
+
+        try (InputStream in = Files.newInputStream(file)) {
+            assertEquals(size - 2, RecordLog.replay(in, payload -> { }));
+        }
+        assertEquals(size, Files.size(file));
+    }
+
+    private static void write(Path file, String... records) throws IOException {
+        try (RecordLog log = RecordLog.openForAppend(file)) {
+            for (String record : records) {
+                log.append(utf8(record));
+            }
+        }
+    }
+
+    private static List<String> read(Path file) throws IOException {
+        List<String> records = new ArrayList<>();
+        RecordLog.replay(file, payload -> records.add(string(payload)));
+        return records;
+    }
+
+    private static ByteBuffer utf8(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String string(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.oops_core.sync;
+
+import com.example.oops_core.calorie.CalorieEntry;
+import com.example.oops_core.calorie.FoodLog;
+import com.example.oops_core.planner.PlannerEvent;
+import com.example.oops_core.planner.Recurrence;
+import com.example.oops_core.planner.Schedule;
+import com.example.oops_core.profile.Profile;
+import com.example.oops_core.profile.ProfileStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SyncAgentTest {
+
+    private static final long MONDAY = 28_401_120; // 2024-01-01T00:00 in planner minutes
+    private static final long DAY = Schedule.MINUTES_PER_DAY;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void twoInstallsConvergeThroughAFolder() throws IOException {
+        Path shared = dir.resolve("shared");
+        try (ProfileStore laptop = new ProfileStore(dir.resolve("laptop"), 2);
+             ProfileStore phone = new ProfileStore(dir.resolve("phone"), 2)) {
+            Profile a = laptop.open("bob").join();
+            Profile b = phone.open("bob").join();
+            assertNotEquals(a.sync().replica(), b.sync().replica());
+
+            PlannerEvent gym = a.schedule().add("gym", MONDAY + 7 * 60, MONDAY + 8 * 60, Recurrence.weekly());
+            PlannerEvent dentist = a.schedule().add("dentist", MONDAY + 10 * 60, MONDAY + 11 * 60, null);
+            food(a, "oatmeal", 300, 1_000);
+            food(b, "apple", 52, 2_000);
+            b.schedule().add("run", MONDAY + DAY + 6 * 60, MONDAY + DAY + 7 * 60, Recurrence.daily());
+            sync(a, shared);
+            sync(b, shared);
+
+            // Concurrent edits: the laptop renames the gym and drops the dentist while the phone moves the gym
+            a.schedule().put(gym.withTitle("gym (legs)"));
+            a.schedule().remove(dentist.id());
+            PlannerEvent phoneGym = find(b, gym.uid());
+            b.schedule().put(new PlannerEvent(phoneGym.id(), phoneGym.uid(), phoneGym.title(), MONDAY + 18 * 60,
+                    MONDAY + 19 * 60, phoneGym.recurrence()));
+            food(b, "apple", 52, 2_000);
+            sync(b, shared);
+            sync(a, shared);
+            sync(b, shared);
+
+            // Whichever edit of the gym wins, it wins on both; the dentist stays removed
+            assertEquals(planner(a), planner(b));
+            assertEquals(2, a.schedule().size());
+            assertFalse(planner(a).containsKey(dentist.uid()));
+            assertEquals(List.of("1000 oatmeal 300.0", "2000 apple 52.0", "2000 apple 52.0"), rows(a));
+            assertEquals(rows(a), rows(b));
+
+            // Nothing new: nothing moves
+            SyncAgent.Report again = sync(a, shared);
+            assertEquals(0, again.sent());
+            assertEquals(0, again.applied().applied());
+        }
+    }
+
+    @Test
+    void twoInstallsConvergeOverASocket() throws IOException, InterruptedException {
+        try (ProfileStore laptop = new ProfileStore(dir.resolve("laptop"), 2);
+             ProfileStore phone = new ProfileStore(dir.resolve("phone"), 2)) {
+            Profile a = laptop.open("bob").join();
+            Profile b = phone.open("bob").join();
+            a.schedule().add("reading", MONDAY + 21 * 60, MONDAY + 22 * 60, Recurrence.daily());
+            food(a, "bread", 250, 5_000);
+            b.schedule().add("standup", MONDAY + 9 * 60, MONDAY + 9 * 60 + 15, Recurrence.weekly());
+            food(b, "milk", 62, 6_000);
+
+            LinkedBlockingQueue<SyncAgent.Applied> served = new LinkedBlockingQueue<>();
+            try (SyncServer server = SyncServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                    member -> phone.acquire(member).thenApply(Profile::sync), phone::release, Runnable::run,
+                    served::add)) {
+                SyncAgent.Report report = SocketTransport.sync(a.sync(), "127.0.0.1", server.port(), Runnable::run).join();
+                assertEquals(2, report.received());
+                assertEquals(2, report.sent());
+                assertNotNull(served.poll(10, TimeUnit.SECONDS));
+            }
+
+            assertEquals(planner(a), planner(b));
+            assertEquals(2, a.schedule().size());
+            assertEquals(List.of("5000 bread 250.0", "6000 milk 62.0"), rows(a));
+            assertEquals(rows(a), rows(b));
+        }
+    }
+
+    @Test
+    void copiedProfileMatchesItsEntriesOnceAndKeepsRealDuplicates() throws IOException {
+        Path laptopRoot = dir.resolve("laptop");
+        Path phoneRoot = dir.resolve("phone");
+        Path shared = dir.resolve("shared");
+        try (ProfileStore laptop = new ProfileStore(laptopRoot, 2)) {
+            Profile a = laptop.open("bob").join();
+            // Logged twice on purpose: two entries, not one
+            food(a, "apple", 50, 1_000);
+            food(a, "apple", 50, 1_000);
+            food(a, "pear", 70, 2_000);
+        }
+        // A new install set up from a copy of the profile, made before it ever synced
+        copy(laptopRoot, phoneRoot);
+        deleteTree(phoneRoot.resolve("profiles/bob/sync"));
+        deleteTree(laptopRoot.resolve("profiles/bob/sync"));
+
+        try (ProfileStore laptop = new ProfileStore(laptopRoot, 2);
+             ProfileStore phone = new ProfileStore(phoneRoot, 2)) {
+            Profile a = laptop.open("bob").join();
+            Profile b = phone.open("bob").join();
+            food(b, "kiwi", 30, 3_000);
+            sync(a, shared);
+            sync(b, shared);
+            sync(a, shared);
+
+            List<String> expected = List.of("1000 apple 50.0", "1000 apple 50.0", "2000 pear 70.0", "3000 kiwi 30.0");
+            assertEquals(expected, rows(a));
+            assertEquals(expected, rows(b));
+
+            // The one-time matching is over: the same entry logged on both sides now counts twice
+            food(a, "apple", 50, 1_000);
+            food(b, "apple", 50, 1_000);
+            sync(a, shared);
+            sync(b, shared);
+            sync(a, shared);
+            assertEquals(6, rows(a).size());
+            assertEquals(rows(a), rows(b));
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            assertFalse(files.anyMatch(file -> file.getFileName().toString().equals("pending-food")));
+        }
+    }
+
+    @Test
+    void opsThatCouldNotBeSavedAreTakenOnceByTheNextSync() throws IOException {
+        Path shared = dir.resolve("shared");
+        try (ProfileStore laptop = new ProfileStore(dir.resolve("laptop"), 2);
+             ProfileStore phone = new ProfileStore(dir.resolve("phone"), 2)) {
+            Profile a = laptop.open("bob").join();
+            Profile b = phone.open("bob").join();
+            b.schedule().add("swim", MONDAY + 7 * 60, MONDAY + 8 * 60, Recurrence.weekly());
+            food(b, "banana", 89, 1_000);
+            food(b, "yoghurt", 60, 2_000);
+            sync(b, shared);
+
+            // A directory where the laptop's copy of the phone's ops goes makes every append fail
+            Path blocked = a.sync().dir().resolve("ops").resolve(Long.toHexString(b.sync().replica()) + ".ops");
+            Files.createDirectories(blocked);
+            SyncAgent.Report failed = sync(a, shared);
+            assertNotNull(failed.applied().failure());
+            assertEquals(0, failed.applied().applied());
+            assertEquals(0, a.schedule().size());
+            assertEquals(List.of(), rows(a));
+
+            // The folder cursors did not move, so the next sync reads the same ops and takes each once
+            Files.delete(blocked);
+            SyncAgent.Report retried = sync(a, shared);
+            assertNull(retried.applied().failure());
+            assertEquals(3, retried.applied().applied());
+            assertEquals(planner(b), planner(a));
+            assertEquals(List.of("1000 banana 89.0", "2000 yoghurt 60.0"), rows(a));
+        }
+    }
+
+    private static SyncAgent.Report sync(Profile profile, Path shared) {
+        return FolderTransport.sync(profile.sync(), shared, Runnable::run).join();
+    }
+
+    private static void food(Profile profile, String food, double kcal, long timeMillis) {
+        CalorieEntry entry = profile.calorieJournal().append(timeMillis, food, 100, kcal, false);
+        profile.calorieLog().add(entry);
+        profile.sync().foodAdded(entry);
+    }
+
+    private static PlannerEvent find(Profile profile, String uid) {
+        return profile.schedule().all().stream().filter(event -> event.uid().equals(uid)).findFirst().orElseThrow();
+    }
+
+    // Events by uid; local ids differ between installs
+    private static Map<String, String> planner(Profile profile) {
+        Map<String, String> events = new TreeMap<>();
+        for (PlannerEvent event : profile.schedule().all()) {
+            events.put(event.uid(), event.title() + " " + event.startMinute() + "-" + event.endMinute() + " " + event.recurrence());
+        }
+        return events;
+    }
+
+    private static List<String> rows(Profile profile) {
+        FoodLog log = profile.calorieLog();
+        List<String> rows = new ArrayList<>();
+        for (int row = 0; row < log.size(); row++) {
+            rows.add(log.timeMillis(row) + " " + log.food(row) + " " + log.calories(row));
+        }
+        Collections.sort(rows);
+        return rows;
+    }
+
+    private static void copy(Path from, Path to) throws IOException {
+        try (Stream<Path> files = Files.walk(from)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Path target = to.resolve(from.relativize(file).toString());
+                if (Files.isDirectory(file)) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.copy(file, target);
+                }
+            }
+        }
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
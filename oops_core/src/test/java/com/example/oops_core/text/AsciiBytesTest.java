@@ -0,0 +1,45 @@
+package com.example.oops_core.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsciiBytesTest {
+
+    @Test
+    void datesMatchTheCalendar() {
+        for (LocalDate date = LocalDate.of(1899, 12, 1); date.getYear() < 2101; date = date.plusDays(1)) {
+            int year = date.getYear();
+            int month = date.getMonthValue();
+            assertTrue(AsciiBytes.isDate(year, month, date.getDayOfMonth()), date.toString());
+            assertEquals(date.lengthOfMonth(), AsciiBytes.daysInMonth(year, month), date.toString());
+            assertEquals(date.toEpochDay(), AsciiBytes.daysFromCivil(year, month, date.getDayOfMonth()));
+        }
+        assertFalse(AsciiBytes.isDate(2023, 2, 29));
+        assertFalse(AsciiBytes.isDate(1900, 2, 29));
+        assertTrue(AsciiBytes.isDate(2000, 2, 29));
+        assertFalse(AsciiBytes.isDate(2024, 4, 31));
+        assertFalse(AsciiBytes.isDate(2024, 13, 1));
+        assertFalse(AsciiBytes.isDate(2024, 1, 0));
+    }
+
+    @Test
+    void digitsAndTrimming() {
+        byte[] data = "\" 2024-x\" ".getBytes(StandardCharsets.US_ASCII);
+        int from = AsciiBytes.trimStart(data, 0, data.length);
+        int to = AsciiBytes.trimEnd(data, from, data.length);
+
+        assertEquals(2, from);
+        assertEquals(8, to);
+        assertEquals(2024, AsciiBytes.digits(data, from, 4));
+        assertEquals(-1, AsciiBytes.digits(data, from, 5));
+        assertEquals(-1, AsciiBytes.digits(data, data.length - 1, 2));
+        assertEquals(6, AsciiBytes.indexOf(data, (byte) '-', from, to));
+        assertEquals(-1, AsciiBytes.indexOf(data, (byte) '-', 0, 6));
+    }
+}